@@ -0,0 +1,118 @@
+package com.docsearch.admission;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Servlet filter that puts requests through the {@link AdmissionScheduler} before they
+ * reach a controller.
+ * <p>
+ * Requests outside the admitted endpoints pass through untouched. A rejected request
+ * is answered before its body is read: 429 when its queue is full, 503 when it would
+ * wait or has waited too long, both with a {@code Retry-After} header in seconds.
+ * For asynchronous requests such as the {@code /ask} event stream, the permit is held
+ * until the async request completes.
+ */
+@Slf4j
+public class AdmissionFilter extends OncePerRequestFilter {
+
+    private final AdmissionScheduler scheduler;
+
+    public AdmissionFilter(AdmissionScheduler scheduler) {
+        this.scheduler = scheduler;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        WorkloadClass workloadClass = classify(request);
+        if (workloadClass == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        AdmissionScheduler.Permit permit;
+        try {
+            permit = scheduler.admit(workloadClass);
+        } catch (AdmissionRejectedException e) {
+            log.debug("{}", e.getMessage());
+            reject(response, e);
+            return;
+        }
+
+        boolean async = false;
+        try {
+            chain.doFilter(request, response);
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new ReleaseOnCompletion(permit));
+                async = true;
+            }
+        } finally {
+            if (!async) {
+                permit.close();
+            }
+        }
+    }
+
+    /**
+     * Maps a request to its workload class, or {@code null} if it is not admission-controlled.
+     */
+    static WorkloadClass classify(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        String method = request.getMethod();
+        if ("GET".equals(method) && path.equals("/search")) return WorkloadClass.SEARCH;
+        if ("GET".equals(method) && path.equals("/ask")) return WorkloadClass.ASK;
+        if ("POST".equals(method) && path.equals("/documents")) return WorkloadClass.INGEST;
+        if ("POST".equals(method) && path.equals("/autocorrect")) return WorkloadClass.CORRECT;
+        return null;
+    }
+
+    private static void reject(HttpServletResponse response, AdmissionRejectedException e) throws IOException {
+        HttpStatus status = e.getReason() == AdmissionRejectedException.Reason.QUEUE_FULL
+                ? HttpStatus.TOO_MANY_REQUESTS
+                : HttpStatus.SERVICE_UNAVAILABLE;
+        long retryAfter = Math.max(1, (e.getRetryAfter().toMillis() + 999) / 1000);
+        response.setStatus(status.value());
+        response.setHeader("Retry-After", String.valueOf(retryAfter));
+        response.setContentType("text/plain;charset=UTF-8");
+        response.getWriter().write(e.getMessage());
+    }
+
+    private static final class ReleaseOnCompletion implements AsyncListener {
+
+        private final AdmissionScheduler.Permit permit;
+
+        ReleaseOnCompletion(AdmissionScheduler.Permit permit) {
+            this.permit = permit;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            permit.close();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            permit.close();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            permit.close();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            event.getAsyncContext().addListener(this);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.docsearch.admission;
+
+import java.time.Duration;
+
+/**
+ * Thrown when a request is not admitted by the {@link AdmissionScheduler}.
+ */
+public class AdmissionRejectedException extends RuntimeException {
+
+    /**
+     * Why the request was not admitted.
+     */
+    public enum Reason {
+        /** The class's wait queue is full; answered with 429. */
+        QUEUE_FULL,
+        /** The expected wait already exceeds the class's maximum wait; answered with 503. */
+        PREDICTED_WAIT,
+        /** The request waited the class's maximum wait without being admitted; answered with 503. */
+        WAIT_TIMEOUT
+    }
+
+    private final WorkloadClass workloadClass;
+    private final Reason reason;
+    private final Duration retryAfter;
+
+    public AdmissionRejectedException(WorkloadClass workloadClass, Reason reason, Duration retryAfter, String message) {
+        super(workloadClass.tag() + " request rejected (" + reason + "): " + message);
+        this.workloadClass = workloadClass;
+        this.reason = reason;
+        this.retryAfter = retryAfter;
+    }
+
+    public WorkloadClass getWorkloadClass() {
+        return workloadClass;
+    }
+
+    public Reason getReason() {
+        return reason;
+    }
+
+    /**
+     * Suggested delay before the client tries again.
+     */
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
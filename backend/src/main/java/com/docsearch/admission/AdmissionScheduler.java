@@ -0,0 +1,213 @@
+package com.docsearch.admission;
+
+import com.docsearch.admission.AdmissionRejectedException.Reason;
+import com.docsearch.config.AdmissionProperties;
+import com.docsearch.metrics.PipelineMetrics;
+import io.micrometer.core.instrument.Gauge;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Admits requests per {@link WorkloadClass} within separate concurrency budgets and bounded queues.
+ * <p>
+ * Behaviour:
+ * <ul>
+ *     <li><b>Budgets</b>: each class runs at most {@code maxConcurrent} requests, and all classes
+ *     together at most {@code totalConcurrent}. Only search may use the last
+ *     {@code reservedForSearch} of those, so a burst of uploads cannot crowd it out.</li>
+ *     <li><b>Priority</b>: when a request finishes, waiting requests are admitted in
+ *     {@link WorkloadClass} order, search first.</li>
+ *     <li><b>Early rejection</b>: a request is refused straight away when its class's queue is full,
+ *     or when the expected wait, from the recent service time of the class, already exceeds
+ *     {@code maxWait}. Otherwise it waits up to {@code maxWait}.</li>
+ * </ul>
+ * Queue depth, running requests, wait time and rejections are exported through {@link PipelineMetrics}.
+ */
+public class AdmissionScheduler {
+
+    /** Weight of the newest sample in the per-class service time average. */
+    private static final double SMOOTHING = 0.2;
+
+    private final AdmissionProperties props;
+    private final PipelineMetrics metrics;
+    private final Map<WorkloadClass, ClassState> states = new EnumMap<>(WorkloadClass.class);
+
+    /** Admitted requests across all classes; guarded by {@code this}. */
+    private int running;
+
+    public AdmissionScheduler(AdmissionProperties props, PipelineMetrics metrics) {
+        this.props = props;
+        this.metrics = metrics;
+        for (WorkloadClass c : WorkloadClass.values()) {
+            states.put(c, new ClassState(props.budget(c)));
+            Gauge.builder(PipelineMetrics.ADMISSION_QUEUE, this, s -> s.queued(c))
+                    .tag("class", c.tag())
+                    .register(metrics.registry());
+            Gauge.builder(PipelineMetrics.ADMISSION_ACTIVE, this, s -> s.running(c))
+                    .tag("class", c.tag())
+                    .register(metrics.registry());
+        }
+    }
+
+    /**
+     * Waits until a request of the given class may run.
+     *
+     * @param workloadClass the class of the request
+     * @return a permit to close once the request has completed
+     * @throws AdmissionRejectedException if the request is not admitted
+     */
+    public Permit admit(WorkloadClass workloadClass) {
+        long start = System.nanoTime();
+        ClassState state = states.get(workloadClass);
+        AdmissionProperties.Budget budget = state.budget;
+        Ticket ticket = new Ticket();
+
+        synchronized (this) {
+            if (state.waiting.isEmpty() && canRun(workloadClass, state)) {
+                state.running++;
+                running++;
+                ticket.granted = true;
+            } else if (state.waiting.size() >= budget.getMaxQueue()) {
+                throw reject(workloadClass, Reason.QUEUE_FULL, expectedWait(state),
+                        state.waiting.size() + " requests queued");
+            } else {
+                Duration expected = expectedWait(state);
+                if (expected.compareTo(budget.getMaxWait()) > 0) {
+                    throw reject(workloadClass, Reason.PREDICTED_WAIT, expected, "expected wait " + expected);
+                }
+                state.waiting.addLast(ticket);
+            }
+        }
+
+        if (!ticket.granted) {
+            try {
+                ticket.latch.await(budget.getMaxWait().toNanos(), TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            synchronized (this) {
+                if (!ticket.granted) {
+                    state.waiting.remove(ticket);
+                }
+            }
+        }
+
+        if (!ticket.granted) {
+            metrics.timer(PipelineMetrics.ADMISSION_WAIT, "class", workloadClass.tag(), "outcome", "timeout")
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            throw reject(workloadClass, Reason.WAIT_TIMEOUT, expectedWait(state),
+                    "not admitted within " + budget.getMaxWait());
+        }
+        metrics.timer(PipelineMetrics.ADMISSION_WAIT, "class", workloadClass.tag(), "outcome", "admitted")
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return new Permit(workloadClass);
+    }
+
+    public synchronized int queued(WorkloadClass workloadClass) {
+        return states.get(workloadClass).waiting.size();
+    }
+
+    public synchronized int running(WorkloadClass workloadClass) {
+        return states.get(workloadClass).running;
+    }
+
+    private synchronized void release(WorkloadClass workloadClass, long serviceNanos) {
+        ClassState state = states.get(workloadClass);
+        state.running--;
+        running--;
+        state.avgServiceNanos = state.avgServiceNanos == 0
+                ? serviceNanos
+                : SMOOTHING * serviceNanos + (1 - SMOOTHING) * state.avgServiceNanos;
+        dispatch();
+    }
+
+    /**
+     * Hands free capacity to waiting requests, highest priority class first.
+     */
+    private void dispatch() {
+        for (WorkloadClass c : WorkloadClass.values()) {
+            ClassState state = states.get(c);
+            while (!state.waiting.isEmpty() && canRun(c, state)) {
+                Ticket ticket = state.waiting.pollFirst();
+                state.running++;
+                running++;
+                ticket.granted = true;
+                ticket.latch.countDown();
+            }
+        }
+    }
+
+    private boolean canRun(WorkloadClass workloadClass, ClassState state) {
+        int limit = workloadClass == WorkloadClass.SEARCH
+                ? props.getTotalConcurrent()
+                : props.getTotalConcurrent() - props.getReservedForSearch();
+        return state.running < state.budget.getMaxConcurrent() && running < limit;
+    }
+
+    /**
+     * Estimates how long a request joining the queue now would wait, from the recent
+     * service time of its class and the number of requests ahead of it.
+     */
+    private Duration expectedWait(ClassState state) {
+        if (state.avgServiceNanos == 0) return Duration.ZERO;
+        int ahead = state.waiting.size() + 1;
+        int rounds = (ahead + state.budget.getMaxConcurrent() - 1) / state.budget.getMaxConcurrent();
+        return Duration.ofNanos((long) (state.avgServiceNanos * rounds));
+    }
+
+    private AdmissionRejectedException reject(WorkloadClass workloadClass, Reason reason,
+                                              Duration retryAfter, String message) {
+        metrics.increment(PipelineMetrics.ADMISSION_REJECTIONS,
+                "class", workloadClass.tag(), "reason", reason.name().toLowerCase());
+        return new AdmissionRejectedException(workloadClass, reason, retryAfter, message);
+    }
+
+    /**
+     * Capacity held by one admitted request; closing it more than once has no effect.
+     */
+    public final class Permit implements AutoCloseable {
+
+        private final WorkloadClass workloadClass;
+        private final long admittedAt = System.nanoTime();
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit(WorkloadClass workloadClass) {
+            this.workloadClass = workloadClass;
+        }
+
+        public WorkloadClass getWorkloadClass() {
+            return workloadClass;
+        }
+
+        @Override
+        public void close() {
+            if (released.compareAndSet(false, true)) {
+                release(workloadClass, System.nanoTime() - admittedAt);
+            }
+        }
+    }
+
+    private static final class ClassState {
+        final AdmissionProperties.Budget budget;
+        final Deque<Ticket> waiting = new ArrayDeque<>();
+        int running;
+        double avgServiceNanos;
+
+        ClassState(AdmissionProperties.Budget budget) {
+            this.budget = budget;
+        }
+    }
+
+    private static final class Ticket {
+        final CountDownLatch latch = new CountDownLatch(1);
+        /** Guarded by the scheduler. */
+        boolean granted;
+    }
+}
@@ -0,0 +1,25 @@
+package com.docsearch.admission;
+
+/**
+ * Kinds of request that compete for the same servlet threads and Ollama instance.
+ * <p>
+ * Declared in priority order: when capacity frees up, waiting requests of an
+ * earlier class are admitted before those of a later one.
+ */
+public enum WorkloadClass {
+    /** Interactive {@code /search}. */
+    SEARCH,
+    /** Streaming {@code /ask} answers. */
+    ASK,
+    /** {@code POST /documents} uploads. */
+    INGEST,
+    /** {@code /autocorrect} model round trips. */
+    CORRECT;
+
+    /**
+     * Tag value used on metrics.
+     */
+    public String tag() {
+        return name().toLowerCase();
+    }
+}
@@ -0,0 +1,32 @@
+package com.docsearch.config;
+
+import com.docsearch.admission.AdmissionFilter;
+import com.docsearch.admission.AdmissionScheduler;
+import com.docsearch.metrics.PipelineMetrics;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+@Configuration
+@ConditionalOnProperty(prefix = "docsearch.admission", name = "enabled", matchIfMissing = true)
+public class AdmissionConfig {
+
+    @Bean
+    public AdmissionScheduler admissionScheduler(AdmissionProperties props, PipelineMetrics metrics) {
+        return new AdmissionScheduler(props, metrics);
+    }
+
+    /**
+     * Registers the admission filter just after the HTTP observation filter, so rejected
+     * requests still show up in {@code http.server.requests}.
+     */
+    @Bean
+    public FilterRegistrationBean<AdmissionFilter> admissionFilter(AdmissionScheduler scheduler) {
+        FilterRegistrationBean<AdmissionFilter> registration = new FilterRegistrationBean<>(new AdmissionFilter(scheduler));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 10);
+        registration.setAsyncSupported(true);
+        return registration;
+    }
+}
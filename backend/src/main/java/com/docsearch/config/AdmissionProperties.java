@@ -0,0 +1,84 @@
+package com.docsearch.config;
+
+import com.docsearch.admission.WorkloadClass;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Concurrency budgets and queues for admission control of incoming requests.
+ * <p>
+ * Bound from the {@code docsearch.admission} prefix in {@code application.yaml}.
+ * Requests that wait for admission hold a servlet thread, so the sum of the
+ * queue sizes and {@code totalConcurrent} should stay well below Tomcat's
+ * {@code server.tomcat.threads.max}.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "docsearch.admission")
+public class AdmissionProperties {
+
+    /**
+     * Whether requests go through admission control at all.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Maximum number of admitted requests running at once, across all classes.
+     */
+    private int totalConcurrent = 24;
+
+    /**
+     * Part of {@code totalConcurrent} that only search requests may use, so uploads and
+     * corrections can never take all capacity away from interactive search.
+     */
+    private int reservedForSearch = 8;
+
+    private Budget search = new Budget(16, 64, Duration.ofSeconds(2));
+
+    private Budget ask = new Budget(4, 8, Duration.ofSeconds(2));
+
+    private Budget ingest = new Budget(4, 16, Duration.ofSeconds(10));
+
+    private Budget correct = new Budget(2, 4, Duration.ofSeconds(10));
+
+    public Budget budget(WorkloadClass workloadClass) {
+        return switch (workloadClass) {
+            case SEARCH -> search;
+            case ASK -> ask;
+            case INGEST -> ingest;
+            case CORRECT -> correct;
+        };
+    }
+
+    @Getter
+    @Setter
+    public static class Budget {
+
+        /**
+         * Maximum number of requests of this class running at once.
+         */
+        private int maxConcurrent;
+
+        /**
+         * Maximum number of requests of this class waiting; further requests get 429.
+         */
+        private int maxQueue;
+
+        /**
+         * How long a request waits for admission before it gets 503.
+         */
+        private Duration maxWait;
+
+        public Budget() {
+        }
+
+        public Budget(int maxConcurrent, int maxQueue, Duration maxWait) {
+            this.maxConcurrent = maxConcurrent;
+            this.maxQueue = maxQueue;
+            this.maxWait = maxWait;
+        }
+    }
+}
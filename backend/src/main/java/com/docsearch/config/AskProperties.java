@@ -0,0 +1,48 @@
+package com.docsearch.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Configuration for the retrieval-augmented {@code /ask} endpoint.
+ * <p>
+ * Bound from the {@code docsearch.ask} prefix in {@code application.yaml}.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "docsearch.ask")
+public class AskProperties {
+
+    /**
+     * Number of chunks retrieved from the vector store per question.
+     */
+    private int topK = 8;
+
+    /**
+     * Minimum similarity a chunk must reach to be used as context.
+     */
+    private double similarityThreshold = 0.5;
+
+    /**
+     * Maximum number of model tokens spent on retrieved context.
+     */
+    private int contextTokenBudget = 3000;
+
+    /**
+     * Rough number of characters per model token, used to estimate prompt size.
+     */
+    private int charsPerToken = 4;
+
+    /**
+     * Maximum number of answers generated by the chat model at the same time.
+     */
+    private int maxConcurrentGenerations = 4;
+
+    /**
+     * How long an SSE answer stream may stay open before it is closed.
+     */
+    private Duration streamTimeout = Duration.ofMinutes(2);
+}
@@ -0,0 +1,45 @@
+package com.docsearch.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Configuration for coalescing concurrent query embeddings into batched calls.
+ * <p>
+ * Bound from the {@code docsearch.embedding.coalescing} prefix in {@code application.yaml}.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "docsearch.embedding.coalescing")
+public class CoalescingProperties {
+
+    /**
+     * Batch concurrent single-text embedding calls, such as search queries.
+     */
+    private boolean enabled = true;
+
+    /**
+     * How long a batch waits for more queries, only while another batch is already in flight;
+     * a query arriving at an idle model is sent at once.
+     */
+    private Duration window = Duration.ofMillis(2);
+
+    /**
+     * Maximum number of queries embedded in one call.
+     */
+    private int maxBatchSize = 32;
+
+    /**
+     * Maximum number of batched calls in flight at once; further queries wait and join the next batch.
+     */
+    private int maxInFlight = 4;
+
+    /**
+     * Maximum number of queries waiting for a batch; further queries are rejected as if the
+     * embedding guard's bulkhead were full.
+     */
+    private int maxQueued = 256;
+}
@@ -0,0 +1,37 @@
+package com.docsearch.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Settings for searching collection partitions of the vector table.
+ * <p>
+ * Bound from the {@code docsearch.collections} prefix in {@code application.yaml}.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "docsearch.collections")
+public class CollectionProperties {
+
+    /**
+     * Partitions searched in parallel by a query across several collections. Each takes a
+     * pooled connection for the duration of its query.
+     */
+    private int searchThreads = 8;
+
+    /**
+     * How long a search across several collections waits for the partition queries. Partitions that
+     * have not answered by then are left out of the results; the same bound, rounded up to whole seconds,
+     * is set as the query timeout of every partition query so a slow one gives its connection back.
+     */
+    private Duration partitionSearchTimeout = Duration.ofSeconds(2);
+
+    /**
+     * How long the list of partitions is cached before it is read again, which is how
+     * collections created through other replicas become searchable.
+     */
+    private Duration partitionCacheTtl = Duration.ofSeconds(30);
+}
@@ -0,0 +1,78 @@
+package com.docsearch.config;
+
+import com.docsearch.embedding.CoalescingEmbeddingModel;
+import com.docsearch.embedding.OllamaBatchEmbeddingModel;
+import com.docsearch.metrics.MeteredEmbeddingModel;
+import com.docsearch.metrics.PipelineMetrics;
+import com.docsearch.resilience.GuardedEmbeddingModel;
+import com.docsearch.resilience.OllamaGuard;
+import com.docsearch.resilience.OllamaGuards;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.ollama.OllamaEmbeddingModel;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.web.client.RestClient;
+
+@Slf4j
+@Configuration
+public class EmbeddingModelConfig {
+
+    /**
+     * Decorates the auto-configured {@link EmbeddingModel}, which the vector store uses for
+     * both ingestion and queries.
+     * <p>
+     * The guard wraps the metered model so that the embedding timer only measures calls that
+     * actually reached Ollama; rejected calls are counted by the guard instead. The coalescer is
+     * the outer layer, so a batch of queries takes one guard slot and is timed as one call.
+     * <p>
+     * Batches are sent to Ollama's {@code /api/embed} by an {@link OllamaBatchEmbeddingModel} behind
+     * the same guard; Spring AI's model would send them one request per query. Coalescing is only
+     * set up in front of an {@link OllamaEmbeddingModel}, as other models have no such client here.
+     * A caller waits for its query at most as long as the guard would let a direct call take,
+     * {@code max-wait} for a slot plus {@code timeout}.
+     */
+    @Bean
+    public static BeanPostProcessor embeddingModelDecorator(ObjectProvider<PipelineMetrics> metrics,
+                                                            ObjectProvider<OllamaGuards> guards,
+                                                            ObjectProvider<ResilienceProperties> resilience,
+                                                            ObjectProvider<CoalescingProperties> coalescing,
+                                                            ObjectProvider<RestClient.Builder> restClients,
+                                                            Environment env) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof EmbeddingModel model
+                        && !(bean instanceof MeteredEmbeddingModel)
+                        && !(bean instanceof GuardedEmbeddingModel)
+                        && !(bean instanceof CoalescingEmbeddingModel)
+                        && !(bean instanceof OllamaBatchEmbeddingModel)) {
+                    OllamaGuard guard = guards.getObject().embedding();
+                    EmbeddingModel guarded = new GuardedEmbeddingModel(
+                            new MeteredEmbeddingModel(model, metrics.getObject()), guard);
+                    CoalescingProperties props = coalescing.getObject();
+                    if (!props.isEnabled()) {
+                        return guarded;
+                    }
+                    if (!(model instanceof OllamaEmbeddingModel)) {
+                        log.info("Query coalescing needs an Ollama embedding model, {} is {}; not coalescing",
+                                beanName, model.getClass().getSimpleName());
+                        return guarded;
+                    }
+                    OllamaBatchEmbeddingModel batches = new OllamaBatchEmbeddingModel(
+                            restClients.getIfAvailable(RestClient::builder),
+                            env.getProperty("spring.ai.ollama.base-url", "http://localhost:11434"),
+                            env.getRequiredProperty("spring.ai.ollama.embedding.options.model"));
+                    ResilienceProperties.Guard limits = resilience.getObject().getEmbedding();
+                    return new CoalescingEmbeddingModel(guarded,
+                            new GuardedEmbeddingModel(new MeteredEmbeddingModel(batches, metrics.getObject()), guard),
+                            props, limits.getMaxWait().plus(limits.getTimeout()), metrics.getObject());
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,54 @@
+package com.docsearch.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Configuration for the Postgres-backed ingestion queue and the workers on this node.
+ * <p>
+ * Bound from the {@code docsearch.ingestion} prefix in {@code application.yaml}.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "docsearch.ingestion")
+public class IngestionProperties {
+
+    /**
+     * Number of worker threads claiming tasks on this node; {@code 0} makes the node enqueue only.
+     */
+    private int workers = 2;
+
+    /**
+     * Number of chunks embedded by one task.
+     */
+    private int batchSize = 16;
+
+    /**
+     * How long a claimed task stays invisible to other workers. A task whose worker dies
+     * is picked up again once its lease expires.
+     */
+    private Duration lease = Duration.ofMinutes(2);
+
+    /**
+     * Pause between claims when the queue is empty or the embedding circuit is open.
+     */
+    private Duration pollInterval = Duration.ofMillis(500);
+
+    /**
+     * Attempts after which a task is marked {@code FAILED} and left for inspection.
+     */
+    private int maxAttempts = 10;
+
+    /**
+     * Delay before the first retry of a failed task; doubled on every further attempt.
+     */
+    private Duration retryBackoff = Duration.ofSeconds(5);
+
+    /**
+     * Upper bound for the retry delay.
+     */
+    private Duration maxRetryBackoff = Duration.ofMinutes(5);
+}
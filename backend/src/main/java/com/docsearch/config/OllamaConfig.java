@@ -1,16 +1,39 @@
 package com.docsearch.config;
 
+import com.docsearch.metrics.MeteredChatModel;
+import com.docsearch.metrics.PipelineMetrics;
+import com.docsearch.resilience.GuardedChatModel;
+import com.docsearch.resilience.OllamaGuards;
 import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.ai.ollama.OllamaChatModel;
+import org.springframework.boot.web.client.ClientHttpRequestFactories;
+import org.springframework.boot.web.client.ClientHttpRequestFactorySettings;
+import org.springframework.boot.web.client.RestClientCustomizer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.Duration;
+
 @Configuration
 public class OllamaConfig {
 
     @Bean
-    public ChatClient chatClient(OllamaChatModel model) {
-        return ChatClient.builder(model).build();
+    public ChatClient chatClient(OllamaChatModel model, PipelineMetrics metrics, OllamaGuards guards) {
+        return ChatClient.builder(new GuardedChatModel(new MeteredChatModel(model, metrics), guards.chat())).build();
     }
-}
 
+    /**
+     * Gives the blocking Ollama HTTP client socket timeouts, so a call abandoned by its
+     * guard deadline also releases its connection and bulkhead slot instead of hanging.
+     */
+    @Bean
+    public RestClientCustomizer ollamaTimeoutsCustomizer(ResilienceProperties props) {
+        Duration read = props.getEmbedding().getTimeout().compareTo(props.getChat().getTimeout()) > 0
+                ? props.getEmbedding().getTimeout()
+                : props.getChat().getTimeout();
+        ClientHttpRequestFactorySettings settings = ClientHttpRequestFactorySettings.DEFAULTS
+                .withConnectTimeout(Duration.ofSeconds(2))
+                .withReadTimeout(read);
+        return builder -> builder.requestFactory(ClientHttpRequestFactories.get(settings));
+    }
+}
@@ -0,0 +1,82 @@
+package com.docsearch.config;
+
+import jakarta.validation.constraints.AssertTrue;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.PositiveOrZero;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+/**
+ * Settings for the background re-embedding job.
+ * <p>
+ * Bound from the {@code docsearch.reindex} prefix in {@code application.yaml}; invalid chunk settings
+ * fail startup.
+ */
+@Getter
+@Setter
+@Validated
+@ConfigurationProperties(prefix = "docsearch.reindex")
+public class ReindexProperties {
+
+    /**
+     * Live vector table read by the vector store.
+     */
+    private String table = "vector_store";
+
+    /**
+     * Table the new vectors are written to before cut-over.
+     */
+    private String shadowTable = "vector_store_shadow";
+
+    /**
+     * Documents read from the database per keyset page.
+     */
+    private int pageSize = 50;
+
+    /**
+     * Chunks sent to the embedding model per call.
+     */
+    private int batchSize = 32;
+
+    /**
+     * Upper bound on chunks embedded per second, so re-indexing leaves Ollama capacity for live traffic.
+     */
+    private double maxEmbedsPerSecond = 20;
+
+    /**
+     * Chunk length used when re-chunking documents.
+     */
+    @Positive
+    private int chunkSize = 800;
+
+    /**
+     * Chunk overlap used when re-chunking documents; less than {@link #chunkSize}, or chunking would not advance.
+     */
+    @PositiveOrZero
+    private int chunkOverlap = 120;
+
+    /**
+     * Catch-ups run before the cut-over gives up, when every swap attempt finds documents uploaded after
+     * the previous catch-up. The swap only takes its locks once there is nothing left to embed.
+     */
+    private int cutoverAttempts = 5;
+
+    /**
+     * Cut over automatically when a job finishes. A job for another model than
+     * {@code spring.ai.ollama.embedding.options.model} is never cut over, automatically or not,
+     * because queries would be embedded with a different model than the stored vectors.
+     */
+    private boolean autoCutover = false;
+
+    /**
+     * Drop the previous vector table after cut-over instead of keeping it for rollback.
+     */
+    private boolean dropRetiredTable = true;
+
+    @AssertTrue(message = "chunk-overlap must be less than chunk-size")
+    public boolean isChunkOverlapBelowChunkSize() {
+        return chunkOverlap < chunkSize;
+    }
+}
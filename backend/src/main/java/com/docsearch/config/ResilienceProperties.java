@@ -0,0 +1,69 @@
+package com.docsearch.config;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Deadlines, circuit breaker and bulkhead settings for calls to Ollama.
+ * <p>
+ * Bound from the {@code docsearch.resilience} prefix in {@code application.yaml}.
+ * Embedding and chat calls are guarded separately so that a slow chat model
+ * cannot starve query embeddings and vice versa.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "docsearch.resilience")
+public class ResilienceProperties {
+
+    /**
+     * Guard settings for embedding calls (uploads and search queries).
+     */
+    private Guard embedding = new Guard(Duration.ofSeconds(5), 8);
+
+    /**
+     * Guard settings for chat calls (autocorrect and /ask).
+     */
+    private Guard chat = new Guard(Duration.ofSeconds(120), 4);
+
+    @Getter
+    @Setter
+    public static class Guard {
+
+        /**
+         * Deadline for a single call; for streams, the maximum gap between two elements.
+         */
+        private Duration timeout;
+
+        /**
+         * Maximum number of calls in flight at the same time.
+         */
+        private int maxConcurrentCalls;
+
+        /**
+         * How long a caller waits for a free slot before being rejected.
+         */
+        private Duration maxWait = Duration.ofMillis(100);
+
+        /**
+         * Consecutive failures after which the circuit opens.
+         */
+        private int failureThreshold = 5;
+
+        /**
+         * How long the circuit stays open before a trial call is let through.
+         */
+        private Duration openDuration = Duration.ofSeconds(30);
+
+        public Guard() {
+        }
+
+        public Guard(Duration timeout, int maxConcurrentCalls) {
+            this.timeout = timeout;
+            this.maxConcurrentCalls = maxConcurrentCalls;
+        }
+    }
+}
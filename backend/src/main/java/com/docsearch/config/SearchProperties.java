@@ -0,0 +1,26 @@
+package com.docsearch.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Settings for document search ({@code GET /search}).
+ * <p>
+ * Bound from the {@code docsearch.search} prefix in {@code application.yaml}.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "docsearch.search")
+public class SearchProperties {
+
+    /**
+     * Number of chunks retrieved from the vector store per query.
+     */
+    private int topK = 10;
+
+    /**
+     * Minimum similarity a chunk must reach to count as a hit; without hits the keyword search is used.
+     */
+    private double similarityThreshold = 0.5;
+}
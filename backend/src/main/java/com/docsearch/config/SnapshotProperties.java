@@ -0,0 +1,31 @@
+package com.docsearch.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Settings for exporting and restoring index snapshots.
+ * <p>
+ * Bound from the {@code docsearch.snapshot} prefix in {@code application.yaml}.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "docsearch.snapshot")
+public class SnapshotProperties {
+
+    /**
+     * Directory snapshots are written to, uploaded to and restored from.
+     */
+    private String directory = "snapshots";
+
+    /**
+     * Approximate size of a checksummed block; the writer buffers one block at a time.
+     */
+    private int blockBytes = 1 << 20;
+
+    /**
+     * Rows fetched per round trip while exporting.
+     */
+    private int fetchSize = 500;
+}
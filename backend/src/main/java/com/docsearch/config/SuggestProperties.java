@@ -0,0 +1,64 @@
+package com.docsearch.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Configuration for the in-memory search-as-you-type index behind {@code /suggest}.
+ * <p>
+ * Bound from the {@code docsearch.suggest} prefix in {@code application.yaml}.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "docsearch.suggest")
+public class SuggestProperties {
+
+    /**
+     * Shortest word of document text that is indexed.
+     */
+    private int minTermLength = 2;
+
+    /**
+     * Longest word of document text that is indexed; longer tokens are mostly identifiers and noise.
+     */
+    private int maxTermLength = 32;
+
+    /**
+     * Longest search query that is remembered.
+     */
+    private int maxQueryLength = 64;
+
+    /**
+     * How often a query must have been searched before it is suggested.
+     */
+    private int minQueryCount = 2;
+
+    /**
+     * Maximum number of distinct remembered queries; when reached, only known queries are counted.
+     */
+    private int maxQueries = 100_000;
+
+    /**
+     * Suggestions returned when the request does not specify a limit.
+     */
+    private int defaultLimit = 8;
+
+    /**
+     * Upper bound for the requested number of suggestions.
+     */
+    private int maxLimit = 20;
+
+    /**
+     * How often documents uploaded through other replicas are picked up.
+     */
+    private Duration refreshInterval = Duration.ofSeconds(30);
+
+    /**
+     * How often the index is rebuilt from the database, which compacts it, drops documents
+     * deleted through other replicas and halves the query counts.
+     */
+    private Duration rebuildInterval = Duration.ofHours(1);
+}
@@ -0,0 +1,32 @@
+package com.docsearch.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Configuration for the compressed document text store.
+ * <p>
+ * Bound from the {@code docsearch.text-store} prefix in {@code application.yaml}.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "docsearch.text-store")
+public class TextStoreProperties {
+
+    /**
+     * Characters per independently compressed frame. Smaller frames make range reads
+     * cheaper, larger frames compress better.
+     */
+    private int frameChars = 8192;
+
+    /**
+     * Length of the preview returned with document listings and search results.
+     */
+    private int previewChars = 240;
+
+    /**
+     * Use the slower, denser LZ4 HC compressor when storing text.
+     */
+    private boolean highCompression = false;
+}
@@ -0,0 +1,51 @@
+package com.docsearch.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Configuration for the warm-up stage that runs before the application reports itself ready.
+ * <p>
+ * Bound from the {@code docsearch.warmup} prefix in {@code application.yaml}.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "docsearch.warmup")
+public class WarmupProperties {
+
+    /**
+     * Run the warm-up stage on startup.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Connections opened at once to fill the pool, capped at the pool's maximum size.
+     */
+    private int connections = 10;
+
+    /**
+     * Load the vector table and its indexes into shared buffers with {@code pg_prewarm}
+     * when that extension is installed.
+     */
+    private boolean prewarmIndex = true;
+
+    /**
+     * Queries used for the warm-up searches, in turn.
+     */
+    private List<String> queries = new ArrayList<>(List.of("document", "search", "summary"));
+
+    /**
+     * Number of warm-up searches.
+     */
+    private int searches = 20;
+
+    /**
+     * Upper bound on the whole warm-up stage; remaining steps are skipped once it has passed.
+     */
+    private Duration timeout = Duration.ofSeconds(30);
+}
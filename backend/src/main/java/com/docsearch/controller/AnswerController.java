@@ -0,0 +1,98 @@
+package com.docsearch.controller;
+
+import com.docsearch.config.AskProperties;
+import com.docsearch.model.AnswerContext;
+import com.docsearch.service.AnswerService;
+import com.docsearch.service.GenerationRejectedException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import reactor.core.Disposable;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * REST controller for retrieval-augmented question answering.
+ * <p>
+ * The {@code /ask} endpoint streams Server-Sent Events:
+ * - {@code citations}: the chunks used as context, sent before generation starts
+ * - {@code token}: a fragment of the generated answer
+ * - {@code done}: the answer is complete
+ */
+@Slf4j
+@RestController
+@RequestMapping
+@RequiredArgsConstructor
+@Validated
+public class AnswerController {
+
+    private final AnswerService answerService;
+    private final AskProperties props;
+
+    /**
+     * Answers a question from the uploaded documents, streaming the answer over SSE.
+     *
+     * @param q The user question.
+     * @return An {@link SseEmitter} producing citation, token and completion events.
+     */
+    @GetMapping(value = "/ask", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter ask(@RequestParam("q") String q) {
+        AnswerContext context = answerService.retrieve(q);
+        var tokens = answerService.stream(context);
+
+        SseEmitter emitter = new SseEmitter(props.getStreamTimeout().toMillis());
+        AtomicReference<Disposable> subscription = new AtomicReference<>();
+
+        if (!send(emitter, "citations", context.getCitations())) {
+            // subscribe and cancel straight away so the generation slot is released
+            tokens.subscribe(token -> { }, error -> { }).dispose();
+            return emitter;
+        }
+
+        subscription.set(tokens.subscribe(
+                token -> {
+                    if (!send(emitter, "token", token)) {
+                        Disposable d = subscription.get();
+                        if (d != null) d.dispose();
+                    }
+                },
+                error -> {
+                    log.warn("Answer generation failed: {}", error.getMessage());
+                    emitter.completeWithError(error);
+                },
+                () -> {
+                    send(emitter, "done", "");
+                    emitter.complete();
+                }));
+
+        emitter.onTimeout(() -> subscription.get().dispose());
+        emitter.onError(e -> subscription.get().dispose());
+        return emitter;
+    }
+
+    /**
+     * Maps a full generation pool to HTTP 503 so clients can retry later.
+     */
+    @ExceptionHandler(GenerationRejectedException.class)
+    public ResponseEntity<String> generationRejected(GenerationRejectedException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header("Retry-After", "1")
+                .body(e.getMessage());
+    }
+
+    private static boolean send(SseEmitter emitter, String name, Object data) {
+        try {
+            emitter.send(SseEmitter.event().name(name).data(data));
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            emitter.completeWithError(e);
+            return false;
+        }
+    }
+}
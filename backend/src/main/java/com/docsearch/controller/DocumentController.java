@@ -1,8 +1,12 @@
 package com.docsearch.controller;
 
+import com.docsearch.model.CollectionSummary;
 import com.docsearch.model.DocumentEntity;
 import com.docsearch.service.DocumentService;
+import com.docsearch.service.SuggestionService;
+import com.docsearch.vector.InvalidCollectionException;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
@@ -16,8 +20,9 @@ import java.util.List;
  * <p>
  * Provides endpoints to:
  * - Check application health
- * - Upload text/PDF files along with optional descriptions
- * - Perform semantic search over uploaded documents
+ * - Upload text/PDF files along with optional descriptions into a named collection
+ * - Perform semantic search over uploaded documents, within collections or across all of them
+ * - List collections
  */
 @RestController
 @RequestMapping
@@ -26,6 +31,7 @@ import java.util.List;
 public class DocumentController {
 
     private final DocumentService service;
+    private final SuggestionService suggestions;
 
     /**
      * Health check endpoint to verify that the service is running.
@@ -46,14 +52,16 @@ public class DocumentController {
      *
      * @param file        The file to upload (text or PDF).
      * @param description Optional description for the file.
-     * @return The saved {@link DocumentEntity}.
+     * @param collection  Optional collection; the {@code default} collection if omitted.
+     * @return The saved {@link DocumentEntity}, or 400 if the collection name is invalid.
      * @throws IOException if there is an error while reading the file.
      */
     @PostMapping("/documents")
     public ResponseEntity<DocumentEntity> upload(@RequestPart("file") MultipartFile file,
-                                                 @RequestParam(value = "description", required = false) String description)
+                                                 @RequestParam(value = "description", required = false) String description,
+                                                 @RequestParam(value = "collection", required = false) String collection)
             throws IOException {
-        DocumentEntity saved = service.upload(file, description);
+        DocumentEntity saved = service.upload(file, description, collection);
         return ResponseEntity.ok(saved);
     }
 
@@ -62,13 +70,18 @@ public class DocumentController {
      * <p>
      * Uses the vector store to retrieve documents most relevant to the query.
      * Falls back to a database LIKE search if no semantic results are found.
+     * The query is counted for {@code /suggest}.
      *
-     * @param q The user query.
+     * @param q           The user query.
+     * @param collections Collections to search, repeated or comma-separated; all collections if omitted.
      * @return A list of {@link DocumentEntity} objects that match the query.
      */
     @GetMapping("/search")
-    public ResponseEntity<List<DocumentEntity>> search(@RequestParam("q") String q) {
-        return ResponseEntity.ok(service.search(q));
+    public ResponseEntity<List<DocumentEntity>> search(@RequestParam("q") String q,
+                                                       @RequestParam(value = "collections", required = false) List<String> collections) {
+        List<DocumentEntity> results = service.search(q, collections == null ? List.of() : collections);
+        suggestions.recordQuery(q);
+        return ResponseEntity.ok(results);
     }
 
     /**
@@ -116,6 +129,45 @@ public class DocumentController {
         }
     }
 
+    /**
+     * Returns the extracted text of a document, or the characters {@code [from, to)} of it.
+     * <p>
+     * Only the compressed frames covering the range are read, so clients can page
+     * through large documents cheaply.
+     *
+     * @param id   The ID of the document.
+     * @param from First character to return, inclusive.
+     * @param to   Last character to return, exclusive; the end of the text if omitted.
+     * @return The text as {@code text/plain}, or 404 if the document has no text.
+     */
+    @GetMapping("/documents/{id}/text")
+    public ResponseEntity<String> getText(@PathVariable Long id,
+                                          @RequestParam(value = "from", defaultValue = "0") int from,
+                                          @RequestParam(value = "to", required = false) Integer to) {
+        String text = service.getText(id, from, to == null ? Integer.MAX_VALUE : to);
+        if (text == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.valueOf("text/plain;charset=UTF-8"))
+                .body(text);
+    }
+
+    /**
+     * Lists the collections that hold documents.
+     *
+     * @return Each collection's name and number of documents, by name.
+     */
+    @GetMapping("/collections")
+    public ResponseEntity<List<CollectionSummary>> getCollections() {
+        return ResponseEntity.ok(service.getCollections());
+    }
+
+    @ExceptionHandler(InvalidCollectionException.class)
+    public ResponseEntity<String> badRequest(InvalidCollectionException e) {
+        return ResponseEntity.badRequest().body(e.getMessage());
+    }
+
     @GetMapping("/documents/{id}/file")
     public ResponseEntity<byte[]> getFile(@PathVariable Long id) {
         DocumentEntity doc = service.getDocument(id);
@@ -0,0 +1,92 @@
+package com.docsearch.controller;
+
+import com.docsearch.model.ReindexProgress;
+import com.docsearch.service.ReindexService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.NoSuchElementException;
+
+/**
+ * REST controller for the embedding re-index job.
+ * <p>
+ * Provides endpoints to:
+ * - Start re-embedding all documents with a new model or dimension
+ * - Report progress and throughput
+ * - Pause, resume, cancel and cut over a job
+ */
+@RestController
+@RequestMapping("/admin/reindex")
+@RequiredArgsConstructor
+@Validated
+public class ReindexController {
+
+    private final ReindexService reindexService;
+
+    /**
+     * Starts a new re-embedding job.
+     *
+     * @param model      The embedding model for the new vectors.
+     * @param dimensions The vector dimension the model produces.
+     * @return HTTP 202 with the job's progress, or 409 if another job is active.
+     */
+    @PostMapping
+    public ResponseEntity<ReindexProgress> start(@RequestParam("model") String model,
+                                                 @RequestParam("dimensions") int dimensions) {
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(reindexService.start(model, dimensions));
+    }
+
+    /**
+     * Reports progress of the most recent job.
+     *
+     * @return The job's progress, or 404 if no job was ever started.
+     */
+    @GetMapping
+    public ResponseEntity<ReindexProgress> current() {
+        return ResponseEntity.of(reindexService.current());
+    }
+
+    @PostMapping("/{id}/pause")
+    public ResponseEntity<ReindexProgress> pause(@PathVariable Long id) {
+        return ResponseEntity.ok(reindexService.pause(id));
+    }
+
+    @PostMapping("/{id}/resume")
+    public ResponseEntity<ReindexProgress> resume(@PathVariable Long id) {
+        return ResponseEntity.ok(reindexService.resume(id));
+    }
+
+    @PostMapping("/{id}/cancel")
+    public ResponseEntity<ReindexProgress> cancel(@PathVariable Long id) {
+        return ResponseEntity.ok(reindexService.cancel(id));
+    }
+
+    /**
+     * Starts replacing the live vector table with the job's shadow table in the background.
+     *
+     * @param id A job in state READY.
+     * @return HTTP 202 with the job's progress; poll {@code GET /admin/reindex} until it is CUT_OVER.
+     */
+    @PostMapping("/{id}/cutover")
+    public ResponseEntity<ReindexProgress> cutover(@PathVariable Long id) {
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(reindexService.cutover(id));
+    }
+
+    @ExceptionHandler(IllegalStateException.class)
+    public ResponseEntity<String> conflict(IllegalStateException e) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> badRequest(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(e.getMessage());
+    }
+
+    @ExceptionHandler(NoSuchElementException.class)
+    public ResponseEntity<String> notFound(NoSuchElementException e) {
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+    }
+}
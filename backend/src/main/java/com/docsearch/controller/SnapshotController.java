@@ -0,0 +1,108 @@
+package com.docsearch.controller;
+
+import com.docsearch.model.SnapshotInfo;
+import com.docsearch.service.SnapshotService;
+import com.docsearch.snapshot.SnapshotConflictException;
+import com.docsearch.snapshot.SnapshotFormatException;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * REST controller for index snapshots.
+ * <p>
+ * Provides endpoints to:
+ * - Export the index to a new snapshot and list existing ones
+ * - Download a snapshot, or upload one exported by another node
+ * - Restore a snapshot into an empty index, and delete snapshots
+ */
+@RestController
+@RequestMapping("/admin/snapshots")
+@RequiredArgsConstructor
+public class SnapshotController {
+
+    private final SnapshotService snapshotService;
+
+    /**
+     * Exports the index to a new snapshot.
+     *
+     * @param files Whether to include the original uploaded files.
+     * @return HTTP 201 with the snapshot's description.
+     */
+    @PostMapping
+    public ResponseEntity<SnapshotInfo> export(@RequestParam(value = "files", defaultValue = "false") boolean files)
+            throws IOException {
+        return ResponseEntity.status(HttpStatus.CREATED).body(snapshotService.export(files));
+    }
+
+    @GetMapping
+    public List<SnapshotInfo> list() throws IOException {
+        return snapshotService.list();
+    }
+
+    @GetMapping("/{name}")
+    public ResponseEntity<Resource> download(@PathVariable String name) {
+        Path file = snapshotService.path(name);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(name).build().toString())
+                .body(new FileSystemResource(file));
+    }
+
+    /**
+     * Stores a snapshot sent as the raw request body.
+     *
+     * @return HTTP 201 with the snapshot's description, or 422 if the body is not a complete snapshot.
+     */
+    @PutMapping("/{name}")
+    public ResponseEntity<SnapshotInfo> upload(@PathVariable String name, HttpServletRequest request) throws IOException {
+        return ResponseEntity.status(HttpStatus.CREATED).body(snapshotService.store(name, request.getInputStream()));
+    }
+
+    /**
+     * Loads a snapshot into this node's database, which must not hold any documents yet.
+     *
+     * @return The snapshot's description with the time the restore took, or 409 if the index is not empty.
+     */
+    @PostMapping("/{name}/restore")
+    public ResponseEntity<SnapshotInfo> restore(@PathVariable String name) throws IOException {
+        return ResponseEntity.ok(snapshotService.restore(name));
+    }
+
+    @DeleteMapping("/{name}")
+    public ResponseEntity<Void> delete(@PathVariable String name) throws IOException {
+        return snapshotService.delete(name) ? ResponseEntity.noContent().build() : ResponseEntity.notFound().build();
+    }
+
+    @ExceptionHandler(SnapshotFormatException.class)
+    public ResponseEntity<String> unreadable(SnapshotFormatException e) {
+        return ResponseEntity.unprocessableEntity().body(e.getMessage());
+    }
+
+    @ExceptionHandler(SnapshotConflictException.class)
+    public ResponseEntity<String> conflict(SnapshotConflictException e) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> badRequest(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(e.getMessage());
+    }
+
+    @ExceptionHandler(NoSuchElementException.class)
+    public ResponseEntity<String> notFound(NoSuchElementException e) {
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+    }
+}
@@ -0,0 +1,50 @@
+package com.docsearch.controller;
+
+import com.docsearch.model.Suggestion;
+import com.docsearch.model.SuggestionStats;
+import com.docsearch.service.SuggestionService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * REST controller for search-as-you-type suggestions.
+ * <p>
+ * Provides endpoints to:
+ * - Complete a partially typed query from frequent queries, filenames and document words
+ * - Report the size and memory use of the suggestion index
+ */
+@RestController
+@RequestMapping("/suggest")
+@RequiredArgsConstructor
+@Validated
+public class SuggestController {
+
+    private final SuggestionService suggestions;
+
+    /**
+     * Completes a partially typed query.
+     *
+     * @param q     The text typed so far.
+     * @param limit Maximum number of suggestions; the configured default if omitted.
+     * @return The suggestions, best first; empty for a blank query.
+     */
+    @GetMapping
+    public ResponseEntity<List<Suggestion>> suggest(@RequestParam(value = "q", defaultValue = "") String q,
+                                                    @RequestParam(value = "limit", defaultValue = "0") int limit) {
+        return ResponseEntity.ok(suggestions.suggest(q, limit));
+    }
+
+    /**
+     * Reports the number of indexed documents and keys and the memory they take.
+     *
+     * @return The index statistics.
+     */
+    @GetMapping("/stats")
+    public ResponseEntity<SuggestionStats> stats() {
+        return ResponseEntity.ok(suggestions.stats());
+    }
+}
@@ -0,0 +1,270 @@
+package com.docsearch.embedding;
+
+import com.docsearch.config.CoalescingProperties;
+import com.docsearch.metrics.PipelineMetrics;
+import com.docsearch.resilience.OllamaUnavailableException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingOptions;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+import org.springframework.beans.factory.DisposableBean;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@link EmbeddingModel} decorator that coalesces concurrent single-text calls into batched calls.
+ * <p>
+ * The vector store embeds every search query with its own call. Here such calls are queued and
+ * a dispatcher thread sends them in batches of up to {@code max-batch-size}, with at most
+ * {@code max-in-flight} batches outstanding; each caller blocks until its own vector is back.
+ * Batches go to a separate model that embeds all of its inputs in one request, such as
+ * {@link OllamaBatchEmbeddingModel}; single queries go to the regular one.
+ * A query that arrives while no other batch is in flight is sent immediately, so latency at low
+ * load is unchanged. Only while other batches are in flight does a batch wait up to
+ * {@code window} for more queries.
+ * <p>
+ * The queue holds at most {@code max-queued} queries; beyond that, and when a query is not
+ * embedded within {@code maxWait}, the caller gets an {@link OllamaUnavailableException} as if
+ * the guard had rejected the call, and searches fall back to keywords.
+ * <p>
+ * Calls with several inputs or with explicit options, such as document ingestion, are passed
+ * through. If a batched call fails for a reason other than the guard rejecting it, the queries
+ * are retried one by one; when all of those succeed the model is taken not to support batches
+ * and coalescing is switched off.
+ */
+@Slf4j
+public class CoalescingEmbeddingModel implements EmbeddingModel, DisposableBean {
+
+    private record Pending(String text, long queuedAt, CompletableFuture<List<Double>> result) {
+    }
+
+    private static final String GUARD = "embedding";
+
+    private final EmbeddingModel delegate;
+    private final EmbeddingModel batchDelegate;
+    private final CoalescingProperties props;
+    private final Duration maxWait;
+    private final PipelineMetrics metrics;
+    private final LinkedBlockingQueue<Pending> pending;
+    private final Semaphore slots;
+    private final ExecutorService callers;
+    private final Thread dispatcher;
+
+    private volatile boolean batching = true;
+    private volatile boolean running = true;
+
+    /**
+     * @param delegate      embeds single queries and everything that is passed through
+     * @param batchDelegate embeds a batch of queries in one call
+     * @param props         batching settings
+     * @param maxWait       how long a caller waits for its query to be embedded, queueing included
+     * @param metrics       records batch sizes and queueing time
+     */
+    public CoalescingEmbeddingModel(EmbeddingModel delegate, EmbeddingModel batchDelegate, CoalescingProperties props,
+                                    Duration maxWait, PipelineMetrics metrics) {
+        this.delegate = delegate;
+        this.batchDelegate = batchDelegate;
+        this.props = props;
+        this.maxWait = maxWait;
+        this.metrics = metrics;
+        this.pending = new LinkedBlockingQueue<>(Math.max(1, props.getMaxQueued()));
+        this.slots = new Semaphore(props.getMaxInFlight());
+        AtomicInteger threads = new AtomicInteger();
+        this.callers = Executors.newFixedThreadPool(props.getMaxInFlight(), r -> {
+            Thread t = new Thread(r, "embed-batch-" + threads.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        this.dispatcher = new Thread(this::dispatch, "embed-coalescer");
+        this.dispatcher.setDaemon(true);
+        this.dispatcher.start();
+    }
+
+    @Override
+    public EmbeddingResponse call(EmbeddingRequest request) {
+        if (!batching || !running || !coalescible(request)) {
+            return delegate.call(request);
+        }
+        CompletableFuture<List<Double>> result = new CompletableFuture<>();
+        if (!pending.offer(new Pending(request.getInstructions().get(0), System.nanoTime(), result))) {
+            throw reject(OllamaUnavailableException.Reason.BULKHEAD_FULL,
+                    props.getMaxQueued() + " queries waiting for a batch", null);
+        }
+        try {
+            return new EmbeddingResponse(List.of(new Embedding(result.get(maxWait.toNanos(), TimeUnit.NANOSECONDS), 0)));
+        } catch (TimeoutException e) {
+            // a batch that has not been sent yet skips the query
+            OllamaUnavailableException timeout = reject(OllamaUnavailableException.Reason.TIMEOUT,
+                    "no batched embedding within " + maxWait, e);
+            result.completeExceptionally(timeout);
+            throw timeout;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            result.cancel(false);
+            throw reject(OllamaUnavailableException.Reason.FAILURE, "interrupted", e);
+        }
+    }
+
+    @Override
+    public List<Double> embed(Document document) {
+        return delegate.embed(document);
+    }
+
+    @Override
+    public int dimensions() {
+        return delegate.dimensions();
+    }
+
+    public boolean isBatching() {
+        return batching;
+    }
+
+    @Override
+    public void destroy() {
+        running = false;
+        dispatcher.interrupt();
+        callers.shutdownNow();
+        Pending p;
+        while ((p = pending.poll()) != null) {
+            p.result().completeExceptionally(new IllegalStateException("Embedding model is shutting down"));
+        }
+    }
+
+    private static boolean coalescible(EmbeddingRequest request) {
+        EmbeddingOptions options = request.getOptions();
+        return request.getInstructions().size() == 1
+                && (options == null || options == EmbeddingOptions.EMPTY);
+    }
+
+    private void dispatch() {
+        int max = Math.max(1, props.getMaxBatchSize());
+        while (running) {
+            List<Pending> batch = new ArrayList<>(max);
+            try {
+                batch.add(pending.take());
+                slots.acquire();
+            } catch (InterruptedException e) {
+                pending.addAll(batch);
+                return;
+            }
+            pending.drainTo(batch, max - batch.size());
+
+            // others in flight: this batch would wait for a slot anyway, so give it the window to fill up
+            boolean busy = slots.availablePermits() < props.getMaxInFlight() - 1;
+            if (busy && batch.size() < max && !props.getWindow().isZero()) {
+                long deadline = System.nanoTime() + props.getWindow().toNanos();
+                try {
+                    while (batch.size() < max) {
+                        long remaining = deadline - System.nanoTime();
+                        Pending next = remaining > 0 ? pending.poll(remaining, TimeUnit.NANOSECONDS) : null;
+                        if (next == null) break;
+                        batch.add(next);
+                        pending.drainTo(batch, max - batch.size());
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+
+            try {
+                callers.execute(() -> {
+                    try {
+                        send(batch);
+                    } finally {
+                        slots.release();
+                    }
+                });
+            } catch (RuntimeException e) {
+                slots.release();
+                batch.forEach(p -> p.result().completeExceptionally(e));
+            }
+            if (Thread.currentThread().isInterrupted()) {
+                return;
+            }
+        }
+    }
+
+    private void send(List<Pending> queued) {
+        List<Pending> batch = queued.stream().filter(p -> !p.result().isDone()).toList();
+        if (batch.isEmpty()) return;
+        long now = System.nanoTime();
+        for (Pending p : batch) {
+            metrics.timer(PipelineMetrics.EMBEDDING_COALESCE_WAIT).record(now - p.queuedAt(), TimeUnit.NANOSECONDS);
+        }
+        metrics.record(PipelineMetrics.EMBEDDING_COALESCE_BATCH, batch.size());
+
+        if (batch.size() == 1 || !batching) {
+            batch.forEach(this::embedOne);
+            return;
+        }
+        try {
+            List<String> texts = batch.stream().map(Pending::text).toList();
+            List<Embedding> results = new ArrayList<>(
+                    batchDelegate.call(new EmbeddingRequest(texts, EmbeddingOptions.EMPTY)).getResults());
+            if (results.size() != batch.size()) {
+                throw new IllegalStateException("Expected " + batch.size() + " embeddings, got " + results.size());
+            }
+            if (results.stream().allMatch(r -> r.getIndex() != null)) {
+                results.sort(Comparator.comparing(Embedding::getIndex));
+            }
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).result().complete(results.get(i).getOutput());
+            }
+        } catch (OllamaUnavailableException e) {
+            if (e.getReason() != OllamaUnavailableException.Reason.FAILURE) {
+                // rejected by the guard: retrying one by one would only add load
+                batch.forEach(p -> p.result().completeExceptionally(e));
+                return;
+            }
+            fallBack(batch, e);
+        } catch (RuntimeException e) {
+            fallBack(batch, e);
+        }
+    }
+
+    private void fallBack(List<Pending> batch, RuntimeException cause) {
+        log.warn("Batched embedding of {} queries failed, embedding them one by one: {}", batch.size(), cause.toString());
+        boolean allSucceeded = true;
+        for (Pending p : batch) {
+            allSucceeded &= embedOne(p);
+        }
+        if (allSucceeded && batching) {
+            batching = false;
+            log.warn("Embedding model does not accept batches; query coalescing is disabled");
+        }
+    }
+
+    private OllamaUnavailableException reject(OllamaUnavailableException.Reason reason, String message, Throwable cause) {
+        metrics.increment(PipelineMetrics.GUARD_REJECTIONS, "guard", GUARD, "reason", reason.name().toLowerCase());
+        return new OllamaUnavailableException(GUARD, reason, message, cause);
+    }
+
+    private boolean embedOne(Pending p) {
+        try {
+            EmbeddingResponse response = delegate.call(new EmbeddingRequest(List.of(p.text()), EmbeddingOptions.EMPTY));
+            p.result().complete(response.getResults().get(0).getOutput());
+            return true;
+        } catch (RuntimeException e) {
+            p.result().completeExceptionally(e);
+            return false;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.docsearch.embedding;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+import org.springframework.http.MediaType;
+import org.springframework.web.client.RestClient;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@link EmbeddingModel} for Ollama's {@code /api/embed} endpoint, which embeds every input of a
+ * request in a single HTTP call.
+ * <p>
+ * Spring AI's {@code OllamaEmbeddingModel} (1.0.0-M1) only uses {@code /api/embeddings} and sends one
+ * request per input, so batching in front of it saves nothing. This client serves only the batches
+ * formed by {@link CoalescingEmbeddingModel}; all other calls still go through Spring AI.
+ */
+public class OllamaBatchEmbeddingModel implements EmbeddingModel {
+
+    private record EmbedRequest(String model, List<String> input) {
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    private record EmbedResponse(List<List<Double>> embeddings) {
+    }
+
+    private final RestClient client;
+    private final String model;
+
+    public OllamaBatchEmbeddingModel(RestClient.Builder builder, String baseUrl, String model) {
+        this.client = builder.baseUrl(baseUrl).build();
+        this.model = model;
+    }
+
+    @Override
+    public EmbeddingResponse call(EmbeddingRequest request) {
+        List<String> inputs = request.getInstructions();
+        EmbedResponse response = client.post()
+                .uri("/api/embed")
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(new EmbedRequest(model, inputs))
+                .retrieve()
+                .body(EmbedResponse.class);
+        if (response == null || response.embeddings() == null || response.embeddings().size() != inputs.size()) {
+            throw new IllegalStateException("Ollama /api/embed returned "
+                    + (response == null || response.embeddings() == null ? "no" : response.embeddings().size())
+                    + " embeddings for " + inputs.size() + " inputs");
+        }
+        List<Embedding> embeddings = new ArrayList<>(inputs.size());
+        for (int i = 0; i < inputs.size(); i++) {
+            embeddings.add(new Embedding(response.embeddings().get(i), i));
+        }
+        return new EmbeddingResponse(embeddings);
+    }
+
+    @Override
+    public List<Double> embed(Document document) {
+        return embed(document.getContent());
+    }
+}
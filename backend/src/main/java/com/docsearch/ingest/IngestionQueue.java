@@ -0,0 +1,119 @@
+package com.docsearch.ingest;
+
+import com.docsearch.metrics.PipelineMetrics;
+import com.docsearch.service.impl.TextChunker.Span;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Durable queue of embedding work in the {@code ingestion_tasks} table ({@code V6__ingestion_tasks.sql}),
+ * shared by all replicas.
+ * <p>
+ * Claims use {@code FOR UPDATE SKIP LOCKED}, so concurrent workers on any node take disjoint
+ * tasks without waiting on each other. A claim is a lease: if its worker neither completes
+ * nor fails the task before the lease expires, the task becomes claimable again. Completing
+ * or failing a task only succeeds for the current lease holder.
+ */
+@Component
+public class IngestionQueue {
+
+    private static final RowMapper<IngestionTask> TASK = (rs, i) -> new IngestionTask(
+            rs.getLong("id"), rs.getLong("doc_id"), rs.getString("collection"), rs.getInt("first_chunk"), rs.getInt("chunk_count"),
+            rs.getInt("char_from"), rs.getInt("char_to"), rs.getInt("attempts"), rs.getString("lease_owner"));
+
+    private final JdbcTemplate jdbc;
+    private final PipelineMetrics metrics;
+
+    public IngestionQueue(JdbcTemplate jdbc, PipelineMetrics metrics) {
+        this.jdbc = jdbc;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Queues the chunks of a document in runs of {@code batchSize}.
+     * <p>
+     * Runs inside the caller's transaction, so tasks only become visible together with the document.
+     *
+     * @param docId      the document
+     * @param collection the document's collection
+     * @param spans      the chunk boundaries of the document's text
+     * @param batchSize  chunks per task
+     * @return the number of tasks queued
+     */
+    public int enqueue(Long docId, String collection, List<Span> spans, int batchSize) {
+        List<Object[]> rows = new ArrayList<>();
+        for (int first = 0; first < spans.size(); first += batchSize) {
+            int last = Math.min(spans.size(), first + batchSize) - 1;
+            rows.add(new Object[]{docId, collection, first, last - first + 1, spans.get(first).start(), spans.get(last).end()});
+        }
+        if (!rows.isEmpty()) {
+            jdbc.batchUpdate("INSERT INTO ingestion_tasks (doc_id, collection, first_chunk, chunk_count, char_from, char_to) " +
+                    "VALUES (?, ?, ?, ?, ?, ?)", rows);
+            metrics.increment(PipelineMetrics.INGEST_TASKS, rows.size(), "event", "queued");
+        }
+        return rows.size();
+    }
+
+    /**
+     * Claims up to {@code limit} tasks that are due or whose lease has expired.
+     *
+     * @param owner identifies the claiming worker
+     * @param limit maximum number of tasks to claim
+     * @param lease how long the tasks stay claimed
+     * @return the claimed tasks, oldest first
+     */
+    public List<IngestionTask> claim(String owner, int limit, Duration lease) {
+        return jdbc.query("UPDATE ingestion_tasks t SET status = 'RUNNING', lease_owner = ?, " +
+                        "lease_until = now() + ? * interval '1 millisecond', attempts = t.attempts + 1 " +
+                        "WHERE t.id IN (SELECT id FROM ingestion_tasks " +
+                        "WHERE (status = 'PENDING' AND available_at <= now()) " +
+                        "OR (status = 'RUNNING' AND lease_until < now()) " +
+                        "ORDER BY id LIMIT ? FOR UPDATE SKIP LOCKED) " +
+                        "RETURNING t.id, t.doc_id, t.collection, t.first_chunk, t.chunk_count, t.char_from, t.char_to, " +
+                        "t.attempts, t.lease_owner",
+                TASK, owner, lease.toMillis(), limit);
+    }
+
+    /**
+     * Removes a finished task.
+     *
+     * @return {@code false} if the lease was lost to another worker in the meantime
+     */
+    public boolean complete(IngestionTask task) {
+        return jdbc.update("DELETE FROM ingestion_tasks WHERE id = ? AND lease_owner = ? AND status = 'RUNNING'",
+                task.id(), task.owner()) == 1;
+    }
+
+    /**
+     * Releases a task after a failed attempt, to be retried after {@code backoff},
+     * or marks it {@code FAILED} when {@code permanent}.
+     *
+     * @return {@code false} if the lease was lost to another worker in the meantime
+     */
+    public boolean fail(IngestionTask task, String error, Duration backoff, boolean permanent) {
+        return jdbc.update("UPDATE ingestion_tasks SET status = ?, lease_owner = NULL, lease_until = NULL, " +
+                        "available_at = now() + ? * interval '1 millisecond', last_error = ? " +
+                        "WHERE id = ? AND lease_owner = ? AND status = 'RUNNING'",
+                permanent ? "FAILED" : "PENDING", backoff.toMillis(), error, task.id(), task.owner()) == 1;
+    }
+
+    /**
+     * Drops all tasks of a document, e.g. when it is deleted.
+     */
+    public void cancel(Long docId) {
+        jdbc.update("DELETE FROM ingestion_tasks WHERE doc_id = ?", docId);
+    }
+
+    /**
+     * Number of tasks waiting or in progress.
+     */
+    public long backlog() {
+        Long n = jdbc.queryForObject("SELECT count(*) FROM ingestion_tasks WHERE status <> 'FAILED'", Long.class);
+        return n == null ? 0 : n;
+    }
+}
@@ -0,0 +1,18 @@
+package com.docsearch.ingest;
+
+/**
+ * A claimed run of chunks of one document to embed.
+ *
+ * @param id         task id
+ * @param docId      the document
+ * @param collection the document's collection, whose vector partition the chunks go to
+ * @param firstChunk index of the first chunk in the run
+ * @param chunkCount number of chunks in the run
+ * @param charFrom   first character of the first chunk
+ * @param charTo     end of the last chunk, exclusive
+ * @param attempts   number of claims so far, including this one
+ * @param owner      worker holding the lease
+ */
+public record IngestionTask(long id, long docId, String collection, int firstChunk, int chunkCount,
+                            int charFrom, int charTo, int attempts, String owner) {
+}
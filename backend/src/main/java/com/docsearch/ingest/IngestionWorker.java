@@ -0,0 +1,192 @@
+package com.docsearch.ingest;
+
+import com.docsearch.config.IngestionProperties;
+import com.docsearch.metrics.PipelineMetrics;
+import com.docsearch.resilience.OllamaGuards;
+import com.docsearch.service.impl.TextChunker;
+import com.docsearch.storage.DocumentTextStore;
+import com.docsearch.vector.PgCollectionVectorStore;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Claims embedding tasks from the {@link IngestionQueue} and writes their chunks to the {@link VectorStore}.
+ * <p>
+ * Every replica runs {@code docsearch.ingestion.workers} of these loops, so embedding throughput grows
+ * with the number of replicas rather than staying on the node that received the upload. Chunk ids are
+ * derived from document id and chunk index ({@link TextChunker#chunkId}), so a task that is processed
+ * twice, after a lost lease or a retry, overwrites the same rows instead of duplicating them.
+ * No tasks are claimed while the embedding circuit is open.
+ */
+@Slf4j
+@Component
+public class IngestionWorker {
+
+    private final IngestionQueue queue;
+    private final DocumentTextStore textStore;
+    private final VectorStore vectorStore;
+    private final OllamaGuards guards;
+    private final IngestionProperties props;
+    private final PipelineMetrics metrics;
+    private final String nodeId;
+    private final ExecutorService executor;
+
+    private volatile boolean running;
+
+    public IngestionWorker(IngestionQueue queue,
+                           DocumentTextStore textStore,
+                           VectorStore vectorStore,
+                           OllamaGuards guards,
+                           IngestionProperties props,
+                           PipelineMetrics metrics) {
+        this.queue = queue;
+        this.textStore = textStore;
+        this.vectorStore = vectorStore;
+        this.guards = guards;
+        this.props = props;
+        this.metrics = metrics;
+        this.nodeId = nodeId();
+        AtomicInteger threads = new AtomicInteger();
+        this.executor = Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "ingest-" + threads.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        Gauge.builder(PipelineMetrics.INGEST_BACKLOG, queue, IngestionQueue::backlog)
+                .description("ingestion tasks waiting or in progress, across all nodes")
+                .register(metrics.registry());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        running = true;
+        for (int i = 1; i <= props.getWorkers(); i++) {
+            String owner = nodeId + "/" + i;
+            executor.submit(() -> loop(owner));
+        }
+        log.info("Started {} ingestion workers on {}", props.getWorkers(), nodeId);
+    }
+
+    @PreDestroy
+    void stop() {
+        running = false;
+        executor.shutdownNow();
+    }
+
+    /**
+     * Claims and processes at most one task.
+     *
+     * @param owner the lease owner recorded on the task
+     * @return the number of tasks processed, {@code 0} if none was due
+     */
+    public int pollOnce(String owner) {
+        if (!guards.embedding().isCallPermitted()) {
+            return 0;
+        }
+        List<IngestionTask> tasks = queue.claim(owner, 1, props.getLease());
+        for (IngestionTask task : tasks) {
+            process(task);
+        }
+        return tasks.size();
+    }
+
+    private void loop(String owner) {
+        while (running) {
+            try {
+                if (pollOnce(owner) == 0) {
+                    Thread.sleep(props.getPollInterval().toMillis());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.warn("Ingestion worker {} failed to poll: {}", owner, e.toString());
+                try {
+                    Thread.sleep(props.getPollInterval().toMillis());
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void process(IngestionTask task) {
+        Timer.Sample sample = metrics.start();
+        String outcome = "error";
+        try {
+            String text = textStore.read(task.docId(), task.charFrom(), task.charTo());
+            if (text == null) {
+                // the document was deleted after the task was queued
+                queue.complete(task);
+                outcome = "skipped";
+                return;
+            }
+
+            List<String> chunks = TextChunker.chunk(text, TextChunker.DEFAULT_MAX_LEN, TextChunker.DEFAULT_OVERLAP);
+            if (chunks.size() != task.chunkCount()) {
+                throw new IllegalStateException("Expected " + task.chunkCount() + " chunks for document "
+                        + task.docId() + ", got " + chunks.size());
+            }
+            List<Document> docs = new ArrayList<>(chunks.size());
+            for (int i = 0; i < chunks.size(); i++) {
+                int chunkIndex = task.firstChunk() + i;
+                docs.add(new Document(
+                        TextChunker.chunkId(task.docId(), chunkIndex).toString(),
+                        chunks.get(i),
+                        Map.of("docId", task.docId(), "chunkIndex", chunkIndex,
+                                PgCollectionVectorStore.COLLECTION, task.collection())));
+            }
+
+            Timer.Sample write = metrics.start();
+            vectorStore.add(docs);
+            metrics.stop(write, PipelineMetrics.VECTOR_WRITE);
+
+            boolean owned = queue.complete(task);
+            metrics.increment(PipelineMetrics.INGEST_TASKS, "event", owned ? "completed" : "lease_lost");
+            outcome = "success";
+        } catch (RuntimeException e) {
+            boolean permanent = task.attempts() >= props.getMaxAttempts();
+            queue.fail(task, e.toString(), backoff(task.attempts()), permanent);
+            metrics.increment(PipelineMetrics.INGEST_TASKS, "event", permanent ? "failed" : "retried");
+            if (permanent) {
+                log.error("Ingestion task {} for document {} failed after {} attempts",
+                        task.id(), task.docId(), task.attempts(), e);
+            } else {
+                log.warn("Ingestion task {} for document {} failed (attempt {}): {}",
+                        task.id(), task.docId(), task.attempts(), e.toString());
+            }
+        } finally {
+            metrics.stop(sample, PipelineMetrics.INGEST_TASK, "outcome", outcome);
+        }
+    }
+
+    private Duration backoff(int attempts) {
+        Duration delay = props.getRetryBackoff().multipliedBy(1L << Math.min(attempts - 1, 20));
+        return delay.compareTo(props.getMaxRetryBackoff()) > 0 ? props.getMaxRetryBackoff() : delay;
+    }
+
+    private static String nodeId() {
+        String host = System.getenv("HOSTNAME");
+        if (host == null || host.isBlank()) {
+            host = "node";
+        }
+        return host + ":" + ProcessHandle.current().pid() + ":" + UUID.randomUUID().toString().substring(0, 8);
+    }
+}
@@ -0,0 +1,72 @@
+package com.docsearch.metrics;
+
+import io.micrometer.core.instrument.Timer;
+import org.springframework.ai.chat.metadata.Usage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.prompt.ChatOptions;
+import org.springframework.ai.chat.prompt.Prompt;
+import reactor.core.publisher.Flux;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * {@link ChatModel} decorator that records latency and token usage of every chat call.
+ * <p>
+ * Token counts are taken from the usage metadata Ollama returns with the final
+ * response; calls that report no usage only contribute latency.
+ */
+public class MeteredChatModel implements ChatModel {
+
+    private final ChatModel delegate;
+    private final PipelineMetrics metrics;
+
+    public MeteredChatModel(ChatModel delegate, PipelineMetrics metrics) {
+        this.delegate = delegate;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public ChatResponse call(Prompt prompt) {
+        Timer.Sample sample = metrics.start();
+        String outcome = "error";
+        try {
+            ChatResponse response = delegate.call(prompt);
+            outcome = "success";
+            recordUsage(response);
+            return response;
+        } finally {
+            metrics.stop(sample, PipelineMetrics.LLM_CALL, "mode", "call", "outcome", outcome);
+        }
+    }
+
+    @Override
+    public Flux<ChatResponse> stream(Prompt prompt) {
+        return Flux.defer(() -> {
+            Timer.Sample sample = metrics.start();
+            AtomicReference<ChatResponse> last = new AtomicReference<>();
+            return delegate.stream(prompt)
+                    .doOnNext(last::set)
+                    .doOnComplete(() -> {
+                        recordUsage(last.get());
+                        metrics.stop(sample, PipelineMetrics.LLM_CALL, "mode", "stream", "outcome", "success");
+                    })
+                    .doOnError(e -> metrics.stop(sample, PipelineMetrics.LLM_CALL, "mode", "stream", "outcome", "error"))
+                    .doOnCancel(() -> metrics.stop(sample, PipelineMetrics.LLM_CALL, "mode", "stream", "outcome", "cancelled"));
+        });
+    }
+
+    public ChatOptions getDefaultOptions() {
+        return delegate.getDefaultOptions();
+    }
+
+    private void recordUsage(ChatResponse response) {
+        if (response == null || response.getMetadata() == null) return;
+        Usage usage = response.getMetadata().getUsage();
+        if (usage == null) return;
+        Long prompt = usage.getPromptTokens();
+        Long generation = usage.getGenerationTokens();
+        if (prompt != null && prompt > 0) metrics.increment(PipelineMetrics.LLM_TOKENS, prompt, "type", "prompt");
+        if (generation != null && generation > 0) metrics.increment(PipelineMetrics.LLM_TOKENS, generation, "type", "generation");
+    }
+}
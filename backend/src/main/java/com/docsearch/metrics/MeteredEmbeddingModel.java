@@ -0,0 +1,64 @@
+package com.docsearch.metrics;
+
+import io.micrometer.core.instrument.Timer;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+
+import java.util.List;
+
+/**
+ * {@link EmbeddingModel} decorator that records latency and input counts of every embedding call.
+ * <p>
+ * The vector store embeds documents and queries internally, so wrapping the model
+ * is the only way to tell embedding time apart from the database write or ANN query.
+ */
+public class MeteredEmbeddingModel implements EmbeddingModel {
+
+    private final EmbeddingModel delegate;
+    private final PipelineMetrics metrics;
+
+    public MeteredEmbeddingModel(EmbeddingModel delegate, PipelineMetrics metrics) {
+        this.delegate = delegate;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public EmbeddingResponse call(EmbeddingRequest request) {
+        int inputs = request.getInstructions().size();
+        Timer.Sample sample = metrics.start();
+        String outcome = "error";
+        try {
+            EmbeddingResponse response = delegate.call(request);
+            outcome = "success";
+            return response;
+        } finally {
+            metrics.stop(sample, PipelineMetrics.EMBEDDING, "operation", inputs > 1 ? "batch" : "single", "outcome", outcome);
+            metrics.increment(PipelineMetrics.EMBEDDING_INPUTS, inputs);
+        }
+    }
+
+    @Override
+    public List<Double> embed(Document document) {
+        Timer.Sample sample = metrics.start();
+        String outcome = "error";
+        try {
+            List<Double> embedding = delegate.embed(document);
+            outcome = "success";
+            return embedding;
+        } finally {
+            metrics.stop(sample, PipelineMetrics.EMBEDDING, "operation", "document", "outcome", outcome);
+            metrics.increment(PipelineMetrics.EMBEDDING_INPUTS);
+        }
+    }
+
+    @Override
+    public int dimensions() {
+        return delegate.dimensions();
+    }
+
+    public EmbeddingModel getDelegate() {
+        return delegate;
+    }
+}
@@ -0,0 +1,128 @@
+package com.docsearch.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+/**
+ * Central registry of the meters recorded by the ingestion, search and LLM pipelines.
+ * <p>
+ * All meter names share the {@code docsearch.} prefix and are exported through
+ * Actuator, e.g. {@code /actuator/prometheus}. Timers publish percentile
+ * histograms so p50/p99 can be computed across replicas.
+ */
+@Component
+public class PipelineMetrics {
+
+    public static final String EXTRACTION = "docsearch.ingest.extraction";
+    public static final String CHUNKING = "docsearch.ingest.chunking";
+    public static final String CHUNKS_PER_DOCUMENT = "docsearch.ingest.chunks";
+    public static final String TEXT_SIZE = "docsearch.ingest.text.chars";
+    public static final String PERSIST = "docsearch.ingest.persist";
+    public static final String VECTOR_WRITE = "docsearch.vectorstore.write";
+    public static final String VECTOR_QUERY = "docsearch.vectorstore.query";
+    public static final String VECTOR_FANOUT = "docsearch.vectorstore.fanout";
+    public static final String VECTOR_PARTITION_TIMEOUTS = "docsearch.vectorstore.partition.timeouts";
+    public static final String EMBEDDING = "docsearch.embedding";
+    public static final String EMBEDDING_INPUTS = "docsearch.embedding.inputs";
+    public static final String EMBEDDING_COALESCE_BATCH = "docsearch.embedding.coalesce.batch";
+    public static final String EMBEDDING_COALESCE_WAIT = "docsearch.embedding.coalesce.wait";
+    public static final String SEARCH_REQUESTS = "docsearch.search.requests";
+    public static final String SEARCH_FALLBACKS = "docsearch.search.fallbacks";
+    public static final String SEARCH_HYDRATE = "docsearch.search.hydrate";
+    public static final String KEYWORD_SEARCH = "docsearch.search.keyword";
+    public static final String LLM_CALL = "docsearch.llm.call";
+    public static final String LLM_TOKENS = "docsearch.llm.tokens";
+    public static final String CORRECTION = "docsearch.correction";
+    public static final String ASK_FIRST_TOKEN = "docsearch.ask.first.token";
+    public static final String GUARD_STATE = "docsearch.ollama.guard.state";
+    public static final String GUARD_IN_FLIGHT = "docsearch.ollama.guard.inflight";
+    public static final String GUARD_REJECTIONS = "docsearch.ollama.guard.rejections";
+    public static final String INGEST_TASKS = "docsearch.ingest.tasks";
+    public static final String INGEST_TASK = "docsearch.ingest.task";
+    public static final String INGEST_BACKLOG = "docsearch.ingest.backlog";
+    public static final String REINDEX_CHUNKS = "docsearch.reindex.chunks";
+    public static final String TEXT_STORE_BYTES = "docsearch.textstore.bytes";
+    public static final String ADMISSION_QUEUE = "docsearch.admission.queue";
+    public static final String ADMISSION_ACTIVE = "docsearch.admission.active";
+    public static final String ADMISSION_WAIT = "docsearch.admission.wait";
+    public static final String ADMISSION_REJECTIONS = "docsearch.admission.rejections";
+    public static final String SUGGEST = "docsearch.suggest";
+    public static final String SUGGEST_MEMORY = "docsearch.suggest.memory";
+    public static final String SUGGEST_REBUILD = "docsearch.suggest.rebuild";
+    public static final String SNAPSHOT = "docsearch.snapshot";
+    public static final String SNAPSHOT_RECORDS = "docsearch.snapshot.records";
+    public static final String STARTUP_WARMUP = "docsearch.startup.warmup";
+    public static final String FIRST_SEARCH = "docsearch.startup.first.search";
+
+    private final MeterRegistry registry;
+
+    public PipelineMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * Starts timing a stage; pass the sample to {@link #stop(Timer.Sample, String, String...)}.
+     *
+     * @return a running timer sample
+     */
+    public Timer.Sample start() {
+        return Timer.start(registry);
+    }
+
+    /**
+     * Stops a sample and records it on the timer with the given name and tags.
+     *
+     * @param sample the sample returned by {@link #start()}
+     * @param name   the timer name, one of the constants of this class
+     * @param tags   alternating tag keys and values
+     * @return the recorded duration in nanoseconds
+     */
+    public long stop(Timer.Sample sample, String name, String... tags) {
+        return sample.stop(timer(name, tags));
+    }
+
+    /**
+     * Returns the timer with the given name and tags, registering it on first use.
+     */
+    public Timer timer(String name, String... tags) {
+        return Timer.builder(name)
+                .tags(tags)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    /**
+     * Records a value on the distribution summary with the given name and tags.
+     */
+    public void record(String name, double amount, String... tags) {
+        DistributionSummary.builder(name)
+                .tags(tags)
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(amount);
+    }
+
+    /**
+     * Increments the counter with the given name and tags by {@code amount}.
+     */
+    public void increment(String name, double amount, String... tags) {
+        Counter.builder(name)
+                .tags(tags)
+                .register(registry)
+                .increment(amount);
+    }
+
+    /**
+     * Increments the counter with the given name and tags by one.
+     */
+    public void increment(String name, String... tags) {
+        increment(name, 1, tags);
+    }
+
+    public MeterRegistry registry() {
+        return registry;
+    }
+}
@@ -0,0 +1,34 @@
+package com.docsearch.model;
+
+import lombok.*;
+
+import java.util.List;
+
+/**
+ * The retrieval result for a question: the chunks chosen as context and
+ * the prompt that will be sent to the chat model.
+ */
+@Getter
+@Builder @NoArgsConstructor @AllArgsConstructor
+public class AnswerContext {
+
+    /**
+     * The user question.
+     */
+    private String question;
+
+    /**
+     * Chunks included in the prompt, in citation order.
+     */
+    private List<ChunkCitation> citations;
+
+    /**
+     * The assembled user prompt (context followed by the question).
+     */
+    private String prompt;
+
+    /**
+     * Estimated number of tokens used by the context section of the prompt.
+     */
+    private int contextTokens;
+}
@@ -0,0 +1,45 @@
+package com.docsearch.model;
+
+import lombok.*;
+
+/**
+ * A retrieved chunk that was placed into the prompt of a generated answer.
+ * <p>
+ * The {@code index} is the bracketed number the model is asked to cite,
+ * e.g. {@code [2]}, so clients can map citations in the answer text back
+ * to the source document and chunk.
+ */
+@Getter
+@Builder @NoArgsConstructor @AllArgsConstructor
+public class ChunkCitation {
+
+    /**
+     * 1-based citation number used in the prompt and the answer.
+     */
+    private int index;
+
+    /**
+     * Identifier of the document the chunk belongs to.
+     */
+    private Long docId;
+
+    /**
+     * Original filename of the document, if still present.
+     */
+    private String filename;
+
+    /**
+     * Position of the chunk within its document.
+     */
+    private Integer chunkIndex;
+
+    /**
+     * Vector distance reported by the store; lower is closer.
+     */
+    private Double distance;
+
+    /**
+     * Short excerpt of the chunk text for display.
+     */
+    private String snippet;
+}
@@ -0,0 +1,11 @@
+package com.docsearch.model;
+
+/**
+ * A collection and the number of documents in it, as listed by {@code GET /collections}.
+ */
+public interface CollectionSummary {
+
+    String getName();
+
+    long getDocuments();
+}
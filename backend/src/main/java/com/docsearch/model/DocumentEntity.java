@@ -1,5 +1,6 @@
 package com.docsearch.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.*;
 
@@ -10,7 +11,8 @@ import java.time.Instant;
  * <p>
  * This entity maps to the {@code documents} table in the database and
  * stores metadata (filename, content type, description, uploaded time)
- * along with the extracted text content of the document.
+ * and the original file. The extracted text lives in {@link DocumentTextEntity}
+ * and is only attached to this entity where a caller asks for it.
  */
 @Entity
 @Table(name = "documents")
@@ -38,11 +40,30 @@ public class DocumentEntity {
 
     /**
      * Extracted text content of the document.
-     * Stored as a large text field in the database.
+     * Not persisted here; set on upload and correction responses only.
      */
-    @Column(columnDefinition = "TEXT")
+    @Transient
     private String contentText;
 
+    /**
+     * Beginning of the extracted text, set on listings and search results.
+     */
+    @Transient
+    private String preview;
+
+    /**
+     * Size of the extracted text in UTF-8 bytes, set together with {@link #preview}.
+     */
+    @Transient
+    private Long textBytes;
+
+    /**
+     * Collection the document was uploaded into; its chunks are stored in that collection's
+     * partition of the vector table.
+     */
+    @Column(nullable = false, length = 32)
+    private String collection;
+
     /**
      * Optional user-provided description of the document.
      */
@@ -53,7 +74,13 @@ public class DocumentEntity {
      */
     private Instant uploadedAt;
 
+    /**
+     * The original file. Loaded on first access only and never serialized;
+     * clients download it from {@code /documents/{id}/file}.
+     */
     @Lob
+    @Basic(fetch = FetchType.LAZY)
+    @JsonIgnore
     private byte[] fileData;
 
 }
@@ -0,0 +1,16 @@
+package com.docsearch.model;
+
+/**
+ * Lightweight projection of {@link DocumentEntity} exposing only identifying metadata.
+ * <p>
+ * Used where the caller needs filenames for a set of documents without loading
+ * the extracted text or the original file bytes.
+ */
+public interface DocumentSummary {
+
+    Long getId();
+
+    String getFilename();
+
+    String getCollection();
+}
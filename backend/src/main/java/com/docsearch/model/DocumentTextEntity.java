@@ -0,0 +1,63 @@
+package com.docsearch.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * Entity class that holds the extracted text of a document, compressed in frames.
+ * <p>
+ * This entity maps to the {@code document_texts} table, one row per document,
+ * so the text is read only when it is actually needed rather than with every
+ * {@link DocumentEntity}. The compressed bytes are decoded by
+ * {@link com.docsearch.storage.FramedTextCodec}.
+ */
+@Entity
+@Table(name = "document_texts")
+@Getter @Setter
+@Builder @NoArgsConstructor @AllArgsConstructor
+public class DocumentTextEntity {
+
+    /**
+     * Identifier of the owning {@link DocumentEntity}.
+     */
+    @Id
+    private Long docId;
+
+    /**
+     * Compression codec of {@link #data}, e.g. {@code lz4}.
+     */
+    private String codec;
+
+    /**
+     * Characters per frame the text was encoded with.
+     */
+    private int frameChars;
+
+    /**
+     * Length of the text in characters.
+     */
+    private int charLength;
+
+    /**
+     * Size of the text as UTF-8 before compression.
+     */
+    private long rawBytes;
+
+    /**
+     * Compressed size of the first frame, so a preview can be read with a single slice.
+     */
+    private int headBytes;
+
+    /**
+     * Serialized {@link com.docsearch.storage.FrameIndex}.
+     */
+    @Column(columnDefinition = "bytea")
+    private byte[] frameIndex;
+
+    /**
+     * Concatenated compressed frames.
+     */
+    @Basic(fetch = FetchType.LAZY)
+    @Column(columnDefinition = "bytea")
+    private byte[] data;
+}
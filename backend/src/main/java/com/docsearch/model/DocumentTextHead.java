@@ -0,0 +1,15 @@
+package com.docsearch.model;
+
+/**
+ * Size and compressed first frame of a document's text, used for listings and search results.
+ */
+public interface DocumentTextHead {
+
+    Long getDocId();
+
+    Integer getFrameChars();
+
+    Long getRawBytes();
+
+    byte[] getHead();
+}
@@ -0,0 +1,14 @@
+package com.docsearch.model;
+
+/**
+ * Projection of {@link DocumentTextEntity} with everything needed to plan a range read,
+ * without the compressed bytes.
+ */
+public interface DocumentTextLayout {
+
+    Long getDocId();
+
+    String getCodec();
+
+    byte[] getFrameIndex();
+}
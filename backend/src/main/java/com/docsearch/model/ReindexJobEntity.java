@@ -0,0 +1,83 @@
+package com.docsearch.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * Entity class that tracks a background re-embedding job.
+ * <p>
+ * This entity maps to the {@code reindex_jobs} table. The job walks the
+ * {@code documents} table in id order; {@code lastDocId} is the keyset cursor,
+ * persisted after every page so an interrupted job resumes where it stopped.
+ */
+@Entity
+@Table(name = "reindex_jobs")
+@Getter @Setter
+@Builder @NoArgsConstructor @AllArgsConstructor
+public class ReindexJobEntity {
+
+    /**
+     * Lifecycle of a job.
+     */
+    public enum Status {
+        /** Re-embedding documents into the shadow table. */
+        RUNNING,
+        /** Stopped by an operator; can be resumed. */
+        PAUSED,
+        /** All documents re-embedded; waiting for cut-over. */
+        READY,
+        /** Catching up on new documents and swapping tables on the job thread. */
+        CUTTING_OVER,
+        /** The shadow table replaced the live vector table. */
+        CUT_OVER,
+        /** Stopped because of an error; can be resumed. */
+        FAILED,
+        /** Abandoned by an operator; the shadow table was dropped. */
+        CANCELLED
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * Embedding model used for the new vectors.
+     */
+    private String model;
+
+    /**
+     * Dimension of the new vectors.
+     */
+    private int dimensions;
+
+    @Enumerated(EnumType.STRING)
+    private Status status;
+
+    /**
+     * Highest document id already written to the shadow table.
+     */
+    private Long lastDocId;
+
+    /**
+     * Number of documents in the table when the job started.
+     */
+    private long totalDocs;
+
+    private long docsProcessed;
+
+    private long chunksEmbedded;
+
+    /**
+     * Time spent actively embedding, excluding pauses, used for throughput.
+     */
+    private long activeMillis;
+
+    private Instant createdAt;
+
+    private Instant updatedAt;
+
+    @Column(columnDefinition = "TEXT")
+    private String error;
+}
@@ -0,0 +1,65 @@
+package com.docsearch.model;
+
+import lombok.*;
+
+/**
+ * Progress report of a re-embedding job, as returned by the admin API.
+ */
+@Getter
+@Builder @NoArgsConstructor @AllArgsConstructor
+public class ReindexProgress {
+
+    private Long jobId;
+
+    private ReindexJobEntity.Status status;
+
+    private String model;
+
+    private int dimensions;
+
+    private long totalDocs;
+
+    private long docsProcessed;
+
+    /**
+     * Share of the documents processed, from 0 to 100.
+     */
+    private double percentComplete;
+
+    private long chunksEmbedded;
+
+    /**
+     * Average embedding throughput while the job was running.
+     */
+    private double chunksPerSecond;
+
+    private Long lastDocId;
+
+    private String error;
+
+    /**
+     * Builds a report from the persisted job state.
+     *
+     * @param job the job entity
+     * @return the progress report
+     */
+    public static ReindexProgress of(ReindexJobEntity job) {
+        double percent = job.getTotalDocs() == 0 ? 100.0
+                : Math.min(100.0, 100.0 * job.getDocsProcessed() / job.getTotalDocs());
+        double rate = job.getActiveMillis() == 0 ? 0.0
+                : job.getChunksEmbedded() * 1000.0 / job.getActiveMillis();
+        return ReindexProgress.builder()
+                .jobId(job.getId())
+                .status(job.getStatus())
+                .model(job.getModel())
+                .dimensions(job.getDimensions())
+                .totalDocs(job.getTotalDocs())
+                .docsProcessed(job.getDocsProcessed())
+                .percentComplete(percent)
+                .chunksEmbedded(job.getChunksEmbedded())
+                .chunksPerSecond(rate)
+                .lastDocId(job.getLastDocId())
+                .error(job.getError())
+                .build();
+    }
+}
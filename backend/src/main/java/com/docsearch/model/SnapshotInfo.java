@@ -0,0 +1,46 @@
+package com.docsearch.model;
+
+import lombok.*;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Description of a snapshot file, as returned by the admin API.
+ */
+@Getter
+@Builder @NoArgsConstructor @AllArgsConstructor
+public class SnapshotInfo {
+
+    private String name;
+
+    private long bytes;
+
+    private Instant createdAt;
+
+    /**
+     * Embedding model the chunks were embedded with, if known.
+     */
+    private String model;
+
+    private int dimensions;
+
+    private boolean includesFiles;
+
+    private List<String> collections;
+
+    private long documents;
+
+    private long texts;
+
+    private long files;
+
+    private long chunks;
+
+    private long tasks;
+
+    /**
+     * Time taken by the export or restore that returned this; {@code null} in listings.
+     */
+    private Long durationMillis;
+}
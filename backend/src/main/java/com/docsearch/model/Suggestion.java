@@ -0,0 +1,35 @@
+package com.docsearch.model;
+
+import lombok.*;
+
+/**
+ * One completion returned by {@code /suggest}.
+ */
+@Getter
+@Builder @NoArgsConstructor @AllArgsConstructor
+public class Suggestion {
+
+    /**
+     * Where a suggestion comes from.
+     */
+    public enum Kind {
+        /** A query other users searched for. */
+        QUERY,
+        /** The filename of a document. */
+        FILENAME,
+        /** A word that occurs in document text; earlier words of the input are kept. */
+        TERM
+    }
+
+    /**
+     * The completed text.
+     */
+    private String text;
+
+    private Kind kind;
+
+    /**
+     * Search count for queries, number of documents for filenames and terms.
+     */
+    private int weight;
+}
@@ -0,0 +1,43 @@
+package com.docsearch.model;
+
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * Size and memory use of the suggestion index, as reported by {@code /suggest/stats}.
+ */
+@Getter
+@Builder @NoArgsConstructor @AllArgsConstructor
+public class SuggestionStats {
+
+    /**
+     * {@code false} until the first build from the database has finished.
+     */
+    private boolean ready;
+
+    private Instant lastRebuild;
+
+    private long documents;
+
+    private long terms;
+
+    private long filenames;
+
+    private long queries;
+
+    /**
+     * Trie nodes in use across the term, filename and query tries.
+     */
+    private long nodes;
+
+    /**
+     * Bytes held by the trie arrays.
+     */
+    private long memoryBytes;
+
+    /**
+     * {@code memoryBytes} scaled to one million indexed keys.
+     */
+    private double bytesPerMillionKeys;
+}
@@ -1,29 +1,84 @@
 package com.docsearch.repository;
 
+import com.docsearch.model.CollectionSummary;
 import com.docsearch.model.DocumentEntity;
+import com.docsearch.model.DocumentSummary;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
  * Repository interface for accessing and managing {@link DocumentEntity} records.
  * <p>
  * Extends {@link JpaRepository} to provide standard CRUD operations.
- * Includes a custom search method that performs a case-insensitive
- * "LIKE" search on the document's text content, description, or filename.
+ * Includes a custom keyword search on the document's text, description, or filename.
+ * Description and filename are matched with a case-insensitive "LIKE"; the text through
+ * the words indexed in {@code document_text_terms} (see
+ * {@link com.docsearch.storage.DocumentTextStore}), which cover the whole text.
  */
 public interface DocumentRepository extends JpaRepository<DocumentEntity, Long> {
 
     /**
-     * Performs a case-insensitive search for documents where the query string
-     * matches any part of the content text, description, or filename.
+     * Performs a keyword search for documents whose description or filename contains the
+     * query string, ignoring case, or whose text contains every word of it.
+     * <p>
+     * The text is indexed on upload, so documents whose chunks are still waiting
+     * to be embedded are found as well.
      *
-     * @param q the search query string
+     * @param q     the search query string
+     * @param terms the query as a {@code tsquery}, from {@link com.docsearch.storage.DocumentTextStore#termQuery(String)};
+     *              empty to match description and filename only
      * @return a list of {@link DocumentEntity} objects that match the query
      */
-    @Query("SELECT d FROM DocumentEntity d WHERE LOWER(d.contentText) LIKE LOWER(CONCAT('%', :q, '%')) " +
-            "OR LOWER(d.description) LIKE LOWER(CONCAT('%', :q, '%')) " +
-            "OR LOWER(d.filename) LIKE LOWER(CONCAT('%', :q, '%'))")
-    List<DocumentEntity> searchLike(String q);
+    @Query(value = "SELECT d.* FROM documents d WHERE lower(d.description) LIKE lower(concat('%', :q, '%')) " +
+            "OR lower(d.filename) LIKE lower(concat('%', :q, '%')) " +
+            "OR (:terms <> '' AND d.id IN (SELECT s.doc_id FROM document_text_terms s " +
+            "WHERE s.terms @@ to_tsquery('simple', :terms)))", nativeQuery = true)
+    List<DocumentEntity> searchLike(String q, String terms);
+
+    /**
+     * Like {@link #searchLike(String, String)}, limited to documents in the given collections.
+     *
+     * @param q           the search query string
+     * @param terms       the query as a {@code tsquery}, empty to match description and filename only
+     * @param collections the collections to search, must not be empty
+     * @return a list of {@link DocumentEntity} objects that match the query
+     */
+    @Query(value = "SELECT d.* FROM documents d WHERE d.collection IN (:collections) AND (" +
+            "lower(d.description) LIKE lower(concat('%', :q, '%')) " +
+            "OR lower(d.filename) LIKE lower(concat('%', :q, '%')) " +
+            "OR (:terms <> '' AND d.id IN (SELECT s.doc_id FROM document_text_terms s " +
+            "WHERE s.terms @@ to_tsquery('simple', :terms))))", nativeQuery = true)
+    List<DocumentEntity> searchLikeInCollections(String q, String terms, Collection<String> collections);
+
+    /**
+     * Lists the collections that hold documents, with their document counts, by name.
+     */
+    @Query("SELECT d.collection AS name, COUNT(d) AS documents FROM DocumentEntity d " +
+            "GROUP BY d.collection ORDER BY d.collection")
+    List<CollectionSummary> findCollections();
+
+    /**
+     * Fetches id, filename and collection for the given documents without loading their text or file data.
+     *
+     * @param ids the document identifiers
+     * @return a {@link DocumentSummary} for each document that exists
+     */
+    List<DocumentSummary> findByIdIn(Collection<Long> ids);
+
+    /**
+     * Reads the next page of document ids after the given id, in id order.
+     * <p>
+     * Keyset pagination: pass the last id of the previous page, and always page 0
+     * of the desired size, so each page is an index range scan regardless of depth.
+     *
+     * @param afterId the last id already processed
+     * @param page    the page size
+     * @return up to {@code page.getPageSize()} ids greater than {@code afterId}
+     */
+    @Query("SELECT d.id FROM DocumentEntity d WHERE d.id > :afterId ORDER BY d.id")
+    List<Long> findIdPageAfter(Long afterId, Pageable page);
 }
@@ -0,0 +1,72 @@
+package com.docsearch.repository;
+
+import com.docsearch.model.DocumentTextEntity;
+import com.docsearch.model.DocumentTextHead;
+import com.docsearch.model.DocumentTextLayout;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Repository interface for the compressed document texts.
+ * <p>
+ * Reads are sliced in the database with {@code substring} on the {@code bytea} column,
+ * so only the frames a caller needs leave Postgres. The column uses {@code EXTERNAL}
+ * storage (see {@link com.docsearch.storage.DocumentTextStore}), which lets Postgres
+ * fetch just the TOAST chunks covering the slice.
+ */
+public interface DocumentTextRepository extends JpaRepository<DocumentTextEntity, Long> {
+
+    /**
+     * Fetches the frame layout of a document's text without its compressed bytes.
+     */
+    @Query("SELECT t.docId AS docId, t.codec AS codec, t.frameIndex AS frameIndex " +
+            "FROM DocumentTextEntity t WHERE t.docId = :docId")
+    Optional<DocumentTextLayout> findLayout(Long docId);
+
+    /**
+     * Reads {@code length} compressed bytes starting at the 1-based {@code offset}.
+     */
+    @Query(value = "SELECT substring(data FROM :offset FOR :length) FROM document_texts WHERE doc_id = :docId",
+            nativeQuery = true)
+    byte[] readSlice(Long docId, int offset, int length);
+
+    /**
+     * Fetches the size and compressed first frame of each given document's text.
+     */
+    @Query(value = "SELECT doc_id AS docId, frame_chars AS frameChars, raw_bytes AS rawBytes, " +
+            "substring(data FROM 1 FOR head_bytes) AS head FROM document_texts WHERE doc_id IN (:ids)",
+            nativeQuery = true)
+    List<DocumentTextHead> findHeads(Collection<Long> ids);
+
+    /**
+     * Indexes the words of one segment of a document's text for the keyword search, as a stripped
+     * {@code tsvector}: lexemes only, without positions.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO document_text_terms (doc_id, segment, terms) " +
+            "VALUES (:docId, :segment, strip(to_tsvector('simple', :text)))", nativeQuery = true)
+    int saveTerms(Long docId, int segment, String text);
+
+    /**
+     * Deletes the indexed words of a document's text.
+     *
+     * @return the number of rows deleted
+     */
+    @Modifying
+    @Query(value = "DELETE FROM document_text_terms WHERE doc_id = :docId", nativeQuery = true)
+    int deleteTermsByDocId(Long docId);
+
+    /**
+     * Deletes the text of a document without loading it first.
+     *
+     * @return the number of rows deleted
+     */
+    @Modifying
+    @Query("DELETE FROM DocumentTextEntity t WHERE t.docId = :docId")
+    int deleteByDocId(Long docId);
+}
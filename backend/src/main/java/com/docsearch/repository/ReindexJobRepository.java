@@ -0,0 +1,28 @@
+package com.docsearch.repository;
+
+import com.docsearch.model.ReindexJobEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.Collection;
+import java.util.Optional;
+
+/**
+ * Repository interface for accessing and managing {@link ReindexJobEntity} records.
+ */
+public interface ReindexJobRepository extends JpaRepository<ReindexJobEntity, Long> {
+
+    /**
+     * Finds the most recent job in one of the given states.
+     *
+     * @param statuses the states to match
+     * @return the newest matching job, if any
+     */
+    Optional<ReindexJobEntity> findFirstByStatusInOrderByIdDesc(Collection<ReindexJobEntity.Status> statuses);
+
+    /**
+     * Finds the most recently created job.
+     *
+     * @return the newest job, if any
+     */
+    Optional<ReindexJobEntity> findFirstByOrderByIdDesc();
+}
@@ -0,0 +1,35 @@
+package com.docsearch.resilience;
+
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.prompt.ChatOptions;
+import org.springframework.ai.chat.prompt.Prompt;
+import reactor.core.publisher.Flux;
+
+/**
+ * {@link ChatModel} decorator that runs every chat call and stream through an {@link OllamaGuard}.
+ */
+public class GuardedChatModel implements ChatModel {
+
+    private final ChatModel delegate;
+    private final OllamaGuard guard;
+
+    public GuardedChatModel(ChatModel delegate, OllamaGuard guard) {
+        this.delegate = delegate;
+        this.guard = guard;
+    }
+
+    @Override
+    public ChatResponse call(Prompt prompt) {
+        return guard.call(() -> delegate.call(prompt));
+    }
+
+    @Override
+    public Flux<ChatResponse> stream(Prompt prompt) {
+        return guard.stream(() -> delegate.stream(prompt));
+    }
+
+    public ChatOptions getDefaultOptions() {
+        return delegate.getDefaultOptions();
+    }
+}
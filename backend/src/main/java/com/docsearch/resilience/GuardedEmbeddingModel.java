@@ -0,0 +1,37 @@
+package com.docsearch.resilience;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+
+import java.util.List;
+
+/**
+ * {@link EmbeddingModel} decorator that runs every embedding call through an {@link OllamaGuard}.
+ */
+public class GuardedEmbeddingModel implements EmbeddingModel {
+
+    private final EmbeddingModel delegate;
+    private final OllamaGuard guard;
+
+    public GuardedEmbeddingModel(EmbeddingModel delegate, OllamaGuard guard) {
+        this.delegate = delegate;
+        this.guard = guard;
+    }
+
+    @Override
+    public EmbeddingResponse call(EmbeddingRequest request) {
+        return guard.call(() -> delegate.call(request));
+    }
+
+    @Override
+    public List<Double> embed(Document document) {
+        return guard.call(() -> delegate.embed(document));
+    }
+
+    @Override
+    public int dimensions() {
+        return delegate.dimensions();
+    }
+}
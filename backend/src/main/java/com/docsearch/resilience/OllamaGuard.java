@@ -0,0 +1,251 @@
+package com.docsearch.resilience;
+
+import com.docsearch.config.ResilienceProperties;
+import com.docsearch.metrics.PipelineMetrics;
+import com.docsearch.resilience.OllamaUnavailableException.Reason;
+import io.micrometer.core.instrument.Gauge;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Protects one kind of Ollama call with a deadline, a circuit breaker and a bulkhead.
+ * <p>
+ * Behaviour:
+ * <ul>
+ *     <li><b>Deadline</b>: blocking calls run on a dedicated thread and the caller stops waiting
+ *     after {@code timeout}; streams fail when no element arrives within {@code timeout}.</li>
+ *     <li><b>Circuit breaker</b>: after {@code failureThreshold} consecutive failures the circuit
+ *     opens and calls are rejected immediately for {@code openDuration}. Then a single trial
+ *     call is let through; its outcome closes or re-opens the circuit.</li>
+ *     <li><b>Bulkhead</b>: at most {@code maxConcurrentCalls} calls are in flight. A call that
+ *     timed out keeps its slot until the underlying HTTP request actually returns, so a hanging
+ *     Ollama cannot accumulate unbounded work.</li>
+ * </ul>
+ */
+@Slf4j
+public class OllamaGuard {
+
+    /**
+     * Circuit breaker state; the ordinal is exported as a gauge.
+     */
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final String name;
+    private final ResilienceProperties.Guard config;
+    private final PipelineMetrics metrics;
+    private final Semaphore slots;
+    private final ExecutorService executor;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAtNanos;
+    private boolean trialInFlight;
+
+    public OllamaGuard(String name, ResilienceProperties.Guard config, PipelineMetrics metrics) {
+        this.name = name;
+        this.config = config;
+        this.metrics = metrics;
+        this.slots = new Semaphore(config.getMaxConcurrentCalls());
+        AtomicInteger threads = new AtomicInteger();
+        this.executor = Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "ollama-" + name + "-" + threads.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        Gauge.builder(PipelineMetrics.GUARD_STATE, this, g -> g.getState().ordinal())
+                .tag("guard", name)
+                .description("0 = closed, 1 = open, 2 = half-open")
+                .register(metrics.registry());
+        Gauge.builder(PipelineMetrics.GUARD_IN_FLIGHT, slots, s -> config.getMaxConcurrentCalls() - s.availablePermits())
+                .tag("guard", name)
+                .register(metrics.registry());
+    }
+
+    /**
+     * Runs a blocking call under the guard.
+     *
+     * @param action the Ollama call
+     * @return the call's result
+     * @throws OllamaUnavailableException if the call is rejected, times out or fails
+     */
+    public <T> T call(Supplier<T> action) {
+        boolean trial = acquirePermission();
+        acquireSlot(trial);
+
+        CompletableFuture<T> result = new CompletableFuture<>();
+        AtomicReference<Thread> worker = new AtomicReference<>();
+        try {
+            executor.execute(() -> {
+                worker.set(Thread.currentThread());
+                try {
+                    result.complete(action.get());
+                } catch (Throwable e) {
+                    result.completeExceptionally(e);
+                } finally {
+                    worker.set(null);
+                    slots.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            slots.release();
+            onNeutral(trial);
+            throw reject(Reason.FAILURE, "executor shut down", e);
+        }
+
+        try {
+            T value = result.get(config.getTimeout().toMillis(), TimeUnit.MILLISECONDS);
+            onSuccess();
+            return value;
+        } catch (TimeoutException e) {
+            Thread t = worker.get();
+            if (t != null) t.interrupt();
+            onFailure();
+            throw reject(Reason.TIMEOUT, "no response within " + config.getTimeout(), e);
+        } catch (ExecutionException e) {
+            onFailure();
+            throw reject(Reason.FAILURE, String.valueOf(e.getCause()), e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            onNeutral(trial);
+            throw reject(Reason.FAILURE, "interrupted", e);
+        }
+    }
+
+    /**
+     * Wraps a streaming call in the guard.
+     * <p>
+     * Permission and a slot are taken on subscription and the slot is released when
+     * the stream terminates or is cancelled.
+     *
+     * @param action supplies the Ollama stream
+     * @return the guarded stream, failing with {@link OllamaUnavailableException} on rejection or timeout
+     */
+    public <T> Flux<T> stream(Supplier<Flux<T>> action) {
+        return Flux.defer(() -> {
+            boolean trial = acquirePermission();
+            acquireSlot(trial);
+            AtomicBoolean settled = new AtomicBoolean();
+            return action.get()
+                    .timeout(config.getTimeout())
+                    .onErrorMap(TimeoutException.class,
+                            e -> reject(Reason.TIMEOUT, "no element within " + config.getTimeout(), e))
+                    .doOnComplete(() -> {
+                        if (settled.compareAndSet(false, true)) onSuccess();
+                    })
+                    .doOnError(e -> {
+                        if (settled.compareAndSet(false, true)) onFailure();
+                    })
+                    .doFinally(signal -> {
+                        if (settled.compareAndSet(false, true)) onNeutral(trial);
+                        slots.release();
+                    });
+        });
+    }
+
+    /**
+     * Returns whether a call made now would be attempted rather than rejected by the breaker.
+     * <p>
+     * Callers with a cheap fallback use this to skip the call entirely while the circuit is open.
+     */
+    public synchronized boolean isCallPermitted() {
+        return switch (state) {
+            case CLOSED -> true;
+            case OPEN -> openElapsed();
+            case HALF_OPEN -> !trialInFlight;
+        };
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Stops the worker threads; in-flight calls are interrupted.
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private synchronized boolean acquirePermission() {
+        switch (state) {
+            case CLOSED:
+                return false;
+            case OPEN:
+                if (openElapsed()) {
+                    transition(State.HALF_OPEN);
+                    trialInFlight = true;
+                    return true;
+                }
+                break;
+            case HALF_OPEN:
+                if (!trialInFlight) {
+                    trialInFlight = true;
+                    return true;
+                }
+                break;
+        }
+        throw reject(Reason.CIRCUIT_OPEN, "circuit is " + state, null);
+    }
+
+    private void acquireSlot(boolean trial) {
+        boolean acquired;
+        try {
+            acquired = slots.tryAcquire(config.getMaxWait().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            onNeutral(trial);
+            throw reject(Reason.BULKHEAD_FULL, config.getMaxConcurrentCalls() + " calls in flight", null);
+        }
+    }
+
+    private synchronized void onSuccess() {
+        consecutiveFailures = 0;
+        trialInFlight = false;
+        if (state != State.CLOSED) transition(State.CLOSED);
+    }
+
+    private synchronized void onFailure() {
+        trialInFlight = false;
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || (state == State.CLOSED && consecutiveFailures >= config.getFailureThreshold())) {
+            openedAtNanos = System.nanoTime();
+            transition(State.OPEN);
+        }
+    }
+
+    /**
+     * Releases a half-open trial that ended without telling us anything about Ollama's health.
+     */
+    private synchronized void onNeutral(boolean trial) {
+        if (trial) trialInFlight = false;
+    }
+
+    private boolean openElapsed() {
+        return System.nanoTime() - openedAtNanos >= config.getOpenDuration().toNanos();
+    }
+
+    private void transition(State next) {
+        if (state != next) {
+            log.info("Ollama {} circuit {} -> {}", name, state, next);
+            state = next;
+        }
+    }
+
+    private OllamaUnavailableException reject(Reason reason, String message, Throwable cause) {
+        metrics.increment(PipelineMetrics.GUARD_REJECTIONS, "guard", name, "reason", reason.name().toLowerCase());
+        return new OllamaUnavailableException(name, reason, message, cause);
+    }
+}
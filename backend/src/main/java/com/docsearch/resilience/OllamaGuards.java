@@ -0,0 +1,35 @@
+package com.docsearch.resilience;
+
+import com.docsearch.config.ResilienceProperties;
+import com.docsearch.metrics.PipelineMetrics;
+import jakarta.annotation.PreDestroy;
+import org.springframework.stereotype.Component;
+
+/**
+ * Holds the {@link OllamaGuard} instances used for embedding and chat calls.
+ */
+@Component
+public class OllamaGuards {
+
+    private final OllamaGuard embedding;
+    private final OllamaGuard chat;
+
+    public OllamaGuards(ResilienceProperties props, PipelineMetrics metrics) {
+        this.embedding = new OllamaGuard("embedding", props.getEmbedding(), metrics);
+        this.chat = new OllamaGuard("chat", props.getChat(), metrics);
+    }
+
+    public OllamaGuard embedding() {
+        return embedding;
+    }
+
+    public OllamaGuard chat() {
+        return chat;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        embedding.shutdown();
+        chat.shutdown();
+    }
+}
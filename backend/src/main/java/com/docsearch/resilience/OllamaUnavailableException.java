@@ -0,0 +1,38 @@
+package com.docsearch.resilience;
+
+/**
+ * Thrown when a guarded Ollama call is rejected or does not complete in time.
+ */
+public class OllamaUnavailableException extends RuntimeException {
+
+    /**
+     * Why the call did not produce a result.
+     */
+    public enum Reason {
+        /** The circuit breaker is open and the call was not attempted. */
+        CIRCUIT_OPEN,
+        /** All call slots were busy for longer than the configured wait. */
+        BULKHEAD_FULL,
+        /** The call did not complete before its deadline. */
+        TIMEOUT,
+        /** The call failed with an error. */
+        FAILURE
+    }
+
+    private final String guard;
+    private final Reason reason;
+
+    public OllamaUnavailableException(String guard, Reason reason, String message, Throwable cause) {
+        super("Ollama " + guard + " call rejected (" + reason + "): " + message, cause);
+        this.guard = guard;
+        this.reason = reason;
+    }
+
+    public String getGuard() {
+        return guard;
+    }
+
+    public Reason getReason() {
+        return reason;
+    }
+}
@@ -0,0 +1,39 @@
+package com.docsearch.service;
+
+import com.docsearch.model.AnswerContext;
+import reactor.core.publisher.Flux;
+
+/**
+ * Service interface for retrieval-augmented question answering.
+ * <p>
+ * Answers are produced in two steps so that callers can publish the
+ * citations before the first generated token arrives:
+ * <ol>
+ *     <li>{@link #retrieve(String)} finds the most relevant chunks and assembles a prompt.</li>
+ *     <li>{@link #stream(AnswerContext)} streams the model's answer token by token.</li>
+ * </ol>
+ */
+public interface AnswerService {
+
+    /**
+     * Retrieves the chunks most relevant to the question and assembles them into
+     * a prompt that fits within the configured context token budget.
+     *
+     * @param question the user question
+     * @return the selected chunks and the prompt built from them
+     */
+    AnswerContext retrieve(String question);
+
+    /**
+     * Streams the chat model's answer for a previously retrieved context.
+     * <p>
+     * A generation slot is reserved when this method is called and released when
+     * the returned {@link Flux} terminates or is cancelled, so the caller must
+     * always subscribe to it.
+     *
+     * @param context the context returned by {@link #retrieve(String)}
+     * @return the answer as a stream of text fragments
+     * @throws GenerationRejectedException if all generation slots are in use
+     */
+    Flux<String> stream(AnswerContext context);
+}
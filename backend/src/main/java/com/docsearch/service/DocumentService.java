@@ -1,6 +1,8 @@
 package com.docsearch.service;
 
+import com.docsearch.model.CollectionSummary;
 import com.docsearch.model.DocumentEntity;
+import com.docsearch.vector.InvalidCollectionException;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
@@ -22,10 +24,19 @@ public interface DocumentService {
      *
      * @param file        the document file to upload (text or PDF)
      * @param description optional description of the document
+     * @param collection  the collection to upload into; the default collection if blank
      * @return the saved {@link DocumentEntity} containing metadata and extracted text
      * @throws IOException if there is an error reading the file
+     * @throws InvalidCollectionException if the collection name is invalid
      */
-    DocumentEntity upload(MultipartFile file, String description) throws IOException;
+    DocumentEntity upload(MultipartFile file, String description, String collection) throws IOException;
+
+    /**
+     * Uploads a document into the default collection.
+     */
+    default DocumentEntity upload(MultipartFile file, String description) throws IOException {
+        return upload(file, description, null);
+    }
 
     /**
      * Searches for documents based on the given query.
@@ -33,10 +44,24 @@ public interface DocumentService {
      * The search is first attempted in the vector store (semantic search).
      * If no results are found, it falls back to a database "LIKE" search.
      *
-     * @param q the search query string
+     * @param q           the search query string
+     * @param collections the collections to search; all collections if empty
      * @return a list of {@link DocumentEntity} objects matching the query
+     * @throws InvalidCollectionException if a collection name is invalid
+     */
+    List<DocumentEntity> search(String q, List<String> collections);
+
+    /**
+     * Searches all collections.
+     */
+    default List<DocumentEntity> search(String q) {
+        return search(q, List.of());
+    }
+
+    /**
+     * Lists the collections that hold documents, with their document counts.
      */
-    List<DocumentEntity> search(String q);
+    List<CollectionSummary> getCollections();
 
     /**
      * Corrects grammar and spelling mistakes in the content of an uploaded file (PDF or text).
@@ -59,8 +84,16 @@ public interface DocumentService {
 
      DocumentEntity getDocument(Long id);
 
-
-
-
+    /**
+     * Reads part of the extracted text of a document.
+     * <p>
+     * Bounds are clamped to the text, so {@code to} may exceed its length.
+     *
+     * @param id   the document id
+     * @param from the first character, inclusive
+     * @param to   the last character, exclusive
+     * @return the requested text, or {@code null} if the document has no stored text
+     */
+    String getText(Long id, int from, int to);
 
     }
@@ -0,0 +1,12 @@
+package com.docsearch.service;
+
+/**
+ * Thrown when an answer cannot be generated because the maximum number of
+ * concurrent generations has been reached.
+ */
+public class GenerationRejectedException extends RuntimeException {
+
+    public GenerationRejectedException(String message) {
+        super(message);
+    }
+}
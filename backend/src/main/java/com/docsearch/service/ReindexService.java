@@ -0,0 +1,70 @@
+package com.docsearch.service;
+
+import com.docsearch.model.ReindexProgress;
+
+import java.util.Optional;
+
+/**
+ * Service interface for re-embedding all documents with a new embedding model or dimension.
+ * <p>
+ * A job re-chunks and re-embeds every document into a shadow vector table in the
+ * background, throttled to a configured embedding rate. When it is complete, a
+ * cut-over atomically swaps the shadow table in place of the live one.
+ */
+public interface ReindexService {
+
+    /**
+     * Starts a new re-embedding job.
+     *
+     * @param model      the embedding model to use for the new vectors
+     * @param dimensions the dimension of the vectors the model produces
+     * @return the progress of the new job
+     * @throws IllegalStateException if another job has not been cut over yet
+     */
+    ReindexProgress start(String model, int dimensions);
+
+    /**
+     * Returns the progress of the most recent job.
+     *
+     * @return the progress, or empty if no job was ever started
+     */
+    Optional<ReindexProgress> current();
+
+    /**
+     * Asks a running job to stop after the current page.
+     *
+     * @param jobId the job to pause
+     * @return the job's progress
+     */
+    ReindexProgress pause(Long jobId);
+
+    /**
+     * Continues a paused or failed job from its last persisted position.
+     *
+     * @param jobId the job to resume
+     * @return the job's progress
+     */
+    ReindexProgress resume(Long jobId);
+
+    /**
+     * Schedules the cut-over of a finished job and returns without waiting for it.
+     * <p>
+     * On the job thread, documents added since the job finished are embedded, then the live
+     * vector table is atomically replaced with the shadow table. The job is {@code CUTTING_OVER}
+     * meanwhile, and ends {@code CUT_OVER}, or {@code FAILED} with the live table unchanged.
+     *
+     * @param jobId a job in state {@code READY}
+     * @return the job's progress
+     * @throws IllegalStateException if the job is not {@code READY}, or its model is not the one
+     *                               queries are embedded with
+     */
+    ReindexProgress cutover(Long jobId);
+
+    /**
+     * Abandons a job that has not been cut over and drops its shadow table.
+     *
+     * @param jobId the job to cancel
+     * @return the job's progress
+     */
+    ReindexProgress cancel(Long jobId);
+}
@@ -0,0 +1,58 @@
+package com.docsearch.service;
+
+import com.docsearch.model.SnapshotInfo;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Exports the index to snapshot files and restores it from them, without calling the embedding model.
+ * <p>
+ * A snapshot holds documents, their compressed texts, optionally their original files, and every chunk
+ * with its metadata and embedding. Snapshots live in {@code docsearch.snapshot.directory}.
+ */
+public interface SnapshotService {
+
+    /**
+     * Writes a consistent snapshot of the current index to a new file.
+     *
+     * @param includeFiles whether to include the original uploaded files
+     * @return the new snapshot
+     */
+    SnapshotInfo export(boolean includeFiles) throws IOException;
+
+    /**
+     * Lists the snapshots in the directory, newest first.
+     */
+    List<SnapshotInfo> list() throws IOException;
+
+    /**
+     * Returns the path of an existing snapshot.
+     *
+     * @throws java.util.NoSuchElementException if there is no snapshot of that name
+     */
+    Path path(String name);
+
+    /**
+     * Stores a snapshot uploaded from elsewhere, e.g. exported by another node.
+     *
+     * @throws com.docsearch.snapshot.SnapshotFormatException if the upload is not a complete snapshot
+     */
+    SnapshotInfo store(String name, InputStream in) throws IOException;
+
+    /**
+     * Loads a snapshot into an empty index.
+     *
+     * @throws IllegalStateException if the index is not empty or the snapshot's embeddings do not fit it
+     */
+    SnapshotInfo restore(String name) throws IOException;
+
+    /**
+     * Deletes a snapshot.
+     *
+     * @return {@code false} if there was no snapshot of that name
+     */
+    boolean delete(String name) throws IOException;
+}
@@ -0,0 +1,46 @@
+package com.docsearch.service;
+
+import com.docsearch.model.Suggestion;
+import com.docsearch.model.SuggestionStats;
+
+import java.util.List;
+
+/**
+ * Search-as-you-type suggestions served from memory.
+ * <p>
+ * Completes the typed prefix from frequent queries, document filenames and the words
+ * of document text, without touching the database or the embedding model.
+ */
+public interface SuggestionService {
+
+    /**
+     * Returns completions of {@code prefix}, highest weight first.
+     *
+     * @param prefix the text typed so far
+     * @param limit  maximum number of suggestions; {@code 0} for the configured default
+     * @return the suggestions, possibly empty
+     */
+    List<Suggestion> suggest(String prefix, int limit);
+
+    /**
+     * Counts a submitted search query, so that frequent queries are suggested.
+     */
+    void recordQuery(String query);
+
+    /**
+     * Indexes the filename and words of a new document, once the current transaction commits.
+     */
+    void documentAdded(Long id, String filename, String text);
+
+    /**
+     * Removes the filename and words of a deleted document, once the current transaction commits.
+     */
+    void documentRemoved(Long id, String filename, String text);
+
+    /**
+     * Builds the index anew from every document in the database, for documents written outside the upload path.
+     */
+    void rebuild();
+
+    SuggestionStats stats();
+}
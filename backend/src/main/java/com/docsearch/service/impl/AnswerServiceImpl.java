@@ -0,0 +1,211 @@
+package com.docsearch.service.impl;
+
+import com.docsearch.config.AskProperties;
+import com.docsearch.metrics.PipelineMetrics;
+import com.docsearch.model.AnswerContext;
+import com.docsearch.model.ChunkCitation;
+import com.docsearch.model.DocumentSummary;
+import com.docsearch.repository.DocumentRepository;
+import com.docsearch.service.AnswerService;
+import com.docsearch.service.GenerationRejectedException;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+
+import java.util.*;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * Implementation of {@link AnswerService} that combines the {@link VectorStore}
+ * with the Ollama {@link ChatClient}.
+ * <p>
+ * Responsibilities:
+ * <ul>
+ *     <li>Retrieve the top chunks for a question from the vector store.</li>
+ *     <li>Pack as many of them as fit into the context token budget, numbered for citation.</li>
+ *     <li>Stream the model's answer while bounding the number of simultaneous generations.</li>
+ * </ul>
+ */
+@Service
+public class AnswerServiceImpl implements AnswerService {
+
+    static final String SYSTEM_PROMPT =
+            "You answer questions using only the numbered document excerpts provided. " +
+            "Cite the excerpts you use with their bracketed numbers, for example [1]. " +
+            "If the excerpts do not contain the answer, say that you do not know.";
+
+    private static final int SNIPPET_LENGTH = 200;
+
+    private final VectorStore vectorStore;
+    private final DocumentRepository repo;
+    private final ChatClient ollamaChatClient;
+    private final AskProperties props;
+    private final PipelineMetrics metrics;
+    private final Semaphore generations;
+
+    public AnswerServiceImpl(VectorStore vectorStore,
+                             DocumentRepository repo,
+                             ChatClient ollamaChatClient,
+                             AskProperties props,
+                             PipelineMetrics metrics) {
+        this.vectorStore = vectorStore;
+        this.repo = repo;
+        this.ollamaChatClient = ollamaChatClient;
+        this.props = props;
+        this.metrics = metrics;
+        this.generations = new Semaphore(props.getMaxConcurrentGenerations());
+    }
+
+    /**
+     * Retrieves the top chunks for the question and builds the prompt.
+     * <p>
+     * Filenames of the cited documents are read in one query on a projection that leaves out
+     * the stored file, after the context has been packed so only the chunks used are looked up.
+     *
+     * @param question the user question
+     * @return the selected chunks and the assembled prompt
+     */
+    @Override
+    public AnswerContext retrieve(String question) {
+        List<Document> results;
+        Timer.Sample query = metrics.start();
+        String outcome = "error";
+        try {
+            results = vectorStore.similaritySearch(
+                    SearchRequest.query(question).withTopK(props.getTopK())
+                            .withSimilarityThreshold(props.getSimilarityThreshold())
+            );
+            outcome = "success";
+        } finally {
+            metrics.stop(query, PipelineMetrics.VECTOR_QUERY, "outcome", outcome);
+        }
+
+        List<Document> selected = packContext(results);
+
+        Set<Long> ids = selected.stream()
+                .map(doc -> asLong(doc.getMetadata().get("docId")))
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Map<Long, String> names = ids.isEmpty() ? Map.of() : repo.findByIdIn(ids).stream()
+                .filter(s -> s.getFilename() != null)
+                .collect(Collectors.toMap(DocumentSummary::getId, DocumentSummary::getFilename));
+        List<ChunkCitation> citations = new ArrayList<>();
+        StringBuilder context = new StringBuilder();
+        int index = 1;
+        for (Document doc : selected) {
+            Long docId = asLong(doc.getMetadata().get("docId"));
+            Long chunkIndex = asLong(doc.getMetadata().get("chunkIndex"));
+            Object distance = doc.getMetadata().get("distance");
+            String filename = names.get(docId);
+
+            citations.add(ChunkCitation.builder()
+                    .index(index)
+                    .docId(docId)
+                    .filename(filename)
+                    .chunkIndex(chunkIndex == null ? null : chunkIndex.intValue())
+                    .distance(distance instanceof Number ? ((Number) distance).doubleValue() : null)
+                    .snippet(snippet(doc.getContent()))
+                    .build());
+
+            context.append('[').append(index).append("] ")
+                    .append(filename != null ? filename : "document " + docId)
+                    .append('\n')
+                    .append(doc.getContent())
+                    .append("\n\n");
+            index++;
+        }
+
+        String prompt = citations.isEmpty()
+                ? "No document excerpts were found.\n\nQuestion: " + question
+                : "Document excerpts:\n\n" + context + "Question: " + question;
+
+        return AnswerContext.builder()
+                .question(question)
+                .citations(citations)
+                .prompt(prompt)
+                .contextTokens(estimateTokens(context.length()))
+                .build();
+    }
+
+    /**
+     * Streams the answer for the given context from the chat model.
+     *
+     * @param context the context returned by {@link #retrieve(String)}
+     * @return the answer as a stream of text fragments
+     * @throws GenerationRejectedException if all generation slots are in use
+     */
+    @Override
+    public Flux<String> stream(AnswerContext context) {
+        if (!generations.tryAcquire()) {
+            throw new GenerationRejectedException(
+                    "All " + props.getMaxConcurrentGenerations() + " generation slots are busy");
+        }
+        try {
+            Timer.Sample firstToken = metrics.start();
+            AtomicBoolean first = new AtomicBoolean(true);
+            return ollamaChatClient.prompt()
+                    .system(SYSTEM_PROMPT)
+                    .user(context.getPrompt())
+                    .stream()
+                    .content()
+                    .doOnNext(token -> {
+                        if (first.compareAndSet(true, false)) {
+                            metrics.stop(firstToken, PipelineMetrics.ASK_FIRST_TOKEN);
+                        }
+                    })
+                    .doFinally(signal -> generations.release());
+        } catch (RuntimeException e) {
+            generations.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Selects chunks in relevance order until the context token budget is used up.
+     * <p>
+     * Chunks that no longer fit are skipped so that a shorter, less relevant chunk
+     * can still use the remaining budget. The most relevant chunk is always kept,
+     * truncated to the budget if necessary.
+     *
+     * @param ranked chunks ordered from most to least relevant
+     * @return the chunks to include in the prompt
+     */
+    List<Document> packContext(List<Document> ranked) {
+        int budgetChars = props.getContextTokenBudget() * props.getCharsPerToken();
+        List<Document> selected = new ArrayList<>();
+        int used = 0;
+
+        for (Document doc : ranked) {
+            String content = doc.getContent();
+            if (content == null || content.isBlank()) continue;
+
+            if (used + content.length() <= budgetChars) {
+                selected.add(doc);
+                used += content.length();
+            } else if (selected.isEmpty()) {
+                selected.add(new Document(doc.getId(), content.substring(0, budgetChars), doc.getMetadata()));
+                used = budgetChars;
+            }
+        }
+        return selected;
+    }
+
+    private int estimateTokens(int chars) {
+        return (chars + props.getCharsPerToken() - 1) / props.getCharsPerToken();
+    }
+
+    private static String snippet(String content) {
+        if (content == null) return "";
+        return content.length() <= SNIPPET_LENGTH ? content : content.substring(0, SNIPPET_LENGTH) + "…";
+    }
+
+    private static Long asLong(Object value) {
+        return (value instanceof Number) ? ((Number) value).longValue() : null;
+    }
+}
@@ -1,10 +1,23 @@
 package com.docsearch.service.impl;
 import org.springframework.ai.chat.client.ChatClient;
 
+import com.docsearch.config.IngestionProperties;
+import com.docsearch.config.SearchProperties;
+import com.docsearch.ingest.IngestionQueue;
+import com.docsearch.metrics.PipelineMetrics;
+import com.docsearch.model.CollectionSummary;
 import com.docsearch.model.DocumentEntity;
 import com.docsearch.repository.DocumentRepository;
+import com.docsearch.resilience.OllamaGuards;
 import com.docsearch.service.DocumentService;
+import com.docsearch.service.SuggestionService;
+import com.docsearch.startup.StartupMetrics;
+import com.docsearch.storage.DocumentTextStore;
+import com.docsearch.vector.CollectionName;
+import com.docsearch.vector.PgCollectionVectorStore;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.apache.pdfbox.Loader;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.text.PDFTextStripper;
@@ -27,45 +40,52 @@ import java.util.stream.Collectors;
  * Responsibilities:
  * <ul>
  *     <li>Extract text from uploaded documents (supports plain text and PDF).</li>
- *     <li>Persist document metadata and content in the database.</li>
- *     <li>Index document chunks into a vector store for semantic search.</li>
- *     <li>Provide search functionality using both semantic (vector-based) and fallback keyword search.</li>
+ *     <li>Persist document metadata in the database and the text, compressed, in the {@link DocumentTextStore}.</li>
+ *     <li>Queue document chunks for embedding into the partition of the document's collection.</li>
+ *     <li>Provide search functionality using both semantic (vector-based) and fallback keyword search,
+ *     within the requested collections or across all of them.</li>
  * </ul>
+ * Every stage is timed through {@link PipelineMetrics}.
  */
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class DocumentServiceImpl implements DocumentService {
 
     private final DocumentRepository repo;
+    private final DocumentTextStore textStore;
     private final VectorStore vectorStore;
     private final ChatClient ollamaChatClient;
+    private final PipelineMetrics metrics;
+    private final OllamaGuards guards;
+    private final IngestionQueue ingestionQueue;
+    private final IngestionProperties ingestionProps;
+    private final StartupMetrics startupMetrics;
+    private final SuggestionService suggestions;
+    private final SearchProperties searchProps;
 
     /**
      * Uploads a document and prepares it for semantic search.
      * <p>
      * For PDF files, the text is extracted using Apache PDFBox.
      * For other file types (e.g., plain text), the content is read directly.
-     * The document is stored in the database and chunked into smaller parts,
-     * which are indexed into the vector store for semantic similarity search.
+     * The document and its text are stored in the database, and the text's chunks
+     * are queued as {@link IngestionQueue} tasks in the same transaction. Embedding
+     * happens on the ingestion workers of any replica, so the upload does not wait
+     * for Ollama. The filename and words are added to the {@link SuggestionService}
+     * once the transaction commits.
      *
      * @param file        the uploaded document (PDF or text)
      * @param description optional description provided by the user
+     * @param collection  the collection to upload into; the default collection if blank
      * @return the saved {@link DocumentEntity} containing metadata and extracted text
      * @throws IOException if reading or parsing the file fails
      */
     @Override
     @Transactional
-    public DocumentEntity upload(MultipartFile file, String description) throws IOException {
-        String text;
-
-        if ("application/pdf".equalsIgnoreCase(file.getContentType())) {
-            try (PDDocument pdfDoc = Loader.loadPDF(file.getInputStream().readAllBytes())) {
-                PDFTextStripper stripper = new PDFTextStripper();
-                text = stripper.getText(pdfDoc);
-            }
-        } else {
-            text = new String(file.getBytes(), StandardCharsets.UTF_8);
-        }
+    public DocumentEntity upload(MultipartFile file, String description, String collection) throws IOException {
+        String collectionName = CollectionName.normalize(collection);
+        String text = extractText(file);
 
         DocumentEntity entity = DocumentEntity.builder()
                 .filename(file.getOriginalFilename())
@@ -73,24 +93,24 @@ public class DocumentServiceImpl implements DocumentService {
                 .contentText(text)
                 .fileData(file.getBytes())
                 .description(description)
+                .collection(collectionName)
                 .uploadedAt(Instant.now())
                 .build();
 
+        Timer.Sample persist = metrics.start();
         DocumentEntity saved = repo.save(entity);
+        textStore.save(saved.getId(), text);
+        metrics.stop(persist, PipelineMetrics.PERSIST);
 
-        List<String> chunks = chunkText(text, 800, 120);
-        int idx = 0;
-
-        for (String chunk : chunks) {
-            Document doc = new Document(
-                    chunk,
-                    Map.of(
-                            "docId", saved.getId(),
-                            "chunkIndex", idx++
-                    )
-            );
-            vectorStore.add(List.of(doc));
-        }
+        Timer.Sample chunking = metrics.start();
+        List<TextChunker.Span> spans = TextChunker.spans(text == null ? 0 : text.length(),
+                TextChunker.DEFAULT_MAX_LEN, TextChunker.DEFAULT_OVERLAP);
+        metrics.stop(chunking, PipelineMetrics.CHUNKING);
+        metrics.record(PipelineMetrics.CHUNKS_PER_DOCUMENT, spans.size());
+        metrics.record(PipelineMetrics.TEXT_SIZE, text == null ? 0 : text.length(), "stage", "ingest");
+
+        ingestionQueue.enqueue(saved.getId(), collectionName, spans, ingestionProps.getBatchSize());
+        suggestions.documentAdded(saved.getId(), saved.getFilename(), text);
 
         return saved;
     }
@@ -99,61 +119,85 @@ public class DocumentServiceImpl implements DocumentService {
      * Searches documents by query string.
      * <p>
      * The method first attempts a semantic search using the vector store.
-     * If no relevant results are found, it falls back to a traditional
+     * If no relevant results are found, the embedding call fails, or the
+     * embedding circuit is open, it falls back to a traditional
      * case-insensitive LIKE search in the database.
+     * Results carry a short preview instead of the full text.
+     * <p>
+     * With collections given, only their partitions of the vector table are searched;
+     * otherwise the vector store searches every collection in parallel and merges the results.
      *
-     * @param q the query string
+     * @param q           the query string
+     * @param collections the collections to search; all collections if empty
      * @return a list of matching {@link DocumentEntity} results
      */
     @Override
-    public List<DocumentEntity> search(String q) {
+    public List<DocumentEntity> search(String q, List<String> collections) {
+        Set<String> names = new TreeSet<>();
+        if (collections != null) {
+            collections.forEach(c -> names.add(CollectionName.normalize(c)));
+        }
+        long started = System.nanoTime();
         try {
-            List<Document> results = vectorStore.similaritySearch(
-                    SearchRequest.query(q).withTopK(10)
-                            .withSimilarityThreshold(0.5)
-            );
-
-            Set<Long> ids = results.stream()
-                    .map(doc -> {
-                        Object id = doc.getMetadata().get("docId");
-                        return (id instanceof Number) ? ((Number) id).longValue() : null;
-                    })
-                    .filter(Objects::nonNull)
-                    .collect(Collectors.toSet());
-
-            if (!ids.isEmpty()) {
-                return repo.findAllById(ids);
-            }
-        } catch (Exception ignored) {
+            return vectorOrKeywordSearch(q, names);
+        } finally {
+            startupMetrics.searchCompleted(System.nanoTime() - started);
         }
-
-        return repo.searchLike(q);
     }
 
-    /**
-     * Splits a long text into smaller chunks for vector indexing.
-     * <p>
-     * Each chunk has a maximum length, with an overlap between consecutive chunks
-     * to preserve semantic continuity across boundaries.
-     *
-     * @param text    the input text
-     * @param maxLen  maximum length of each chunk
-     * @param overlap number of overlapping characters between consecutive chunks
-     * @return a list of text chunks
-     */
-    private List<String> chunkText(String text, int maxLen, int overlap) {
-        List<String> parts = new ArrayList<>();
-        if (text == null) return parts;
-        int n = text.length();
-        int i = 0;
-        while (i < n) {
-            int end = Math.min(n, i + maxLen);
-            parts.add(text.substring(i, end));
-            if (end == n) break;
-            i = end - overlap;
-            if (i < 0) i = 0;
+    private List<DocumentEntity> vectorOrKeywordSearch(String q, Set<String> collections) {
+        String fallbackReason = "no_results";
+        if (!guards.embedding().isCallPermitted()) {
+            fallbackReason = "circuit_open";
+        } else {
+            try {
+                SearchRequest request = SearchRequest.query(q).withTopK(searchProps.getTopK())
+                        .withSimilarityThreshold(searchProps.getSimilarityThreshold());
+                if (!collections.isEmpty()) {
+                    request = request.withFilterExpression(PgCollectionVectorStore.inCollections(collections));
+                }
+                List<Document> results;
+                Timer.Sample query = metrics.start();
+                String outcome = "error";
+                try {
+                    results = vectorStore.similaritySearch(request);
+                    outcome = "success";
+                } finally {
+                    metrics.stop(query, PipelineMetrics.VECTOR_QUERY, "outcome", outcome);
+                }
+
+                Set<Long> ids = results.stream()
+                        .map(doc -> {
+                            Object id = doc.getMetadata().get("docId");
+                            return (id instanceof Number) ? ((Number) id).longValue() : null;
+                        })
+                        .filter(Objects::nonNull)
+                        .collect(Collectors.toSet());
+
+                if (!ids.isEmpty()) {
+                    Timer.Sample hydrate = metrics.start();
+                    List<DocumentEntity> docs = repo.findAllById(ids);
+                    textStore.attachPreviews(docs);
+                    metrics.stop(hydrate, PipelineMetrics.SEARCH_HYDRATE);
+                    metrics.increment(PipelineMetrics.SEARCH_REQUESTS, "mode", "vector");
+                    return docs;
+                }
+            } catch (Exception e) {
+                fallbackReason = "error";
+                log.warn("Vector search failed, falling back to keyword search: {}", e.toString());
+            }
         }
-        return parts;
+
+        metrics.increment(PipelineMetrics.SEARCH_REQUESTS, "mode", "keyword");
+        metrics.increment(PipelineMetrics.SEARCH_FALLBACKS, "reason", fallbackReason);
+        Timer.Sample keyword = metrics.start();
+        String terms = DocumentTextStore.termQuery(q);
+        List<DocumentEntity> docs = collections.isEmpty()
+                ? repo.searchLike(q, terms)
+                : repo.searchLikeInCollections(q, terms, collections);
+        textStore.attachPreviews(docs);
+        metrics.stop(keyword, PipelineMetrics.KEYWORD_SEARCH);
+        return docs;
     }
 
     /**
@@ -177,15 +221,7 @@ public class DocumentServiceImpl implements DocumentService {
      */
     @Override
     public DocumentEntity correctFile(MultipartFile file) throws IOException {
-        String text;
-
-        if ("application/pdf".equalsIgnoreCase(file.getContentType())) {
-            try (PDDocument pdfDoc = Loader.loadPDF(file.getInputStream().readAllBytes())) {
-                text = new PDFTextStripper().getText(pdfDoc);
-            }
-        } else {
-            text = new String(file.getBytes(), StandardCharsets.UTF_8);
-        }
+        String text = extractText(file);
 
         String corrected = correctText(text);
 
@@ -199,6 +235,35 @@ public class DocumentServiceImpl implements DocumentService {
                 .build();
     }
 
+    /**
+     * Extracts the text of an uploaded file and records the extraction time.
+     * <p>
+     * PDF files are parsed with Apache PDFBox; any other file is decoded as UTF-8 text.
+     *
+     * @param file the uploaded file
+     * @return the extracted text
+     * @throws IOException if reading or parsing the file fails
+     */
+    private String extractText(MultipartFile file) throws IOException {
+        boolean pdf = "application/pdf".equalsIgnoreCase(file.getContentType());
+        Timer.Sample sample = metrics.start();
+        String outcome = "error";
+        try {
+            String text;
+            if (pdf) {
+                try (PDDocument pdfDoc = Loader.loadPDF(file.getInputStream().readAllBytes())) {
+                    text = new PDFTextStripper().getText(pdfDoc);
+                }
+            } else {
+                text = new String(file.getBytes(), StandardCharsets.UTF_8);
+            }
+            outcome = "success";
+            return text;
+        } finally {
+            metrics.stop(sample, PipelineMetrics.EXTRACTION, "type", pdf ? "pdf" : "text", "outcome", outcome);
+        }
+    }
+
     /**
      * Sends the given text to the Ollama chat client for grammar and spelling correction.
      * <p>
@@ -212,27 +277,60 @@ public class DocumentServiceImpl implements DocumentService {
         String prompt = "Please correct the spelling and grammar in the following text. " +
                 "Preserve meaning and structure:\n\n" + input;
 
-        return ollamaChatClient.prompt()
-                .user(prompt)
-                .call()
-                .content();
+        Timer.Sample sample = metrics.start();
+        String outcome = "error";
+        try {
+            String corrected = ollamaChatClient.prompt()
+                    .user(prompt)
+                    .call()
+                    .content();
+            outcome = "success";
+            return corrected;
+        } finally {
+            metrics.stop(sample, PipelineMetrics.CORRECTION, "outcome", outcome);
+            metrics.record(PipelineMetrics.TEXT_SIZE, input == null ? 0 : input.length(), "stage", "correction");
+        }
     }
 
     public List<DocumentEntity> getAllDocuments() {
-        return repo.findAll();
+        List<DocumentEntity> docs = repo.findAll();
+        textStore.attachPreviews(docs);
+        return docs;
     }
 
+    @Transactional
     public boolean deleteDocument(Long id) {
-        if (repo.existsById(id)) {
-            repo.deleteById(id);
-            return true;
+        Optional<DocumentEntity> doc = repo.findById(id);
+        if (doc.isEmpty()) {
+            return false;
         }
-        return false;
+        String text = textStore.read(id);
+        repo.deleteById(id);
+        textStore.delete(id);
+        ingestionQueue.cancel(id);
+        suggestions.documentRemoved(id, doc.get().getFilename(), text);
+        return true;
     }
 
+    /**
+     * Loads a document together with its file bytes, which are otherwise fetched lazily.
+     */
+    @Transactional(readOnly = true)
     public DocumentEntity getDocument(Long id) {
-        return repo.findById(id).orElse(null);
+        DocumentEntity doc = repo.findById(id).orElse(null);
+        if (doc != null) {
+            doc.getFileData();
+        }
+        return doc;
     }
 
+    @Override
+    public String getText(Long id, int from, int to) {
+        return textStore.read(id, from, to);
+    }
 
+    @Override
+    public List<CollectionSummary> getCollections() {
+        return repo.findCollections();
+    }
 }
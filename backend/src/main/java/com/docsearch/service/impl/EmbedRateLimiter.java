@@ -0,0 +1,43 @@
+package com.docsearch.service.impl;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Spaces out embedding work so that, on average, no more than a fixed number of
+ * texts are embedded per second.
+ * <p>
+ * Each acquisition reserves the next free time slot for its permits and sleeps
+ * until that slot starts, so bursts are smoothed rather than rejected.
+ */
+public class EmbedRateLimiter {
+
+    private final long nanosPerPermit;
+    private long nextFreeNanos = System.nanoTime();
+
+    /**
+     * @param permitsPerSecond the sustained rate; zero or less disables throttling
+     */
+    public EmbedRateLimiter(double permitsPerSecond) {
+        this.nanosPerPermit = permitsPerSecond <= 0 ? 0 : (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond);
+    }
+
+    /**
+     * Blocks until {@code permits} texts may be embedded.
+     *
+     * @param permits the number of texts about to be embedded
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public void acquire(int permits) throws InterruptedException {
+        if (nanosPerPermit == 0) return;
+        long wait;
+        synchronized (this) {
+            long now = System.nanoTime();
+            long start = Math.max(now, nextFreeNanos);
+            nextFreeNanos = start + permits * nanosPerPermit;
+            wait = start - now;
+        }
+        if (wait > 0) {
+            TimeUnit.NANOSECONDS.sleep(wait);
+        }
+    }
+}
@@ -0,0 +1,450 @@
+package com.docsearch.service.impl;
+
+import com.docsearch.config.ReindexProperties;
+import com.docsearch.metrics.PipelineMetrics;
+import com.docsearch.model.ReindexJobEntity;
+import com.docsearch.model.ReindexJobEntity.Status;
+import com.docsearch.model.DocumentSummary;
+import com.docsearch.model.ReindexProgress;
+import com.docsearch.repository.DocumentRepository;
+import com.docsearch.repository.ReindexJobRepository;
+import com.docsearch.service.ReindexService;
+import com.docsearch.storage.DocumentTextStore;
+import com.docsearch.vector.PgCollectionVectorStore;
+import com.docsearch.vector.VectorPartitions;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+import org.springframework.ai.ollama.api.OllamaOptions;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * Implementation of {@link ReindexService} that re-embeds documents into a shadow pgvector table.
+ * <p>
+ * Responsibilities:
+ * <ul>
+ *     <li>Page through document ids from {@link DocumentRepository} and read each text from the {@link DocumentTextStore}.</li>
+ *     <li>Re-chunk each document and embed the chunks in batches, throttled by {@link EmbedRateLimiter}.</li>
+ *     <li>Upsert vectors under deterministic ids into the partition of each document's collection,
+ *     so re-processing a page after a restart is harmless.</li>
+ *     <li>Persist the cursor after every page and resume a running job on startup.</li>
+ *     <li>Swap the shadow table and its partitions in place of the live table in a single transaction,
+ *     after catching up on late uploads; the swap only locks uploads and chunk writes out once nothing is left
+ *     to embed.</li>
+ * </ul>
+ * Only one job runs at a time, on a single background thread of this node; cut-over runs on the same thread.
+ */
+@Slf4j
+@Service
+public class ReindexServiceImpl implements ReindexService {
+
+    private static final Pattern IDENTIFIER = Pattern.compile("[a-z_][a-z0-9_]*");
+    private static final String LIVE_INDEX = "spring_ai_vector_index";
+    private static final Set<Status> ACTIVE =
+            EnumSet.of(Status.RUNNING, Status.PAUSED, Status.READY, Status.CUTTING_OVER, Status.FAILED);
+
+    private final DocumentRepository repo;
+    private final DocumentTextStore textStore;
+    private final ReindexJobRepository jobs;
+    private final EmbeddingModel embeddingModel;
+    private final JdbcTemplate jdbc;
+    private final VectorPartitions partitions;
+    private final TransactionTemplate tx;
+    private final ReindexProperties props;
+    private final PipelineMetrics metrics;
+    private final ObjectMapper mapper;
+    private final ExecutorService worker;
+    private final String queryModel;
+
+    private volatile boolean pauseRequested;
+
+    public ReindexServiceImpl(DocumentRepository repo,
+                              DocumentTextStore textStore,
+                              ReindexJobRepository jobs,
+                              EmbeddingModel embeddingModel,
+                              JdbcTemplate jdbc,
+                              VectorPartitions partitions,
+                              TransactionTemplate tx,
+                              ReindexProperties props,
+                              PipelineMetrics metrics,
+                              ObjectMapper mapper,
+                              Environment env) {
+        this.repo = repo;
+        this.textStore = textStore;
+        this.jobs = jobs;
+        this.embeddingModel = embeddingModel;
+        this.jdbc = jdbc;
+        this.partitions = partitions;
+        this.tx = tx;
+        this.props = props;
+        this.metrics = metrics;
+        this.mapper = mapper;
+        this.queryModel = env.getProperty("spring.ai.ollama.embedding.options.model", "");
+        this.worker = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "reindex");
+            t.setDaemon(true);
+            return t;
+        });
+        requireIdentifier(props.getTable());
+        requireIdentifier(props.getShadowTable());
+    }
+
+    /**
+     * Resumes a job that was running, or being cut over, when the application last stopped.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeInterrupted() {
+        jobs.findFirstByStatusInOrderByIdDesc(List.of(Status.RUNNING, Status.CUTTING_OVER)).ifPresent(job -> {
+            if (job.getStatus() == Status.CUTTING_OVER) {
+                log.info("Resuming cut-over of re-index job {}", job.getId());
+                submitCutover(job.getId());
+            } else {
+                log.info("Resuming re-index job {} after document {}", job.getId(), job.getLastDocId());
+                submit(job.getId());
+            }
+        });
+    }
+
+    @PreDestroy
+    void stop() {
+        pauseRequested = true;
+        worker.shutdownNow();
+    }
+
+    @Override
+    public synchronized ReindexProgress start(String model, int dimensions) {
+        if (model == null || model.isBlank() || dimensions <= 0) {
+            throw new IllegalArgumentException("A model name and a positive dimension are required");
+        }
+        jobs.findFirstByStatusInOrderByIdDesc(ACTIVE).ifPresent(job -> {
+            throw new IllegalStateException("Re-index job " + job.getId() + " is " + job.getStatus()
+                    + "; cut it over or let it finish first");
+        });
+
+        jdbc.execute("DROP TABLE IF EXISTS " + props.getShadowTable());
+        partitions.createTable(props.getShadowTable(), dimensions);
+
+        Instant now = Instant.now();
+        ReindexJobEntity job = jobs.save(ReindexJobEntity.builder()
+                .model(model)
+                .dimensions(dimensions)
+                .status(Status.RUNNING)
+                .lastDocId(0L)
+                .totalDocs(repo.count())
+                .createdAt(now)
+                .updatedAt(now)
+                .build());
+
+        submit(job.getId());
+        return ReindexProgress.of(job);
+    }
+
+    @Override
+    public Optional<ReindexProgress> current() {
+        return jobs.findFirstByOrderByIdDesc().map(ReindexProgress::of);
+    }
+
+    @Override
+    public synchronized ReindexProgress pause(Long jobId) {
+        ReindexJobEntity job = load(jobId);
+        if (job.getStatus() != Status.RUNNING) {
+            throw new IllegalStateException("Re-index job " + jobId + " is " + job.getStatus());
+        }
+        pauseRequested = true;
+        return ReindexProgress.of(job);
+    }
+
+    @Override
+    public synchronized ReindexProgress resume(Long jobId) {
+        ReindexJobEntity job = load(jobId);
+        if (job.getStatus() != Status.PAUSED && job.getStatus() != Status.FAILED) {
+            throw new IllegalStateException("Re-index job " + jobId + " is " + job.getStatus());
+        }
+        job.setStatus(Status.RUNNING);
+        job.setError(null);
+        job.setUpdatedAt(Instant.now());
+        submit(jobs.save(job).getId());
+        return ReindexProgress.of(job);
+    }
+
+    @Override
+    public synchronized ReindexProgress cutover(Long jobId) {
+        ReindexJobEntity job = load(jobId);
+        if (job.getStatus() != Status.READY) {
+            throw new IllegalStateException("Re-index job " + jobId + " is " + job.getStatus() + ", not READY");
+        }
+        // queries and new uploads are embedded with the configured model, which must match the new vectors
+        if (!job.getModel().equals(queryModel)) {
+            throw new IllegalStateException("Re-index job " + jobId + " embedded with " + job.getModel()
+                    + " but queries are embedded with " + queryModel
+                    + "; set spring.ai.ollama.embedding.options.model to " + job.getModel() + " before cutting over");
+        }
+        job.setStatus(Status.CUTTING_OVER);
+        job.setUpdatedAt(Instant.now());
+        submitCutover(jobs.save(job).getId());
+        return ReindexProgress.of(job);
+    }
+
+    @Override
+    public synchronized ReindexProgress cancel(Long jobId) {
+        ReindexJobEntity job = load(jobId);
+        if (!ACTIVE.contains(job.getStatus()) || job.getStatus() == Status.CUTTING_OVER) {
+            throw new IllegalStateException("Re-index job " + jobId + " is " + job.getStatus());
+        }
+        pauseRequested = true;
+        job.setStatus(Status.CANCELLED);
+        job.setUpdatedAt(Instant.now());
+        jobs.save(job);
+        jdbc.execute("DROP TABLE IF EXISTS " + props.getShadowTable());
+        return ReindexProgress.of(job);
+    }
+
+    private void submit(Long jobId) {
+        pauseRequested = false;
+        worker.submit(() -> run(jobId));
+    }
+
+    private void submitCutover(Long jobId) {
+        pauseRequested = false;
+        worker.submit(() -> runCutover(jobId));
+    }
+
+    private void run(Long jobId) {
+        ReindexJobEntity job = load(jobId);
+        boolean finished;
+        try {
+            finished = processPages(job, collection -> partitions.ensure(props.getShadowTable(), collection));
+            synchronized (this) {
+                if (load(jobId).getStatus() == Status.CANCELLED) return;
+                job.setStatus(finished ? Status.READY : Status.PAUSED);
+                job.setUpdatedAt(Instant.now());
+                jobs.save(job);
+            }
+            log.info("Re-index job {} {}: {} documents, {} chunks", jobId, job.getStatus(),
+                    job.getDocsProcessed(), job.getChunksEmbedded());
+        } catch (Exception e) {
+            if (load(jobId).getStatus() == Status.CANCELLED) return;
+            fail(jobId, "Re-index job " + jobId + " failed after document " + job.getLastDocId(), e);
+            return;
+        }
+        if (finished && props.isAutoCutover()) {
+            try {
+                cutover(jobId);
+            } catch (IllegalStateException e) {
+                log.warn("Re-index job {} is READY but was not cut over: {}", jobId, e.getMessage());
+            }
+        }
+    }
+
+    private void runCutover(Long jobId) {
+        try {
+            swap(load(jobId));
+        } catch (Exception e) {
+            fail(jobId, "Cut-over of re-index job " + jobId + " failed", e);
+        }
+    }
+
+    /**
+     * Marks a job failed, from its last committed state; a failed job can be resumed.
+     */
+    private void fail(Long jobId, String message, Exception e) {
+        log.error(message, e);
+        ReindexJobEntity job = load(jobId);
+        job.setStatus(Status.FAILED);
+        job.setError(e.toString());
+        job.setUpdatedAt(Instant.now());
+        jobs.save(job);
+    }
+
+    /**
+     * Embeds documents added since the job finished, then replaces the live vector table with the shadow table.
+     * <p>
+     * Late documents are caught up while uploads and searches continue; no embedding call is made under a lock.
+     * The swap transaction then locks {@code documents} against writes, which also waits for uploads in flight
+     * to commit, and the live table against chunk writes and searches. If a document was uploaded after the
+     * catch-up, the locks are released and the catch-up runs again, up to {@code cutover-attempts} times, so no
+     * document can reach the live table without also reaching the shadow table.
+     */
+    private void swap(ReindexJobEntity job) {
+        String live = props.getTable();
+        String shadow = props.getShadowTable();
+        String retired = live + "_retired_" + job.getId();
+
+        for (int attempt = 1; ; attempt++) {
+            if (!processPages(job, collection -> partitions.ensure(shadow, collection))) {
+                throw new IllegalStateException("Re-index job " + job.getId() + " was stopped during cut-over");
+            }
+            // every live collection keeps a partition, so partition names cached by other nodes stay valid
+            for (String collection : partitions.list(live).keySet()) {
+                partitions.ensure(shadow, collection);
+            }
+            jdbc.execute("CREATE INDEX IF NOT EXISTS " + shadow + "_embedding_idx ON " + shadow +
+                    " USING hnsw (embedding vector_cosine_ops)");
+
+            if (Boolean.TRUE.equals(tx.execute(status -> swapLocked(job, live, shadow, retired)))) {
+                break;
+            }
+            if (attempt >= props.getCutoverAttempts()) {
+                throw new IllegalStateException("Re-index job " + job.getId() + " was not cut over: documents were "
+                        + "still being uploaded after " + attempt + " catch-ups");
+            }
+            log.info("Documents were uploaded during cut-over of re-index job {}, catching up again", job.getId());
+        }
+
+        if (props.isDropRetiredTable()) {
+            jdbc.execute("DROP TABLE IF EXISTS " + retired);
+        }
+        log.info("Re-index job {} cut over: {} now holds {} vectors of model {} ({} dimensions)",
+                job.getId(), live, job.getChunksEmbedded(), job.getModel(), job.getDimensions());
+    }
+
+    /**
+     * Swaps the tables if every document was caught up, holding the locks until the transaction ends.
+     *
+     * @return {@code false}, without changing anything, if documents were uploaded after the catch-up
+     */
+    private boolean swapLocked(ReindexJobEntity job, String live, String shadow, String retired) {
+        jdbc.execute("LOCK TABLE documents IN SHARE MODE");
+        jdbc.execute("LOCK TABLE " + live + " IN ACCESS EXCLUSIVE MODE");
+        if (Boolean.TRUE.equals(jdbc.queryForObject("SELECT EXISTS (SELECT 1 FROM documents WHERE id > ?)",
+                Boolean.class, job.getLastDocId()))) {
+            return false;
+        }
+
+        // partitions are created in this transaction: ensure() would wait for the locks it holds
+        Set<String> shadowCollections = partitions.list(shadow).keySet();
+        for (String collection : partitions.list(live).keySet()) {
+            if (!shadowCollections.contains(collection)) {
+                partitions.ensureInTransaction(shadow, collection);
+            }
+        }
+
+        jdbc.update("DELETE FROM " + shadow + " s WHERE NOT EXISTS " +
+                "(SELECT 1 FROM documents d WHERE d.id = CAST(s.metadata->>'docId' AS BIGINT))");
+        partitions.renamePartitions(live, retired);
+        jdbc.execute("ALTER TABLE " + live + " RENAME TO " + retired);
+        jdbc.execute("ALTER INDEX IF EXISTS " + LIVE_INDEX + " RENAME TO " + retired + "_idx");
+        partitions.renamePartitions(shadow, live);
+        jdbc.execute("ALTER TABLE " + shadow + " RENAME TO " + live);
+        jdbc.execute("ALTER INDEX " + shadow + "_embedding_idx RENAME TO " + LIVE_INDEX);
+        job.setStatus(Status.CUT_OVER);
+        job.setUpdatedAt(Instant.now());
+        jobs.save(job);
+        return true;
+    }
+
+    /**
+     * Processes pages after the job's cursor until no documents are left or a pause is requested.
+     *
+     * @param ensurePartition creates the shadow partition of a collection before its chunks are written
+     * @return {@code true} if all documents were processed
+     */
+    private boolean processPages(ReindexJobEntity job, Consumer<String> ensurePartition) {
+        EmbedRateLimiter limiter = new EmbedRateLimiter(props.getMaxEmbedsPerSecond());
+        OllamaOptions options = OllamaOptions.create().withModel(job.getModel());
+
+        while (!pauseRequested) {
+            long pageStart = System.currentTimeMillis();
+            List<Long> page = repo.findIdPageAfter(job.getLastDocId(), PageRequest.of(0, props.getPageSize()));
+            if (page.isEmpty()) {
+                return true;
+            }
+
+            long chunks = 0;
+            for (DocumentSummary doc : repo.findByIdIn(page)) {
+                ensurePartition.accept(doc.getCollection());
+                chunks += embedDocument(doc, textStore.read(doc.getId()), job, options, limiter);
+            }
+
+            job.setLastDocId(page.get(page.size() - 1));
+            job.setDocsProcessed(job.getDocsProcessed() + page.size());
+            job.setChunksEmbedded(job.getChunksEmbedded() + chunks);
+            job.setActiveMillis(job.getActiveMillis() + System.currentTimeMillis() - pageStart);
+            job.setUpdatedAt(Instant.now());
+            jobs.save(job);
+            metrics.increment(PipelineMetrics.REINDEX_CHUNKS, chunks);
+        }
+        return false;
+    }
+
+    private int embedDocument(DocumentSummary doc, String text, ReindexJobEntity job, OllamaOptions options, EmbedRateLimiter limiter) {
+        Long docId = doc.getId();
+        List<String> chunks = TextChunker.chunk(text, props.getChunkSize(), props.getChunkOverlap());
+
+        for (int from = 0; from < chunks.size(); from += props.getBatchSize()) {
+            List<String> batch = chunks.subList(from, Math.min(chunks.size(), from + props.getBatchSize()));
+            try {
+                limiter.acquire(batch.size());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while throttling", e);
+            }
+
+            EmbeddingResponse response = embeddingModel.call(new EmbeddingRequest(batch, options));
+            List<Embedding> results = new ArrayList<>(response.getResults());
+            results.sort(Comparator.comparingInt(Embedding::getIndex));
+            if (results.size() != batch.size()) {
+                throw new IllegalStateException("Expected " + batch.size() + " embeddings, got " + results.size());
+            }
+
+            List<Object[]> rows = new ArrayList<>(batch.size());
+            for (int i = 0; i < batch.size(); i++) {
+                int chunkIndex = from + i;
+                List<Double> vector = results.get(i).getOutput();
+                if (vector.size() != job.getDimensions()) {
+                    throw new IllegalStateException("Model " + job.getModel() + " returned " + vector.size()
+                            + " dimensions, job expects " + job.getDimensions());
+                }
+                rows.add(new Object[]{
+                        TextChunker.chunkId(docId, chunkIndex),
+                        doc.getCollection(),
+                        batch.get(i),
+                        metadata(docId, doc.getCollection(), chunkIndex),
+                        PgCollectionVectorStore.toVectorLiteral(vector)
+                });
+            }
+            jdbc.batchUpdate("INSERT INTO " + props.getShadowTable() + " (id, collection, content, metadata, embedding) " +
+                    "VALUES (?, ?, ?, ?::json, ?::vector) ON CONFLICT (id, collection) DO UPDATE SET " +
+                    "content = EXCLUDED.content, metadata = EXCLUDED.metadata, embedding = EXCLUDED.embedding", rows);
+        }
+        return chunks.size();
+    }
+
+    private ReindexJobEntity load(Long jobId) {
+        return jobs.findById(jobId)
+                .orElseThrow(() -> new NoSuchElementException("No re-index job " + jobId));
+    }
+
+    private String metadata(Long docId, String collection, int chunkIndex) {
+        try {
+            return mapper.writeValueAsString(Map.of("docId", docId, "chunkIndex", chunkIndex,
+                    PgCollectionVectorStore.COLLECTION, collection));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void requireIdentifier(String name) {
+        if (name == null || !IDENTIFIER.matcher(name).matches()) {
+            throw new IllegalArgumentException("Invalid table name: " + name);
+        }
+    }
+}
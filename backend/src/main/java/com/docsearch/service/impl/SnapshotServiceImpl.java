@@ -0,0 +1,463 @@
+package com.docsearch.service.impl;
+
+import com.docsearch.config.ReindexProperties;
+import com.docsearch.config.SnapshotProperties;
+import com.docsearch.metrics.PipelineMetrics;
+import com.docsearch.model.SnapshotInfo;
+import com.docsearch.service.SnapshotService;
+import com.docsearch.service.SuggestionService;
+import com.docsearch.snapshot.PgBinaryCopyWriter;
+import com.docsearch.snapshot.SnapshotConflictException;
+import com.docsearch.snapshot.SnapshotCounts;
+import com.docsearch.snapshot.SnapshotFormatException;
+import com.docsearch.snapshot.SnapshotHeader;
+import com.docsearch.snapshot.SnapshotReader;
+import com.docsearch.snapshot.SnapshotRecord;
+import com.docsearch.snapshot.SnapshotWriter;
+import com.docsearch.storage.DocumentTextStore;
+import com.docsearch.vector.VectorPartitions;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.PGCopyOutputStream;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Array;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Implementation of {@link SnapshotService} over the snapshot format of {@link SnapshotWriter} and {@link SnapshotReader}.
+ * <p>
+ * Responsibilities:
+ * <ul>
+ *     <li>Export documents, compressed texts, optionally files, chunks with their embeddings and the embedding
+ *     tasks still queued, streaming rows from one repeatable-read transaction so the snapshot is consistent
+ *     while uploads continue. A document exported before all its chunks were embedded is embedded after restore.</li>
+ *     <li>Write to a {@code .part} file and rename it when complete, so a listed snapshot is never half written.</li>
+ *     <li>Restore with binary {@code COPY} into each table, in a single transaction that rolls back on a checksum
+ *     error; collection partitions are created up front so the chunks can be copied into the parent table.</li>
+ * </ul>
+ * Texts are copied as stored, still compressed, and embeddings as 32-bit floats, so neither export nor
+ * restore calls the embedding model. The keyword search's word index is not part of a snapshot: restore
+ * rebuilds it from the restored texts ({@link DocumentTextStore#indexTerms(Long)}) in the same transaction.
+ */
+@Slf4j
+@Service
+public class SnapshotServiceImpl implements SnapshotService {
+
+    static final String EXTENSION = ".dsnap";
+
+    private static final Pattern NAME = Pattern.compile("[A-Za-z0-9][A-Za-z0-9._-]{0,120}\\.dsnap");
+    private static final DateTimeFormatter STAMP =
+            DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss-SSS").withZone(ZoneOffset.UTC);
+    private static final int COPY_BUFFER_BYTES = 1 << 16;
+
+    private final JdbcTemplate jdbc;
+    private final JdbcTemplate streaming;
+    private final TransactionTemplate readTx;
+    private final TransactionTemplate writeTx;
+    private final VectorPartitions partitions;
+    private final DocumentTextStore textStore;
+    private final SuggestionService suggestions;
+    private final SnapshotProperties props;
+    private final PipelineMetrics metrics;
+    private final String table;
+    private final String model;
+    private final Path directory;
+
+    public SnapshotServiceImpl(JdbcTemplate jdbc,
+                               PlatformTransactionManager txManager,
+                               VectorPartitions partitions,
+                               DocumentTextStore textStore,
+                               SuggestionService suggestions,
+                               SnapshotProperties props,
+                               ReindexProperties reindexProps,
+                               PipelineMetrics metrics,
+                               Environment env) {
+        this.jdbc = jdbc;
+        this.streaming = new JdbcTemplate(jdbc.getDataSource());
+        this.streaming.setFetchSize(props.getFetchSize());
+        this.readTx = new TransactionTemplate(txManager);
+        this.readTx.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.readTx.setReadOnly(true);
+        this.writeTx = new TransactionTemplate(txManager);
+        this.partitions = partitions;
+        this.textStore = textStore;
+        this.suggestions = suggestions;
+        this.props = props;
+        this.metrics = metrics;
+        this.table = reindexProps.getTable();
+        this.model = env.getProperty("spring.ai.ollama.embedding.options.model", "");
+        this.directory = Path.of(props.getDirectory());
+    }
+
+    @Override
+    public SnapshotInfo export(boolean includeFiles) throws IOException {
+        Files.createDirectories(directory);
+        String name = "snapshot-" + STAMP.format(Instant.now()) + EXTENSION;
+        Path file = directory.resolve(name);
+        Path part = directory.resolve(name + ".part");
+        long started = System.nanoTime();
+        Timer.Sample sample = metrics.start();
+        String outcome = "error";
+        try {
+            SnapshotCounts counts;
+            try {
+                counts = readTx.execute(status -> writeSnapshot(part, includeFiles));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            Files.move(part, file, StandardCopyOption.ATOMIC_MOVE);
+            countRecords("export", counts);
+            outcome = "success";
+        } finally {
+            Files.deleteIfExists(part);
+            metrics.stop(sample, PipelineMetrics.SNAPSHOT, "operation", "export", "outcome", outcome);
+        }
+        SnapshotInfo info = describe(file, millisSince(started));
+        log.info("Exported snapshot {}: {} documents, {} chunks, {} bytes in {} ms",
+                name, info.getDocuments(), info.getChunks(), info.getBytes(), info.getDurationMillis());
+        return info;
+    }
+
+    private SnapshotCounts writeSnapshot(Path part, boolean includeFiles) {
+        SnapshotHeader header = new SnapshotHeader(dimensions(), model, Instant.now(), includeFiles,
+                List.copyOf(partitions.list(table).keySet()));
+        try (SnapshotWriter writer = new SnapshotWriter(Files.newOutputStream(part), header, props.getBlockBytes())) {
+            RowCallbackHandler documents = rs -> append(writer, new SnapshotRecord.Document(
+                    rs.getLong("id"), rs.getString("collection"), rs.getString("filename"),
+                    rs.getString("content_type"), rs.getString("description"), instant(rs.getTimestamp("uploaded_at"))));
+            streaming.query("SELECT id, collection, filename, content_type, description, uploaded_at " +
+                    "FROM documents ORDER BY id", documents);
+
+            RowCallbackHandler texts = rs -> append(writer, new SnapshotRecord.Text(
+                    rs.getLong("doc_id"), rs.getString("codec"), rs.getInt("frame_chars"), rs.getInt("char_length"),
+                    rs.getLong("raw_bytes"), rs.getInt("head_bytes"), rs.getBytes("frame_index"), rs.getBytes("data")));
+            streaming.query("SELECT doc_id, codec, frame_chars, char_length, raw_bytes, head_bytes, frame_index, data " +
+                    "FROM document_texts ORDER BY doc_id", texts);
+
+            if (includeFiles) {
+                RowCallbackHandler files = rs -> append(writer,
+                        new SnapshotRecord.File(rs.getLong("id"), rs.getBytes("data")));
+                streaming.query("SELECT id, lo_get(file_data) AS data FROM documents " +
+                        "WHERE file_data IS NOT NULL ORDER BY id", files);
+            }
+
+            RowCallbackHandler chunks = rs -> append(writer, new SnapshotRecord.Chunk(
+                    rs.getObject("id", UUID.class), rs.getString("collection"), rs.getString("content"),
+                    rs.getString("metadata"), floats(rs.getArray("embedding"))));
+            streaming.query("SELECT id, collection, content, metadata::text AS metadata, embedding::real[] AS embedding " +
+                    "FROM " + table, chunks);
+
+            // running tasks hold a lease on this node only; they are restored as pending
+            RowCallbackHandler tasks = rs -> append(writer, new SnapshotRecord.Task(
+                    rs.getLong("doc_id"), rs.getString("collection"), rs.getInt("first_chunk"), rs.getInt("chunk_count"),
+                    rs.getInt("char_from"), rs.getInt("char_to")));
+            streaming.query("SELECT doc_id, collection, first_chunk, chunk_count, char_from, char_to " +
+                    "FROM ingestion_tasks WHERE status <> 'FAILED' ORDER BY id", tasks);
+
+            writer.close();
+            return writer.counts();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public List<SnapshotInfo> list() throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        List<SnapshotInfo> snapshots = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.filter(f -> NAME.matcher(f.getFileName().toString()).matches()).toList()) {
+                try {
+                    snapshots.add(describe(file, null));
+                } catch (SnapshotFormatException e) {
+                    log.warn("Skipping unreadable snapshot: {}", e.getMessage());
+                }
+            }
+        }
+        snapshots.sort(Comparator.comparing(SnapshotInfo::getCreatedAt, Comparator.nullsLast(Comparator.reverseOrder())));
+        return snapshots;
+    }
+
+    @Override
+    public Path path(String name) {
+        Path file = resolve(name);
+        if (!Files.isRegularFile(file)) {
+            throw new NoSuchElementException("No snapshot " + name);
+        }
+        return file;
+    }
+
+    @Override
+    public SnapshotInfo store(String name, InputStream in) throws IOException {
+        Path file = resolve(name);
+        if (Files.exists(file)) {
+            throw new SnapshotConflictException("Snapshot " + name + " already exists");
+        }
+        Files.createDirectories(directory);
+        Path part = directory.resolve(name + ".part");
+        try {
+            Files.copy(in, part, StandardCopyOption.REPLACE_EXISTING);
+            describe(part, null);
+            Files.move(part, file, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(part);
+        }
+        return describe(file, null);
+    }
+
+    @Override
+    public SnapshotInfo restore(String name) throws IOException {
+        Path file = path(name);
+        long started = System.nanoTime();
+        Timer.Sample sample = metrics.start();
+        String outcome = "error";
+        try (SnapshotReader reader = SnapshotReader.open(file)) {
+            SnapshotHeader header = reader.header();
+            requireCompatible(header);
+            requireEmptyIndex();
+            // in transactions of their own, before the COPY into the parent table needs them
+            for (String collection : header.collections()) {
+                partitions.ensure(table, collection);
+            }
+            try {
+                writeTx.executeWithoutResult(status -> {
+                    requireEmptyIndex();
+                    jdbc.execute((ConnectionCallback<Void>) con -> {
+                        copy(reader, con.unwrap(PGConnection.class));
+                        return null;
+                    });
+                    jdbc.queryForObject("SELECT setval(pg_get_serial_sequence('documents', 'id'), " +
+                            "coalesce(max(id), 1), max(id) IS NOT NULL) FROM documents", Long.class);
+                    for (Long docId : jdbc.queryForList("SELECT doc_id FROM document_texts ORDER BY doc_id", Long.class)) {
+                        textStore.indexTerms(docId);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            partitions.refresh(table);
+            rebuildSuggestions();
+            countRecords("restore", reader.counts());
+            outcome = "success";
+        } finally {
+            metrics.stop(sample, PipelineMetrics.SNAPSHOT, "operation", "restore", "outcome", outcome);
+        }
+        SnapshotInfo info = describe(file, millisSince(started));
+        log.info("Restored snapshot {}: {} documents, {} chunks in {} ms",
+                name, info.getDocuments(), info.getChunks(), info.getDurationMillis());
+        return info;
+    }
+
+    @Override
+    public boolean delete(String name) throws IOException {
+        return Files.deleteIfExists(resolve(name));
+    }
+
+    /**
+     * Copies every record of the snapshot, one {@code COPY} per section, on the transaction's connection.
+     */
+    private void copy(SnapshotReader reader, PGConnection pg) throws SQLException {
+        PGCopyOutputStream stream = null;
+        PgBinaryCopyWriter rows = null;
+        Class<?> section = null;
+        boolean files = false;
+        try {
+            for (SnapshotRecord record; (record = reader.next()) != null; ) {
+                if (record.getClass() != section) {
+                    if (rows != null) {
+                        rows.finish();
+                        stream.endCopy();
+                    }
+                    section = record.getClass();
+                    if (record instanceof SnapshotRecord.File) {
+                        jdbc.execute("CREATE TEMP TABLE snapshot_files (doc_id BIGINT, data BYTEA) ON COMMIT DROP");
+                        files = true;
+                    }
+                    stream = new PGCopyOutputStream(pg, copyStatement(record), COPY_BUFFER_BYTES);
+                    rows = new PgBinaryCopyWriter(stream);
+                }
+                append(rows, record);
+            }
+            if (rows != null) {
+                rows.finish();
+                stream.endCopy();
+            }
+        } catch (IOException | RuntimeException e) {
+            if (stream != null && stream.isActive()) {
+                stream.cancelCopy();
+            }
+            throw e instanceof IOException io ? new UncheckedIOException(io) : (RuntimeException) e;
+        }
+        if (files) {
+            // large objects cannot be copied; each file becomes one in a single statement instead
+            jdbc.update("UPDATE documents d SET file_data = lo_from_bytea(0, f.data) FROM snapshot_files f " +
+                    "WHERE d.id = f.doc_id");
+        }
+    }
+
+    private String copyStatement(SnapshotRecord record) {
+        String target;
+        if (record instanceof SnapshotRecord.Document) {
+            target = "documents (id, collection, filename, content_type, description, uploaded_at)";
+        } else if (record instanceof SnapshotRecord.Text) {
+            target = "document_texts (doc_id, codec, frame_chars, char_length, raw_bytes, head_bytes, frame_index, data)";
+        } else if (record instanceof SnapshotRecord.File) {
+            target = "snapshot_files (doc_id, data)";
+        } else if (record instanceof SnapshotRecord.Chunk) {
+            target = table + " (id, collection, content, metadata, embedding)";
+        } else {
+            target = "ingestion_tasks (doc_id, collection, first_chunk, chunk_count, char_from, char_to)";
+        }
+        return "COPY " + target + " FROM STDIN (FORMAT binary)";
+    }
+
+    private static void append(PgBinaryCopyWriter rows, SnapshotRecord record) throws IOException {
+        if (record instanceof SnapshotRecord.Document d) {
+            rows.row(6).int8(d.id()).text(d.collection()).text(d.filename()).text(d.contentType())
+                    .text(d.description()).timestamptz(d.uploadedAt());
+        } else if (record instanceof SnapshotRecord.Text t) {
+            rows.row(8).int8(t.docId()).text(t.codec()).int4(t.frameChars()).int4(t.charLength())
+                    .int8(t.rawBytes()).int4(t.headBytes()).bytea(t.frameIndex()).bytea(t.data());
+        } else if (record instanceof SnapshotRecord.File f) {
+            rows.row(2).int8(f.docId()).bytea(f.data());
+        } else if (record instanceof SnapshotRecord.Chunk c) {
+            rows.row(5).uuid(c.id()).text(c.collection()).text(c.content()).text(c.metadata()).vector(c.embedding());
+        } else if (record instanceof SnapshotRecord.Task t) {
+            rows.row(6).int8(t.docId()).text(t.collection()).int4(t.firstChunk()).int4(t.chunkCount())
+                    .int4(t.charFrom()).int4(t.charTo());
+        }
+    }
+
+    /**
+     * Restored documents bypass the upload path, so the suggestion index is rebuilt from them now rather
+     * than at its next scheduled rebuild. The restore itself has committed; a failure here is only logged.
+     */
+    private void rebuildSuggestions() {
+        try {
+            suggestions.rebuild();
+        } catch (RuntimeException e) {
+            log.warn("Suggestion rebuild after restore failed, it is retried at the next scheduled rebuild", e);
+        }
+    }
+
+    private void requireCompatible(SnapshotHeader header) {
+        int dimensions = dimensions();
+        if (header.dimensions() != dimensions) {
+            throw new SnapshotConflictException("Snapshot holds " + header.dimensions() + "-dimensional embeddings, "
+                    + table + " holds " + dimensions);
+        }
+        if (!header.model().isBlank() && !model.isBlank() && !header.model().equals(model)) {
+            throw new SnapshotConflictException("Snapshot was embedded with " + header.model()
+                    + ", but queries are embedded with " + model);
+        }
+    }
+
+    private void requireEmptyIndex() {
+        Boolean used = jdbc.queryForObject("SELECT EXISTS (SELECT 1 FROM documents) OR EXISTS (SELECT 1 FROM "
+                + table + ")", Boolean.class);
+        if (Boolean.TRUE.equals(used)) {
+            throw new SnapshotConflictException("Snapshots can only be restored into an empty index");
+        }
+    }
+
+    private int dimensions() {
+        Integer dimensions = jdbc.queryForObject("SELECT atttypmod FROM pg_attribute " +
+                "WHERE attrelid = ?::regclass AND attname = 'embedding'", Integer.class, table);
+        return dimensions == null ? 0 : dimensions;
+    }
+
+    private SnapshotInfo describe(Path file, Long durationMillis) throws IOException {
+        try (SnapshotReader reader = SnapshotReader.open(file)) {
+            SnapshotHeader header = reader.header();
+            SnapshotCounts counts = reader.counts();
+            return SnapshotInfo.builder()
+                    .name(file.getFileName().toString())
+                    .bytes(reader.size())
+                    .createdAt(header.createdAt())
+                    .model(header.model())
+                    .dimensions(header.dimensions())
+                    .includesFiles(header.includesFiles())
+                    .collections(header.collections())
+                    .documents(counts.documents())
+                    .texts(counts.texts())
+                    .files(counts.files())
+                    .chunks(counts.chunks())
+                    .tasks(counts.tasks())
+                    .durationMillis(durationMillis)
+                    .build();
+        }
+    }
+
+    private Path resolve(String name) {
+        if (name == null || !NAME.matcher(name).matches()) {
+            throw new IllegalArgumentException("Invalid snapshot name '" + name + "': use letters, digits, '.', '_' "
+                    + "and '-', ending in " + EXTENSION);
+        }
+        return directory.resolve(name);
+    }
+
+    private void countRecords(String operation, SnapshotCounts counts) {
+        metrics.increment(PipelineMetrics.SNAPSHOT_RECORDS, counts.documents(), "operation", operation, "section", "documents");
+        metrics.increment(PipelineMetrics.SNAPSHOT_RECORDS, counts.texts(), "operation", operation, "section", "texts");
+        metrics.increment(PipelineMetrics.SNAPSHOT_RECORDS, counts.files(), "operation", operation, "section", "files");
+        metrics.increment(PipelineMetrics.SNAPSHOT_RECORDS, counts.chunks(), "operation", operation, "section", "chunks");
+        metrics.increment(PipelineMetrics.SNAPSHOT_RECORDS, counts.tasks(), "operation", operation, "section", "tasks");
+    }
+
+    private static void append(SnapshotWriter writer, SnapshotRecord record) {
+        try {
+            writer.write(record);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static float[] floats(Array array) throws SQLException {
+        if (array == null) {
+            return null;
+        }
+        Float[] boxed = (Float[]) array.getArray();
+        float[] values = new float[boxed.length];
+        for (int i = 0; i < boxed.length; i++) {
+            values[i] = boxed[i];
+        }
+        return values;
+    }
+
+    private static Instant instant(Timestamp timestamp) {
+        return timestamp == null ? null : timestamp.toInstant();
+    }
+
+    private static long millisSince(long startedNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedNanos);
+    }
+}
@@ -0,0 +1,343 @@
+package com.docsearch.service.impl;
+
+import com.docsearch.config.SuggestProperties;
+import com.docsearch.metrics.PipelineMetrics;
+import com.docsearch.model.DocumentSummary;
+import com.docsearch.model.Suggestion;
+import com.docsearch.model.SuggestionStats;
+import com.docsearch.repository.DocumentRepository;
+import com.docsearch.service.SuggestionService;
+import com.docsearch.storage.DocumentTextStore;
+import com.docsearch.suggest.DocumentTerms;
+import com.docsearch.suggest.SuggestionIndex;
+import com.docsearch.suggest.TermTrie;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Implementation of {@link SuggestionService} backed by {@link TermTrie}s held in memory.
+ * <p>
+ * The index is built from the database when the application is ready and then kept current:
+ * <ul>
+ *     <li>uploads and deletes on this node are applied once their transaction commits,</li>
+ *     <li>every {@code refresh-interval}, documents with an id above the highest indexed one are
+ *     read, which picks up uploads through other replicas,</li>
+ *     <li>every {@code rebuild-interval}, a fresh index is built off-lock and swapped in, which
+ *     compacts the tries, drops documents deleted through other replicas and halves the query
+ *     counts so that suggestions follow what is searched now.</li>
+ * </ul>
+ * Changes made while a rebuild reads the database are journaled and replayed onto the new
+ * index; adding or removing a document is idempotent, so replaying one the rebuild already saw
+ * does no harm. Refresh and rebuild run on one thread and never overlap.
+ */
+@Slf4j
+@Service
+public class SuggestionServiceImpl implements SuggestionService {
+
+    private static final int PAGE_SIZE = 100;
+
+    private final DocumentRepository repo;
+    private final DocumentTextStore textStore;
+    private final SuggestProperties props;
+    private final PipelineMetrics metrics;
+    private final ScheduledExecutorService scheduler;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // guarded by lock
+    private SuggestionIndex index = new SuggestionIndex();
+    private TermTrie queries = new TermTrie();
+    private List<Consumer<SuggestionIndex>> journal;
+
+    private volatile boolean ready;
+    private volatile Instant lastRebuild;
+
+    public SuggestionServiceImpl(DocumentRepository repo,
+                                 DocumentTextStore textStore,
+                                 SuggestProperties props,
+                                 PipelineMetrics metrics) {
+        this.repo = repo;
+        this.textStore = textStore;
+        this.props = props;
+        this.metrics = metrics;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "suggest-index");
+            t.setDaemon(true);
+            return t;
+        });
+        Gauge.builder(PipelineMetrics.SUGGEST_MEMORY, this, s -> s.stats().getMemoryBytes())
+                .description("bytes held by the suggestion tries")
+                .baseUnit("bytes")
+                .register(metrics.registry());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        long refresh = props.getRefreshInterval().toMillis();
+        long rebuild = props.getRebuildInterval().toMillis();
+        scheduler.execute(this::rebuildQuietly);
+        scheduler.scheduleWithFixedDelay(this::refreshQuietly, refresh, refresh, TimeUnit.MILLISECONDS);
+        scheduler.scheduleWithFixedDelay(this::rebuildQuietly, rebuild, rebuild, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Returns completions of {@code prefix}: remembered queries first, then filenames, then
+     * words of document text, each highest weight first and without duplicates.
+     * <p>
+     * Words complete the last word of the input only; the words before it are kept.
+     */
+    @Override
+    public List<Suggestion> suggest(String prefix, int limit) {
+        String p = DocumentTerms.normalize(prefix);
+        int n = limit <= 0 ? props.getDefaultLimit() : Math.min(limit, props.getMaxLimit());
+        if (p.isEmpty()) {
+            return List.of();
+        }
+        Timer.Sample sample = metrics.start();
+        Map<String, Suggestion> out = new LinkedHashMap<>();
+        int space = p.lastIndexOf(' ');
+        String head = p.substring(0, space + 1);
+        String word = p.substring(space + 1);
+
+        lock.readLock().lock();
+        try {
+            for (TermTrie.Entry e : queries.top(p, n)) {
+                if (e.weight() >= props.getMinQueryCount()) {
+                    put(out, e.key(), Suggestion.Kind.QUERY, e.weight(), n);
+                }
+            }
+            for (TermTrie.Entry e : index.filenames().top(p, n)) {
+                put(out, index.displayName(e.key()), Suggestion.Kind.FILENAME, e.weight(), n);
+            }
+            if (!word.isEmpty()) {
+                for (TermTrie.Entry e : index.terms().top(word, n)) {
+                    put(out, head + e.key(), Suggestion.Kind.TERM, e.weight(), n);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+            metrics.stop(sample, PipelineMetrics.SUGGEST);
+        }
+        return new ArrayList<>(out.values());
+    }
+
+    private static void put(Map<String, Suggestion> out, String text, Suggestion.Kind kind, int weight, int limit) {
+        if (out.size() < limit) {
+            out.putIfAbsent(text.toLowerCase(Locale.ROOT), new Suggestion(text, kind, weight));
+        }
+    }
+
+    @Override
+    public void recordQuery(String query) {
+        String q = DocumentTerms.normalize(query);
+        if (q.length() < props.getMinTermLength() || q.length() > props.getMaxQueryLength()) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (queries.size() >= props.getMaxQueries() && queries.weight(q) == 0) {
+                return;
+            }
+            queries.add(q, 1);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void documentAdded(Long id, String filename, String text) {
+        Set<String> words = words(filename, text);
+        afterCommit(() -> apply(index -> index.add(id, filename, words)));
+    }
+
+    @Override
+    public void documentRemoved(Long id, String filename, String text) {
+        Set<String> words = words(filename, text);
+        afterCommit(() -> apply(index -> index.remove(id, filename, words)));
+    }
+
+    @Override
+    public SuggestionStats stats() {
+        lock.readLock().lock();
+        try {
+            long keys = (long) index.terms().size() + index.filenames().size() + queries.size();
+            long bytes = index.terms().memoryBytes() + index.filenames().memoryBytes() + queries.memoryBytes();
+            return SuggestionStats.builder()
+                    .ready(ready)
+                    .lastRebuild(lastRebuild)
+                    .documents(index.documentCount())
+                    .terms(index.terms().size())
+                    .filenames(index.filenames().size())
+                    .queries(queries.size())
+                    .nodes((long) index.terms().liveNodes() + index.filenames().liveNodes() + queries.liveNodes())
+                    .memoryBytes(bytes)
+                    .bytesPerMillionKeys(keys == 0 ? 0 : bytes * 1_000_000.0 / keys)
+                    .build();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Builds a new index from all documents in the database and swaps it in.
+     */
+    @Override
+    public void rebuild() {
+        Timer.Sample sample = metrics.start();
+        lock.writeLock().lock();
+        try {
+            journal = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        SuggestionIndex fresh = new SuggestionIndex();
+        try {
+            readDocumentsAfter(0L, fresh);
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                journal = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+
+        lock.writeLock().lock();
+        try {
+            journal.forEach(change -> change.accept(fresh));
+            journal = null;
+            index = fresh;
+            queries = decayed(queries);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        ready = true;
+        lastRebuild = Instant.now();
+        long nanos = metrics.stop(sample, PipelineMetrics.SUGGEST_REBUILD);
+        log.info("Suggestion index rebuilt with {} documents in {} ms",
+                fresh.documentCount(), TimeUnit.NANOSECONDS.toMillis(nanos));
+    }
+
+    /**
+     * Indexes documents with an id above the highest one indexed so far.
+     */
+    public void refresh() {
+        long after;
+        lock.readLock().lock();
+        try {
+            after = index.maxDocId();
+        } finally {
+            lock.readLock().unlock();
+        }
+        readDocumentsAfter(after, null);
+    }
+
+    /**
+     * Reads documents in id order after {@code afterId} and adds them to {@code target},
+     * or to the live index when {@code target} is {@code null}.
+     */
+    private void readDocumentsAfter(long afterId, SuggestionIndex target) {
+        List<Long> ids;
+        while (!(ids = repo.findIdPageAfter(afterId, PageRequest.of(0, PAGE_SIZE))).isEmpty()) {
+            for (DocumentSummary doc : repo.findByIdIn(ids)) {
+                if (target == null && indexed(doc.getId())) continue;
+                Set<String> words = words(doc.getFilename(), textStore.read(doc.getId()));
+                if (target != null) {
+                    target.add(doc.getId(), doc.getFilename(), words);
+                } else {
+                    apply(index -> index.add(doc.getId(), doc.getFilename(), words));
+                }
+            }
+            afterId = ids.get(ids.size() - 1);
+        }
+    }
+
+    private boolean indexed(long docId) {
+        lock.readLock().lock();
+        try {
+            return index.contains(docId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void apply(Consumer<SuggestionIndex> change) {
+        lock.writeLock().lock();
+        try {
+            change.accept(index);
+            if (journal != null) journal.add(change);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private Set<String> words(String filename, String text) {
+        Set<String> words = DocumentTerms.of(text, props.getMinTermLength(), props.getMaxTermLength());
+        words.addAll(DocumentTerms.of(filename, props.getMinTermLength(), props.getMaxTermLength()));
+        return words;
+    }
+
+    private static TermTrie decayed(TermTrie queries) {
+        TermTrie halved = new TermTrie(queries.liveNodes());
+        queries.forEach((query, count) -> {
+            if (count / 2 > 0) halved.add(query, count / 2);
+        });
+        return halved;
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private void rebuildQuietly() {
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            log.warn("Suggestion index rebuild failed: {}", e.toString());
+        }
+    }
+
+    private void refreshQuietly() {
+        try {
+            refresh();
+        } catch (RuntimeException e) {
+            log.warn("Suggestion index refresh failed: {}", e.toString());
+        }
+    }
+}
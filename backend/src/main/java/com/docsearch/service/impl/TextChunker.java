@@ -0,0 +1,91 @@
+package com.docsearch.service.impl;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Splits document text into overlapping chunks for vector indexing.
+ * <p>
+ * Shared by upload, the ingestion workers and re-indexing so all produce identical
+ * chunk boundaries and chunk ids for the same settings.
+ */
+public final class TextChunker {
+
+    /**
+     * Default maximum chunk length in characters.
+     */
+    public static final int DEFAULT_MAX_LEN = 800;
+
+    /**
+     * Default overlap between consecutive chunks in characters.
+     */
+    public static final int DEFAULT_OVERLAP = 120;
+
+    private TextChunker() {
+    }
+
+    /**
+     * Character range {@code [start, end)} of one chunk.
+     */
+    public record Span(int start, int end) {
+    }
+
+    /**
+     * Splits a long text into smaller chunks for vector indexing.
+     * <p>
+     * Each chunk has a maximum length, with an overlap between consecutive chunks
+     * to preserve semantic continuity across boundaries.
+     *
+     * @param text    the input text
+     * @param maxLen  maximum length of each chunk
+     * @param overlap number of overlapping characters between consecutive chunks
+     * @return a list of text chunks
+     * @throws IllegalArgumentException unless {@code 0 <= overlap < maxLen}
+     */
+    public static List<String> chunk(String text, int maxLen, int overlap) {
+        List<String> parts = new ArrayList<>();
+        if (text == null) return parts;
+        for (Span span : spans(text.length(), maxLen, overlap)) {
+            parts.add(text.substring(span.start(), span.end()));
+        }
+        return parts;
+    }
+
+    /**
+     * Computes the chunk boundaries of a text of the given length without needing the text.
+     * <p>
+     * Chunking the characters from the start of one span to the end of a later span yields
+     * exactly the spans in between, so a run of chunks can be rebuilt from that range alone.
+     *
+     * @param length  the text length
+     * @param maxLen  maximum length of each chunk
+     * @param overlap number of overlapping characters between consecutive chunks
+     * @return the chunk spans, in order
+     * @throws IllegalArgumentException unless {@code 0 <= overlap < maxLen}
+     */
+    public static List<Span> spans(int length, int maxLen, int overlap) {
+        if (maxLen <= 0 || overlap < 0 || overlap >= maxLen) {
+            throw new IllegalArgumentException("Chunk overlap must be at least 0 and less than the chunk length, got "
+                    + overlap + " and " + maxLen);
+        }
+        List<Span> spans = new ArrayList<>();
+        int i = 0;
+        while (i < length) {
+            int end = Math.min(length, i + maxLen);
+            spans.add(new Span(i, end));
+            if (end == length) break;
+            // always moves forward: end - overlap > i once the arguments are checked
+            i = end - overlap;
+        }
+        return spans;
+    }
+
+    /**
+     * Deterministic id for a chunk, so writing the same chunk twice updates one row.
+     */
+    public static UUID chunkId(Long docId, int chunkIndex) {
+        return UUID.nameUUIDFromBytes((docId + ":" + chunkIndex).getBytes(StandardCharsets.UTF_8));
+    }
+}
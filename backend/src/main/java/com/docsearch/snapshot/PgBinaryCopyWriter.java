@@ -0,0 +1,112 @@
+package com.docsearch.snapshot;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.UUID;
+
+/**
+ * Encodes rows for {@code COPY ... FROM STDIN (FORMAT binary)}.
+ * <p>
+ * Values are written in Postgres' binary send format, so the server stores them without parsing
+ * text: in particular embeddings go in as raw floats rather than as {@code [0.1,0.2,...]} literals.
+ * Each row starts with {@link #row(int)} followed by exactly that many values, in column order.
+ */
+public class PgBinaryCopyWriter {
+
+    private static final byte[] SIGNATURE = {'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte) 0xff, '\r', '\n', 0};
+    private static final Instant PG_EPOCH = Instant.parse("2000-01-01T00:00:00Z");
+
+    private final DataOutputStream out;
+
+    public PgBinaryCopyWriter(OutputStream out) throws IOException {
+        this.out = new DataOutputStream(out);
+        this.out.write(SIGNATURE);
+        this.out.writeInt(0); // flags
+        this.out.writeInt(0); // header extension length
+    }
+
+    public PgBinaryCopyWriter row(int columns) throws IOException {
+        out.writeShort(columns);
+        return this;
+    }
+
+    public PgBinaryCopyWriter int4(int value) throws IOException {
+        out.writeInt(Integer.BYTES);
+        out.writeInt(value);
+        return this;
+    }
+
+    public PgBinaryCopyWriter int8(long value) throws IOException {
+        out.writeInt(Long.BYTES);
+        out.writeLong(value);
+        return this;
+    }
+
+    /**
+     * A {@code text}, {@code varchar} or {@code json} value.
+     */
+    public PgBinaryCopyWriter text(String value) throws IOException {
+        return bytea(value == null ? null : value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public PgBinaryCopyWriter bytea(byte[] value) throws IOException {
+        if (value == null) {
+            return nullValue();
+        }
+        out.writeInt(value.length);
+        out.write(value);
+        return this;
+    }
+
+    public PgBinaryCopyWriter uuid(UUID value) throws IOException {
+        if (value == null) {
+            return nullValue();
+        }
+        out.writeInt(16);
+        out.writeLong(value.getMostSignificantBits());
+        out.writeLong(value.getLeastSignificantBits());
+        return this;
+    }
+
+    public PgBinaryCopyWriter timestamptz(Instant value) throws IOException {
+        if (value == null) {
+            return nullValue();
+        }
+        out.writeInt(Long.BYTES);
+        out.writeLong(ChronoUnit.MICROS.between(PG_EPOCH, value));
+        return this;
+    }
+
+    /**
+     * A pgvector {@code vector}: dimension, an unused word, then the floats.
+     */
+    public PgBinaryCopyWriter vector(float[] value) throws IOException {
+        if (value == null) {
+            return nullValue();
+        }
+        out.writeInt(2 * Short.BYTES + value.length * Float.BYTES);
+        out.writeShort(value.length);
+        out.writeShort(0);
+        for (float v : value) {
+            out.writeFloat(v);
+        }
+        return this;
+    }
+
+    public PgBinaryCopyWriter nullValue() throws IOException {
+        out.writeInt(-1);
+        return this;
+    }
+
+    /**
+     * Writes the end-of-data marker and flushes; the caller then ends the {@code COPY}.
+     */
+    public void finish() throws IOException {
+        out.writeShort(-1);
+        out.flush();
+    }
+}
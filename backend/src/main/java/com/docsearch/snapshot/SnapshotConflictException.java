@@ -0,0 +1,12 @@
+package com.docsearch.snapshot;
+
+/**
+ * Thrown when a snapshot cannot be stored or restored in the current state of this node: the name is taken,
+ * the index is not empty, or the snapshot's embeddings do not match the ones queries are compared against.
+ */
+public class SnapshotConflictException extends IllegalStateException {
+
+    public SnapshotConflictException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.docsearch.snapshot;
+
+/**
+ * Number of records per section, as recorded in the trailer of a snapshot.
+ */
+public record SnapshotCounts(long documents, long texts, long files, long chunks, long tasks) {
+}
@@ -0,0 +1,207 @@
+package com.docsearch.snapshot;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Layout of a snapshot file, shared by {@link SnapshotWriter} and {@link SnapshotReader}.
+ * <pre>
+ * file    = magic[8] version:u16 block(HEADER) block(DOCUMENTS)* block(TEXTS)* block(FILES)* block(CHUNKS)*
+ *           block(TASKS)* block(END)
+ * block   = type:u8 records:i32 length:i32 payload[length] crc32c:i32
+ * </pre>
+ * The checksum covers the block's type, record count, length and payload. The {@code END} block has
+ * a fixed size and holds the record count of every section, so the counts can be read from the end of
+ * the file without scanning it. All numbers are big-endian. Within a payload, strings and byte arrays
+ * are a length, {@code -1} for {@code null}, followed by the UTF-8 or raw bytes; embeddings are a length
+ * followed by 32-bit floats, the precision pgvector stores.
+ */
+final class SnapshotFormat {
+
+    static final byte[] MAGIC = {'D', 'S', 'N', 'A', 'P', '\r', '\n', 0x1a};
+    static final int VERSION = 1;
+
+    static final byte HEADER = 1;
+    static final byte DOCUMENTS = 2;
+    static final byte TEXTS = 3;
+    static final byte FILES = 4;
+    static final byte CHUNKS = 5;
+    static final byte TASKS = 6;
+    static final byte END = 7;
+
+    static final int BLOCK_HEAD_BYTES = 1 + Integer.BYTES + Integer.BYTES;
+    static final int END_PAYLOAD_BYTES = 5 * Long.BYTES;
+    static final int END_BLOCK_BYTES = BLOCK_HEAD_BYTES + END_PAYLOAD_BYTES + Integer.BYTES;
+    static final int PREAMBLE_BYTES = MAGIC.length + Short.BYTES;
+
+    private static final long NO_TIME = Long.MIN_VALUE;
+
+    private SnapshotFormat() {
+    }
+
+    static byte section(SnapshotRecord record) {
+        if (record instanceof SnapshotRecord.Document) return DOCUMENTS;
+        if (record instanceof SnapshotRecord.Text) return TEXTS;
+        if (record instanceof SnapshotRecord.File) return FILES;
+        if (record instanceof SnapshotRecord.Chunk) return CHUNKS;
+        return TASKS;
+    }
+
+    static String sectionName(byte section) {
+        return switch (section) {
+            case HEADER -> "header";
+            case DOCUMENTS -> "documents";
+            case TEXTS -> "texts";
+            case FILES -> "files";
+            case CHUNKS -> "chunks";
+            case TASKS -> "tasks";
+            case END -> "end";
+            default -> "unknown(" + section + ")";
+        };
+    }
+
+    static void writeHeader(SnapshotHeader header, DataOutputStream out) throws IOException {
+        out.writeInt(header.dimensions());
+        writeString(header.model(), out);
+        writeInstant(header.createdAt(), out);
+        out.writeBoolean(header.includesFiles());
+        out.writeInt(header.collections().size());
+        for (String collection : header.collections()) {
+            writeString(collection, out);
+        }
+    }
+
+    static SnapshotHeader readHeader(ByteBuffer in) {
+        int dimensions = in.getInt();
+        String model = readString(in);
+        Instant createdAt = readInstant(in);
+        boolean includesFiles = in.get() != 0;
+        int n = in.getInt();
+        List<String> collections = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            collections.add(readString(in));
+        }
+        return new SnapshotHeader(dimensions, model, createdAt, includesFiles, List.copyOf(collections));
+    }
+
+    static void write(SnapshotRecord record, DataOutputStream out) throws IOException {
+        if (record instanceof SnapshotRecord.Document d) {
+            out.writeLong(d.id());
+            writeString(d.collection(), out);
+            writeString(d.filename(), out);
+            writeString(d.contentType(), out);
+            writeString(d.description(), out);
+            writeInstant(d.uploadedAt(), out);
+        } else if (record instanceof SnapshotRecord.Text t) {
+            out.writeLong(t.docId());
+            writeString(t.codec(), out);
+            out.writeInt(t.frameChars());
+            out.writeInt(t.charLength());
+            out.writeLong(t.rawBytes());
+            out.writeInt(t.headBytes());
+            writeBytes(t.frameIndex(), out);
+            writeBytes(t.data(), out);
+        } else if (record instanceof SnapshotRecord.File f) {
+            out.writeLong(f.docId());
+            writeBytes(f.data(), out);
+        } else if (record instanceof SnapshotRecord.Chunk c) {
+            out.writeLong(c.id().getMostSignificantBits());
+            out.writeLong(c.id().getLeastSignificantBits());
+            writeString(c.collection(), out);
+            writeString(c.content(), out);
+            writeString(c.metadata(), out);
+            if (c.embedding() == null) {
+                out.writeInt(-1);
+            } else {
+                out.writeInt(c.embedding().length);
+                for (float v : c.embedding()) {
+                    out.writeFloat(v);
+                }
+            }
+        } else if (record instanceof SnapshotRecord.Task t) {
+            out.writeLong(t.docId());
+            writeString(t.collection(), out);
+            out.writeInt(t.firstChunk());
+            out.writeInt(t.chunkCount());
+            out.writeInt(t.charFrom());
+            out.writeInt(t.charTo());
+        }
+    }
+
+    /**
+     * Decodes one record of {@code section} at the position of {@code in}.
+     *
+     * @throws BufferUnderflowException if the payload ends within the record
+     */
+    static SnapshotRecord read(byte section, ByteBuffer in) {
+        return switch (section) {
+            case DOCUMENTS -> new SnapshotRecord.Document(in.getLong(), readString(in), readString(in),
+                    readString(in), readString(in), readInstant(in));
+            case TEXTS -> new SnapshotRecord.Text(in.getLong(), readString(in), in.getInt(), in.getInt(),
+                    in.getLong(), in.getInt(), readBytes(in), readBytes(in));
+            case FILES -> new SnapshotRecord.File(in.getLong(), readBytes(in));
+            case CHUNKS -> {
+                UUID id = new UUID(in.getLong(), in.getLong());
+                String collection = readString(in);
+                String content = readString(in);
+                String metadata = readString(in);
+                int n = in.getInt();
+                float[] embedding = null;
+                if (n >= 0) {
+                    embedding = new float[n];
+                    in.asFloatBuffer().get(embedding);
+                    in.position(in.position() + n * Float.BYTES);
+                }
+                yield new SnapshotRecord.Chunk(id, collection, content, metadata, embedding);
+            }
+            case TASKS -> new SnapshotRecord.Task(in.getLong(), readString(in), in.getInt(), in.getInt(),
+                    in.getInt(), in.getInt());
+            default -> throw new IllegalArgumentException("Not a record section: " + sectionName(section));
+        };
+    }
+
+    private static void writeString(String s, DataOutputStream out) throws IOException {
+        writeBytes(s == null ? null : s.getBytes(StandardCharsets.UTF_8), out);
+    }
+
+    private static void writeBytes(byte[] bytes, DataOutputStream out) throws IOException {
+        if (bytes == null) {
+            out.writeInt(-1);
+        } else {
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    private static void writeInstant(Instant instant, DataOutputStream out) throws IOException {
+        out.writeLong(instant == null ? NO_TIME : ChronoUnit.MICROS.between(Instant.EPOCH, instant));
+    }
+
+    private static String readString(ByteBuffer in) {
+        byte[] bytes = readBytes(in);
+        return bytes == null ? null : new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] readBytes(ByteBuffer in) {
+        int n = in.getInt();
+        if (n < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[n];
+        in.get(bytes);
+        return bytes;
+    }
+
+    private static Instant readInstant(ByteBuffer in) {
+        long micros = in.getLong();
+        return micros == NO_TIME ? null : Instant.EPOCH.plus(micros, ChronoUnit.MICROS);
+    }
+}
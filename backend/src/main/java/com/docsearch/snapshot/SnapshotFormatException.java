@@ -0,0 +1,13 @@
+package com.docsearch.snapshot;
+
+import java.io.IOException;
+
+/**
+ * Thrown when a file is not a snapshot, is of an unsupported version, is truncated or fails its checksums.
+ */
+public class SnapshotFormatException extends IOException {
+
+    public SnapshotFormatException(String message) {
+        super(message);
+    }
+}
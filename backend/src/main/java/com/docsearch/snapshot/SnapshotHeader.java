@@ -0,0 +1,20 @@
+package com.docsearch.snapshot;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Describes a snapshot as a whole; written before its records.
+ *
+ * @param dimensions   size of the embeddings, which must match the vector table restored into
+ * @param model        embedding model the chunks were embedded with, or empty if unknown
+ * @param createdAt    when the export started
+ * @param includesFiles whether the snapshot holds the original files
+ * @param collections  collections with a partition in the vector table, so they can be created before restoring
+ */
+public record SnapshotHeader(int dimensions,
+                             String model,
+                             Instant createdAt,
+                             boolean includesFiles,
+                             List<String> collections) {
+}
@@ -0,0 +1,214 @@
+package com.docsearch.snapshot;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.CRC32C;
+
+import static com.docsearch.snapshot.SnapshotFormat.*;
+
+/**
+ * Reads a snapshot (see {@link SnapshotFormat}) through memory-mapped windows of the file.
+ * <p>
+ * Opening a snapshot reads only its header and trailer, so it is cheap to list snapshots with their
+ * record counts. {@link #next()} then walks the blocks in order, verifying each block's checksum
+ * before decoding any record from it, and finally checks that the trailer's counts match the records
+ * read. Any mismatch throws {@link SnapshotFormatException}.
+ * <p>
+ * Not thread-safe.
+ */
+public class SnapshotReader implements Closeable {
+
+    /** Bytes mapped at a time; a block larger than this gets a window of its own size. */
+    static final int WINDOW_BYTES = 64 << 20;
+
+    private final Path path;
+    private final FileChannel channel;
+    private final long size;
+    private final CRC32C crc = new CRC32C();
+    private final SnapshotHeader header;
+    private final SnapshotCounts counts;
+    private final long[] read = new long[5];
+
+    private MappedByteBuffer window;
+    private long windowStart;
+
+    private long position;
+    private byte section = HEADER;
+    private ByteBuffer block;
+    private int recordsLeft;
+    private boolean finished;
+
+    private SnapshotReader(Path path, FileChannel channel) throws IOException {
+        this.path = path;
+        this.channel = channel;
+        this.size = channel.size();
+        if (size < PREAMBLE_BYTES + BLOCK_HEAD_BYTES + END_BLOCK_BYTES) {
+            throw corrupt("file is too short to be a snapshot");
+        }
+        ByteBuffer preamble = region(0, PREAMBLE_BYTES);
+        byte[] magic = new byte[MAGIC.length];
+        preamble.get(magic);
+        if (!Arrays.equals(magic, MAGIC)) {
+            throw corrupt("not a snapshot");
+        }
+        int version = Short.toUnsignedInt(preamble.getShort());
+        if (version != VERSION) {
+            throw corrupt("unsupported version " + version + ", expected " + VERSION);
+        }
+
+        ByteBuffer end = block(size - END_BLOCK_BYTES, END);
+        this.counts = new SnapshotCounts(end.getLong(), end.getLong(), end.getLong(), end.getLong(), end.getLong());
+
+        this.position = PREAMBLE_BYTES;
+        ByteBuffer payload = nextBlock(HEADER);
+        try {
+            this.header = readHeader(payload);
+        } catch (BufferUnderflowException | IllegalArgumentException | NegativeArraySizeException e) {
+            throw corrupt("malformed header");
+        }
+        if (payload.hasRemaining()) {
+            throw corrupt("malformed header");
+        }
+        this.recordsLeft = 0;
+    }
+
+    /**
+     * Opens a snapshot and reads its header and trailer.
+     *
+     * @throws SnapshotFormatException if the file is not a complete snapshot of a supported version
+     */
+    public static SnapshotReader open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            return new SnapshotReader(path, channel);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public SnapshotHeader header() {
+        return header;
+    }
+
+    /**
+     * Record counts per section, as recorded in the trailer.
+     */
+    public SnapshotCounts counts() {
+        return counts;
+    }
+
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Returns the next record, or {@code null} once all records have been read and verified.
+     */
+    public SnapshotRecord next() throws IOException {
+        while (recordsLeft == 0) {
+            if (finished) {
+                return null;
+            }
+            if (block != null && block.hasRemaining()) {
+                throw corrupt("unexpected bytes after the last record of a " + sectionName(section) + " block");
+            }
+            if (position == size - END_BLOCK_BYTES) {
+                finish();
+                return null;
+            }
+            byte type = region(position, 1).get();
+            if (type < section || type < DOCUMENTS || type > TASKS) {
+                throw corrupt("unexpected " + sectionName(type) + " block after " + sectionName(section));
+            }
+            section = type;
+            block = nextBlock(type);
+        }
+        try {
+            SnapshotRecord record = SnapshotFormat.read(section, block);
+            recordsLeft--;
+            read[section - DOCUMENTS]++;
+            return record;
+        } catch (BufferUnderflowException | IllegalArgumentException | NegativeArraySizeException e) {
+            throw corrupt("malformed " + sectionName(section) + " record");
+        }
+    }
+
+    private void finish() throws IOException {
+        SnapshotCounts actual = new SnapshotCounts(read[0], read[1], read[2], read[3], read[4]);
+        if (!actual.equals(counts)) {
+            throw corrupt("trailer records " + counts + " but the snapshot holds " + actual);
+        }
+        finished = true;
+    }
+
+    /**
+     * Reads the block at {@link #position}, verifies it and advances past it.
+     */
+    private ByteBuffer nextBlock(byte type) throws IOException {
+        ByteBuffer head = region(position, BLOCK_HEAD_BYTES);
+        head.get();
+        recordsLeft = head.getInt();
+        int length = head.getInt();
+        if (recordsLeft < 0 || length < 0) {
+            throw corrupt("malformed block header at byte " + position);
+        }
+        long next = position + BLOCK_HEAD_BYTES + length + Integer.BYTES;
+        if (next > size - END_BLOCK_BYTES) {
+            throw corrupt("truncated " + sectionName(type) + " block at byte " + position);
+        }
+        ByteBuffer payload = block(position, type);
+        position = next;
+        return payload;
+    }
+
+    /**
+     * Verifies the checksum of the block at {@code at} and returns its payload.
+     */
+    private ByteBuffer block(long at, byte type) throws IOException {
+        ByteBuffer head = region(at, BLOCK_HEAD_BYTES);
+        byte actualType = head.get();
+        head.getInt();
+        int length = head.getInt();
+        if (actualType != type || length < 0 || at + BLOCK_HEAD_BYTES + length + Integer.BYTES > size) {
+            throw corrupt("expected " + sectionName(type) + " block at byte " + at);
+        }
+        ByteBuffer whole = region(at, BLOCK_HEAD_BYTES + length + Integer.BYTES);
+        crc.reset();
+        crc.update(whole.slice(0, BLOCK_HEAD_BYTES + length));
+        if ((int) crc.getValue() != whole.getInt(BLOCK_HEAD_BYTES + length)) {
+            throw corrupt("checksum mismatch in " + sectionName(type) + " block at byte " + at);
+        }
+        return whole.slice(BLOCK_HEAD_BYTES, length);
+    }
+
+    /**
+     * Returns {@code length} bytes of the file at {@code at}, mapping a new window if the current one does not cover them.
+     */
+    private ByteBuffer region(long at, int length) throws IOException {
+        if (window == null || at < windowStart || at + length > windowStart + window.capacity()) {
+            long bytes = Math.min(size - at, Math.max(length, WINDOW_BYTES));
+            window = channel.map(FileChannel.MapMode.READ_ONLY, at, bytes);
+            windowStart = at;
+        }
+        return window.slice((int) (at - windowStart), length);
+    }
+
+    private SnapshotFormatException corrupt(String reason) {
+        return new SnapshotFormatException(path.getFileName() + ": " + reason);
+    }
+
+    @Override
+    public void close() throws IOException {
+        window = null;
+        block = null;
+        channel.close();
+    }
+}
@@ -0,0 +1,63 @@
+package com.docsearch.snapshot;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * One entry of a snapshot. A snapshot holds its records in sections, in the order the
+ * record types are declared here: documents, texts, files, chunks, tasks.
+ */
+public sealed interface SnapshotRecord {
+
+    /**
+     * A row of {@code documents}, without its file.
+     */
+    record Document(long id,
+                    String collection,
+                    String filename,
+                    String contentType,
+                    String description,
+                    Instant uploadedAt) implements SnapshotRecord {
+    }
+
+    /**
+     * A row of {@code document_texts}: the extracted text as stored, still compressed.
+     */
+    record Text(long docId,
+                String codec,
+                int frameChars,
+                int charLength,
+                long rawBytes,
+                int headBytes,
+                byte[] frameIndex,
+                byte[] data) implements SnapshotRecord {
+    }
+
+    /**
+     * The original uploaded file of a document. Only present in snapshots exported with files.
+     */
+    record File(long docId, byte[] data) implements SnapshotRecord {
+    }
+
+    /**
+     * A row of the vector table: one chunk with its text, metadata as JSON and embedding.
+     */
+    record Chunk(UUID id,
+                 String collection,
+                 String content,
+                 String metadata,
+                 float[] embedding) implements SnapshotRecord {
+    }
+
+    /**
+     * A row of {@code ingestion_tasks} that was pending or running: chunks of a document not embedded yet.
+     * It is restored as pending, so they are embedded on the node the snapshot is restored to.
+     */
+    record Task(long docId,
+                String collection,
+                int firstChunk,
+                int chunkCount,
+                int charFrom,
+                int charTo) implements SnapshotRecord {
+    }
+}
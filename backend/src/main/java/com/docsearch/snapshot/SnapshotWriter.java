@@ -0,0 +1,121 @@
+package com.docsearch.snapshot;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.zip.CRC32C;
+
+import static com.docsearch.snapshot.SnapshotFormat.*;
+
+/**
+ * Streams records into a snapshot (see {@link SnapshotFormat}).
+ * <p>
+ * Records are buffered into blocks of about {@code blockBytes} and each block is written with its
+ * checksum as soon as it is full, so memory use does not depend on the size of the snapshot.
+ * Records must be written section by section: all documents, then texts, then files, then chunks, then tasks.
+ * Closing the writer writes the trailer; a snapshot without one is rejected as truncated.
+ */
+public class SnapshotWriter implements Closeable {
+
+    private final DataOutputStream out;
+    private final int blockBytes;
+    private final Buffer block;
+    private final DataOutputStream payload;
+    private final CRC32C crc = new CRC32C();
+    private final long[] counts = new long[5];
+
+    private byte section = HEADER;
+    private int records;
+    private boolean closed;
+
+    public SnapshotWriter(OutputStream out, SnapshotHeader header, int blockBytes) throws IOException {
+        this.out = new DataOutputStream(new BufferedOutputStream(out, 1 << 16));
+        this.blockBytes = blockBytes;
+        this.block = new Buffer(blockBytes + (1 << 12));
+        this.payload = new DataOutputStream(block);
+        this.out.write(MAGIC);
+        this.out.writeShort(VERSION);
+        writeHeader(header, payload);
+        flushBlock(HEADER, 1);
+    }
+
+    /**
+     * Appends a record.
+     *
+     * @throws IllegalStateException if the record belongs to a section that was already finished
+     */
+    public void write(SnapshotRecord record) throws IOException {
+        byte next = section(record);
+        if (next < section) {
+            throw new IllegalStateException("Cannot write " + sectionName(next) + " after " + sectionName(section));
+        }
+        if (next != section && records > 0) {
+            flushBlock(section, records);
+        }
+        section = next;
+        SnapshotFormat.write(record, payload);
+        records++;
+        counts[next - DOCUMENTS]++;
+        if (block.size() >= blockBytes) {
+            flushBlock(section, records);
+        }
+    }
+
+    /**
+     * Records written so far, per section.
+     */
+    public SnapshotCounts counts() {
+        return new SnapshotCounts(counts[0], counts[1], counts[2], counts[3], counts[4]);
+    }
+
+    /**
+     * Writes the last block and the trailer, then closes the underlying stream.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            if (records > 0) {
+                flushBlock(section, records);
+            }
+            for (long count : counts) {
+                payload.writeLong(count);
+            }
+            flushBlock(END, 0);
+            out.flush();
+        } finally {
+            out.close();
+        }
+    }
+
+    private void flushBlock(byte type, int count) throws IOException {
+        ByteBuffer head = ByteBuffer.allocate(BLOCK_HEAD_BYTES).put(type).putInt(count).putInt(block.size());
+        crc.reset();
+        crc.update(head.array());
+        crc.update(block.array(), 0, block.size());
+        out.write(head.array());
+        out.write(block.array(), 0, block.size());
+        out.writeInt((int) crc.getValue());
+        block.reset();
+        records = 0;
+    }
+
+    /** Exposes the buffer, so a block is checksummed and written without copying it. */
+    private static final class Buffer extends ByteArrayOutputStream {
+
+        Buffer(int size) {
+            super(size);
+        }
+
+        byte[] array() {
+            return buf;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.docsearch.startup;
+
+import com.docsearch.metrics.PipelineMetrics;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Records the latency of the first search before and after the application became ready.
+ * <p>
+ * The {@code warmup} phase is the first warm-up search, which pays for cold JIT, pool and index
+ * pages; the {@code traffic} phase is the first search a client sees. Time to ready itself is
+ * published by Spring Boot as {@code application.ready.time}, which includes the warm-up stage.
+ */
+@Component
+public class StartupMetrics {
+
+    private final PipelineMetrics metrics;
+    private final AtomicBoolean warmupRecorded = new AtomicBoolean();
+    private final AtomicBoolean trafficRecorded = new AtomicBoolean();
+    private volatile boolean ready;
+
+    public StartupMetrics(PipelineMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void ready() {
+        ready = true;
+    }
+
+    /**
+     * Reports a finished search; only the first one of each phase is recorded.
+     *
+     * @param nanos the search latency in nanoseconds
+     */
+    public void searchCompleted(long nanos) {
+        boolean traffic = ready;
+        AtomicBoolean recorded = traffic ? trafficRecorded : warmupRecorded;
+        if (recorded.compareAndSet(false, true)) {
+            metrics.timer(PipelineMetrics.FIRST_SEARCH, "phase", traffic ? "traffic" : "warmup")
+                    .record(nanos, TimeUnit.NANOSECONDS);
+        }
+    }
+}
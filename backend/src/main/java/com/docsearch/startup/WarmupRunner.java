@@ -0,0 +1,162 @@
+package com.docsearch.startup;
+
+import com.docsearch.config.ReindexProperties;
+import com.docsearch.config.WarmupProperties;
+import com.docsearch.metrics.PipelineMetrics;
+import com.docsearch.service.DocumentService;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Warms the application up before it reports itself ready.
+ * <p>
+ * Runs as an {@link ApplicationRunner}, so Spring Boot publishes readiness
+ * ({@code /actuator/health/readiness}) only after it has finished. Steps:
+ * <ol>
+ *     <li>open {@code connections} pooled connections at once, so the first requests do not pay for them,</li>
+ *     <li>load each collection partition of the vector table and its HNSW index into shared buffers
+ *     with {@code pg_prewarm}, if installed,</li>
+ *     <li>run {@code searches} searches through {@link DocumentService}, so the query embedding, vector search,
+ *     keyword fallback and hydration paths are loaded and compiled.</li>
+ * </ol>
+ * A failing step is logged and skipped; warm-up never prevents startup. Each step is timed on
+ * {@link PipelineMetrics#STARTUP_WARMUP}.
+ */
+@Slf4j
+@Component
+public class WarmupRunner implements ApplicationRunner {
+
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbc;
+    private final DocumentService documents;
+    private final WarmupProperties props;
+    private final ReindexProperties reindexProps;
+    private final PipelineMetrics metrics;
+
+    public WarmupRunner(DataSource dataSource,
+                        JdbcTemplate jdbc,
+                        DocumentService documents,
+                        WarmupProperties props,
+                        ReindexProperties reindexProps,
+                        PipelineMetrics metrics) {
+        this.dataSource = dataSource;
+        this.jdbc = jdbc;
+        this.documents = documents;
+        this.props = props;
+        this.reindexProps = reindexProps;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!props.isEnabled()) {
+            return;
+        }
+        long deadline = System.nanoTime() + props.getTimeout().toNanos();
+        Timer.Sample total = metrics.start();
+
+        step("pool", deadline, this::fillPool);
+        if (props.isPrewarmIndex()) {
+            step("index", deadline, this::prewarmVectorTable);
+        }
+        step("search", deadline, () -> search(deadline));
+
+        long nanos = metrics.stop(total, PipelineMetrics.STARTUP_WARMUP, "step", "total");
+        log.info("Warm-up finished in {} ms", TimeUnit.NANOSECONDS.toMillis(nanos));
+    }
+
+    private void step(String name, long deadline, Runnable step) {
+        if (System.nanoTime() >= deadline) {
+            log.warn("Warm-up timeout reached, skipping step {}", name);
+            return;
+        }
+        Timer.Sample sample = metrics.start();
+        try {
+            step.run();
+        } catch (RuntimeException e) {
+            log.warn("Warm-up step {} failed: {}", name, e.toString());
+        } finally {
+            metrics.stop(sample, PipelineMetrics.STARTUP_WARMUP, "step", name);
+        }
+    }
+
+    private void fillPool() {
+        int count = Math.min(props.getConnections(), maxPoolSize());
+        List<Connection> held = new ArrayList<>(count);
+        try {
+            for (int i = 0; i < count; i++) {
+                Connection connection = dataSource.getConnection();
+                held.add(connection);
+                try (Statement st = connection.createStatement()) {
+                    st.execute("SELECT 1");
+                }
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not open warm-up connection", e);
+        } finally {
+            for (Connection connection : held) {
+                try {
+                    connection.close();
+                } catch (SQLException e) {
+                    log.debug("Closing warm-up connection failed: {}", e.toString());
+                }
+            }
+        }
+    }
+
+    private int maxPoolSize() {
+        try {
+            if (dataSource.isWrapperFor(HikariDataSource.class)) {
+                return dataSource.unwrap(HikariDataSource.class).getMaximumPoolSize();
+            }
+        } catch (SQLException e) {
+            log.debug("Could not determine pool size: {}", e.toString());
+        }
+        return props.getConnections();
+    }
+
+    private void prewarmVectorTable() {
+        Boolean installed = jdbc.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM pg_extension WHERE extname = 'pg_prewarm')", Boolean.class);
+        if (!Boolean.TRUE.equals(installed)) {
+            log.info("pg_prewarm is not installed; vector index pages are warmed by the warm-up searches only");
+            return;
+        }
+        // a partitioned table has no storage of its own; its leaf partitions and their indexes do
+        List<String> relations = new ArrayList<>();
+        for (String partition : jdbc.queryForList(
+                "SELECT relid::text FROM pg_partition_tree(?::regclass) WHERE isleaf", String.class,
+                reindexProps.getTable())) {
+            relations.add(partition);
+            relations.addAll(jdbc.queryForList(
+                    "SELECT indexrelid::regclass::text FROM pg_index WHERE indrelid = ?::regclass", String.class, partition));
+        }
+        for (String relation : relations) {
+            Long blocks = jdbc.queryForObject("SELECT pg_prewarm(?::regclass)", Long.class, relation);
+            log.debug("Prewarmed {} blocks of {}", blocks, relation);
+        }
+    }
+
+    private void search(long deadline) {
+        List<String> queries = props.getQueries();
+        if (queries.isEmpty()) {
+            return;
+        }
+        for (int i = 0; i < props.getSearches() && System.nanoTime() < deadline; i++) {
+            documents.search(queries.get(i % queries.size()));
+        }
+    }
+}
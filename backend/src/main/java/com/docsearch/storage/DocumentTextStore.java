@@ -0,0 +1,197 @@
+package com.docsearch.storage;
+
+import com.docsearch.config.TextStoreProperties;
+import com.docsearch.metrics.PipelineMetrics;
+import com.docsearch.model.DocumentEntity;
+import com.docsearch.model.DocumentTextEntity;
+import com.docsearch.model.DocumentTextHead;
+import com.docsearch.model.DocumentTextLayout;
+import com.docsearch.repository.DocumentTextRepository;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Stores the extracted text of each document compressed with {@link FramedTextCodec}.
+ * <p>
+ * Responsibilities:
+ * <ul>
+ *     <li>Compress text on upload and write it to {@code document_texts}, apart from the document row.</li>
+ *     <li>Decode a character range by fetching and decompressing only the frames it spans.</li>
+ *     <li>Attach previews to listings and search results from the first frame alone.</li>
+ *     <li>Index the words of the whole text in {@code document_text_terms} for the keyword search.</li>
+ * </ul>
+ * The word index holds one stripped {@code tsvector} per segment of {@value #TERM_SEGMENT_CHARS} characters,
+ * overlapping the next by {@value #TERM_SEGMENT_OVERLAP} so that a short phrase across a boundary is whole
+ * in one of them. Lexemes without positions are much smaller than the text, and no segment nears the
+ * 1 MB limit of a {@code tsvector}.
+ * Bytes read and written are recorded on {@link PipelineMetrics#TEXT_STORE_BYTES}.
+ */
+@Component
+public class DocumentTextStore {
+
+    static final int TERM_SEGMENT_CHARS = 65536;
+    static final int TERM_SEGMENT_OVERLAP = 256;
+
+    private final DocumentTextRepository texts;
+    private final PipelineMetrics metrics;
+    private final TextStoreProperties props;
+    private final FramedTextCodec codec;
+
+    public DocumentTextStore(DocumentTextRepository texts,
+                             PipelineMetrics metrics,
+                             TextStoreProperties props) {
+        this.texts = texts;
+        this.metrics = metrics;
+        this.props = props;
+        this.codec = new FramedTextCodec(props.getFrameChars(), props.isHighCompression());
+    }
+
+    /**
+     * Compresses and stores the text of a document and indexes its words, replacing any previous text.
+     *
+     * @param docId the document id
+     * @param text  the extracted text
+     */
+    public void save(Long docId, String text) {
+        FramedText framed = codec.encode(text);
+        FrameIndex index = framed.getIndex();
+        texts.save(DocumentTextEntity.builder()
+                .docId(docId)
+                .codec(FramedTextCodec.NAME)
+                .frameChars(codec.getFrameChars())
+                .charLength(index.charLength())
+                .rawBytes(index.rawLength())
+                .headBytes(index.frameCount() == 0 ? 0 : index.byteOffset(1))
+                .frameIndex(index.toBytes())
+                .data(framed.getData())
+                .build());
+        metrics.record(PipelineMetrics.TEXT_STORE_BYTES, framed.getData().length, "operation", "write");
+        indexTerms(docId, text);
+    }
+
+    /**
+     * Indexes the words of a stored text again, e.g. after texts were copied in compressed form
+     * by a snapshot restore.
+     *
+     * @param docId the document id
+     */
+    public void indexTerms(Long docId) {
+        indexTerms(docId, read(docId));
+    }
+
+    /**
+     * Reads the whole text of a document.
+     *
+     * @param docId the document id
+     * @return the text, or {@code null} if the document has none
+     */
+    public String read(Long docId) {
+        return read(docId, 0, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Reads the characters {@code [from, to)} of a document's text.
+     * <p>
+     * The bounds are clamped to the text. Only the compressed frames overlapping the
+     * range are fetched from the database and decompressed.
+     *
+     * @param docId the document id
+     * @param from  the first character, inclusive
+     * @param to    the last character, exclusive
+     * @return the requested part of the text, or {@code null} if the document has none
+     */
+    public String read(Long docId, int from, int to) {
+        Optional<DocumentTextLayout> layout = texts.findLayout(docId);
+        if (layout.isEmpty()) {
+            return null;
+        }
+        if (!FramedTextCodec.NAME.equals(layout.get().getCodec())) {
+            throw new IllegalStateException("Unsupported text codec " + layout.get().getCodec() + " for document " + docId);
+        }
+
+        FrameIndex index = FrameIndex.fromBytes(layout.get().getFrameIndex());
+        int start = Math.max(0, Math.min(from, index.charLength()));
+        int end = Math.max(start, Math.min(to, index.charLength()));
+        if (start == end) {
+            return "";
+        }
+
+        int first = index.frameFor(start);
+        int last = index.frameFor(end - 1);
+        int offset = index.byteOffset(first);
+        byte[] bytes = texts.readSlice(docId, offset + 1, index.byteOffset(last + 1) - offset);
+        metrics.record(PipelineMetrics.TEXT_STORE_BYTES, bytes.length, "operation", "read");
+
+        String text = codec.decodeFrames(index, bytes, first, last);
+        int base = index.charStart(first);
+        return text.substring(start - base, end - base);
+    }
+
+    /**
+     * Sets {@link DocumentEntity#getPreview() preview} and {@link DocumentEntity#getTextBytes() textBytes}
+     * on the given documents, reading one compressed frame per document.
+     *
+     * @param docs the documents to complete
+     */
+    public void attachPreviews(Collection<DocumentEntity> docs) {
+        if (docs.isEmpty()) return;
+        Map<Long, DocumentEntity> byId = docs.stream()
+                .collect(Collectors.toMap(DocumentEntity::getId, Function.identity(), (a, b) -> a));
+
+        long bytes = 0;
+        for (DocumentTextHead head : texts.findHeads(byId.keySet())) {
+            DocumentEntity doc = byId.get(head.getDocId());
+            byte[] frame = head.getHead();
+            bytes += frame == null ? 0 : frame.length;
+            doc.setPreview(truncate(codec.decodeFrame(frame, head.getFrameChars()), props.getPreviewChars()));
+            doc.setTextBytes(head.getRawBytes());
+        }
+        metrics.record(PipelineMetrics.TEXT_STORE_BYTES, bytes, "operation", "preview");
+    }
+
+    /**
+     * Turns a keyword search query into a {@code tsquery} for {@code to_tsquery('simple', ...)} that
+     * requires every word, each as a prefix: {@code "Zet lor"} becomes {@code 'zet':* & 'lor':*}.
+     * Each word is quoted, so Postgres splits it exactly as it split the stored text.
+     *
+     * @param q the query as typed
+     * @return the {@code tsquery} text, empty if {@code q} has no letters or digits
+     */
+    public static String termQuery(String q) {
+        if (q == null) return "";
+        StringJoiner terms = new StringJoiner(" & ");
+        for (String word : q.toLowerCase(Locale.ROOT).split("\\s+")) {
+            if (word.codePoints().anyMatch(Character::isLetterOrDigit)) {
+                terms.add("'" + word.replace("\\", "\\\\").replace("'", "''") + "':*");
+            }
+        }
+        return terms.toString();
+    }
+
+    /**
+     * Deletes the text of a document, if any.
+     */
+    public void delete(Long docId) {
+        texts.deleteByDocId(docId);
+        texts.deleteTermsByDocId(docId);
+    }
+
+    private void indexTerms(Long docId, String text) {
+        texts.deleteTermsByDocId(docId);
+        if (text == null) return;
+        int segment = 0;
+        for (int start = 0; start < text.length(); start += TERM_SEGMENT_CHARS) {
+            int end = Math.min(text.length(), start + TERM_SEGMENT_CHARS + TERM_SEGMENT_OVERLAP);
+            texts.saveTerms(docId, segment++, text.substring(start, end));
+        }
+    }
+
+    private static String truncate(String text, int maxChars) {
+        if (text.length() <= maxChars) return text;
+        int end = Character.isHighSurrogate(text.charAt(maxChars - 1)) ? maxChars - 1 : maxChars;
+        return text.substring(0, end);
+    }
+}
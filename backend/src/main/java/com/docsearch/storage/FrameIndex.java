@@ -0,0 +1,85 @@
+package com.docsearch.storage;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Layout of a framed, compressed text: where each frame starts in the text and in the
+ * compressed bytes, and how long it is once decompressed.
+ * <p>
+ * Stored next to the compressed bytes so that a character range can be mapped to the
+ * byte range of the frames that contain it without reading anything else.
+ */
+public final class FrameIndex {
+
+    /** Character offset of each frame; one extra entry holds the text length. */
+    private final int[] charStarts;
+    /** Byte offset of each compressed frame; one extra entry holds the total size. */
+    private final int[] byteOffsets;
+    /** UTF-8 length of each frame before compression. */
+    private final int[] rawLengths;
+
+    FrameIndex(int[] charStarts, int[] byteOffsets, int[] rawLengths) {
+        this.charStarts = charStarts;
+        this.byteOffsets = byteOffsets;
+        this.rawLengths = rawLengths;
+    }
+
+    public int frameCount() {
+        return rawLengths.length;
+    }
+
+    public int charLength() {
+        return charStarts[charStarts.length - 1];
+    }
+
+    public int compressedLength() {
+        return byteOffsets[byteOffsets.length - 1];
+    }
+
+    public long rawLength() {
+        return Arrays.stream(rawLengths).asLongStream().sum();
+    }
+
+    public int charStart(int frame) {
+        return charStarts[frame];
+    }
+
+    public int byteOffset(int frame) {
+        return byteOffsets[frame];
+    }
+
+    public int rawLength(int frame) {
+        return rawLengths[frame];
+    }
+
+    /**
+     * Returns the frame containing the given character offset.
+     */
+    public int frameFor(int charOffset) {
+        int i = Arrays.binarySearch(charStarts, 0, frameCount(), charOffset);
+        return i >= 0 ? i : Math.max(0, -i - 2);
+    }
+
+    public byte[] toBytes() {
+        int n = frameCount();
+        ByteBuffer buf = ByteBuffer.allocate(Integer.BYTES * (3 * n + 3));
+        buf.putInt(n);
+        for (int v : charStarts) buf.putInt(v);
+        for (int v : byteOffsets) buf.putInt(v);
+        for (int v : rawLengths) buf.putInt(v);
+        return buf.array();
+    }
+
+    public static FrameIndex fromBytes(byte[] bytes) {
+        ByteBuffer buf = ByteBuffer.wrap(bytes);
+        int n = buf.getInt();
+        int[] charStarts = new int[n + 1];
+        int[] byteOffsets = new int[n + 1];
+        int[] rawLengths = new int[n];
+        for (int i = 0; i <= n; i++) charStarts[i] = buf.getInt();
+        for (int i = 0; i <= n; i++) byteOffsets[i] = buf.getInt();
+        for (int i = 0; i < n; i++) rawLengths[i] = buf.getInt();
+        return new FrameIndex(charStarts, byteOffsets, rawLengths);
+    }
+}
@@ -0,0 +1,16 @@
+package com.docsearch.storage;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * A text compressed by {@link FramedTextCodec}: the frame layout and the concatenated frames.
+ */
+@Getter
+@AllArgsConstructor
+public class FramedText {
+
+    private final FrameIndex index;
+
+    private final byte[] data;
+}
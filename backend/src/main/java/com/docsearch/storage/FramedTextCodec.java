@@ -0,0 +1,131 @@
+package com.docsearch.storage;
+
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4SafeDecompressor;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compresses text with LZ4 in independent frames of a fixed number of characters.
+ * <p>
+ * Each frame is compressed on its own, so any character range can be decoded by
+ * decompressing only the frames that overlap it. Frame boundaries never split a
+ * surrogate pair, so every frame is valid UTF-8 on its own.
+ */
+public class FramedTextCodec {
+
+    public static final String NAME = "lz4";
+
+    /** Worst-case UTF-8 bytes per UTF-16 char. */
+    private static final int MAX_BYTES_PER_CHAR = 3;
+
+    private static final LZ4Factory LZ4 = LZ4Factory.fastestInstance();
+
+    private final int frameChars;
+    private final LZ4Compressor compressor;
+    private final LZ4SafeDecompressor decompressor = LZ4.safeDecompressor();
+
+    public FramedTextCodec(int frameChars, boolean highCompression) {
+        if (frameChars < 2) {
+            throw new IllegalArgumentException("frameChars must be at least 2");
+        }
+        this.frameChars = frameChars;
+        this.compressor = highCompression ? LZ4.highCompressor() : LZ4.fastCompressor();
+    }
+
+    public int getFrameChars() {
+        return frameChars;
+    }
+
+    /**
+     * Splits the text into frames and compresses each one.
+     *
+     * @param text the text to compress; {@code null} is stored as empty
+     * @return the frame index and the concatenated compressed frames
+     */
+    public FramedText encode(String text) {
+        String s = text == null ? "" : text;
+        List<byte[]> frames = new ArrayList<>();
+        List<Integer> starts = new ArrayList<>();
+        List<Integer> raw = new ArrayList<>();
+
+        for (int start = 0; start < s.length(); ) {
+            int end = Math.min(s.length(), start + frameChars);
+            if (end < s.length() && Character.isHighSurrogate(s.charAt(end - 1))) {
+                end--;
+            }
+            byte[] utf8 = s.substring(start, end).getBytes(StandardCharsets.UTF_8);
+            starts.add(start);
+            raw.add(utf8.length);
+            frames.add(compressor.compress(utf8));
+            start = end;
+        }
+
+        int n = frames.size();
+        int[] charStarts = new int[n + 1];
+        int[] byteOffsets = new int[n + 1];
+        int[] rawLengths = new int[n];
+        for (int i = 0; i < n; i++) {
+            charStarts[i] = starts.get(i);
+            rawLengths[i] = raw.get(i);
+            byteOffsets[i + 1] = byteOffsets[i] + frames.get(i).length;
+        }
+        charStarts[n] = s.length();
+
+        byte[] data = new byte[byteOffsets[n]];
+        for (int i = 0; i < n; i++) {
+            System.arraycopy(frames.get(i), 0, data, byteOffsets[i], frames.get(i).length);
+        }
+        return new FramedText(new FrameIndex(charStarts, byteOffsets, rawLengths), data);
+    }
+
+    /**
+     * Decompresses a run of consecutive frames.
+     *
+     * @param index      the frame index of the text
+     * @param bytes      the compressed bytes of frames {@code firstFrame..lastFrame}, starting at
+     *                   {@code index.byteOffset(firstFrame)}
+     * @param firstFrame the first frame in {@code bytes}
+     * @param lastFrame  the last frame in {@code bytes}, inclusive
+     * @return the text of those frames
+     */
+    public String decodeFrames(FrameIndex index, byte[] bytes, int firstFrame, int lastFrame) {
+        int base = index.byteOffset(firstFrame);
+        StringBuilder out = new StringBuilder(index.charStart(lastFrame + 1) - index.charStart(firstFrame));
+        byte[] buffer = new byte[0];
+        for (int f = firstFrame; f <= lastFrame; f++) {
+            int rawLength = index.rawLength(f);
+            if (buffer.length < rawLength) buffer = new byte[rawLength];
+            int from = index.byteOffset(f) - base;
+            int length = index.byteOffset(f + 1) - index.byteOffset(f);
+            int n = decompressor.decompress(bytes, from, length, buffer, 0, rawLength);
+            out.append(new String(buffer, 0, n, StandardCharsets.UTF_8));
+        }
+        return out.toString();
+    }
+
+    /**
+     * Decompresses the whole text.
+     */
+    public String decode(FramedText text) {
+        FrameIndex index = text.getIndex();
+        return index.frameCount() == 0 ? "" : decodeFrames(index, text.getData(), 0, index.frameCount() - 1);
+    }
+
+    /**
+     * Decompresses a single frame without its index, e.g. the first frame for a preview.
+     *
+     * @param frame      the compressed frame
+     * @param frameChars the frame size the text was encoded with
+     * @return the text of the frame
+     */
+    public String decodeFrame(byte[] frame, int frameChars) {
+        if (frame == null || frame.length == 0) return "";
+        byte[] buffer = new byte[frameChars * MAX_BYTES_PER_CHAR];
+        int n = decompressor.decompress(frame, 0, frame.length, buffer, 0, buffer.length);
+        return new String(buffer, 0, n, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,43 @@
+package com.docsearch.suggest;
+
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Splits text into the lower-case words that the suggestion index completes.
+ */
+public final class DocumentTerms {
+
+    private DocumentTerms() {
+    }
+
+    /**
+     * Returns the distinct words of {@code text} of {@code minLength} to {@code maxLength} characters.
+     * A word is a run of letters and digits.
+     */
+    public static Set<String> of(String text, int minLength, int maxLength) {
+        Set<String> terms = new HashSet<>();
+        if (text == null) return terms;
+        int n = text.length();
+        int i = 0;
+        while (i < n) {
+            while (i < n && !Character.isLetterOrDigit(text.charAt(i))) i++;
+            int start = i;
+            while (i < n && Character.isLetterOrDigit(text.charAt(i))) i++;
+            int length = i - start;
+            if (length >= minLength && length <= maxLength) {
+                terms.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+            }
+        }
+        return terms;
+    }
+
+    /**
+     * Lower-cases and trims user input, collapsing runs of whitespace.
+     */
+    public static String normalize(String input) {
+        if (input == null) return "";
+        return input.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,96 @@
+package com.docsearch.suggest;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The words and filenames of a set of documents, each weighted by the number of documents it occurs in.
+ * <p>
+ * Tracks which documents it holds in a {@link BitSet}, so adding a document twice or removing
+ * one it does not hold has no effect. Not thread-safe.
+ */
+public class SuggestionIndex {
+
+    private final TermTrie terms = new TermTrie(1 << 16);
+    private final TermTrie filenames = new TermTrie();
+    private final Map<String, String> displayNames = new HashMap<>();
+    private final BitSet documents = new BitSet();
+    private long maxDocId;
+
+    /**
+     * @return {@code false} if the document was already indexed
+     */
+    public boolean add(long docId, String filename, Collection<String> words) {
+        int bit = bit(docId);
+        if (documents.get(bit)) return false;
+        documents.set(bit);
+        maxDocId = Math.max(maxDocId, docId);
+        for (String word : words) {
+            terms.add(word, 1);
+        }
+        if (filename != null && !filename.isBlank()) {
+            String key = filename.toLowerCase(Locale.ROOT);
+            filenames.add(key, 1);
+            displayNames.putIfAbsent(key, filename);
+        }
+        return true;
+    }
+
+    /**
+     * @return {@code false} if the document was not indexed
+     */
+    public boolean remove(long docId, String filename, Collection<String> words) {
+        int bit = bit(docId);
+        if (!documents.get(bit)) return false;
+        documents.clear(bit);
+        for (String word : words) {
+            terms.remove(word, 1);
+        }
+        if (filename != null && !filename.isBlank()) {
+            String key = filename.toLowerCase(Locale.ROOT);
+            filenames.remove(key, 1);
+            if (filenames.weight(key) == 0) displayNames.remove(key);
+        }
+        return true;
+    }
+
+    public boolean contains(long docId) {
+        return docId >= 0 && docId <= Integer.MAX_VALUE && documents.get((int) docId);
+    }
+
+    public TermTrie terms() {
+        return terms;
+    }
+
+    public TermTrie filenames() {
+        return filenames;
+    }
+
+    /**
+     * The filename as uploaded for a lower-cased filename key.
+     */
+    public String displayName(String key) {
+        return displayNames.getOrDefault(key, key);
+    }
+
+    public int documentCount() {
+        return documents.cardinality();
+    }
+
+    /**
+     * Highest document id indexed so far; newer documents are picked up after it.
+     */
+    public long maxDocId() {
+        return maxDocId;
+    }
+
+    private static int bit(long docId) {
+        if (docId < 0 || docId > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Document id out of range: " + docId);
+        }
+        return (int) docId;
+    }
+}
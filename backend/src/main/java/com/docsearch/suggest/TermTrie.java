@@ -0,0 +1,263 @@
+package com.docsearch.suggest;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Weighted prefix tree over strings, stored in parallel primitive arrays.
+ * <p>
+ * Each node is one character; children form a sibling list sorted by character. Besides its own
+ * weight, every node keeps the highest weight in its subtree, so {@link #top(String, int)} walks
+ * the subtree best-first and stops after {@code limit} keys instead of visiting every completion.
+ * A node takes 22 bytes (a {@code char} and five {@code int}s) and there are no per-node objects.
+ * <p>
+ * Removing weight prunes nodes that no longer lead to a key; their slots are not reused, so a
+ * trie with many removals should be rebuilt (see {@link #freedNodes()}). Not thread-safe.
+ */
+public final class TermTrie {
+
+    /**
+     * A key and its weight.
+     */
+    public record Entry(String key, int weight) {
+    }
+
+    private static final int ROOT = 0;
+    private static final int NONE = -1;
+    private static final int NODE_BYTES = Character.BYTES + 5 * Integer.BYTES;
+
+    private char[] label;
+    private int[] parent;
+    private int[] firstChild;
+    private int[] nextSibling;
+    private int[] weight;
+    private int[] best;
+    private int nodes;
+    private int freed;
+    private int keys;
+
+    public TermTrie() {
+        this(1024);
+    }
+
+    public TermTrie(int initialCapacity) {
+        int capacity = Math.max(16, initialCapacity);
+        label = new char[capacity];
+        parent = new int[capacity];
+        firstChild = new int[capacity];
+        nextSibling = new int[capacity];
+        weight = new int[capacity];
+        best = new int[capacity];
+        nodes = 1;
+        parent[ROOT] = NONE;
+        firstChild[ROOT] = NONE;
+        nextSibling[ROOT] = NONE;
+    }
+
+    /**
+     * Adds {@code amount} to the weight of {@code key}, inserting it if needed.
+     */
+    public void add(CharSequence key, int amount) {
+        if (key.isEmpty() || amount <= 0) return;
+        int node = ROOT;
+        for (int i = 0; i < key.length(); i++) {
+            node = child(node, key.charAt(i), true);
+        }
+        if (weight[node] == 0) keys++;
+        int w = (int) Math.min(Integer.MAX_VALUE, (long) weight[node] + amount);
+        weight[node] = w;
+        for (int n = node; n != NONE && best[n] < w; n = parent[n]) {
+            best[n] = w;
+        }
+    }
+
+    /**
+     * Subtracts up to {@code amount} from the weight of {@code key} and prunes the nodes
+     * that no longer lead to any key.
+     *
+     * @return {@code false} if the key was not present
+     */
+    public boolean remove(CharSequence key, int amount) {
+        int node = find(key);
+        if (node == NONE || node == ROOT || weight[node] == 0 || amount <= 0) return false;
+        weight[node] = Math.max(0, weight[node] - amount);
+        if (weight[node] == 0) keys--;
+
+        int n = node;
+        while (n != ROOT && weight[n] == 0 && firstChild[n] == NONE) {
+            int p = parent[n];
+            unlink(p, n);
+            freed++;
+            n = p;
+        }
+        for (; n != NONE; n = parent[n]) {
+            int b = weight[n];
+            for (int c = firstChild[n]; c != NONE; c = nextSibling[c]) {
+                b = Math.max(b, best[c]);
+            }
+            if (b == best[n]) break;
+            best[n] = b;
+        }
+        return true;
+    }
+
+    /**
+     * Returns the weight of {@code key}, {@code 0} if absent.
+     */
+    public int weight(CharSequence key) {
+        int node = find(key);
+        return node == NONE ? 0 : weight[node];
+    }
+
+    /**
+     * Returns up to {@code limit} keys starting with {@code prefix}, highest weight first.
+     */
+    public List<Entry> top(String prefix, int limit) {
+        List<Entry> out = new ArrayList<>(Math.max(0, limit));
+        int start = find(prefix);
+        if (start == NONE || limit <= 0 || best[start] == 0) return out;
+
+        // entries are (priority << 32 | node << 1 | terminal); a key outranks its subtree at equal weight
+        PriorityQueue<Long> queue = new PriorityQueue<>(Comparator.reverseOrder());
+        queue.add(entry(best[start], start, false));
+        while (!queue.isEmpty() && out.size() < limit) {
+            long e = queue.poll();
+            int node = (int) ((e & 0xFFFFFFFFL) >>> 1);
+            if ((e & 1) == 1) {
+                out.add(new Entry(key(node), weight[node]));
+                continue;
+            }
+            if (weight[node] > 0) queue.add(entry(weight[node], node, true));
+            for (int c = firstChild[node]; c != NONE; c = nextSibling[c]) {
+                if (best[c] > 0) queue.add(entry(best[c], c, false));
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Visits every key with its weight, in character order.
+     */
+    public void forEach(ObjIntConsumer<String> action) {
+        StringBuilder path = new StringBuilder();
+        visit(ROOT, path, action);
+    }
+
+    /**
+     * Number of keys with a positive weight.
+     */
+    public int size() {
+        return keys;
+    }
+
+    /**
+     * Nodes in use, including the root.
+     */
+    public int liveNodes() {
+        return nodes - freed;
+    }
+
+    /**
+     * Nodes pruned by {@link #remove} whose slots are still allocated.
+     */
+    public int freedNodes() {
+        return freed;
+    }
+
+    /**
+     * Bytes held by the node arrays, including unused capacity.
+     */
+    public long memoryBytes() {
+        return (long) label.length * NODE_BYTES;
+    }
+
+    private void visit(int node, StringBuilder path, ObjIntConsumer<String> action) {
+        if (node != ROOT) path.append(label[node]);
+        if (weight[node] > 0) action.accept(path.toString(), weight[node]);
+        for (int c = firstChild[node]; c != NONE; c = nextSibling[c]) {
+            visit(c, path, action);
+        }
+        if (node != ROOT) path.setLength(path.length() - 1);
+    }
+
+    private int find(CharSequence key) {
+        int node = ROOT;
+        for (int i = 0; i < key.length() && node != NONE; i++) {
+            node = child(node, key.charAt(i), false);
+        }
+        return node;
+    }
+
+    private int child(int node, char ch, boolean create) {
+        int prev = NONE;
+        int c = firstChild[node];
+        while (c != NONE && label[c] < ch) {
+            prev = c;
+            c = nextSibling[c];
+        }
+        if (c != NONE && label[c] == ch) return c;
+        if (!create) return NONE;
+
+        int created = allocate(ch, node);
+        nextSibling[created] = c;
+        if (prev == NONE) {
+            firstChild[node] = created;
+        } else {
+            nextSibling[prev] = created;
+        }
+        return created;
+    }
+
+    private int allocate(char ch, int parentNode) {
+        if (nodes == label.length) {
+            int capacity = label.length + (label.length >> 1);
+            label = Arrays.copyOf(label, capacity);
+            parent = Arrays.copyOf(parent, capacity);
+            firstChild = Arrays.copyOf(firstChild, capacity);
+            nextSibling = Arrays.copyOf(nextSibling, capacity);
+            weight = Arrays.copyOf(weight, capacity);
+            best = Arrays.copyOf(best, capacity);
+        }
+        int n = nodes++;
+        label[n] = ch;
+        parent[n] = parentNode;
+        firstChild[n] = NONE;
+        nextSibling[n] = NONE;
+        weight[n] = 0;
+        best[n] = 0;
+        return n;
+    }
+
+    private void unlink(int parentNode, int node) {
+        if (firstChild[parentNode] == node) {
+            firstChild[parentNode] = nextSibling[node];
+            return;
+        }
+        for (int c = firstChild[parentNode]; c != NONE; c = nextSibling[c]) {
+            if (nextSibling[c] == node) {
+                nextSibling[c] = nextSibling[node];
+                return;
+            }
+        }
+    }
+
+    private String key(int node) {
+        int length = 0;
+        for (int n = node; n != ROOT; n = parent[n]) {
+            length++;
+        }
+        char[] chars = new char[length];
+        for (int n = node; n != ROOT; n = parent[n]) {
+            chars[--length] = label[n];
+        }
+        return new String(chars);
+    }
+
+    private static long entry(int priority, int node, boolean terminal) {
+        return ((long) priority << 32) | ((long) node << 1) | (terminal ? 1 : 0);
+    }
+}
@@ -0,0 +1,46 @@
+package com.docsearch.vector;
+
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Rules for collection names.
+ * <p>
+ * A collection name becomes part of the name of its vector partition, so it is restricted to
+ * lower-case letters, digits and underscores.
+ */
+public final class CollectionName {
+
+    /**
+     * Collection of documents uploaded without one.
+     */
+    public static final String DEFAULT = "default";
+
+    /**
+     * Longest collection name; keeps partition names of the live, shadow and retired tables
+     * within Postgres' 63-character identifier limit.
+     */
+    public static final int MAX_LENGTH = 32;
+
+    private static final Pattern VALID = Pattern.compile("[a-z0-9][a-z0-9_]{0," + (MAX_LENGTH - 1) + "}");
+
+    private CollectionName() {
+    }
+
+    /**
+     * Lower-cases and trims a collection name; {@link #DEFAULT} when blank.
+     *
+     * @throws InvalidCollectionException if the name contains other characters or is too long
+     */
+    public static String normalize(String name) {
+        if (name == null || name.isBlank()) {
+            return DEFAULT;
+        }
+        String normalized = name.trim().toLowerCase(Locale.ROOT);
+        if (!VALID.matcher(normalized).matches()) {
+            throw new InvalidCollectionException("Invalid collection name '" + name + "': use up to " + MAX_LENGTH
+                    + " letters, digits and underscores");
+        }
+        return normalized;
+    }
+}
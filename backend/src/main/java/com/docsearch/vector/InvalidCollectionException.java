@@ -0,0 +1,11 @@
+package com.docsearch.vector;
+
+/**
+ * Thrown when a collection name does not follow the rules of {@link CollectionName}.
+ */
+public class InvalidCollectionException extends IllegalArgumentException {
+
+    public InvalidCollectionException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,281 @@
+package com.docsearch.vector;
+
+import com.docsearch.config.CollectionProperties;
+import com.docsearch.config.ReindexProperties;
+import com.docsearch.metrics.PipelineMetrics;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.ai.vectorstore.filter.Filter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+
+import java.sql.PreparedStatement;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * {@link VectorStore} over a pgvector table partitioned by collection.
+ * <p>
+ * Takes the place of Spring AI's {@code PgVectorStore}, which knows nothing of partitions:
+ * <ul>
+ *     <li>{@link #add} routes each chunk to the partition of the {@code collection} in its metadata,
+ *     creating the partition for a new collection, and embeds each chunk with its own call, as
+ *     {@code PgVectorStore} does, so every call stays within the embedding guard's deadline,</li>
+ *     <li>{@link #similaritySearch(SearchRequest)} embeds the query once and searches each targeted
+ *     partition's own HNSW index, in parallel when there are several, then merges the per-partition
+ *     top K by distance. Partitions that miss {@code partition-search-timeout} are left out.</li>
+ * </ul>
+ * Searches are limited to collections with a filter expression on {@code collection}, built with
+ * {@link #inCollections(Collection)}; without one, every collection is searched. Other filter
+ * expressions are rejected. Distances are cosine distances, as in {@code PgVectorStore}.
+ */
+@Slf4j
+@Component
+public class PgCollectionVectorStore implements VectorStore {
+
+    /**
+     * Metadata key and filter key of the collection.
+     */
+    public static final String COLLECTION = "collection";
+
+    /**
+     * Metadata key of the cosine distance added to search results.
+     */
+    public static final String DISTANCE = "distance";
+
+    private static final TypeReference<Map<String, Object>> METADATA = new TypeReference<>() {
+    };
+
+    private final JdbcTemplate jdbc;
+    private final EmbeddingModel embeddingModel;
+    private final VectorPartitions partitions;
+    private final ReindexProperties reindexProps;
+    private final PipelineMetrics metrics;
+    private final ObjectMapper mapper;
+    private final ExecutorService searchPool;
+    private final Duration partitionTimeout;
+    private final int queryTimeoutSeconds;
+
+    public PgCollectionVectorStore(JdbcTemplate jdbc,
+                                   EmbeddingModel embeddingModel,
+                                   VectorPartitions partitions,
+                                   CollectionProperties props,
+                                   ReindexProperties reindexProps,
+                                   PipelineMetrics metrics,
+                                   ObjectMapper mapper) {
+        this.jdbc = jdbc;
+        this.embeddingModel = embeddingModel;
+        this.partitions = partitions;
+        this.reindexProps = reindexProps;
+        this.metrics = metrics;
+        this.mapper = mapper;
+        this.partitionTimeout = props.getPartitionSearchTimeout();
+        this.queryTimeoutSeconds = (int) Math.max(1, (partitionTimeout.toMillis() + 999) / 1000);
+        AtomicInteger threads = new AtomicInteger();
+        this.searchPool = Executors.newFixedThreadPool(Math.max(1, props.getSearchThreads()), r -> {
+            Thread t = new Thread(r, "vector-search-" + threads.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @PreDestroy
+    void stop() {
+        searchPool.shutdownNow();
+    }
+
+    /**
+     * Filter expression that limits a search to the given collections.
+     */
+    public static Filter.Expression inCollections(Collection<String> collections) {
+        return new Filter.Expression(Filter.ExpressionType.IN, new Filter.Key(COLLECTION),
+                new Filter.Value(new ArrayList<>(collections)));
+    }
+
+    @Override
+    public void add(List<Document> documents) {
+        if (documents.isEmpty()) {
+            return;
+        }
+        String table = reindexProps.getTable();
+        List<Object[]> rows = new ArrayList<>(documents.size());
+        Set<String> collections = new HashSet<>();
+        for (Document doc : documents) {
+            String collection = CollectionName.normalize((String) doc.getMetadata().get(COLLECTION));
+            collections.add(collection);
+            Map<String, Object> metadata = new HashMap<>(doc.getMetadata());
+            metadata.put(COLLECTION, collection);
+            rows.add(new Object[]{UUID.fromString(doc.getId()), collection, doc.getContent(),
+                    json(metadata), toVectorLiteral(embeddingModel.embed(doc))});
+        }
+        for (String collection : collections) {
+            partitions.ensure(table, collection);
+        }
+        jdbc.batchUpdate("INSERT INTO " + table + " (id, collection, content, metadata, embedding) " +
+                "VALUES (?, ?, ?, ?::json, ?::vector) ON CONFLICT (id, collection) DO UPDATE SET " +
+                "content = EXCLUDED.content, metadata = EXCLUDED.metadata, embedding = EXCLUDED.embedding", rows);
+    }
+
+    @Override
+    public Optional<Boolean> delete(List<String> idList) {
+        List<Object[]> ids = idList.stream().map(id -> new Object[]{UUID.fromString(id)}).toList();
+        int[] counts = jdbc.batchUpdate("DELETE FROM " + reindexProps.getTable() + " WHERE id = ?", ids);
+        return Optional.of(Arrays.stream(counts).allMatch(n -> n > 0));
+    }
+
+    @Override
+    public List<Document> similaritySearch(SearchRequest request) {
+        String table = reindexProps.getTable();
+        List<String> targets = targets(table, request.getFilterExpression());
+        metrics.record(PipelineMetrics.VECTOR_FANOUT, targets.size());
+        if (targets.isEmpty()) {
+            return List.of();
+        }
+
+        String vector = toVectorLiteral(embeddingModel.embed(request.getQuery()));
+        double maxDistance = 1 - request.getSimilarityThreshold();
+        int topK = request.getTopK();
+
+        List<Document> hits;
+        if (targets.size() == 1) {
+            hits = searchPartition(table, targets.get(0), vector, maxDistance, topK);
+        } else {
+            List<Future<List<Document>>> futures = new ArrayList<>(targets.size());
+            for (String collection : targets) {
+                futures.add(searchPool.submit(() -> searchPartition(table, collection, vector, maxDistance, topK)));
+            }
+            hits = new ArrayList<>();
+            long deadline = System.nanoTime() + partitionTimeout.toNanos();
+            try {
+                for (int i = 0; i < futures.size(); i++) {
+                    Future<List<Document>> future = futures.get(i);
+                    try {
+                        hits.addAll(future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS));
+                    } catch (TimeoutException e) {
+                        future.cancel(true);
+                        metrics.increment(PipelineMetrics.VECTOR_PARTITION_TIMEOUTS);
+                        log.warn("Search of collection {} took over {} ms, its results are left out",
+                                targets.get(i), partitionTimeout.toMillis());
+                    }
+                }
+            } catch (InterruptedException e) {
+                futures.forEach(f -> f.cancel(true));
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while searching collections", e);
+            } catch (ExecutionException e) {
+                futures.forEach(f -> f.cancel(true));
+                throw e.getCause() instanceof RuntimeException re ? re : new IllegalStateException(e.getCause());
+            }
+        }
+        return hits.stream()
+                .sorted(Comparator.comparingDouble(d -> ((Number) d.getMetadata().get(DISTANCE)).doubleValue()))
+                .limit(topK)
+                .toList();
+    }
+
+    /**
+     * Collections a request searches that have a partition, in name order.
+     */
+    private List<String> targets(String table, Filter.Expression filter) {
+        Set<String> known = partitions.collections(table);
+        if (filter == null) {
+            return known.stream().sorted().toList();
+        }
+        Set<String> requested = new TreeSet<>();
+        collectCollections(filter, requested);
+        if (!known.containsAll(requested)) {
+            // possibly created by another replica since the cache was loaded
+            known = partitions.refresh(table);
+        }
+        requested.retainAll(known);
+        return new ArrayList<>(requested);
+    }
+
+    private static void collectCollections(Filter.Expression filter, Set<String> out) {
+        switch (filter.type()) {
+            case OR -> {
+                collectCollections((Filter.Expression) filter.left(), out);
+                collectCollections((Filter.Expression) filter.right(), out);
+            }
+            case EQ, IN -> {
+                if (!(filter.left() instanceof Filter.Key key) || !COLLECTION.equals(key.key())
+                        || !(filter.right() instanceof Filter.Value value)) {
+                    throw unsupported(filter);
+                }
+                if (value.value() instanceof Collection<?> values) {
+                    values.forEach(v -> out.add(CollectionName.normalize(String.valueOf(v))));
+                } else {
+                    out.add(CollectionName.normalize(String.valueOf(value.value())));
+                }
+            }
+            default -> throw unsupported(filter);
+        }
+    }
+
+    private static IllegalArgumentException unsupported(Filter.Expression filter) {
+        return new IllegalArgumentException("Only filters on '" + COLLECTION + "' are supported, got " + filter);
+    }
+
+    private List<Document> searchPartition(String table, String collection, String vector, double maxDistance, int topK) {
+        RowMapper<Document> row = (rs, i) -> {
+            Map<String, Object> metadata = new HashMap<>(parse(rs.getString("metadata")));
+            metadata.put(COLLECTION, collection);
+            metadata.put(DISTANCE, rs.getDouble("distance"));
+            return new Document(rs.getString("id"), rs.getString("content"), metadata);
+        };
+        String sql = "SELECT id, content, metadata, embedding <=> ?::vector AS distance " +
+                "FROM " + VectorPartitions.partitionName(table, collection) + " " +
+                "WHERE embedding <=> ?::vector < ? ORDER BY distance LIMIT ?";
+        return jdbc.query(con -> {
+            PreparedStatement ps = con.prepareStatement(sql);
+            ps.setQueryTimeout(queryTimeoutSeconds);
+            ps.setString(1, vector);
+            ps.setString(2, vector);
+            ps.setDouble(3, maxDistance);
+            ps.setInt(4, topK);
+            return ps;
+        }, row);
+    }
+
+    private String json(Map<String, Object> metadata) {
+        try {
+            return mapper.writeValueAsString(metadata);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private Map<String, Object> parse(String json) {
+        if (json == null) {
+            return Map.of();
+        }
+        try {
+            return mapper.readValue(json, METADATA);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Formats an embedding as a pgvector literal, e.g. {@code [0.1,0.2]}.
+     */
+    public static String toVectorLiteral(List<Double> vector) {
+        return vector.stream().map(String::valueOf).collect(Collectors.joining(",", "[", "]"));
+    }
+}
@@ -0,0 +1,167 @@
+package com.docsearch.vector;
+
+import com.docsearch.config.CollectionProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Creates and lists the per-collection partitions of a vector table.
+ * <p>
+ * Vector tables are partitioned by {@code LIST (collection)}, with one partition named
+ * {@code <table>_c_<collection>} per collection (see {@code V7__collections.sql}). An HNSW index
+ * defined on the parent table is created on each new partition by Postgres itself. Known
+ * partitions are cached per table; the cache is re-read after
+ * {@code docsearch.collections.partition-cache-ttl}, so partitions created by other replicas
+ * are picked up.
+ */
+@Slf4j
+@Component
+public class VectorPartitions {
+
+    private static final Pattern IDENTIFIER = Pattern.compile("[a-z_][a-z0-9_]*");
+
+    private record Known(Set<String> collections, long loadedAt) {
+    }
+
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate newTx;
+    private final CollectionProperties props;
+    private final Map<String, Known> cache = new ConcurrentHashMap<>();
+
+    public VectorPartitions(JdbcTemplate jdbc, PlatformTransactionManager txManager, CollectionProperties props) {
+        this.jdbc = jdbc;
+        this.newTx = new TransactionTemplate(txManager);
+        this.newTx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.props = props;
+    }
+
+    /**
+     * Name of the partition of {@code table} holding {@code collection}.
+     */
+    public static String partitionName(String table, String collection) {
+        return table + "_c_" + collection;
+    }
+
+    /**
+     * Creates an empty vector table partitioned by collection, with the layout of {@code vector_store}.
+     */
+    public void createTable(String table, int dimensions) {
+        requireIdentifier(table);
+        jdbc.execute("CREATE TABLE " + table + " (" +
+                "id uuid NOT NULL, collection varchar(" + CollectionName.MAX_LENGTH + ") NOT NULL, " +
+                "content text, metadata json, embedding vector(" + dimensions + "), " +
+                "PRIMARY KEY (id, collection)) PARTITION BY LIST (collection)");
+        cache.remove(table);
+    }
+
+    /**
+     * Collections that have a partition in {@code table}, from the cache while it is fresh.
+     */
+    public Set<String> collections(String table) {
+        Known known = cache.get(table);
+        if (known == null || System.nanoTime() - known.loadedAt() > props.getPartitionCacheTtl().toNanos()) {
+            return refresh(table);
+        }
+        return known.collections();
+    }
+
+    /**
+     * Reads the partitions of {@code table} from the catalog and caches them.
+     */
+    public Set<String> refresh(String table) {
+        Set<String> collections = Set.copyOf(list(table).keySet());
+        cache.put(table, new Known(collections, System.nanoTime()));
+        return collections;
+    }
+
+    /**
+     * Creates the partition of {@code table} for {@code collection} unless it exists.
+     * <p>
+     * Runs in its own transaction, so the partition is visible to other nodes as soon as this returns.
+     * Losing a race with another node creating the same partition is not an error.
+     */
+    public void ensure(String table, String collection) {
+        Known known = cache.get(table);
+        if (known != null && known.collections().contains(collection)) {
+            return;
+        }
+        requireIdentifier(table);
+        String name = CollectionName.normalize(collection);
+        String partition = partitionName(table, name);
+        try {
+            newTx.executeWithoutResult(status -> jdbc.execute("CREATE TABLE IF NOT EXISTS " + partition +
+                    " PARTITION OF " + table + " FOR VALUES IN ('" + name + "')"));
+            log.info("Created partition {} for collection {}", partition, name);
+        } catch (DataAccessException e) {
+            if (!refresh(table).contains(name)) {
+                throw e;
+            }
+            return;
+        }
+        refresh(table);
+    }
+
+    /**
+     * Creates the partition of {@code table} for {@code collection} unless it exists, in the caller's transaction.
+     * <p>
+     * For callers holding locks on {@code table}, which {@link #ensure} would wait for from its own transaction.
+     * The partition becomes visible to other nodes when the caller commits.
+     */
+    public void ensureInTransaction(String table, String collection) {
+        requireIdentifier(table);
+        String name = CollectionName.normalize(collection);
+        jdbc.execute("CREATE TABLE IF NOT EXISTS " + partitionName(table, name) +
+                " PARTITION OF " + table + " FOR VALUES IN ('" + name + "')");
+        cache.remove(table);
+    }
+
+    /**
+     * Reads the partitions of {@code table} from the catalog.
+     *
+     * @return partition table name by collection; empty if the table does not exist
+     */
+    public Map<String, String> list(String table) {
+        String prefix = partitionName(table, "");
+        Map<String, String> partitions = new LinkedHashMap<>();
+        for (String relation : jdbc.queryForList("SELECT c.relname FROM pg_inherits i " +
+                "JOIN pg_class c ON c.oid = i.inhrelid WHERE i.inhparent = to_regclass(?) ORDER BY c.relname",
+                String.class, table)) {
+            if (relation.startsWith(prefix)) {
+                partitions.put(relation.substring(prefix.length()), relation);
+            }
+        }
+        return partitions;
+    }
+
+    /**
+     * Renames the partitions of {@code from} to the names they would have in {@code to}.
+     * <p>
+     * Used when tables are swapped, so partition names keep following their parent table.
+     * Runs in the caller's transaction.
+     */
+    public void renamePartitions(String from, String to) {
+        requireIdentifier(to);
+        for (Map.Entry<String, String> partition : list(from).entrySet()) {
+            jdbc.execute("ALTER TABLE " + partition.getValue() + " RENAME TO " + partitionName(to, partition.getKey()));
+        }
+        cache.remove(from);
+        cache.remove(to);
+    }
+
+    private static void requireIdentifier(String name) {
+        if (name == null || !IDENTIFIER.matcher(name).matches()) {
+            throw new IllegalArgumentException("Invalid table name: " + name);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package db.migration;
+
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4SafeDecompressor;
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Indexes the words of each text in {@code document_text_terms} for the keyword search. It used to
+ * scan the chunk text in {@code vector_store}, which missed documents whose chunks were not embedded yet.
+ * <p>
+ * One row holds the stripped {@code tsvector} (lexemes only, no positions) of a segment of
+ * {@value #SEGMENT_CHARS} characters, overlapping the next by {@value #SEGMENT_OVERLAP}, so no row
+ * nears the 1 MB limit of a {@code tsvector} however long the text is.
+ * <p>
+ * The texts are compressed, so existing rows are indexed here, in Java. The decoding below is a frozen
+ * copy of the LZ4 frame format as {@code FramedTextCodec} wrote it when this migration was added; it
+ * must not call application code, whose later changes would alter what this migration does.
+ */
+public class V8__Keyword_search_terms extends BaseJavaMigration {
+
+    private static final int BATCH = 100;
+    private static final int SEGMENT_CHARS = 65536;
+    private static final int SEGMENT_OVERLAP = 256;
+
+    private static final LZ4SafeDecompressor LZ4 = LZ4Factory.fastestInstance().safeDecompressor();
+
+    @Override
+    public void migrate(Context context) {
+        JdbcTemplate jdbc = new JdbcTemplate(new SingleConnectionDataSource(context.getConnection(), true));
+
+        jdbc.execute("CREATE TABLE IF NOT EXISTS document_text_terms (" +
+                "doc_id BIGINT NOT NULL, " +
+                "segment INT NOT NULL, " +
+                "terms TSVECTOR NOT NULL, " +
+                "PRIMARY KEY (doc_id, segment))");
+
+        long after = -1;
+        List<Map<String, Object>> rows;
+        do {
+            rows = jdbc.queryForList("SELECT doc_id, codec, frame_index, data FROM document_texts " +
+                    "WHERE doc_id > ? ORDER BY doc_id LIMIT ?", after, BATCH);
+            for (Map<String, Object> row : rows) {
+                after = ((Number) row.get("doc_id")).longValue();
+                if (!"lz4".equals(row.get("codec"))) {
+                    throw new IllegalStateException("Unsupported text codec " + row.get("codec") + " for document " + after);
+                }
+                String text = decode((byte[]) row.get("frame_index"), (byte[]) row.get("data"));
+                int segment = 0;
+                for (int start = 0; start < text.length(); start += SEGMENT_CHARS) {
+                    int end = Math.min(text.length(), start + SEGMENT_CHARS + SEGMENT_OVERLAP);
+                    jdbc.update("INSERT INTO document_text_terms (doc_id, segment, terms) " +
+                                    "VALUES (?, ?, strip(to_tsvector('simple', ?))) ON CONFLICT DO NOTHING",
+                            after, segment++, text.substring(start, end));
+                }
+            }
+        } while (rows.size() == BATCH);
+
+        jdbc.execute("CREATE INDEX IF NOT EXISTS document_text_terms_idx ON document_text_terms USING gin (terms)");
+    }
+
+    /**
+     * Decodes a whole text: the frame index is the frame count {@code n}, then {@code n + 1} character
+     * starts, {@code n + 1} byte offsets and {@code n} uncompressed lengths, as big-endian ints.
+     */
+    private static String decode(byte[] frameIndex, byte[] data) {
+        if (frameIndex == null || data == null) {
+            return "";
+        }
+        ByteBuffer index = ByteBuffer.wrap(frameIndex);
+        int n = index.getInt();
+        int[] byteOffsets = new int[n + 1];
+        int[] rawLengths = new int[n];
+        index.position(Integer.BYTES * (n + 2));
+        for (int i = 0; i <= n; i++) byteOffsets[i] = index.getInt();
+        for (int i = 0; i < n; i++) rawLengths[i] = index.getInt();
+
+        StringBuilder text = new StringBuilder();
+        for (int f = 0; f < n; f++) {
+            byte[] raw = new byte[rawLengths[f]];
+            int length = LZ4.decompress(data, byteOffsets[f], byteOffsets[f + 1] - byteOffsets[f], raw, 0, raw.length);
+            text.append(new String(raw, 0, length, StandardCharsets.UTF_8));
+        }
+        return text.toString();
+    }
+}
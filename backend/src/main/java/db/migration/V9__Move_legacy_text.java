@@ -0,0 +1,113 @@
+package db.migration;
+
+import lombok.extern.slf4j.Slf4j;
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Factory;
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Moves text left in the old {@code documents.content_text} column into {@code document_texts},
+ * compressed as {@code DocumentTextStore} stores it, indexes its words in {@code document_text_terms}
+ * and drops the column.
+ * <p>
+ * Texts are compressed with the configured {@code text_frame_chars}, so this is a Java migration.
+ * The encoding below is a frozen copy of the LZ4 frame format of {@code FramedTextCodec} when this
+ * migration was added, so later changes to application code cannot alter what it writes.
+ * A document that already has a stored text keeps it.
+ */
+@Slf4j
+public class V9__Move_legacy_text extends BaseJavaMigration {
+
+    private static final int BATCH = 100;
+    private static final int SEGMENT_CHARS = 65536;
+    private static final int SEGMENT_OVERLAP = 256;
+
+    private static final LZ4Compressor LZ4 = LZ4Factory.fastestInstance().fastCompressor();
+
+    @Override
+    public void migrate(Context context) {
+        int frameChars = Integer.parseInt(context.getConfiguration().getPlaceholders()
+                .getOrDefault("text_frame_chars", "8192"));
+        JdbcTemplate jdbc = new JdbcTemplate(new SingleConnectionDataSource(context.getConnection(), true));
+
+        long after = -1;
+        int moved = 0;
+        List<Map<String, Object>> rows;
+        do {
+            rows = jdbc.queryForList("SELECT id, content_text FROM documents " +
+                    "WHERE id > ? AND content_text IS NOT NULL ORDER BY id LIMIT ?", after, BATCH);
+            for (Map<String, Object> row : rows) {
+                after = ((Number) row.get("id")).longValue();
+                String text = (String) row.get("content_text");
+                if (insert(jdbc, after, text, frameChars) == 0) {
+                    continue;
+                }
+                int segment = 0;
+                for (int start = 0; start < text.length(); start += SEGMENT_CHARS) {
+                    int end = Math.min(text.length(), start + SEGMENT_CHARS + SEGMENT_OVERLAP);
+                    jdbc.update("INSERT INTO document_text_terms (doc_id, segment, terms) " +
+                                    "VALUES (?, ?, strip(to_tsvector('simple', ?))) ON CONFLICT DO NOTHING",
+                            after, segment++, text.substring(start, end));
+                }
+                moved++;
+            }
+        } while (rows.size() == BATCH);
+
+        jdbc.execute("ALTER TABLE documents DROP COLUMN IF EXISTS content_text");
+        if (moved > 0) {
+            log.info("Moved the text of {} documents into the compressed text store", moved);
+        }
+    }
+
+    /**
+     * Compresses the text in independent LZ4 frames of {@code frameChars} characters, never splitting a
+     * surrogate pair, and inserts it with its frame index: the frame count {@code n}, then {@code n + 1}
+     * character starts, {@code n + 1} byte offsets and {@code n} uncompressed lengths, as big-endian ints.
+     *
+     * @return the number of rows inserted, {@code 0} if the document already had a stored text
+     */
+    private static int insert(JdbcTemplate jdbc, long docId, String text, int frameChars) {
+        List<Integer> charStarts = new ArrayList<>();
+        List<Integer> byteOffsets = new ArrayList<>(List.of(0));
+        List<Integer> rawLengths = new ArrayList<>();
+        ByteArrayOutputStream data = new ByteArrayOutputStream();
+        for (int start = 0; start < text.length(); ) {
+            int end = Math.min(text.length(), start + frameChars);
+            if (end < text.length() && Character.isHighSurrogate(text.charAt(end - 1))) {
+                end--;
+            }
+            byte[] utf8 = text.substring(start, end).getBytes(StandardCharsets.UTF_8);
+            byte[] frame = LZ4.compress(utf8);
+            charStarts.add(start);
+            rawLengths.add(utf8.length);
+            data.writeBytes(frame);
+            byteOffsets.add(data.size());
+            start = end;
+        }
+        charStarts.add(text.length());
+
+        int n = rawLengths.size();
+        ByteBuffer index = ByteBuffer.allocate(Integer.BYTES * (3 * n + 3));
+        index.putInt(n);
+        charStarts.forEach(index::putInt);
+        byteOffsets.forEach(index::putInt);
+        rawLengths.forEach(index::putInt);
+        long rawBytes = rawLengths.stream().mapToLong(Integer::longValue).sum();
+
+        return jdbc.update("INSERT INTO document_texts (doc_id, codec, frame_chars, char_length, raw_bytes, " +
+                        "head_bytes, frame_index, data) VALUES (?, 'lz4', ?, ?, ?, ?, ?, ?) " +
+                        "ON CONFLICT (doc_id) DO NOTHING",
+                docId, frameChars, text.length(), rawBytes, n == 0 ? 0 : byteOffsets.get(1), index.array(),
+                data.toByteArray());
+    }
+}
@@ -0,0 +1,17 @@
+-- Vector table read and written by Spring AI's PgVectorStore. The schema is owned by Flyway,
+-- so spring.ai.vectorstore.pgvector.initialize-schema is off.
+CREATE EXTENSION IF NOT EXISTS vector;
+CREATE EXTENSION IF NOT EXISTS hstore;
+CREATE EXTENSION IF NOT EXISTS "uuid-ossp";
+
+CREATE TABLE IF NOT EXISTS vector_store (
+    id UUID DEFAULT uuid_generate_v4() PRIMARY KEY,
+    content TEXT,
+    metadata JSON,
+    embedding vector(${vector_dimensions})
+);
+
+CREATE INDEX IF NOT EXISTS spring_ai_vector_index ON vector_store USING hnsw (embedding vector_cosine_ops);
+
+-- Chunks are kept in vector_store; document_chunks from V1 was never written.
+DROP TABLE IF EXISTS document_chunks;
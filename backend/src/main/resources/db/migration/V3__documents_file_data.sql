@@ -0,0 +1,2 @@
+-- Original file bytes, stored as a large object (@Lob byte[]).
+ALTER TABLE documents ADD COLUMN IF NOT EXISTS file_data OID;
@@ -0,0 +1,15 @@
+-- Background re-embedding jobs; last_doc_id is the keyset cursor of a resumable job.
+CREATE TABLE IF NOT EXISTS reindex_jobs (
+    id BIGSERIAL PRIMARY KEY,
+    model VARCHAR(255),
+    dimensions INT NOT NULL,
+    status VARCHAR(255),
+    last_doc_id BIGINT,
+    total_docs BIGINT NOT NULL,
+    docs_processed BIGINT NOT NULL,
+    chunks_embedded BIGINT NOT NULL,
+    active_millis BIGINT NOT NULL,
+    created_at TIMESTAMPTZ,
+    updated_at TIMESTAMPTZ,
+    error TEXT
+);
@@ -0,0 +1,15 @@
+-- Extracted document text, LZ4-compressed in independent frames (see FramedTextCodec).
+CREATE TABLE IF NOT EXISTS document_texts (
+    doc_id BIGINT PRIMARY KEY,
+    codec VARCHAR(255),
+    frame_chars INT NOT NULL,
+    char_length INT NOT NULL,
+    raw_bytes BIGINT NOT NULL,
+    head_bytes INT NOT NULL,
+    frame_index BYTEA,
+    data BYTEA
+);
+
+-- The frames are already compressed: store them out of line without TOAST compression,
+-- so that substring() reads only the chunks covering the requested frames.
+ALTER TABLE document_texts ALTER COLUMN data SET STORAGE EXTERNAL;
@@ -0,0 +1,19 @@
+-- Embedding work shared by all replicas, claimed with FOR UPDATE SKIP LOCKED (see IngestionQueue).
+CREATE TABLE IF NOT EXISTS ingestion_tasks (
+    id BIGSERIAL PRIMARY KEY,
+    doc_id BIGINT NOT NULL,
+    first_chunk INT NOT NULL,
+    chunk_count INT NOT NULL,
+    char_from INT NOT NULL,
+    char_to INT NOT NULL,
+    status VARCHAR(16) NOT NULL DEFAULT 'PENDING',
+    attempts INT NOT NULL DEFAULT 0,
+    lease_owner VARCHAR(128),
+    lease_until TIMESTAMPTZ,
+    available_at TIMESTAMPTZ NOT NULL DEFAULT now(),
+    last_error TEXT,
+    created_at TIMESTAMPTZ NOT NULL DEFAULT now()
+);
+
+CREATE INDEX IF NOT EXISTS ingestion_tasks_claim_idx ON ingestion_tasks (status, available_at);
+CREATE INDEX IF NOT EXISTS ingestion_tasks_doc_idx ON ingestion_tasks (doc_id);
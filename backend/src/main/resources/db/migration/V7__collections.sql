@@ -0,0 +1,37 @@
+-- Named collections. Documents carry the collection they were uploaded into, and chunk vectors are
+-- list-partitioned by it: one partition, with its own HNSW index, per collection. A search within
+-- a collection only walks that collection's index. Partitions are named <table>_c_<collection> and
+-- are created by VectorPartitions when the first chunk of a new collection is written.
+ALTER TABLE documents ADD COLUMN IF NOT EXISTS collection VARCHAR(32) NOT NULL DEFAULT 'default';
+CREATE INDEX IF NOT EXISTS documents_collection_idx ON documents (collection, id);
+
+ALTER TABLE ingestion_tasks ADD COLUMN IF NOT EXISTS collection VARCHAR(32) NOT NULL DEFAULT 'default';
+
+-- A shadow table of a re-index job in progress is not partitioned and cannot be cut over.
+DROP TABLE IF EXISTS vector_store_shadow;
+UPDATE reindex_jobs SET status = 'CANCELLED', error = 'Cancelled by migration V7 (collections)', updated_at = now()
+WHERE status IN ('RUNNING', 'PAUSED', 'READY', 'FAILED');
+
+ALTER TABLE vector_store RENAME TO vector_store_unpartitioned;
+ALTER INDEX IF EXISTS spring_ai_vector_index RENAME TO vector_store_unpartitioned_idx;
+ALTER INDEX IF EXISTS vector_store_pkey RENAME TO vector_store_unpartitioned_pkey;
+
+-- the primary key of a partitioned table must include the partition key
+CREATE TABLE vector_store (
+    id UUID NOT NULL,
+    collection VARCHAR(32) NOT NULL,
+    content TEXT,
+    metadata JSON,
+    embedding vector(${vector_dimensions}),
+    PRIMARY KEY (id, collection)
+) PARTITION BY LIST (collection);
+
+CREATE TABLE vector_store_c_default PARTITION OF vector_store FOR VALUES IN ('default');
+
+INSERT INTO vector_store (id, collection, content, metadata, embedding)
+SELECT id, 'default', content, metadata, embedding FROM vector_store_unpartitioned;
+
+DROP TABLE vector_store_unpartitioned;
+
+-- created after the copy so each partition's index is built once; new partitions inherit it
+CREATE INDEX spring_ai_vector_index ON vector_store USING hnsw (embedding vector_cosine_ops);
@@ -0,0 +1,203 @@
+package admission;
+
+import com.docsearch.admission.AdmissionFilter;
+import com.docsearch.admission.AdmissionRejectedException;
+import com.docsearch.admission.AdmissionScheduler;
+import com.docsearch.admission.WorkloadClass;
+import com.docsearch.config.AdmissionProperties;
+import com.docsearch.metrics.PipelineMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for {@link AdmissionScheduler} and {@link AdmissionFilter}.
+ * <p>
+ * Verifies per-class budgets, the capacity reserved for search, priority when capacity
+ * frees up, early rejection on a full queue or a predicted wait, and the 429/503 responses
+ * with {@code Retry-After}.
+ */
+class AdmissionSchedulerTest {
+
+    private AdmissionProperties props;
+    private SimpleMeterRegistry registry;
+    private AdmissionScheduler scheduler;
+
+    /**
+     * Sets up a small configuration: 4 slots in total, 2 reserved for search,
+     * and per-class limits of 1 running and 1 queued for ingestion and correction.
+     */
+    @BeforeEach
+    void setUp() {
+        props = new AdmissionProperties();
+        props.setTotalConcurrent(4);
+        props.setReservedForSearch(2);
+        props.setSearch(new AdmissionProperties.Budget(4, 4, Duration.ofMillis(200)));
+        props.setIngest(new AdmissionProperties.Budget(1, 1, Duration.ofSeconds(2)));
+        props.setCorrect(new AdmissionProperties.Budget(1, 1, Duration.ofSeconds(2)));
+        registry = new SimpleMeterRegistry();
+        scheduler = new AdmissionScheduler(props, new PipelineMetrics(registry));
+    }
+
+    /**
+     * Tests that search still runs while ingestion and correction use all capacity open to them.
+     */
+    @Test
+    void admit_IngestAndCorrectBusy_SearchUsesReservedCapacity() {
+        scheduler.admit(WorkloadClass.INGEST);
+        scheduler.admit(WorkloadClass.CORRECT);
+
+        scheduler.admit(WorkloadClass.SEARCH);
+        scheduler.admit(WorkloadClass.SEARCH);
+
+        assertThat(scheduler.running(WorkloadClass.SEARCH)).isEqualTo(2);
+    }
+
+    /**
+     * Tests that a full queue is rejected immediately with reason {@code QUEUE_FULL}.
+     */
+    @Test
+    void admit_QueueFull_RejectsImmediately() {
+        scheduler.admit(WorkloadClass.INGEST);
+        CompletableFuture<AdmissionScheduler.Permit> queued =
+                CompletableFuture.supplyAsync(() -> scheduler.admit(WorkloadClass.INGEST));
+        awaitQueued(WorkloadClass.INGEST, 1);
+
+        assertThatThrownBy(() -> scheduler.admit(WorkloadClass.INGEST))
+                .isInstanceOf(AdmissionRejectedException.class)
+                .extracting(e -> ((AdmissionRejectedException) e).getReason())
+                .isEqualTo(AdmissionRejectedException.Reason.QUEUE_FULL);
+        assertThat(registry.get(PipelineMetrics.ADMISSION_REJECTIONS)
+                .tag("class", "ingest").tag("reason", "queue_full").counter().count()).isEqualTo(1.0);
+        queued.cancel(true);
+    }
+
+    /**
+     * Tests that a queued request is admitted as soon as the running one completes.
+     */
+    @Test
+    void admit_Queued_AdmittedWhenPermitReleased() throws Exception {
+        AdmissionScheduler.Permit first = scheduler.admit(WorkloadClass.INGEST);
+        CompletableFuture<AdmissionScheduler.Permit> second =
+                CompletableFuture.supplyAsync(() -> scheduler.admit(WorkloadClass.INGEST));
+        awaitQueued(WorkloadClass.INGEST, 1);
+
+        first.close();
+
+        assertThat(second.get(1, TimeUnit.SECONDS).getWorkloadClass()).isEqualTo(WorkloadClass.INGEST);
+        assertThat(scheduler.running(WorkloadClass.INGEST)).isEqualTo(1);
+        assertThat(scheduler.queued(WorkloadClass.INGEST)).isZero();
+    }
+
+    /**
+     * Tests that freed capacity goes to a waiting search before an ingestion request that queued earlier.
+     */
+    @Test
+    void release_SearchAndIngestWaiting_AdmitsSearchFirst() throws Exception {
+        props.setReservedForSearch(0);
+        props.setIngest(new AdmissionProperties.Budget(2, 1, Duration.ofSeconds(2)));
+        scheduler = new AdmissionScheduler(props, new PipelineMetrics(registry));
+        AdmissionScheduler.Permit ingest = scheduler.admit(WorkloadClass.INGEST);
+        scheduler.admit(WorkloadClass.CORRECT);
+        scheduler.admit(WorkloadClass.SEARCH);
+        scheduler.admit(WorkloadClass.SEARCH);
+        CompletableFuture<AdmissionScheduler.Permit> queuedIngest =
+                CompletableFuture.supplyAsync(() -> scheduler.admit(WorkloadClass.INGEST));
+        awaitQueued(WorkloadClass.INGEST, 1);
+        CompletableFuture<AdmissionScheduler.Permit> queuedSearch =
+                CompletableFuture.supplyAsync(() -> scheduler.admit(WorkloadClass.SEARCH));
+        awaitQueued(WorkloadClass.SEARCH, 1);
+
+        ingest.close();
+
+        assertThat(queuedSearch.get(1, TimeUnit.SECONDS).getWorkloadClass()).isEqualTo(WorkloadClass.SEARCH);
+        assertThat(scheduler.running(WorkloadClass.SEARCH)).isEqualTo(3);
+        assertThat(scheduler.queued(WorkloadClass.INGEST)).isEqualTo(1);
+        assertThat(queuedIngest).isNotDone();
+        queuedIngest.cancel(true);
+    }
+
+    /**
+     * Tests that a request is rejected up front with reason {@code PREDICTED_WAIT} when the recent
+     * service time of its class already exceeds the maximum wait.
+     */
+    @Test
+    void admit_ServiceTimeAboveMaxWait_RejectsWithoutWaiting() throws Exception {
+        AdmissionScheduler.Permit slow = scheduler.admit(WorkloadClass.SEARCH);
+        for (int i = 0; i < 3; i++) {
+            scheduler.admit(WorkloadClass.SEARCH);
+        }
+        Thread.sleep(250);
+        slow.close();
+        scheduler.admit(WorkloadClass.SEARCH);
+
+        long start = System.nanoTime();
+        assertThatThrownBy(() -> scheduler.admit(WorkloadClass.SEARCH))
+                .isInstanceOf(AdmissionRejectedException.class)
+                .satisfies(e -> {
+                    AdmissionRejectedException rejected = (AdmissionRejectedException) e;
+                    assertThat(rejected.getReason()).isEqualTo(AdmissionRejectedException.Reason.PREDICTED_WAIT);
+                    assertThat(rejected.getRetryAfter()).isGreaterThan(Duration.ofMillis(200));
+                });
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofMillis(200));
+        assertThat(scheduler.queued(WorkloadClass.SEARCH)).isZero();
+        assertThat(registry.get(PipelineMetrics.ADMISSION_REJECTIONS)
+                .tag("class", "search").tag("reason", "predicted_wait").counter().count()).isEqualTo(1.0);
+    }
+
+    /**
+     * Tests that a request which is not admitted within its maximum wait is rejected.
+     */
+    @Test
+    void admit_NoCapacityWithinMaxWait_RejectsWithTimeout() {
+        for (int i = 0; i < 4; i++) {
+            scheduler.admit(WorkloadClass.SEARCH);
+        }
+
+        assertThatThrownBy(() -> scheduler.admit(WorkloadClass.SEARCH))
+                .isInstanceOf(AdmissionRejectedException.class)
+                .extracting(e -> ((AdmissionRejectedException) e).getReason())
+                .isEqualTo(AdmissionRejectedException.Reason.WAIT_TIMEOUT);
+        assertThat(scheduler.queued(WorkloadClass.SEARCH)).isZero();
+    }
+
+    /**
+     * Tests that the filter answers a rejected upload with 429 and {@code Retry-After},
+     * and lets unclassified requests through.
+     */
+    @Test
+    void filter_QueueFull_Returns429WithRetryAfter() throws Exception {
+        props.setIngest(new AdmissionProperties.Budget(1, 0, Duration.ofSeconds(2)));
+        scheduler = new AdmissionScheduler(props, new PipelineMetrics(new SimpleMeterRegistry()));
+        AdmissionFilter filter = new AdmissionFilter(scheduler);
+        scheduler.admit(WorkloadClass.INGEST);
+
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("POST", "/documents"), rejected, new MockFilterChain());
+
+        MockHttpServletResponse passed = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/documents"), passed, new MockFilterChain());
+
+        assertThat(rejected.getStatus()).isEqualTo(429);
+        assertThat(rejected.getHeader("Retry-After")).isEqualTo("1");
+        assertThat(passed.getStatus()).isEqualTo(200);
+    }
+
+    private void awaitQueued(WorkloadClass workloadClass, int expected) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        while (scheduler.queued(workloadClass) < expected && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+        assertThat(scheduler.queued(workloadClass)).isEqualTo(expected);
+    }
+}
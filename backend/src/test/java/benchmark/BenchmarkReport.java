@@ -0,0 +1,137 @@
+package benchmark;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.*;
+
+/**
+ * Collects benchmark measurements and writes them as JSON, Markdown and a CSV history line.
+ * <p>
+ * Files go to {@code benchmark.output} (default {@code target/benchmark}):
+ * {@code report-<version>.json}, {@code report-<version>.md}, and {@code history.csv},
+ * which gains one line per metric per run so results can be compared across versions.
+ */
+@Slf4j
+public class BenchmarkReport {
+
+    /**
+     * One measured value for one scale.
+     */
+    public record Result(String scenario, long scale, String metric, double value, String unit) {
+    }
+
+    private final String version;
+    private final Instant startedAt = Instant.now();
+    private final Map<String, String> environment = new LinkedHashMap<>();
+    private final List<Result> results = new ArrayList<>();
+
+    public BenchmarkReport(String version) {
+        this.version = version;
+        environment.put("java", System.getProperty("java.version"));
+        environment.put("os", System.getProperty("os.name") + " " + System.getProperty("os.arch"));
+        environment.put("cpus", String.valueOf(Runtime.getRuntime().availableProcessors()));
+        environment.put("maxHeapMb", String.valueOf(Runtime.getRuntime().maxMemory() / (1024 * 1024)));
+        environment.put("jvmArgs", String.join(" ", ManagementFactory.getRuntimeMXBean().getInputArguments()));
+    }
+
+    public void environment(String key, Object value) {
+        environment.put(key, String.valueOf(value));
+    }
+
+    public void add(String scenario, long scale, String metric, double value, String unit) {
+        results.add(new Result(scenario, scale, metric, value, unit));
+        log.info("[benchmark] {}", String.format(Locale.ROOT, "%-12s %,10d %-22s %,14.2f %s",
+                scenario, scale, metric, value, unit));
+    }
+
+    public List<Result> results() {
+        return Collections.unmodifiableList(results);
+    }
+
+    /**
+     * Returns the given percentile of the latencies in nanoseconds, in milliseconds.
+     */
+    public static double percentileMillis(long[] nanos, double percentile) {
+        if (nanos.length == 0) return 0;
+        long[] sorted = nanos.clone();
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))] / 1_000_000.0;
+    }
+
+    /**
+     * Heap in use after a best-effort garbage collection, in megabytes.
+     */
+    public static double usedHeapMb() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        Runtime rt = Runtime.getRuntime();
+        return (rt.totalMemory() - rt.freeMemory()) / (1024.0 * 1024.0);
+    }
+
+    public void write(Path dir) throws IOException {
+        Files.createDirectories(dir);
+        Files.writeString(dir.resolve("report-" + version + ".json"), json(), StandardCharsets.UTF_8);
+        Files.writeString(dir.resolve("report-" + version + ".md"), markdown(), StandardCharsets.UTF_8);
+
+        Path history = dir.resolve("history.csv");
+        StringBuilder csv = new StringBuilder();
+        if (!Files.exists(history)) {
+            csv.append("started_at,version,scenario,scale,metric,value,unit\n");
+        }
+        for (Result r : results) {
+            csv.append(String.format(Locale.ROOT, "%s,%s,%s,%d,%s,%.4f,%s%n",
+                    startedAt, version, r.scenario(), r.scale(), r.metric(), r.value(), r.unit()));
+        }
+        Files.writeString(history, csv, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    private String json() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\n  \"version\": \"").append(escape(version)).append("\",\n");
+        sb.append("  \"startedAt\": \"").append(startedAt).append("\",\n");
+        sb.append("  \"environment\": {");
+        int i = 0;
+        for (Map.Entry<String, String> e : environment.entrySet()) {
+            sb.append(i++ == 0 ? "\n" : ",\n");
+            sb.append("    \"").append(escape(e.getKey())).append("\": \"").append(escape(e.getValue())).append('"');
+        }
+        sb.append("\n  },\n  \"results\": [");
+        for (int r = 0; r < results.size(); r++) {
+            Result res = results.get(r);
+            sb.append(r == 0 ? "\n" : ",\n");
+            sb.append(String.format(Locale.ROOT,
+                    "    {\"scenario\": \"%s\", \"scale\": %d, \"metric\": \"%s\", \"value\": %.4f, \"unit\": \"%s\"}",
+                    escape(res.scenario()), res.scale(), escape(res.metric()), res.value(), escape(res.unit())));
+        }
+        sb.append("\n  ]\n}\n");
+        return sb.toString();
+    }
+
+    private String markdown() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("# Benchmark report ").append(version).append("\n\n");
+        sb.append("Started ").append(startedAt).append("\n\n");
+        for (Map.Entry<String, String> e : environment.entrySet()) {
+            sb.append("- ").append(e.getKey()).append(": ").append(e.getValue()).append('\n');
+        }
+        sb.append("\n| Scenario | Scale | Metric | Value | Unit |\n|---|---:|---|---:|---|\n");
+        for (Result r : results) {
+            sb.append(String.format(Locale.ROOT, "| %s | %,d | %s | %,.2f | %s |%n",
+                    r.scenario(), r.scale(), r.metric(), r.value(), r.unit()));
+        }
+        return sb.toString();
+    }
+
+    private static String escape(String s) {
+        return s.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+}
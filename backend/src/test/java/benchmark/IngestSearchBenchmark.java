@@ -0,0 +1,287 @@
+package benchmark;
+
+import com.docsearch.DocSearchApplication;
+import com.docsearch.ingest.IngestionQueue;
+import com.docsearch.metrics.PipelineMetrics;
+import com.docsearch.service.DocumentService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+import support.StubOllamaServer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * End-to-end ingest and search benchmark.
+ * <p>
+ * Boots the full application against a pgvector Testcontainer and a {@link StubOllamaServer}
+ * that returns deterministic 768-dimension bag-of-words embeddings with configurable latency,
+ * loads a synthetic corpus up to each requested chunk count, and measures:
+ * <ul>
+ *     <li>ingest throughput (documents and chunks per second, until the ingestion queue is drained),</li>
+ *     <li>search latency p50/p99 (single client) and throughput (concurrent clients), next to the
+ *     share of searches that fell back to the keyword search,</li>
+ *     <li>JVM heap after GC and on-disk size of the document, text, keyword terms and vector tables,
+ *     next to the uncompressed text size.</li>
+ * </ul>
+ * Runs only with {@code -Pbenchmark}. Tuning via system properties:
+ * {@code benchmark.scales} (chunk counts, default {@code 1000}; e.g. {@code 1000,100000,1000000}),
+ * {@code benchmark.queries}, {@code benchmark.ingest.threads}, {@code benchmark.ingest.workers},
+ * {@code benchmark.search.threads}, {@code benchmark.similarity.threshold}, {@code benchmark.coalescing},
+ * {@code benchmark.embed.latency.ms}, {@code benchmark.output}, {@code benchmark.version}.
+ * <p>
+ * A two to four word query shares only a few words with a chunk of a hundred, so its cosine
+ * similarity under the stub stays well below the production threshold of 0.5; the benchmark
+ * lowers it (default {@code 0.1}) so searches exercise the vector path. The fallback rate shows
+ * whether they did: latencies measured with a high rate are those of the keyword search.
+ * <p>
+ * {@code benchmark.coalescing=false} turns query embedding coalescing off; comparing
+ * {@code qps_*} and {@code embed_calls_per_query} of a run with and one without shows what it gains.
+ */
+@Tag("benchmark")
+@Testcontainers(disabledWithoutDocker = true)
+@SpringBootTest(classes = DocSearchApplication.class, webEnvironment = SpringBootTest.WebEnvironment.NONE)
+class IngestSearchBenchmark {
+
+    static final int DIMENSIONS = 768;
+    static final int CHUNKS_PER_DOCUMENT = 8;
+    /** Chunks start every 680 characters, so 4881 to 5560 characters give exactly 8 chunks. */
+    static final int DOCUMENT_CHARS = 5200;
+    static final double SIMILARITY_THRESHOLD =
+            Double.parseDouble(System.getProperty("benchmark.similarity.threshold", "0.1"));
+    static final boolean COALESCING = Boolean.parseBoolean(System.getProperty("benchmark.coalescing", "true"));
+
+    @Container
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>(
+            DockerImageName.parse("pgvector/pgvector:pg16").asCompatibleSubstituteFor("postgres"));
+
+    static final StubOllamaServer OLLAMA;
+
+    static {
+        try {
+            OLLAMA = new StubOllamaServer(DIMENSIONS);
+            OLLAMA.setLatency(Duration.ofMillis(Long.getLong("benchmark.embed.latency.ms", 0)));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static final BenchmarkReport REPORT = new BenchmarkReport(System.getProperty("benchmark.version", "dev"));
+
+    @DynamicPropertySource
+    static void properties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+        registry.add("spring.ai.ollama.base-url", OLLAMA::baseUrl);
+        registry.add("spring.ai.vectorstore.pgvector.dimensions", () -> DIMENSIONS);
+        registry.add("docsearch.resilience.embedding.timeout", () -> "60s");
+        registry.add("docsearch.resilience.embedding.max-concurrent-calls", () -> 64);
+        registry.add("docsearch.resilience.embedding.max-wait", () -> "60s");
+        registry.add("docsearch.ingestion.workers", () -> Integer.getInteger("benchmark.ingest.workers", 4));
+        registry.add("docsearch.ingestion.poll-interval", () -> "50ms");
+        registry.add("docsearch.search.similarity-threshold", () -> SIMILARITY_THRESHOLD);
+        registry.add("docsearch.embedding.coalescing.enabled", () -> COALESCING);
+    }
+
+    @Autowired
+    private DocumentService service;
+
+    @Autowired
+    private IngestionQueue ingestionQueue;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @AfterAll
+    static void writeReport() throws IOException {
+        OLLAMA.close();
+        REPORT.write(Path.of(System.getProperty("benchmark.output", "target/benchmark")));
+    }
+
+    @Test
+    void ingestAndSearchAtEachScale() throws Exception {
+        long[] scales = Arrays.stream(System.getProperty("benchmark.scales", "1000").split(","))
+                .map(String::trim).mapToLong(Long::parseLong).sorted().toArray();
+        int queries = Integer.getInteger("benchmark.queries", 200);
+        int ingestThreads = Integer.getInteger("benchmark.ingest.threads", 4);
+        int searchThreads = Integer.getInteger("benchmark.search.threads", 8);
+
+        REPORT.environment("embedLatencyMs", Long.getLong("benchmark.embed.latency.ms", 0));
+        REPORT.environment("dimensions", DIMENSIONS);
+        REPORT.environment("similarityThreshold", SIMILARITY_THRESHOLD);
+        REPORT.environment("coalescing", COALESCING);
+        REPORT.environment("chunksPerDocument", CHUNKS_PER_DOCUMENT);
+        REPORT.environment("ingestWorkers", Integer.getInteger("benchmark.ingest.workers", 4));
+
+        SyntheticCorpus corpus = new SyntheticCorpus(42, 50_000);
+        long loadedChunks = 0;
+        int docNumber = 0;
+
+        for (long scale : scales) {
+            int docs = (int) Math.max(0, Math.ceil((scale - loadedChunks) / (double) CHUNKS_PER_DOCUMENT));
+            long start = System.nanoTime();
+            ingest(corpus, docs, docNumber, ingestThreads);
+            awaitEmbedded();
+            double seconds = (System.nanoTime() - start) / 1e9;
+            docNumber += docs;
+            loadedChunks += (long) docs * CHUNKS_PER_DOCUMENT;
+
+            long storedChunks = jdbc.queryForObject("SELECT count(*) FROM vector_store", Long.class);
+            assertThat(storedChunks).isGreaterThanOrEqualTo(loadedChunks);
+
+            REPORT.add("ingest", scale, "docs_per_sec", docs / seconds, "docs/s");
+            REPORT.add("ingest", scale, "chunks_per_sec", (double) docs * CHUNKS_PER_DOCUMENT / seconds, "chunks/s");
+
+            List<String> queryTexts = new ArrayList<>(queries);
+            for (int i = 0; i < queries; i++) {
+                queryTexts.add(corpus.query());
+            }
+            for (int i = 0; i < Math.min(20, queries); i++) {
+                service.search(queryTexts.get(i));
+            }
+
+            double vectorBefore = searches("vector");
+            double keywordBefore = searches("keyword");
+            long[] latencies = new long[queries];
+            for (int i = 0; i < queries; i++) {
+                long t = System.nanoTime();
+                service.search(queryTexts.get(i));
+                latencies[i] = System.nanoTime() - t;
+            }
+            REPORT.add("search", scale, "p50", BenchmarkReport.percentileMillis(latencies, 50), "ms");
+            REPORT.add("search", scale, "p99", BenchmarkReport.percentileMillis(latencies, 99), "ms");
+            double keyword = searches("keyword") - keywordBefore;
+            double total = keyword + searches("vector") - vectorBefore;
+            REPORT.add("search", scale, "fallback_rate", total == 0 ? 0 : 100 * keyword / total, "%");
+            int embedCalls = OLLAMA.requestCount();
+            REPORT.add("search", scale, "qps_" + searchThreads + "_clients",
+                    concurrentQps(queryTexts, searchThreads), "queries/s");
+            REPORT.add("search", scale, "embed_calls_per_query",
+                    (OLLAMA.requestCount() - embedCalls) / (double) queries, "calls");
+
+            REPORT.add("memory", scale, "heap_used_after_gc", BenchmarkReport.usedHeapMb(), "MB");
+            REPORT.add("storage", scale, "documents_table", relationMb("documents"), "MB");
+            REPORT.add("storage", scale, "text_table", relationMb("document_texts"), "MB");
+            REPORT.add("storage", scale, "terms_table", relationMb("document_text_terms"), "MB");
+            REPORT.add("storage", scale, "text_raw", rawTextMb(), "MB");
+            REPORT.add("storage", scale, "vector_table", relationMb("vector_store"), "MB");
+        }
+    }
+
+    /**
+     * Uploads {@code docs} generated documents with a fixed number of in-flight uploads,
+     * so the corpus is never held in memory as a whole.
+     */
+    private void ingest(SyntheticCorpus corpus, int docs, int offset, int threads) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        Semaphore inFlight = new Semaphore(threads * 2);
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int i = 0; i < docs; i++) {
+                String name = "doc-" + (offset + i) + ".txt";
+                byte[] bytes = corpus.document(DOCUMENT_CHARS).getBytes(StandardCharsets.UTF_8);
+                inFlight.acquire();
+                futures.add(pool.submit(() -> {
+                    try {
+                        service.upload(new MockMultipartFile("file", name, "text/plain", bytes), "synthetic");
+                    } finally {
+                        inFlight.release();
+                    }
+                    return null;
+                }));
+                if (futures.size() >= 1024) {
+                    for (Future<?> f : futures) f.get();
+                    futures.clear();
+                }
+            }
+            for (Future<?> f : futures) {
+                f.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Waits until the ingestion workers have embedded every queued chunk.
+     */
+    private void awaitEmbedded() throws InterruptedException {
+        while (ingestionQueue.backlog() > 0) {
+            Thread.sleep(100);
+        }
+    }
+
+    private double concurrentQps(List<String> queries, int threads) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        AtomicInteger next = new AtomicInteger();
+        try {
+            long start = System.nanoTime();
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(pool.submit(() -> {
+                    int i;
+                    while ((i = next.getAndIncrement()) < queries.size()) {
+                        service.search(queries.get(i));
+                    }
+                }));
+            }
+            for (Future<?> f : futures) {
+                f.get();
+            }
+            return queries.size() / ((System.nanoTime() - start) / 1e9);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Searches served so far in the given mode ({@code vector} or {@code keyword}).
+     */
+    private double searches(String mode) {
+        Counter counter = registry.find(PipelineMetrics.SEARCH_REQUESTS).tag("mode", mode).counter();
+        return counter == null ? 0 : counter.count();
+    }
+
+    /**
+     * Uncompressed UTF-8 size of all stored texts, to compare with the size of {@code document_texts}
+     * and {@code document_text_terms}.
+     */
+    private double rawTextMb() {
+        Long bytes = jdbc.queryForObject("SELECT coalesce(sum(raw_bytes), 0) FROM document_texts", Long.class);
+        return bytes == null ? 0 : bytes / (1024.0 * 1024.0);
+    }
+
+    private double relationMb(String table) {
+        // sums the partitions of a partitioned table; a plain table is its own only member
+        Long bytes = jdbc.queryForObject("SELECT coalesce(sum(pg_total_relation_size(relid)), 0)::bigint " +
+                "FROM pg_partition_tree(?::regclass)", Long.class, table);
+        return bytes == null ? 0 : bytes / (1024.0 * 1024.0);
+    }
+}
@@ -0,0 +1,114 @@
+package benchmark;
+
+import com.docsearch.suggest.TermTrie;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Memory and latency benchmark for the suggestion trie.
+ * <p>
+ * Loads each requested number of distinct, word-like keys with Zipf-like weights into a
+ * {@link TermTrie} and reports:
+ * <ul>
+ *     <li>bytes held by the trie arrays and by the live nodes, scaled to one million keys,</li>
+ *     <li>the growth of the JVM heap after GC, as a cross-check of the array accounting,</li>
+ *     <li>build throughput,</li>
+ *     <li>latency p50/p99 of a top-8 completion for prefixes of one to four characters.</li>
+ * </ul>
+ * Runs only with {@code -Pbenchmark}. Tuning via {@code benchmark.suggest.keys}
+ * (default {@code 100000,1000000}) and {@code benchmark.queries}; the report is written
+ * to {@code <benchmark.output>/suggest}.
+ */
+@Tag("benchmark")
+class SuggestBenchmark {
+
+    private static final String[] SYLLABLES = {
+            "ar", "be", "con", "de", "el", "fi", "ge", "in", "jo", "ka", "lo", "men",
+            "no", "or", "pre", "qua", "re", "sto", "tion", "un", "ver", "wa", "xi", "zen"
+    };
+
+    @Test
+    void memoryAndLatencyPerMillionKeys() throws IOException {
+        BenchmarkReport report = new BenchmarkReport(System.getProperty("benchmark.version", "dev"));
+        int[] scales = Arrays.stream(System.getProperty("benchmark.suggest.keys", "100000,1000000").split(","))
+                .map(String::trim).mapToInt(Integer::parseInt).sorted().toArray();
+        int queries = Integer.getInteger("benchmark.queries", 20_000);
+        report.environment("limit", 8);
+
+        for (int scale : scales) {
+            String[] keys = keys(scale, new Random(42));
+            double heapBefore = BenchmarkReport.usedHeapMb();
+
+            long start = System.nanoTime();
+            TermTrie trie = new TermTrie();
+            for (int i = 0; i < keys.length; i++) {
+                // Zipf-like weights, as document frequencies of words are
+                trie.add(keys[i], Math.max(1, 100_000 / (i + 1)));
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            assertThat(trie.size()).isEqualTo(scale);
+
+            double heapMb = BenchmarkReport.usedHeapMb() - heapBefore;
+            double perMillion = 1_000_000.0 / scale;
+            report.add("trie", scale, "array_bytes_per_million_keys", trie.memoryBytes() * perMillion / (1024.0 * 1024.0), "MB");
+            report.add("trie", scale, "live_bytes_per_million_keys", trie.liveNodes() * 22L * perMillion / (1024.0 * 1024.0), "MB");
+            report.add("trie", scale, "heap_growth_per_million_keys", heapMb * perMillion, "MB");
+            report.add("trie", scale, "nodes_per_key", trie.liveNodes() / (double) scale, "nodes");
+            report.add("trie", scale, "build", scale / seconds, "keys/s");
+
+            Random random = new Random(7);
+            for (int i = 0; i < 2_000; i++) {
+                trie.top(prefix(keys, random), 8);
+            }
+            for (int length = 1; length <= 4; length++) {
+                long[] nanos = new long[queries];
+                for (int i = 0; i < queries; i++) {
+                    String key = keys[random.nextInt(keys.length)];
+                    String prefix = key.substring(0, Math.min(length, key.length()));
+                    long t = System.nanoTime();
+                    trie.top(prefix, 8);
+                    nanos[i] = System.nanoTime() - t;
+                }
+                report.add("top8_prefix_" + length, scale, "p50", BenchmarkReport.percentileMillis(nanos, 50), "ms");
+                report.add("top8_prefix_" + length, scale, "p99", BenchmarkReport.percentileMillis(nanos, 99), "ms");
+            }
+        }
+
+        report.write(Path.of(System.getProperty("benchmark.output", "target/benchmark")).resolve("suggest"));
+    }
+
+    private static String prefix(String[] keys, Random random) {
+        String key = keys[random.nextInt(keys.length)];
+        return key.substring(0, 1 + random.nextInt(Math.min(4, key.length())));
+    }
+
+    /**
+     * Generates {@code count} distinct keys of two to six syllables, some with a digit suffix
+     * like version numbers and identifiers in real documents.
+     */
+    private static String[] keys(int count, Random random) {
+        Set<String> seen = new HashSet<>(count * 2);
+        String[] keys = new String[count];
+        int n = 0;
+        while (n < count) {
+            StringBuilder sb = new StringBuilder();
+            int syllables = 2 + random.nextInt(5);
+            for (int s = 0; s < syllables; s++) {
+                sb.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+            }
+            if (random.nextInt(4) == 0) sb.append(random.nextInt(100));
+            String key = sb.toString();
+            if (seen.add(key)) keys[n++] = key;
+        }
+        return keys;
+    }
+}
@@ -0,0 +1,93 @@
+package benchmark;
+
+import java.util.Random;
+
+/**
+ * Deterministic generator of synthetic English-like documents.
+ * <p>
+ * Words are drawn from a fixed vocabulary with a Zipf-like distribution, so term
+ * frequencies resemble natural text, and the same seed always yields the same corpus.
+ */
+public class SyntheticCorpus {
+
+    private static final String[] SYLLABLES = {
+            "ar", "be", "con", "de", "el", "fi", "ge", "in", "jo", "ka", "lo", "men",
+            "no", "or", "pre", "qua", "re", "sto", "tion", "un", "ver", "wa", "xi", "zen"
+    };
+
+    private final Random random;
+    private final String[] vocabulary;
+    private final double[] cumulative;
+
+    /**
+     * @param seed           seed for the random generator
+     * @param vocabularySize number of distinct words
+     */
+    public SyntheticCorpus(long seed, int vocabularySize) {
+        this.random = new Random(seed);
+        this.vocabulary = new String[vocabularySize];
+        Random words = new Random(seed ^ 0x5DEECE66DL);
+        for (int i = 0; i < vocabularySize; i++) {
+            StringBuilder w = new StringBuilder();
+            int syllables = 1 + words.nextInt(4);
+            for (int s = 0; s < syllables; s++) {
+                w.append(SYLLABLES[words.nextInt(SYLLABLES.length)]);
+            }
+            vocabulary[i] = w.toString();
+        }
+        this.cumulative = new double[vocabularySize];
+        double sum = 0;
+        for (int i = 0; i < vocabularySize; i++) {
+            sum += 1.0 / (i + 1);
+            cumulative[i] = sum;
+        }
+        for (int i = 0; i < vocabularySize; i++) {
+            cumulative[i] /= sum;
+        }
+    }
+
+    /**
+     * Generates a document of roughly {@code chars} characters, split into sentences and paragraphs.
+     */
+    public String document(int chars) {
+        StringBuilder sb = new StringBuilder(chars + 32);
+        int sentence = 0;
+        while (sb.length() < chars) {
+            String word = word();
+            if (sentence == 0) {
+                sb.append(Character.toUpperCase(word.charAt(0))).append(word, 1, word.length());
+            } else {
+                sb.append(' ').append(word);
+            }
+            if (++sentence >= 8 + random.nextInt(12)) {
+                sb.append(random.nextInt(6) == 0 ? ".\n\n" : ". ");
+                sentence = 0;
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Generates a short query of a few frequent-to-medium words.
+     */
+    public String query() {
+        int words = 2 + random.nextInt(3);
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            if (i > 0) sb.append(' ');
+            sb.append(word());
+        }
+        return sb.toString();
+    }
+
+    public String word() {
+        double r = random.nextDouble();
+        int lo = 0, hi = cumulative.length - 1;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (cumulative[mid] < r) lo = mid + 1;
+            else hi = mid;
+        }
+        return vocabulary[lo];
+    }
+}
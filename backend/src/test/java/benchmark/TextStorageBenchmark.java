@@ -0,0 +1,220 @@
+package benchmark;
+
+import com.docsearch.DocSearchApplication;
+import com.docsearch.config.TextStoreProperties;
+import com.docsearch.metrics.PipelineMetrics;
+import com.docsearch.repository.DocumentTextRepository;
+import com.docsearch.storage.DocumentTextStore;
+import com.docsearch.storage.FrameIndex;
+import com.docsearch.storage.FramedText;
+import com.docsearch.storage.FramedTextCodec;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+import support.StubOllamaServer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Storage benchmark for the compressed document text store.
+ * <p>
+ * Stores a corpus through {@link DocumentTextStore} in fast and high-compression mode, in a pgvector
+ * Testcontainer, and reports:
+ * <ul>
+ *     <li>raw size against what lands on disk: {@code pg_total_relation_size} of {@code document_texts} and
+ *     of the keyword search's {@code document_text_terms}, indexes and TOAST included, and their ratio,</li>
+ *     <li>encode throughput,</li>
+ *     <li>latency and bytes touched to read one chunk-sized range, against decoding the whole text.</li>
+ * </ul>
+ * The corpus is every {@code .txt} and {@code .md} file under {@code benchmark.text.corpus} if set,
+ * otherwise synthetic documents of 2 KB to 200 KB. Runs only with {@code -Pbenchmark}; the report is
+ * written to {@code <benchmark.output>/text-storage}. Table sizes after a real ingest, next to the
+ * vector table, are reported by {@link IngestSearchBenchmark}.
+ */
+@Tag("benchmark")
+@Testcontainers(disabledWithoutDocker = true)
+@SpringBootTest(classes = DocSearchApplication.class, webEnvironment = SpringBootTest.WebEnvironment.NONE)
+class TextStorageBenchmark {
+
+    static final int RANGE_CHARS = 800;
+    static final int READS = 2000;
+
+    @Container
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>(
+            DockerImageName.parse("pgvector/pgvector:pg16").asCompatibleSubstituteFor("postgres"));
+
+    static final StubOllamaServer OLLAMA;
+
+    static {
+        try {
+            OLLAMA = new StubOllamaServer(768);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @DynamicPropertySource
+    static void properties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+        registry.add("spring.ai.ollama.base-url", OLLAMA::baseUrl);
+        registry.add("docsearch.ingestion.workers", () -> 0);
+    }
+
+    @Autowired
+    private DocumentTextRepository texts;
+
+    @Autowired
+    private PipelineMetrics metrics;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Autowired
+    private TransactionTemplate tx;
+
+    @AfterAll
+    static void stopOllama() {
+        OLLAMA.close();
+    }
+
+    @Test
+    void compressedSizeAndRangeReads() throws IOException {
+        BenchmarkReport report = new BenchmarkReport(System.getProperty("benchmark.version", "dev"));
+        List<String> corpus = loadCorpus();
+        long rawBytes = corpus.stream().mapToLong(t -> t.getBytes(StandardCharsets.UTF_8).length).sum();
+        report.environment("documents", corpus.size());
+        report.environment("corpus", System.getProperty("benchmark.text.corpus", "synthetic"));
+
+        for (int frameChars : new int[]{4096, 8192, 32768}) {
+            for (boolean high : new boolean[]{false, true}) {
+                FramedTextCodec codec = new FramedTextCodec(frameChars, high);
+                String scenario = "lz4" + (high ? "hc" : "") + "_" + (frameChars / 1024) + "k";
+
+                long start = System.nanoTime();
+                List<FramedText> encoded = new ArrayList<>(corpus.size());
+                for (String text : corpus) {
+                    encoded.add(codec.encode(text));
+                }
+                double encodeSeconds = (System.nanoTime() - start) / 1e9;
+
+                long[] onDisk = store(corpus, frameChars, high);
+                report.add(scenario, corpus.size(), "raw", rawBytes / (1024.0 * 1024.0), "MB");
+                report.add(scenario, corpus.size(), "text_table", onDisk[0] / (1024.0 * 1024.0), "MB");
+                report.add(scenario, corpus.size(), "terms_table", onDisk[1] / (1024.0 * 1024.0), "MB");
+                report.add(scenario, corpus.size(), "ratio", (double) rawBytes / (onDisk[0] + onDisk[1]), "x");
+                report.add(scenario, corpus.size(), "encode", rawBytes / (1024.0 * 1024.0) / encodeSeconds, "MB/s");
+
+                Random random = new Random(7);
+                long[] rangeNanos = new long[READS];
+                long[] fullNanos = new long[READS];
+                long rangeBytes = 0, fullBytes = 0;
+                for (int i = 0; i < READS; i++) {
+                    int doc = random.nextInt(corpus.size());
+                    FramedText framed = encoded.get(doc);
+                    FrameIndex index = framed.getIndex();
+                    int from = random.nextInt(Math.max(1, index.charLength() - RANGE_CHARS));
+                    int to = Math.min(index.charLength(), from + RANGE_CHARS);
+
+                    long t = System.nanoTime();
+                    int first = index.frameFor(from);
+                    int last = index.frameFor(Math.max(from, to - 1));
+                    byte[] slice = Arrays.copyOfRange(framed.getData(), index.byteOffset(first), index.byteOffset(last + 1));
+                    String range = codec.decodeFrames(index, slice, first, last);
+                    rangeNanos[i] = System.nanoTime() - t;
+                    rangeBytes += slice.length;
+
+                    t = System.nanoTime();
+                    String full = codec.decode(framed);
+                    fullNanos[i] = System.nanoTime() - t;
+                    fullBytes += framed.getData().length;
+
+                    int base = index.charStart(first);
+                    assertThat(range.substring(from - base, to - base)).isEqualTo(full.substring(from, to));
+                }
+
+                report.add(scenario, corpus.size(), "range_read_p50", BenchmarkReport.percentileMillis(rangeNanos, 50), "ms");
+                report.add(scenario, corpus.size(), "full_read_p50", BenchmarkReport.percentileMillis(fullNanos, 50), "ms");
+                report.add(scenario, corpus.size(), "range_read_bytes", rangeBytes / (double) READS / 1024.0, "KB");
+                report.add(scenario, corpus.size(), "full_read_bytes", fullBytes / (double) READS / 1024.0, "KB");
+            }
+        }
+
+        report.write(Path.of(System.getProperty("benchmark.output", "target/benchmark")).resolve("text-storage"));
+    }
+
+    /**
+     * Stores the corpus as uploads do, text and keyword terms, into emptied tables, and measures them
+     * once vacuumed, which also moves pending GIN entries into the index proper.
+     *
+     * @return the total on-disk size of {@code document_texts} and of {@code document_text_terms}, in bytes
+     */
+    private long[] store(List<String> corpus, int frameChars, boolean high) {
+        TextStoreProperties props = new TextStoreProperties();
+        props.setFrameChars(frameChars);
+        props.setHighCompression(high);
+        DocumentTextStore store = new DocumentTextStore(texts, metrics, props);
+
+        jdbc.execute("TRUNCATE document_texts, document_text_terms");
+        for (int i = 0; i < corpus.size(); i++) {
+            long docId = i + 1;
+            String text = corpus.get(i);
+            tx.executeWithoutResult(status -> store.save(docId, text));
+        }
+        jdbc.execute("VACUUM ANALYZE document_texts");
+        jdbc.execute("VACUUM ANALYZE document_text_terms");
+        return new long[]{
+                jdbc.queryForObject("SELECT pg_total_relation_size('document_texts')", Long.class),
+                jdbc.queryForObject("SELECT pg_total_relation_size('document_text_terms')", Long.class)};
+    }
+
+    private static List<String> loadCorpus() throws IOException {
+        String dir = System.getProperty("benchmark.text.corpus");
+        if (dir != null) {
+            try (Stream<Path> files = Files.walk(Path.of(dir))) {
+                List<Path> paths = files.filter(Files::isRegularFile)
+                        .filter(p -> p.toString().endsWith(".txt") || p.toString().endsWith(".md"))
+                        .sorted()
+                        .toList();
+                List<String> texts = new ArrayList<>(paths.size());
+                for (Path p : paths) {
+                    texts.add(Files.readString(p, StandardCharsets.UTF_8));
+                }
+                assertThat(texts).as("documents under " + dir).isNotEmpty();
+                return texts;
+            }
+        }
+
+        SyntheticCorpus corpus = new SyntheticCorpus(42, 50_000);
+        Random sizes = new Random(42);
+        List<String> texts = new ArrayList<>();
+        for (int i = 0; i < Integer.getInteger("benchmark.text.documents", 500); i++) {
+            // log-uniform between 2 KB and 200 KB, like a mix of notes, articles and reports
+            int chars = (int) Math.round(2_000 * Math.pow(100, sizes.nextDouble()));
+            texts.add(corpus.document(chars));
+        }
+        return texts;
+    }
+}
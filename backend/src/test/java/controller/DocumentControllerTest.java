@@ -2,8 +2,11 @@ package controller;
 
 import com.docsearch.DocSearchApplication;
 import com.docsearch.controller.DocumentController;
+import com.docsearch.model.CollectionSummary;
 import com.docsearch.model.DocumentEntity;
 import com.docsearch.service.DocumentService;
+import com.docsearch.service.SuggestionService;
+import com.docsearch.vector.InvalidCollectionException;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -18,6 +21,7 @@ import java.time.Instant;
 import java.util.List;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -38,6 +42,9 @@ class DocumentControllerTest {
     @MockBean
     private DocumentService service;
 
+    @MockBean
+    private SuggestionService suggestions;
+
     /**
      * Tests the /health endpoint.
      * <p>
@@ -77,7 +84,7 @@ class DocumentControllerTest {
                 .uploadedAt(Instant.now())
                 .build();
 
-        Mockito.when(service.upload(any(), eq("desc"))).thenReturn(saved);
+        Mockito.when(service.upload(any(), eq("desc"), any())).thenReturn(saved);
 
         // when + then
         mockMvc.perform(multipart("/documents")
@@ -94,20 +101,68 @@ class DocumentControllerTest {
      * <p>
      * Mocks the service layer to return a list of two documents and verifies
      * that the controller responds with a JSON array of the correct size
-     * and matching document IDs.
+     * and matching document IDs, and that the query is counted for suggestions.
      */
     @Test
     void searchDocuments_ReturnsList() throws Exception {
         DocumentEntity doc1 = DocumentEntity.builder().id(1L).filename("a.txt").build();
         DocumentEntity doc2 = DocumentEntity.builder().id(2L).filename("b.txt").build();
 
-        Mockito.when(service.search("hello")).thenReturn(List.of(doc1, doc2));
+        Mockito.when(service.search(eq("hello"), anyList())).thenReturn(List.of(doc1, doc2));
 
         mockMvc.perform(get("/search").param("q", "hello"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.length()").value(2))
                 .andExpect(jsonPath("$[0].id").value(1))
                 .andExpect(jsonPath("$[1].id").value(2));
+
+        Mockito.verify(suggestions).recordQuery("hello");
+    }
+
+    /**
+     * Tests the /search endpoint with collections.
+     * <p>
+     * Verifies that the requested collections are passed on to the service.
+     */
+    @Test
+    void searchDocuments_WithCollections_PassesThemOn() throws Exception {
+        DocumentEntity doc = DocumentEntity.builder().id(1L).filename("a.txt").collection("team_a").build();
+
+        Mockito.when(service.search("hello", List.of("team_a", "team_b"))).thenReturn(List.of(doc));
+
+        mockMvc.perform(get("/search").param("q", "hello").param("collections", "team_a,team_b"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].collection").value("team_a"));
+    }
+
+    /**
+     * Tests that an invalid collection name is answered with 400 Bad Request.
+     */
+    @Test
+    void searchDocuments_InvalidCollection_ReturnsBadRequest() throws Exception {
+        Mockito.when(service.search(eq("hello"), anyList()))
+                .thenThrow(new InvalidCollectionException("Invalid collection name: 'a b'"));
+
+        mockMvc.perform(get("/search").param("q", "hello").param("collections", "a b"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("Invalid collection name: 'a b'"));
+    }
+
+    /**
+     * Tests the /collections endpoint.
+     */
+    @Test
+    void collections_ReturnsNamesAndCounts() throws Exception {
+        CollectionSummary summary = Mockito.mock(CollectionSummary.class);
+        Mockito.when(summary.getName()).thenReturn("default");
+        Mockito.when(summary.getDocuments()).thenReturn(3L);
+        Mockito.when(service.getCollections()).thenReturn(List.of(summary));
+
+        mockMvc.perform(get("/collections"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].name").value("default"))
+                .andExpect(jsonPath("$[0].documents").value(3));
     }
 
     /**
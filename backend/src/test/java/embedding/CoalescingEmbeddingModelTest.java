@@ -0,0 +1,270 @@
+package embedding;
+
+import com.docsearch.config.CoalescingProperties;
+import com.docsearch.embedding.CoalescingEmbeddingModel;
+import com.docsearch.metrics.PipelineMetrics;
+import com.docsearch.resilience.OllamaUnavailableException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingOptions;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for {@link CoalescingEmbeddingModel}.
+ * <p>
+ * Uses in-memory models, one for single queries and one for batches, that embed a text as
+ * {@code [length]} and record the inputs of every call.
+ */
+class CoalescingEmbeddingModelTest {
+
+    private final List<List<String>> calls = new CopyOnWriteArrayList<>();
+    private final List<List<String>> batchCalls = new CopyOnWriteArrayList<>();
+    private volatile Function<List<String>, EmbeddingResponse> behaviour;
+    private volatile CountDownLatch gate;
+    private CoalescingProperties props;
+    private SimpleMeterRegistry registry;
+    private CoalescingEmbeddingModel model;
+    private ExecutorService clients;
+
+    @BeforeEach
+    void setUp() {
+        behaviour = CoalescingEmbeddingModelTest::lengths;
+        gate = new CountDownLatch(0);
+        props = new CoalescingProperties();
+        props.setMaxInFlight(1);
+        props.setMaxBatchSize(8);
+        props.setWindow(Duration.ofMillis(20));
+        registry = new SimpleMeterRegistry();
+        model = model(Duration.ofSeconds(5));
+        clients = Executors.newCachedThreadPool();
+    }
+
+    @AfterEach
+    void tearDown() {
+        model.destroy();
+        clients.shutdownNow();
+    }
+
+    /**
+     * A query arriving at an idle model is sent on its own, without waiting for the window.
+     */
+    @Test
+    void embed_IdleModel_SendsImmediately() {
+        props.setWindow(Duration.ofSeconds(5));
+
+        long start = System.nanoTime();
+        List<Double> vector = model.embed("hello");
+
+        assertThat(vector).containsExactly(5.0);
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(1));
+        assertThat(calls).containsExactly(List.of("hello"));
+    }
+
+    /**
+     * Queries arriving while a call is in flight are sent together, and each caller gets its own vector.
+     */
+    @Test
+    void embed_ConcurrentQueries_AreBatched() throws Exception {
+        gate = new CountDownLatch(1);
+        Future<List<Double>> first = clients.submit(() -> model.embed("a"));
+        awaitCalls(1);
+
+        List<Future<List<Double>>> queued = new ArrayList<>();
+        for (int i = 1; i <= 5; i++) {
+            String text = "x".repeat(i + 1);
+            queued.add(clients.submit(() -> model.embed(text)));
+        }
+        awaitQueued(5);
+        gate.countDown();
+
+        assertThat(first.get(5, TimeUnit.SECONDS)).containsExactly(1.0);
+        for (int i = 0; i < 5; i++) {
+            assertThat(queued.get(i).get(5, TimeUnit.SECONDS)).containsExactly((double) i + 2);
+        }
+        assertThat(calls).hasSize(2);
+        assertThat(calls.get(1)).hasSize(5);
+        assertThat(batchCalls).containsExactly(calls.get(1));
+        assertThat(registry.get(PipelineMetrics.EMBEDDING_COALESCE_BATCH).summary().max()).isEqualTo(5.0);
+    }
+
+    /**
+     * Calls with several inputs or explicit options are not coalesced.
+     */
+    @Test
+    void call_MultipleInputs_PassesThrough() {
+        EmbeddingResponse response = model.call(new EmbeddingRequest(List.of("ab", "abc"), EmbeddingOptions.EMPTY));
+
+        assertThat(response.getResults()).extracting(Embedding::getOutput)
+                .containsExactly(List.of(2.0), List.of(3.0));
+        assertThat(registry.find(PipelineMetrics.EMBEDDING_COALESCE_BATCH).summary()).isNull();
+    }
+
+    /**
+     * A model that rejects batches gets the queries one by one, and coalescing is switched off.
+     */
+    @Test
+    void embed_BatchRejected_FallsBackToSingleCalls() throws Exception {
+        behaviour = texts -> {
+            if (texts.size() > 1) throw new IllegalArgumentException("batch embedding not supported");
+            return lengths(texts);
+        };
+        gate = new CountDownLatch(1);
+        Future<List<Double>> first = clients.submit(() -> model.embed("a"));
+        awaitCalls(1);
+        Future<List<Double>> second = clients.submit(() -> model.embed("bb"));
+        Future<List<Double>> third = clients.submit(() -> model.embed("ccc"));
+        awaitQueued(2);
+        gate.countDown();
+
+        assertThat(first.get(5, TimeUnit.SECONDS)).containsExactly(1.0);
+        assertThat(second.get(5, TimeUnit.SECONDS)).containsExactly(2.0);
+        assertThat(third.get(5, TimeUnit.SECONDS)).containsExactly(3.0);
+        assertThat(model.isBatching()).isFalse();
+    }
+
+    /**
+     * When the guard rejects a batch, every caller in it gets the rejection and nothing is retried.
+     */
+    @Test
+    void embed_GuardRejectsBatch_FailsAllCallers() throws Exception {
+        behaviour = texts -> {
+            if (texts.size() > 1) {
+                throw new OllamaUnavailableException("embedding", OllamaUnavailableException.Reason.CIRCUIT_OPEN,
+                        "open", null);
+            }
+            return lengths(texts);
+        };
+        gate = new CountDownLatch(1);
+        Future<List<Double>> first = clients.submit(() -> model.embed("a"));
+        awaitCalls(1);
+        Future<List<Double>> second = clients.submit(() -> model.embed("bb"));
+        Future<List<Double>> third = clients.submit(() -> model.embed("ccc"));
+        awaitQueued(2);
+        gate.countDown();
+
+        first.get(5, TimeUnit.SECONDS);
+        for (Future<List<Double>> f : List.of(second, third)) {
+            assertThatThrownBy(() -> f.get(5, TimeUnit.SECONDS))
+                    .hasCauseInstanceOf(OllamaUnavailableException.class);
+        }
+        assertThat(calls).hasSize(2);
+        assertThat(model.isBatching()).isTrue();
+    }
+
+    /**
+     * Queries beyond {@code max-queued} are rejected at once instead of waiting.
+     */
+    @Test
+    void embed_QueueFull_RejectsImmediately() throws Exception {
+        props.setMaxQueued(1);
+        model.destroy();
+        model = model(Duration.ofSeconds(5));
+        gate = new CountDownLatch(1);
+        clients.submit(() -> model.embed("a"));
+        awaitCalls(1);
+        // taken by the dispatcher, which waits for the slot of the call in flight
+        clients.submit(() -> model.embed("bb"));
+        awaitQueued(1);
+        Future<List<Double>> queued = clients.submit(() -> model.embed("ccc"));
+        awaitQueued(1);
+
+        assertThatThrownBy(() -> model.embed("dddd"))
+                .isInstanceOf(OllamaUnavailableException.class)
+                .extracting(e -> ((OllamaUnavailableException) e).getReason())
+                .isEqualTo(OllamaUnavailableException.Reason.BULKHEAD_FULL);
+        gate.countDown();
+        assertThat(queued.get(5, TimeUnit.SECONDS)).isNotEmpty();
+        assertThat(registry.get(PipelineMetrics.GUARD_REJECTIONS)
+                .tag("guard", "embedding").tag("reason", "bulkhead_full").counter().count()).isEqualTo(1.0);
+    }
+
+    /**
+     * A caller stops waiting after {@code maxWait}, and its query is then left out of the next batch.
+     */
+    @Test
+    void embed_NotEmbeddedWithinMaxWait_TimesOutAndIsDropped() throws Exception {
+        model.destroy();
+        model = model(Duration.ofMillis(200));
+        gate = new CountDownLatch(1);
+        clients.submit(() -> model.embed("a"));
+        awaitCalls(1);
+
+        long start = System.nanoTime();
+        assertThatThrownBy(() -> model.embed("bb"))
+                .isInstanceOf(OllamaUnavailableException.class)
+                .extracting(e -> ((OllamaUnavailableException) e).getReason())
+                .isEqualTo(OllamaUnavailableException.Reason.TIMEOUT);
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(2));
+
+        gate.countDown();
+        assertThat(model.embed("ccc")).containsExactly(3.0);
+        assertThat(calls).extracting(List::size).containsOnly(1);
+        assertThat(calls).noneMatch(c -> c.contains("bb"));
+    }
+
+    private CoalescingEmbeddingModel model(Duration maxWait) {
+        return new CoalescingEmbeddingModel(delegate(false), delegate(true), props, maxWait,
+                new PipelineMetrics(registry));
+    }
+
+    private EmbeddingModel delegate(boolean batches) {
+        return new EmbeddingModel() {
+            @Override
+            public EmbeddingResponse call(EmbeddingRequest request) {
+                calls.add(List.copyOf(request.getInstructions()));
+                if (batches) {
+                    batchCalls.add(List.copyOf(request.getInstructions()));
+                }
+                try {
+                    gate.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return behaviour.apply(request.getInstructions());
+            }
+
+            @Override
+            public List<Double> embed(Document document) {
+                return List.of((double) document.getContent().length());
+            }
+        };
+    }
+
+    private static EmbeddingResponse lengths(List<String> texts) {
+        List<Embedding> embeddings = new ArrayList<>();
+        for (int i = 0; i < texts.size(); i++) {
+            embeddings.add(new Embedding(List.of((double) texts.get(i).length()), i));
+        }
+        return new EmbeddingResponse(embeddings);
+    }
+
+    private void awaitCalls(int n) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (calls.size() < n && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertThat(calls).hasSizeGreaterThanOrEqualTo(n);
+    }
+
+    /**
+     * Gives the clients time to queue behind the call in flight; with one slot they cannot be sent before the gate opens.
+     */
+    private void awaitQueued(int n) throws InterruptedException {
+        Thread.sleep(100L + 10L * n);
+    }
+}
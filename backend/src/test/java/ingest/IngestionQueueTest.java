@@ -0,0 +1,221 @@
+package ingest;
+
+import com.docsearch.DocSearchApplication;
+import com.docsearch.ingest.IngestionQueue;
+import com.docsearch.ingest.IngestionTask;
+import com.docsearch.ingest.IngestionWorker;
+import com.docsearch.service.DocumentService;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+import support.StubOllamaServer;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests {@link IngestionQueue} and {@link IngestionWorker} against a real Postgres with pgvector.
+ * <p>
+ * Background workers are disabled ({@code docsearch.ingestion.workers=0}); the tests drive
+ * {@link IngestionWorker#pollOnce(String)} directly, acting as several nodes by using distinct owners.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@SpringBootTest(classes = DocSearchApplication.class, webEnvironment = SpringBootTest.WebEnvironment.NONE)
+class IngestionQueueTest {
+
+    static final int DIMENSIONS = 768;
+
+    @Container
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>(
+            DockerImageName.parse("pgvector/pgvector:pg16").asCompatibleSubstituteFor("postgres"));
+
+    static final StubOllamaServer OLLAMA;
+
+    static {
+        try {
+            OLLAMA = new StubOllamaServer(DIMENSIONS);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @DynamicPropertySource
+    static void properties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+        registry.add("spring.ai.ollama.base-url", OLLAMA::baseUrl);
+        registry.add("spring.ai.vectorstore.pgvector.dimensions", () -> DIMENSIONS);
+        registry.add("docsearch.ingestion.workers", () -> 0);
+        registry.add("docsearch.ingestion.batch-size", () -> 2);
+    }
+
+    @Autowired
+    private DocumentService service;
+
+    @Autowired
+    private IngestionQueue queue;
+
+    @Autowired
+    private IngestionWorker worker;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @AfterAll
+    static void stopOllama() {
+        OLLAMA.close();
+    }
+
+    @BeforeEach
+    void clearQueue() {
+        jdbc.update("DELETE FROM ingestion_tasks");
+    }
+
+    /**
+     * Two workers with different owners drain the queue together, and every chunk ends up in the vector store once.
+     */
+    @Test
+    void workersOnTwoNodes_DrainQueueAndWriteEveryChunk() throws Exception {
+        List<Long> ids = List.of(upload(5200), upload(5200), upload(2000));
+        assertThat(queue.backlog()).isEqualTo(4 + 4 + 2);
+
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            List<Future<Integer>> nodes = List.of(
+                    pool.submit(() -> drain("node-a")),
+                    pool.submit(() -> drain("node-b")));
+            int processed = nodes.get(0).get() + nodes.get(1).get();
+            assertThat(processed).isEqualTo(10);
+        } finally {
+            pool.shutdown();
+        }
+
+        assertThat(queue.backlog()).isZero();
+        assertThat(chunks(ids.get(0))).isEqualTo(8);
+        assertThat(chunks(ids.get(1))).isEqualTo(8);
+        assertThat(chunks(ids.get(2))).isEqualTo(3);
+    }
+
+    /**
+     * A task row locked by another transaction is skipped rather than waited for.
+     */
+    @Test
+    void claim_SkipsTasksLockedByAnotherTransaction() throws Exception {
+        upload(2000);
+        List<Long> taskIds = jdbc.queryForList("SELECT id FROM ingestion_tasks ORDER BY id", Long.class);
+        assertThat(taskIds).hasSize(2);
+
+        try (Connection other = dataSource.getConnection()) {
+            other.setAutoCommit(false);
+            try (Statement st = other.createStatement()) {
+                st.execute("SELECT id FROM ingestion_tasks WHERE id = " + taskIds.get(0) + " FOR UPDATE");
+            }
+
+            List<IngestionTask> claimed = queue.claim("node-a", 10, Duration.ofMinutes(1));
+
+            assertThat(claimed).extracting(IngestionTask::id).containsExactly(taskIds.get(1));
+            other.rollback();
+        }
+    }
+
+    /**
+     * After its lease expires a task is claimed by another worker, and the first worker can no longer complete it.
+     */
+    @Test
+    void expiredLease_TaskIsReclaimedAndOldOwnerLosesIt() throws Exception {
+        upload(500);
+        IngestionTask first = queue.claim("node-a", 1, Duration.ofMillis(1)).get(0);
+        Thread.sleep(50);
+
+        List<IngestionTask> reclaimed = queue.claim("node-b", 1, Duration.ofMinutes(1));
+
+        assertThat(reclaimed).hasSize(1);
+        IngestionTask second = reclaimed.get(0);
+        assertThat(second.id()).isEqualTo(first.id());
+        assertThat(second.owner()).isEqualTo("node-b");
+        assertThat(second.attempts()).isEqualTo(2);
+        assertThat(queue.complete(first)).isFalse();
+        assertThat(queue.complete(second)).isTrue();
+        assertThat(queue.backlog()).isZero();
+    }
+
+    /**
+     * Processing the same chunks twice overwrites the rows keyed by document id and chunk index.
+     */
+    @Test
+    void reprocessedTask_DoesNotDuplicateChunks() throws Exception {
+        Long id = upload(2000);
+        drain("node-a");
+        assertThat(chunks(id)).isEqualTo(3);
+
+        jdbc.update("INSERT INTO ingestion_tasks (doc_id, first_chunk, chunk_count, char_from, char_to) " +
+                "VALUES (?, 0, 3, 0, 2000)", id);
+        drain("node-b");
+
+        assertThat(chunks(id)).isEqualTo(3);
+    }
+
+    /**
+     * A failed task is retried after its backoff and is parked as {@code FAILED} when failing permanently.
+     */
+    @Test
+    void failedTask_IsRetriedThenParked() throws Exception {
+        upload(500);
+        IngestionTask task = queue.claim("node-a", 1, Duration.ofMinutes(1)).get(0);
+
+        assertThat(queue.fail(task, "boom", Duration.ZERO, false)).isTrue();
+        IngestionTask retry = queue.claim("node-b", 1, Duration.ofMinutes(1)).get(0);
+        assertThat(retry.id()).isEqualTo(task.id());
+        assertThat(retry.attempts()).isEqualTo(2);
+
+        assertThat(queue.fail(retry, "boom again", Duration.ZERO, true)).isTrue();
+        assertThat(queue.claim("node-c", 1, Duration.ofMinutes(1))).isEmpty();
+        assertThat(queue.backlog()).isZero();
+        assertThat(jdbc.queryForObject("SELECT status FROM ingestion_tasks WHERE id = ?", String.class, task.id()))
+                .isEqualTo("FAILED");
+    }
+
+    private Long upload(int chars) throws IOException {
+        byte[] bytes = "lorem ipsum ".repeat(chars / 12 + 1).substring(0, chars).getBytes(StandardCharsets.UTF_8);
+        return service.upload(new MockMultipartFile("file", "doc.txt", "text/plain", bytes), null).getId();
+    }
+
+    private int drain(String owner) {
+        int processed = 0;
+        int n;
+        while ((n = worker.pollOnce(owner)) > 0) {
+            processed += n;
+        }
+        return processed;
+    }
+
+    private long chunks(Long docId) {
+        return jdbc.queryForObject("SELECT count(*) FROM vector_store WHERE metadata->>'docId' = ?",
+                Long.class, String.valueOf(docId));
+    }
+}
@@ -0,0 +1,68 @@
+package migration;
+
+import com.docsearch.storage.FrameIndex;
+import com.docsearch.storage.FramedText;
+import com.docsearch.storage.FramedTextCodec;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the migrations up to V8 on an empty pgvector database, stores text the way versions before
+ * the compressed text store did, and checks that {@code V9__Move_legacy_text} moves it into
+ * {@code document_texts}, indexes its words and drops {@code documents.content_text}.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class LegacyTextMigrationTest {
+
+    static final Map<String, String> PLACEHOLDERS =
+            Map.of("vector_dimensions", "768", "text_frame_chars", "512");
+
+    @Container
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>(
+            DockerImageName.parse("pgvector/pgvector:pg16").asCompatibleSubstituteFor("postgres"));
+
+    @Test
+    void migrate_LegacyText_IsCompressedIntoTheTextStore() {
+        DriverManagerDataSource dataSource =
+                new DriverManagerDataSource(POSTGRES.getJdbcUrl(), POSTGRES.getUsername(), POSTGRES.getPassword());
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        flyway(dataSource, "8").migrate();
+        String text = "legacy text \u00e9 ".repeat(200);
+        Long id = jdbc.queryForObject("INSERT INTO documents (filename, content_type, content_text) " +
+                "VALUES ('old.txt', 'text/plain', ?) RETURNING id", Long.class, text);
+        jdbc.update("INSERT INTO documents (filename, content_type) VALUES ('empty.txt', 'text/plain')");
+
+        flyway(dataSource, "latest").migrate();
+
+        Map<String, Object> row = jdbc.queryForMap("SELECT * FROM document_texts WHERE doc_id = ?", id);
+        FrameIndex index = FrameIndex.fromBytes((byte[]) row.get("frame_index"));
+        assertThat(row.get("codec")).isEqualTo(FramedTextCodec.NAME);
+        assertThat(row.get("frame_chars")).isEqualTo(512);
+        assertThat(new FramedTextCodec(512, false).decode(new FramedText(index, (byte[]) row.get("data"))))
+                .isEqualTo(text);
+        assertThat(jdbc.queryForObject("SELECT count(*) FROM document_text_terms " +
+                "WHERE doc_id = ? AND terms @@ to_tsquery('simple', 'legacy & text')", Long.class, id)).isEqualTo(1);
+        assertThat(jdbc.queryForObject("SELECT count(*) FROM document_texts", Long.class)).isEqualTo(1);
+        assertThat(jdbc.queryForObject("SELECT count(*) FROM information_schema.columns " +
+                "WHERE table_name = 'documents' AND column_name = 'content_text'", Long.class)).isZero();
+    }
+
+    private static Flyway flyway(DriverManagerDataSource dataSource, String target) {
+        return Flyway.configure()
+                .dataSource(dataSource)
+                .locations("classpath:db/migration")
+                .placeholders(PLACEHOLDERS)
+                .target(target)
+                .load();
+    }
+}
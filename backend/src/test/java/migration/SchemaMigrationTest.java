@@ -0,0 +1,108 @@
+package migration;
+
+import com.docsearch.DocSearchApplication;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+import support.StubOllamaServer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Boots the application on an empty pgvector database, so that the Flyway migrations alone
+ * must produce a schema that Hibernate's {@code ddl-auto: validate} accepts.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@SpringBootTest(classes = DocSearchApplication.class, webEnvironment = SpringBootTest.WebEnvironment.NONE)
+class SchemaMigrationTest {
+
+    @Container
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>(
+            DockerImageName.parse("pgvector/pgvector:pg16").asCompatibleSubstituteFor("postgres"));
+
+    static final StubOllamaServer OLLAMA;
+
+    static {
+        try {
+            OLLAMA = new StubOllamaServer(768);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @DynamicPropertySource
+    static void properties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+        registry.add("spring.ai.ollama.base-url", OLLAMA::baseUrl);
+        registry.add("docsearch.ingestion.workers", () -> 0);
+    }
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @AfterAll
+    static void stopOllama() {
+        OLLAMA.close();
+    }
+
+    @Test
+    void allMigrationsApplied() {
+        assertThat(jdbc.queryForList("SELECT version FROM flyway_schema_history WHERE success ORDER BY installed_rank",
+                String.class)).containsExactly("1", "2", "3", "4", "5", "6", "7", "8", "9");
+    }
+
+    @Test
+    void vectorTableHasHnswIndexAndConfiguredDimensions() {
+        assertThat(jdbc.queryForObject("SELECT indexdef FROM pg_indexes WHERE indexname = 'spring_ai_vector_index'",
+                String.class)).contains("hnsw").contains("vector_cosine_ops");
+        assertThat(jdbc.queryForObject("SELECT format_type(atttypid, atttypmod) FROM pg_attribute " +
+                "WHERE attrelid = 'vector_store'::regclass AND attname = 'embedding'", String.class))
+                .isEqualTo("vector(768)");
+    }
+
+    @Test
+    void vectorTableIsPartitionedByCollection() {
+        assertThat(jdbc.queryForObject("SELECT pg_get_partkeydef('vector_store'::regclass)", String.class))
+                .isEqualTo("LIST (collection)");
+        assertThat(jdbc.queryForList("SELECT relid::text FROM pg_partition_tree('vector_store') WHERE isleaf",
+                String.class)).containsExactly("vector_store_c_default");
+        assertThat(jdbc.queryForObject("SELECT column_default FROM information_schema.columns " +
+                "WHERE table_name = 'documents' AND column_name = 'collection'", String.class)).contains("'default'");
+    }
+
+    @Test
+    void unusedChunkTableIsDropped() {
+        assertThat(jdbc.queryForObject("SELECT to_regclass('document_chunks') IS NULL", Boolean.class)).isTrue();
+    }
+
+    @Test
+    void legacyTextColumnIsDropped() {
+        assertThat(jdbc.queryForObject("SELECT count(*) FROM information_schema.columns " +
+                "WHERE table_name = 'documents' AND column_name = 'content_text'", Long.class)).isZero();
+    }
+
+    @Test
+    void compressedTextIsStoredWithoutToastCompression() {
+        assertThat(jdbc.queryForObject("SELECT attstorage FROM pg_attribute " +
+                "WHERE attrelid = 'document_texts'::regclass AND attname = 'data'", String.class)).isEqualTo("e");
+    }
+
+    @Test
+    void keywordSearchTermsHaveGinIndex() {
+        assertThat(jdbc.queryForObject("SELECT indexdef FROM pg_indexes WHERE indexname = 'document_text_terms_idx'",
+                String.class)).contains("gin").contains("(terms)");
+    }
+}
@@ -0,0 +1,272 @@
+package reindex;
+
+import com.docsearch.DocSearchApplication;
+import com.docsearch.ingest.IngestionWorker;
+import com.docsearch.model.ReindexJobEntity.Status;
+import com.docsearch.model.ReindexProgress;
+import com.docsearch.service.DocumentService;
+import com.docsearch.service.ReindexService;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+import support.StubOllamaServer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests {@link ReindexService} against a real Postgres with pgvector.
+ * <p>
+ * Ingestion workers are disabled ({@code docsearch.ingestion.workers=0}), so chunks reach the live
+ * table only through {@link IngestionWorker#pollOnce(String)} or the re-index job itself. Jobs run on
+ * the service's own thread; the tests wait for the state they expect.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@SpringBootTest(classes = DocSearchApplication.class, webEnvironment = SpringBootTest.WebEnvironment.NONE)
+class ReindexJobTest {
+
+    static final int DIMENSIONS = 768;
+    static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+    @Container
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>(
+            DockerImageName.parse("pgvector/pgvector:pg16").asCompatibleSubstituteFor("postgres"));
+
+    static final StubOllamaServer OLLAMA;
+
+    static {
+        try {
+            OLLAMA = new StubOllamaServer(DIMENSIONS);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @DynamicPropertySource
+    static void properties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+        registry.add("spring.ai.ollama.base-url", OLLAMA::baseUrl);
+        registry.add("spring.ai.vectorstore.pgvector.dimensions", () -> DIMENSIONS);
+        registry.add("docsearch.ingestion.workers", () -> 0);
+        registry.add("docsearch.reindex.page-size", () -> 2);
+        registry.add("docsearch.reindex.max-embeds-per-second", () -> 0);
+        registry.add("docsearch.reindex.drop-retired-table", () -> false);
+    }
+
+    @Autowired
+    private ReindexService reindex;
+
+    @Autowired
+    private DocumentService documents;
+
+    @Autowired
+    private IngestionWorker worker;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Autowired
+    private TransactionTemplate tx;
+
+    @Value("${spring.ai.ollama.embedding.options.model}")
+    private String queryModel;
+
+    @AfterAll
+    static void stopOllama() {
+        OLLAMA.close();
+    }
+
+    @BeforeEach
+    void clear() {
+        OLLAMA.setLatency(Duration.ZERO);
+        jdbc.update("UPDATE reindex_jobs SET status = 'CANCELLED' WHERE status <> 'CUT_OVER'");
+        jdbc.execute("DROP TABLE IF EXISTS vector_store_shadow");
+        jdbc.update("DELETE FROM ingestion_tasks");
+        jdbc.update("DELETE FROM document_texts");
+        jdbc.update("DELETE FROM document_text_terms");
+        jdbc.update("DELETE FROM vector_store");
+        jdbc.update("DELETE FROM documents");
+    }
+
+    /**
+     * A finished job is cut over in the background: the shadow table and its partitions take the live
+     * names, the previous ones are retired, and documents uploaded after the job finished are included.
+     */
+    @Test
+    void start_ThenCutover_SwapsTablesAndPartitions() throws Exception {
+        upload("alpha", 2000);
+        upload("alpha", 2000);
+        upload("beta", 2000);
+        drain();
+        ReindexProgress started = reindex.start(queryModel, DIMENSIONS);
+
+        ReindexProgress ready = await(started.getJobId(), Status.READY);
+        assertThat(ready.getDocsProcessed()).isEqualTo(3);
+        assertThat(ready.getChunksEmbedded()).isEqualTo(9);
+        assertThat(ready.getPercentComplete()).isEqualTo(100.0);
+        assertThat(count("vector_store_shadow")).isEqualTo(9);
+
+        Long late = upload("gamma", 2000);
+        ReindexProgress accepted = reindex.cutover(started.getJobId());
+        assertThat(accepted.getStatus()).isEqualTo(Status.CUTTING_OVER);
+
+        ReindexProgress done = await(started.getJobId(), Status.CUT_OVER);
+        assertThat(done.getDocsProcessed()).isEqualTo(4);
+        assertThat(exists("vector_store_shadow")).isFalse();
+        assertThat(exists("vector_store_c_alpha")).isTrue();
+        assertThat(exists("vector_store_c_beta")).isTrue();
+        assertThat(exists("vector_store_c_gamma")).isTrue();
+        assertThat(exists("vector_store_retired_" + started.getJobId() + "_c_alpha")).isTrue();
+        assertThat(count("vector_store_c_alpha")).isEqualTo(6);
+        assertThat(chunks(late)).isEqualTo(3);
+        assertThat(count("vector_store")).isEqualTo(12);
+    }
+
+    /**
+     * A document whose upload commits while the swap transaction waits for it is not embedded under the
+     * swap's locks: the swap backs off, catches up and swaps on its next attempt, so the chunks are live.
+     */
+    @Test
+    void cutover_DocumentUploadedDuringCutover_KeepsItsChunks() throws Exception {
+        upload("default", 2000);
+        Long jobId = reindex.start(queryModel, DIMENSIONS).getJobId();
+        await(jobId, Status.READY);
+
+        CountDownLatch uploaded = new CountDownLatch(1);
+        CountDownLatch commit = new CountDownLatch(1);
+        CompletableFuture<Long> racing = CompletableFuture.supplyAsync(() -> tx.execute(status -> {
+            try {
+                Long id = upload("default", 2000);
+                uploaded.countDown();
+                commit.await(TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+                return id;
+            } catch (IOException | InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        }));
+        assertThat(uploaded.await(TIMEOUT.toMillis(), TimeUnit.MILLISECONDS)).isTrue();
+
+        reindex.cutover(jobId);
+        // the swap transaction now waits for the open upload before taking its locks
+        waitFor(() -> jdbc.queryForObject("SELECT count(*) FROM pg_locks " +
+                "WHERE NOT granted AND relation = 'documents'::regclass", Long.class) > 0);
+        assertThat(reindex.current().orElseThrow().getStatus()).isEqualTo(Status.CUTTING_OVER);
+        commit.countDown();
+        Long id = racing.get(TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+
+        assertThat(await(jobId, Status.CUT_OVER).getDocsProcessed()).isEqualTo(2);
+        assertThat(chunks(id)).isEqualTo(3);
+    }
+
+    /**
+     * A job can be paused between pages, resumed from its cursor, and cancelled, which drops the shadow table.
+     */
+    @Test
+    void pauseResumeCancel_FollowTheJobLifecycle() throws Exception {
+        for (int i = 0; i < 6; i++) {
+            upload("default", 2000);
+        }
+        OLLAMA.setLatency(Duration.ofMillis(50));
+        Long jobId = reindex.start(queryModel, DIMENSIONS).getJobId();
+
+        reindex.pause(jobId);
+        ReindexProgress paused = await(jobId, Status.PAUSED);
+        assertThat(paused.getDocsProcessed()).isLessThan(6);
+        assertThatThrownBy(() -> reindex.pause(jobId)).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> reindex.start(queryModel, DIMENSIONS)).isInstanceOf(IllegalStateException.class);
+
+        OLLAMA.setLatency(Duration.ZERO);
+        reindex.resume(jobId);
+        ReindexProgress ready = await(jobId, Status.READY);
+        assertThat(ready.getDocsProcessed()).isEqualTo(6);
+        assertThat(ready.getChunksEmbedded()).isEqualTo(18);
+        assertThat(count("vector_store_shadow")).isEqualTo(18);
+
+        assertThat(reindex.cancel(jobId).getStatus()).isEqualTo(Status.CANCELLED);
+        assertThat(exists("vector_store_shadow")).isFalse();
+        assertThatThrownBy(() -> reindex.cutover(jobId)).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> reindex.cancel(jobId)).isInstanceOf(IllegalStateException.class);
+    }
+
+    /**
+     * Vectors of another model than the one queries are embedded with are never swapped in.
+     */
+    @Test
+    void cutover_ModelDiffersFromQueryModel_IsRefused() throws Exception {
+        upload("default", 2000);
+        Long jobId = reindex.start("another-embed-model", DIMENSIONS).getJobId();
+        await(jobId, Status.READY);
+
+        assertThatThrownBy(() -> reindex.cutover(jobId))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("spring.ai.ollama.embedding.options.model");
+        assertThat(reindex.current().orElseThrow().getStatus()).isEqualTo(Status.READY);
+        assertThat(exists("vector_store_shadow")).isTrue();
+    }
+
+    private Long upload(String collection, int chars) throws IOException {
+        byte[] bytes = "lorem ipsum ".repeat(chars / 12 + 1).substring(0, chars).getBytes(StandardCharsets.UTF_8);
+        return documents.upload(new MockMultipartFile("file", "doc.txt", "text/plain", bytes), null, collection)
+                .getId();
+    }
+
+    private void drain() {
+        while (worker.pollOnce("test") > 0) {
+            // drain
+        }
+    }
+
+    private ReindexProgress await(Long jobId, Status expected) throws InterruptedException {
+        Set<Status> settled = Set.of(expected, Status.FAILED);
+        waitFor(() -> settled.contains(reindex.current().orElseThrow().getStatus()));
+        ReindexProgress progress = reindex.current().orElseThrow();
+        assertThat(progress.getJobId()).isEqualTo(jobId);
+        assertThat(progress.getStatus()).as(progress.getError()).isEqualTo(expected);
+        return progress;
+    }
+
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TIMEOUT.toNanos();
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("condition not met within " + TIMEOUT).isLessThan(deadline);
+            Thread.sleep(20);
+        }
+    }
+
+    private boolean exists(String table) {
+        return jdbc.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class, table);
+    }
+
+    private long count(String table) {
+        return jdbc.queryForObject("SELECT count(*) FROM " + table, Long.class);
+    }
+
+    private long chunks(Long docId) {
+        return jdbc.queryForObject("SELECT count(*) FROM vector_store WHERE metadata->>'docId' = ?",
+                Long.class, String.valueOf(docId));
+    }
+}
@@ -0,0 +1,140 @@
+package resilience;
+
+import com.docsearch.config.ResilienceProperties;
+import com.docsearch.metrics.PipelineMetrics;
+import com.docsearch.resilience.GuardedEmbeddingModel;
+import com.docsearch.resilience.OllamaGuard;
+import com.docsearch.resilience.OllamaUnavailableException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.ollama.OllamaEmbeddingModel;
+import org.springframework.ai.ollama.api.OllamaApi;
+import org.springframework.ai.ollama.api.OllamaOptions;
+import support.StubOllamaServer;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for {@link OllamaGuard} against a local {@link StubOllamaServer}.
+ * <p>
+ * Verifies deadlines, opening and recovery of the circuit breaker,
+ * and bulkhead rejection, using the real Ollama embedding client.
+ */
+class OllamaGuardTest {
+
+    private StubOllamaServer stub;
+    private ResilienceProperties.Guard config;
+    private OllamaGuard guard;
+    private EmbeddingModel model;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        stub = new StubOllamaServer(8);
+        config = new ResilienceProperties.Guard(Duration.ofMillis(200), 2);
+        config.setFailureThreshold(2);
+        config.setOpenDuration(Duration.ofMillis(300));
+        config.setMaxWait(Duration.ofMillis(20));
+        guard = new OllamaGuard("embedding", config, new PipelineMetrics(new SimpleMeterRegistry()));
+
+        OllamaEmbeddingModel ollama = new OllamaEmbeddingModel(new OllamaApi(stub.baseUrl()),
+                OllamaOptions.create().withModel("nomic-embed-text"));
+        model = new GuardedEmbeddingModel(ollama, guard);
+    }
+
+    @AfterEach
+    void tearDown() {
+        guard.shutdown();
+        stub.close();
+    }
+
+    /**
+     * Tests that a fast server answers through the guard and leaves the circuit closed.
+     */
+    @Test
+    void embed_FastServer_ReturnsVector() {
+        List<Double> vector = model.embed("hello");
+
+        assertThat(vector).hasSize(8);
+        assertThat(guard.getState()).isEqualTo(OllamaGuard.State.CLOSED);
+    }
+
+    /**
+     * Tests that a slow server hits the deadline, that repeated timeouts open the circuit,
+     * and that calls are then rejected without reaching the server.
+     */
+    @Test
+    void embed_SlowServer_TimesOutAndOpensCircuit() {
+        stub.setLatency(Duration.ofSeconds(2));
+
+        long start = System.nanoTime();
+        assertThatThrownBy(() -> model.embed("a"))
+                .isInstanceOfSatisfying(OllamaUnavailableException.class,
+                        e -> assertThat(e.getReason()).isEqualTo(OllamaUnavailableException.Reason.TIMEOUT));
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(1));
+
+        assertThatThrownBy(() -> model.embed("b")).isInstanceOf(OllamaUnavailableException.class);
+        assertThat(guard.getState()).isEqualTo(OllamaGuard.State.OPEN);
+        assertThat(guard.isCallPermitted()).isFalse();
+
+        int before = stub.requestCount();
+        assertThatThrownBy(() -> model.embed("c"))
+                .isInstanceOfSatisfying(OllamaUnavailableException.class,
+                        e -> assertThat(e.getReason()).isEqualTo(OllamaUnavailableException.Reason.CIRCUIT_OPEN));
+        assertThat(stub.requestCount()).isEqualTo(before);
+    }
+
+    /**
+     * Tests that after the open period a successful trial call closes the circuit again.
+     */
+    @Test
+    void embed_AfterOpenDuration_TrialCallClosesCircuit() throws Exception {
+        stub.setLatency(Duration.ofSeconds(2));
+        assertThatThrownBy(() -> model.embed("a")).isInstanceOf(OllamaUnavailableException.class);
+        assertThatThrownBy(() -> model.embed("b")).isInstanceOf(OllamaUnavailableException.class);
+        assertThat(guard.getState()).isEqualTo(OllamaGuard.State.OPEN);
+
+        stub.setLatency(Duration.ZERO);
+        Thread.sleep(config.getOpenDuration().toMillis() + 50);
+        assertThat(guard.isCallPermitted()).isTrue();
+
+        assertThat(model.embed("c")).hasSize(8);
+        assertThat(guard.getState()).isEqualTo(OllamaGuard.State.CLOSED);
+    }
+
+    /**
+     * Tests that calls beyond the concurrency limit are rejected by the bulkhead.
+     */
+    @Test
+    void call_AllSlotsBusy_RejectsWithBulkheadFull() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(2);
+        config.setTimeout(Duration.ofSeconds(5));
+        for (int i = 0; i < 2; i++) {
+            new Thread(() -> guard.call(() -> {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return null;
+            })).start();
+        }
+        assertThat(started.await(1, TimeUnit.SECONDS)).isTrue();
+
+        assertThatThrownBy(() -> guard.call(() -> "x"))
+                .isInstanceOfSatisfying(OllamaUnavailableException.class,
+                        e -> assertThat(e.getReason()).isEqualTo(OllamaUnavailableException.Reason.BULKHEAD_FULL));
+
+        release.countDown();
+    }
+}
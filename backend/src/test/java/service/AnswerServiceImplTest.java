@@ -0,0 +1,133 @@
+package service;
+
+import com.docsearch.config.AskProperties;
+import com.docsearch.metrics.PipelineMetrics;
+import com.docsearch.model.AnswerContext;
+import com.docsearch.model.DocumentSummary;
+import com.docsearch.repository.DocumentRepository;
+import com.docsearch.service.GenerationRejectedException;
+import com.docsearch.service.impl.AnswerServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for {@link AnswerServiceImpl}.
+ * <p>
+ * Verifies context assembly within the token budget, citation numbering,
+ * and the bound on concurrent generations.
+ */
+class AnswerServiceImplTest {
+
+    private VectorStore vectorStore;
+    private DocumentRepository repo;
+    private ChatClient ollamaChatClient;
+    private AskProperties props;
+    private AnswerServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        vectorStore = mock(VectorStore.class);
+        repo = mock(DocumentRepository.class);
+        ollamaChatClient = mock(ChatClient.class);
+        props = new AskProperties();
+        props.setContextTokenBudget(10);
+        props.setCharsPerToken(4);
+        props.setMaxConcurrentGenerations(1);
+        service = new AnswerServiceImpl(vectorStore, repo, ollamaChatClient, props,
+                new PipelineMetrics(new SimpleMeterRegistry()));
+    }
+
+    /**
+     * Tests that chunks are packed in relevance order until the 40-character budget
+     * is reached, skipping a chunk that no longer fits, and that citations carry filenames
+     * looked up for the packed chunks only.
+     */
+    @Test
+    void retrieve_PacksChunksWithinBudget() {
+        Document first = new Document("a".repeat(30), Map.of("docId", 1L, "chunkIndex", 0));
+        Document tooLong = new Document("b".repeat(20), Map.of("docId", 2L, "chunkIndex", 0));
+        Document small = new Document("c".repeat(8), Map.of("docId", 1L, "chunkIndex", 1));
+        when(vectorStore.similaritySearch(any(SearchRequest.class)))
+                .thenReturn(List.of(first, tooLong, small));
+        when(repo.findByIdIn(anyCollection())).thenReturn(List.of(summary(1L, "a.txt"), summary(2L, "b.txt")));
+
+        AnswerContext context = service.retrieve("question?");
+
+        assertThat(context.getCitations()).hasSize(2);
+        assertThat(context.getCitations().get(0).getIndex()).isEqualTo(1);
+        assertThat(context.getCitations().get(0).getFilename()).isEqualTo("a.txt");
+        assertThat(context.getCitations().get(1).getChunkIndex()).isEqualTo(1);
+        assertThat(context.getPrompt()).contains("[1] a.txt").contains("[2] a.txt")
+                .doesNotContain("bbbb").endsWith("Question: question?");
+        verify(repo).findByIdIn(Set.of(1L));
+    }
+
+    /**
+     * Tests that the most relevant chunk is truncated rather than dropped
+     * when it alone exceeds the budget.
+     */
+    @Test
+    void retrieve_TruncatesOversizedFirstChunk() {
+        Document huge = new Document("x".repeat(500), Map.of("docId", 3L));
+        when(vectorStore.similaritySearch(any(SearchRequest.class))).thenReturn(List.of(huge));
+        when(repo.findByIdIn(anyCollection())).thenReturn(List.of());
+
+        AnswerContext context = service.retrieve("q");
+
+        assertThat(context.getCitations()).hasSize(1);
+        assertThat(context.getPrompt()).contains("x".repeat(40)).doesNotContain("x".repeat(41));
+    }
+
+    /**
+     * Tests that a second generation is rejected while the only slot is in use,
+     * and accepted again once the first stream completes.
+     */
+    @Test
+    void stream_RejectsWhenAllSlotsBusy() {
+        ChatClient.ChatClientRequest mockRequest = mock(ChatClient.ChatClientRequest.class);
+        ChatClient.ChatClientRequest.StreamResponseSpec mockStreamSpec =
+                mock(ChatClient.ChatClientRequest.StreamResponseSpec.class);
+        when(ollamaChatClient.prompt()).thenReturn(mockRequest);
+        when(mockRequest.system(anyString())).thenReturn(mockRequest);
+        when(mockRequest.user(anyString())).thenReturn(mockRequest);
+        when(mockRequest.stream()).thenReturn(mockStreamSpec);
+        when(mockStreamSpec.content()).thenReturn(Flux.just("Hello", " world"));
+
+        AnswerContext context = AnswerContext.builder().question("q").prompt("p").citations(List.of()).build();
+
+        Flux<String> first = service.stream(context);
+        assertThatThrownBy(() -> service.stream(context)).isInstanceOf(GenerationRejectedException.class);
+
+        assertThat(first.collectList().block()).containsExactly("Hello", " world");
+        assertThat(service.stream(context).collectList().block()).containsExactly("Hello", " world");
+    }
+
+    private static DocumentSummary summary(Long id, String filename) {
+        return new DocumentSummary() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public String getFilename() {
+                return filename;
+            }
+        };
+    }
+}
@@ -1,12 +1,25 @@
 package service;
 
+import com.docsearch.config.IngestionProperties;
+import com.docsearch.config.SearchProperties;
+import com.docsearch.ingest.IngestionQueue;
+import com.docsearch.metrics.PipelineMetrics;
 import com.docsearch.model.DocumentEntity;
 import com.docsearch.repository.DocumentRepository;
+import com.docsearch.resilience.OllamaGuard;
+import com.docsearch.resilience.OllamaGuards;
+import com.docsearch.service.SuggestionService;
 import com.docsearch.service.impl.DocumentServiceImpl;
+import com.docsearch.service.impl.TextChunker;
+import com.docsearch.startup.StartupMetrics;
+import com.docsearch.storage.DocumentTextStore;
+import com.docsearch.vector.PgCollectionVectorStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.apache.pdfbox.pdmodel.font.PDType1Font;
 import org.apache.pdfbox.pdmodel.font.Standard14Fonts;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.ai.document.Document;
 import org.springframework.ai.vectorstore.SearchRequest;
@@ -16,9 +29,11 @@ import org.springframework.mock.web.MockMultipartFile;
 import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 import java.util.List;
+import java.util.Optional;
 import java.util.Set;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
@@ -31,27 +46,44 @@ import static org.mockito.Mockito.*;
 class DocumentServiceImplTest {
 
     private DocumentRepository repo;
+    private DocumentTextStore textStore;
     private VectorStore vectorStore;
     private  ChatClient ollamaChatClient;
     private DocumentServiceImpl service;
+    private SimpleMeterRegistry registry;
+    private OllamaGuard embeddingGuard;
+    private IngestionQueue ingestionQueue;
+    private SuggestionService suggestions;
 
     /**
-     * Initializes mocks for {@link DocumentRepository} and {@link VectorStore},
+     * Initializes mocks for {@link DocumentRepository}, {@link VectorStore} and the Ollama guards,
      * and sets up a fresh {@link DocumentServiceImpl} before each test.
      */
     @BeforeEach
     void setUp() {
         repo = mock(DocumentRepository.class);
+        textStore = mock(DocumentTextStore.class);
         vectorStore = mock(VectorStore.class);
         ollamaChatClient = mock(ChatClient.class);
-        service = new DocumentServiceImpl(repo, vectorStore,ollamaChatClient);
+        registry = new SimpleMeterRegistry();
+        OllamaGuards guards = mock(OllamaGuards.class);
+        embeddingGuard = mock(OllamaGuard.class);
+        when(guards.embedding()).thenReturn(embeddingGuard);
+        when(embeddingGuard.isCallPermitted()).thenReturn(true);
+        ingestionQueue = mock(IngestionQueue.class);
+        suggestions = mock(SuggestionService.class);
+        PipelineMetrics metrics = new PipelineMetrics(registry);
+        service = new DocumentServiceImpl(repo, textStore, vectorStore,ollamaChatClient, metrics,
+                guards, ingestionQueue, new IngestionProperties(), new StartupMetrics(metrics), suggestions,
+                new SearchProperties());
     }
 
     /**
      * Tests uploading a plain text file.
      * <p>
-     * Verifies that the text content is saved in the {@link DocumentEntity},
-     * persisted via the repository, and chunks are added to the vector store.
+     * Verifies that the text content is returned in the {@link DocumentEntity},
+     * the entity is persisted via the repository, the text is written to the
+     * {@link DocumentTextStore}, and its chunks are queued for embedding.
      */
     @Test
     void upload_TextFile_SavesEntityAndChunks() throws Exception {
@@ -77,14 +109,16 @@ class DocumentServiceImplTest {
         assertThat(result.getContentText()).contains("Hello world");
 
         verify(repo, times(1)).save(any(DocumentEntity.class));
-        verify(vectorStore, atLeastOnce()).add(anyList());
+        verify(textStore).save(1L, content);
+        verify(ingestionQueue).enqueue(eq(1L), eq("default"), anyList(), anyInt());
+        verify(suggestions).documentAdded(1L, "test.txt", content);
     }
 
     /**
      * Tests uploading a PDF file.
      * <p>
      * Uses a helper to create a simple PDF with text content, then verifies that
-     * the extracted text is persisted correctly and chunks are added to the vector store.
+     * the extracted text is persisted correctly and its chunks are queued for embedding.
      */
     @Test
     void upload_PdfFile_ExtractsTextAndSaves() throws Exception {
@@ -111,14 +145,14 @@ class DocumentServiceImplTest {
         assertThat(result.getContentText()).contains("PDF");
 
         verify(repo, times(1)).save(any(DocumentEntity.class));
-        verify(vectorStore, atLeastOnce()).add(anyList());
+        verify(ingestionQueue).enqueue(eq(2L), eq("default"), anyList(), anyInt());
     }
 
     /**
      * Tests the search method when vector store returns results.
      * <p>
      * Verifies that matching document IDs from the vector store are
-     * fetched from the repository and returned.
+     * fetched from the repository and returned with their previews.
      */
     @Test
     void search_WithVectorResults_ReturnsRepoEntities() {
@@ -136,6 +170,7 @@ class DocumentServiceImplTest {
 
         verify(vectorStore).similaritySearch(any(SearchRequest.class));
         verify(repo).findAllById(Set.of(5L));
+        verify(textStore).attachPreviews(List.of(entity));
     }
 
     /**
@@ -150,14 +185,154 @@ class DocumentServiceImplTest {
                 .thenReturn(List.of());
 
         DocumentEntity entity = DocumentEntity.builder().id(10L).filename("db.txt").build();
-        when(repo.searchLike("world")).thenReturn(List.of(entity));
+        when(repo.searchLike("world", "'world':*")).thenReturn(List.of(entity));
 
         List<DocumentEntity> results = service.search("world");
 
         assertThat(results).hasSize(1);
         assertThat(results.get(0).getFilename()).isEqualTo("db.txt");
 
-        verify(repo).searchLike("world");
+        verify(repo).searchLike("world", "'world':*");
+    }
+
+    /**
+     * Tests searching within collections.
+     * <p>
+     * Verifies that the normalized collection names reach the vector store as a
+     * filter expression and that the keyword fallback is limited to them too.
+     */
+    @Test
+    void search_WithCollections_FiltersVectorAndKeywordSearch() {
+        when(vectorStore.similaritySearch(any(SearchRequest.class))).thenReturn(List.of());
+        DocumentEntity entity = DocumentEntity.builder().id(12L).filename("b.txt").collection("team_b").build();
+        when(repo.searchLikeInCollections("world", "'world':*", Set.of("team_a", "team_b"))).thenReturn(List.of(entity));
+
+        List<DocumentEntity> results = service.search("world", List.of("Team_B", " team_a "));
+
+        ArgumentCaptor<SearchRequest> request = ArgumentCaptor.forClass(SearchRequest.class);
+        verify(vectorStore).similaritySearch(request.capture());
+        assertThat(request.getValue().getFilterExpression())
+                .isEqualTo(PgCollectionVectorStore.inCollections(List.of("team_a", "team_b")));
+        assertThat(results).containsExactly(entity);
+        verify(repo, never()).searchLike(anyString(), anyString());
+    }
+
+    /**
+     * Tests that an invalid collection name is rejected before anything is searched or stored.
+     */
+    @Test
+    void invalidCollection_IsRejected() {
+        MockMultipartFile file = new MockMultipartFile(
+                "file", "test.txt", "text/plain", "x".getBytes(StandardCharsets.UTF_8)
+        );
+
+        assertThatThrownBy(() -> service.upload(file, null, "no spaces"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> service.search("world", List.of("../etc")))
+                .isInstanceOf(IllegalArgumentException.class);
+        verifyNoInteractions(repo, vectorStore, ingestionQueue);
+    }
+
+    /**
+     * Tests the search method when the vector store throws.
+     * <p>
+     * Verifies that the failure is no longer swallowed silently: the keyword
+     * fallback is used and counted with reason {@code error}, and the failed
+     * vector query is still timed.
+     */
+    @Test
+    void search_VectorStoreFails_CountsErrorFallback() {
+        when(vectorStore.similaritySearch(any(SearchRequest.class)))
+                .thenThrow(new IllegalStateException("ollama down"));
+        when(repo.searchLike("world", "'world':*")).thenReturn(List.of());
+
+        service.search("world");
+
+        assertThat(registry.get(PipelineMetrics.SEARCH_FALLBACKS).tag("reason", "error").counter().count())
+                .isEqualTo(1.0);
+        assertThat(registry.get(PipelineMetrics.SEARCH_REQUESTS).tag("mode", "keyword").counter().count())
+                .isEqualTo(1.0);
+        assertThat(registry.get(PipelineMetrics.VECTOR_QUERY).tag("outcome", "error").timer().count())
+                .isEqualTo(1);
+        verify(repo).searchLike("world", "'world':*");
+    }
+
+    /**
+     * Tests the search method while the embedding circuit is open.
+     * <p>
+     * Verifies that the vector store is not called at all and the keyword
+     * fallback answers immediately.
+     */
+    @Test
+    void search_CircuitOpen_SkipsVectorStore() {
+        when(embeddingGuard.isCallPermitted()).thenReturn(false);
+        DocumentEntity entity = DocumentEntity.builder().id(11L).filename("kw.txt").build();
+        when(repo.searchLike("world", "'world':*")).thenReturn(List.of(entity));
+
+        List<DocumentEntity> results = service.search("world");
+
+        assertThat(results).extracting(DocumentEntity::getId).containsExactly(11L);
+        verify(vectorStore, never()).similaritySearch(any(SearchRequest.class));
+        assertThat(registry.get(PipelineMetrics.SEARCH_FALLBACKS).tag("reason", "circuit_open").counter().count())
+                .isEqualTo(1.0);
+    }
+
+    /**
+     * Tests that uploading does not embed anything itself.
+     * <p>
+     * Verifies that the vector store is not called during the upload and that
+     * the chunk boundaries handed to the {@link IngestionQueue} cover the text.
+     */
+    @Test
+    void upload_QueuesChunkSpansWithoutEmbedding() throws Exception {
+        MockMultipartFile file = new MockMultipartFile(
+                "file", "test.txt", "text/plain", "x".repeat(2000).getBytes(StandardCharsets.UTF_8)
+        );
+        when(repo.save(any(DocumentEntity.class)))
+                .thenReturn(DocumentEntity.builder().id(3L).filename("test.txt").build());
+
+        DocumentEntity result = service.upload(file, null);
+
+        assertThat(result.getId()).isEqualTo(3L);
+        verify(vectorStore, never()).add(anyList());
+        verify(ingestionQueue).enqueue(eq(3L), eq("default"), eq(List.of(
+                new TextChunker.Span(0, 800),
+                new TextChunker.Span(680, 1480),
+                new TextChunker.Span(1360, 2000))), eq(new IngestionProperties().getBatchSize()));
+    }
+
+    /**
+     * Tests deleting a document.
+     * <p>
+     * Verifies that the text is read before it is deleted, so its words can be
+     * removed from the {@link SuggestionService}, and that queued tasks are cancelled.
+     */
+    @Test
+    void deleteDocument_RemovesTextTasksAndSuggestions() {
+        when(repo.findById(4L)).thenReturn(Optional.of(DocumentEntity.builder().id(4L).filename("notes.txt").build()));
+        when(textStore.read(4L)).thenReturn("meeting notes");
+
+        assertThat(service.deleteDocument(4L)).isTrue();
+
+        var order = inOrder(textStore, repo, suggestions);
+        order.verify(textStore).read(4L);
+        order.verify(repo).deleteById(4L);
+        order.verify(textStore).delete(4L);
+        order.verify(suggestions).documentRemoved(4L, "notes.txt", "meeting notes");
+        verify(ingestionQueue).cancel(4L);
+    }
+
+    /**
+     * Tests deleting a document that does not exist.
+     */
+    @Test
+    void deleteDocument_Missing_ReturnsFalse() {
+        when(repo.findById(5L)).thenReturn(Optional.empty());
+
+        assertThat(service.deleteDocument(5L)).isFalse();
+
+        verify(repo, never()).deleteById(any());
+        verifyNoInteractions(suggestions);
     }
 
     /**
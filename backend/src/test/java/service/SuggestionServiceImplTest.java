@@ -0,0 +1,160 @@
+package service;
+
+import com.docsearch.config.SuggestProperties;
+import com.docsearch.metrics.PipelineMetrics;
+import com.docsearch.model.DocumentSummary;
+import com.docsearch.model.Suggestion;
+import com.docsearch.model.SuggestionStats;
+import com.docsearch.repository.DocumentRepository;
+import com.docsearch.service.impl.SuggestionServiceImpl;
+import com.docsearch.storage.DocumentTextStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for {@link SuggestionServiceImpl}.
+ * <p>
+ * Verifies completion from queries, filenames and document words, incremental updates on
+ * upload and delete, and building and refreshing the index from {@link DocumentRepository}.
+ */
+class SuggestionServiceImplTest {
+
+    private DocumentRepository repo;
+    private DocumentTextStore textStore;
+    private SimpleMeterRegistry registry;
+    private SuggestionServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        repo = mock(DocumentRepository.class);
+        textStore = mock(DocumentTextStore.class);
+        registry = new SimpleMeterRegistry();
+        when(repo.findIdPageAfter(anyLong(), any())).thenReturn(List.of());
+        service = new SuggestionServiceImpl(repo, textStore, new SuggestProperties(), new PipelineMetrics(registry));
+    }
+
+    /**
+     * Tests that words complete the last word of the input and rank by document frequency.
+     */
+    @Test
+    void suggest_CompletesLastWordFromDocuments() {
+        service.documentAdded(1L, "a.txt", "Kubernetes deployment guide");
+        service.documentAdded(2L, "b.txt", "Kubernetes networking and deployment");
+        service.documentAdded(3L, "c.txt", "Kubectl cheat sheet");
+
+        List<Suggestion> result = service.suggest("Deploying ku", 5);
+
+        assertThat(result).extracting(Suggestion::getText)
+                .containsExactly("deploying kubernetes", "deploying kubectl");
+        assertThat(result.get(0).getKind()).isEqualTo(Suggestion.Kind.TERM);
+        assertThat(result.get(0).getWeight()).isEqualTo(2);
+        assertThat(registry.find(PipelineMetrics.SUGGEST).timer().count()).isEqualTo(1);
+    }
+
+    /**
+     * Tests that frequent queries come first, then filenames as uploaded, and that
+     * queries searched fewer than {@code min-query-count} times are not suggested.
+     */
+    @Test
+    void suggest_RanksQueriesThenFilenames() {
+        service.documentAdded(1L, "Quarterly-Report.pdf", "revenue");
+        service.recordQuery("quarterly revenue");
+        service.recordQuery("Quarterly  Revenue ");
+        service.recordQuery("quarterly costs");
+
+        List<Suggestion> result = service.suggest("qua", 5);
+
+        assertThat(result).extracting(Suggestion::getText)
+                .containsExactly("quarterly revenue", "Quarterly-Report.pdf", "quarterly");
+        assertThat(result).extracting(Suggestion::getKind)
+                .containsExactly(Suggestion.Kind.QUERY, Suggestion.Kind.FILENAME, Suggestion.Kind.TERM);
+    }
+
+    /**
+     * Tests that deleting a document removes words only it contained, and that a second
+     * add or remove of the same document has no effect.
+     */
+    @Test
+    void documentRemoved_PrunesWordsOfThatDocument() {
+        service.documentAdded(1L, "a.txt", "shared unique");
+        service.documentAdded(1L, "a.txt", "shared unique");
+        service.documentAdded(2L, "b.txt", "shared");
+
+        service.documentRemoved(1L, "a.txt", "shared unique");
+        service.documentRemoved(1L, "a.txt", "shared unique");
+
+        assertThat(service.suggest("uni", 5)).isEmpty();
+        assertThat(service.suggest("sha", 5)).extracting(Suggestion::getWeight).containsExactly(1);
+        assertThat(service.stats().getDocuments()).isEqualTo(1);
+    }
+
+    /**
+     * Tests that a rebuild reads all documents page by page and a refresh only reads newer ones.
+     */
+    @Test
+    void rebuildAndRefresh_ReadDocumentsFromDatabase() {
+        when(repo.findIdPageAfter(eq(0L), any())).thenReturn(List.of(1L, 2L));
+        when(repo.findByIdIn(List.of(1L, 2L))).thenReturn(List.of(summary(1L, "one.txt"), summary(2L, "two.txt")));
+        when(textStore.read(1L)).thenReturn("invoice");
+        when(textStore.read(2L)).thenReturn("inventory");
+
+        service.rebuild();
+
+        assertThat(service.suggest("inv", 5)).extracting(Suggestion::getText)
+                .containsExactlyInAnyOrder("invoice", "inventory");
+
+        when(repo.findIdPageAfter(eq(2L), any())).thenReturn(List.of(3L));
+        when(repo.findByIdIn(List.of(3L))).thenReturn(List.of(summary(3L, "three.txt")));
+        when(textStore.read(3L)).thenReturn("investment");
+
+        service.refresh();
+
+        assertThat(service.suggest("inv", 5)).hasSize(3);
+        verify(textStore, times(1)).read(1L);
+
+        SuggestionStats stats = service.stats();
+        assertThat(stats.isReady()).isTrue();
+        assertThat(stats.getDocuments()).isEqualTo(3);
+        assertThat(stats.getMemoryBytes()).isPositive();
+        assertThat(stats.getBytesPerMillionKeys()).isPositive();
+    }
+
+    /**
+     * Tests that a rebuild halves the query counts.
+     */
+    @Test
+    void rebuild_DecaysQueryCounts() {
+        for (int i = 0; i < 4; i++) service.recordQuery("budget");
+        service.recordQuery("budget plan");
+
+        service.rebuild();
+
+        assertThat(service.suggest("bud", 5)).extracting(Suggestion::getText, Suggestion::getWeight)
+                .containsExactly(tuple("budget", 2));
+        assertThat(service.stats().getQueries()).isEqualTo(1);
+    }
+
+    private static DocumentSummary summary(Long id, String filename) {
+        return new DocumentSummary() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public String getFilename() {
+                return filename;
+            }
+        };
+    }
+}
@@ -0,0 +1,35 @@
+package service;
+
+import com.docsearch.service.impl.TextChunker;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for {@link TextChunker}.
+ */
+class TextChunkerTest {
+
+    /**
+     * Tests that consecutive spans overlap by the requested amount and the last one ends the text.
+     */
+    @Test
+    void spans_OverlapBelowLength_CoverTheText() {
+        assertThat(TextChunker.spans(25, 10, 3)).containsExactly(
+                new TextChunker.Span(0, 10), new TextChunker.Span(7, 17), new TextChunker.Span(14, 24),
+                new TextChunker.Span(21, 25));
+        assertThat(TextChunker.spans(0, 10, 3)).isEmpty();
+    }
+
+    /**
+     * Tests that settings under which chunking would never advance are refused instead of looping.
+     */
+    @Test
+    void spans_OverlapNotBelowLength_IsRefused() {
+        assertThatThrownBy(() -> TextChunker.spans(25, 10, 10)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> TextChunker.spans(25, 10, 12)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> TextChunker.spans(25, 10, -1)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> TextChunker.chunk("text", 0, 0)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
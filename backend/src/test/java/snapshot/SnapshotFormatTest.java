@@ -0,0 +1,186 @@
+package snapshot;
+
+import com.docsearch.snapshot.SnapshotCounts;
+import com.docsearch.snapshot.SnapshotFormatException;
+import com.docsearch.snapshot.SnapshotHeader;
+import com.docsearch.snapshot.SnapshotReader;
+import com.docsearch.snapshot.SnapshotRecord;
+import com.docsearch.snapshot.SnapshotWriter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for {@link SnapshotWriter} and {@link SnapshotReader}.
+ * <p>
+ * Verifies that records survive the round trip across many small blocks, and that
+ * corrupted, truncated and foreign files are rejected instead of being read.
+ */
+class SnapshotFormatTest {
+
+    private static final SnapshotHeader HEADER = new SnapshotHeader(3, "nomic-embed-text",
+            Instant.parse("2024-05-01T12:00:00.123456Z"), true, List.of("default", "team_a"));
+
+    @TempDir
+    Path dir;
+
+    /**
+     * Tests that the header, every record type and null values read back as written.
+     */
+    @Test
+    void write_ThenRead_ReturnsSameRecords() throws IOException {
+        Path file = dir.resolve("a.dsnap");
+        List<SnapshotRecord> written = sampleRecords();
+
+        try (SnapshotWriter writer = new SnapshotWriter(Files.newOutputStream(file), HEADER, 128)) {
+            for (SnapshotRecord record : written) {
+                writer.write(record);
+            }
+        }
+
+        try (SnapshotReader reader = SnapshotReader.open(file)) {
+            assertThat(reader.header()).isEqualTo(HEADER);
+            assertThat(reader.counts()).isEqualTo(new SnapshotCounts(20, 1, 1, 30, 2));
+            List<SnapshotRecord> read = readAll(reader);
+
+            assertThat(read).hasSameSizeAs(written);
+            assertThat(read.subList(0, 20)).isEqualTo(written.subList(0, 20));
+            SnapshotRecord.Text text = (SnapshotRecord.Text) read.get(20);
+            assertThat(text.codec()).isEqualTo("lz4");
+            assertThat(text.frameIndex()).containsExactly(1, 2, 3);
+            assertThat(text.data()).isNull();
+            assertThat(((SnapshotRecord.File) read.get(21)).data()).containsExactly(9, 8, 7);
+            SnapshotRecord.Chunk first = (SnapshotRecord.Chunk) written.get(22);
+            SnapshotRecord.Chunk chunk = (SnapshotRecord.Chunk) read.get(22);
+            assertThat(chunk.id()).isEqualTo(first.id());
+            assertThat(chunk.content()).isEqualTo("chunk \u00e9 0");
+            assertThat(chunk.embedding()).containsExactly(first.embedding());
+            assertThat(((SnapshotRecord.Chunk) read.get(51)).embedding()).isNull();
+            assertThat(read.subList(52, 54)).isEqualTo(written.subList(52, 54));
+        }
+    }
+
+    /**
+     * Tests that a snapshot without records is valid.
+     */
+    @Test
+    void emptySnapshot_ReadsNoRecords() throws IOException {
+        Path file = dir.resolve("empty.dsnap");
+        new SnapshotWriter(Files.newOutputStream(file), HEADER, 128).close();
+
+        try (SnapshotReader reader = SnapshotReader.open(file)) {
+            assertThat(reader.counts()).isEqualTo(new SnapshotCounts(0, 0, 0, 0, 0));
+            assertThat(reader.next()).isNull();
+        }
+    }
+
+    /**
+     * Tests that a flipped bit in a block is detected by its checksum.
+     */
+    @Test
+    void corruptedBlock_FailsChecksum() throws IOException {
+        Path file = writeSample();
+        byte[] bytes = Files.readAllBytes(file);
+        // inside the last block: before its 4-byte checksum and the 53-byte trailer
+        bytes[bytes.length - 53 - 4 - 1] ^= 0x10;
+        Files.write(file, bytes);
+
+        try (SnapshotReader reader = SnapshotReader.open(file)) {
+            assertThatThrownBy(() -> readAll(reader))
+                    .isInstanceOf(SnapshotFormatException.class)
+                    .hasMessageContaining("checksum mismatch");
+        }
+    }
+
+    /**
+     * Tests that a file cut short, e.g. by an interrupted copy, is rejected when opened.
+     */
+    @Test
+    void truncatedFile_IsRejected() throws IOException {
+        Path file = writeSample();
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 10));
+
+        assertThatThrownBy(() -> SnapshotReader.open(file)).isInstanceOf(SnapshotFormatException.class);
+    }
+
+    /**
+     * Tests that other files and other format versions are rejected before anything is read.
+     */
+    @Test
+    void foreignFileOrVersion_IsRejected() throws IOException {
+        Path other = dir.resolve("other.dsnap");
+        Files.write(other, new byte[256]);
+        assertThatThrownBy(() -> SnapshotReader.open(other))
+                .isInstanceOf(SnapshotFormatException.class)
+                .hasMessageContaining("not a snapshot");
+
+        Path file = writeSample();
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[9] = 2;
+        Files.write(file, bytes);
+        assertThatThrownBy(() -> SnapshotReader.open(file))
+                .isInstanceOf(SnapshotFormatException.class)
+                .hasMessageContaining("unsupported version 2");
+    }
+
+    /**
+     * Tests that sections must be written in order, as restoring copies one section at a time.
+     */
+    @Test
+    void write_SectionOutOfOrder_Throws() throws IOException {
+        try (SnapshotWriter writer = new SnapshotWriter(Files.newOutputStream(dir.resolve("b.dsnap")), HEADER, 128)) {
+            writer.write(new SnapshotRecord.File(1, new byte[0]));
+
+            assertThatThrownBy(() -> writer.write(new SnapshotRecord.Document(1, "default", "a", null, null, null)))
+                    .isInstanceOf(IllegalStateException.class);
+        }
+    }
+
+    private Path writeSample() throws IOException {
+        Path file = dir.resolve("sample.dsnap");
+        try (SnapshotWriter writer = new SnapshotWriter(Files.newOutputStream(file), HEADER, 128)) {
+            for (SnapshotRecord record : sampleRecords()) {
+                writer.write(record);
+            }
+        }
+        return file;
+    }
+
+    private static List<SnapshotRecord> sampleRecords() {
+        List<SnapshotRecord> records = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            records.add(new SnapshotRecord.Document(i + 1, i % 2 == 0 ? "default" : "team_a", "doc" + i + ".txt",
+                    "text/plain", i % 3 == 0 ? null : "description " + i, Instant.parse("2024-04-01T00:00:00Z").plusSeconds(i)));
+        }
+        records.add(new SnapshotRecord.Text(1, "lz4", 8192, 10, 10, 10, new byte[]{1, 2, 3}, null));
+        records.add(new SnapshotRecord.File(1, new byte[]{9, 8, 7}));
+        for (int i = 0; i < 29; i++) {
+            records.add(new SnapshotRecord.Chunk(UUID.randomUUID(), "default", "chunk \u00e9 " + i,
+                    "{\"docId\":1,\"chunk\":" + i + "}", new float[]{i, -0.5f, Float.MIN_VALUE}));
+        }
+        records.add(new SnapshotRecord.Chunk(UUID.randomUUID(), "team_a", "no embedding", null, null));
+        records.add(new SnapshotRecord.Task(2, "team_a", 0, 16, 0, 12000));
+        records.add(new SnapshotRecord.Task(2, "team_a", 16, 4, 11800, 15000));
+        return records;
+    }
+
+    private static List<SnapshotRecord> readAll(SnapshotReader reader) throws IOException {
+        List<SnapshotRecord> records = new ArrayList<>();
+        for (SnapshotRecord record; (record = reader.next()) != null; ) {
+            records.add(record);
+        }
+        return records;
+    }
+}
@@ -0,0 +1,266 @@
+package snapshot;
+
+import com.docsearch.DocSearchApplication;
+import com.docsearch.ingest.IngestionWorker;
+import com.docsearch.model.DocumentEntity;
+import com.docsearch.model.SnapshotInfo;
+import com.docsearch.model.Suggestion;
+import com.docsearch.service.DocumentService;
+import com.docsearch.service.SnapshotService;
+import com.docsearch.service.SuggestionService;
+import com.docsearch.snapshot.SnapshotConflictException;
+import com.docsearch.snapshot.SnapshotFormatException;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+import support.StubOllamaServer;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests {@link SnapshotService} against a real Postgres with pgvector.
+ * <p>
+ * Documents in two collections are embedded by driving {@link IngestionWorker#pollOnce(String)},
+ * exported, wiped from the database and restored; every row must come back unchanged
+ * without a single call to the embedding model, and the suggestion index must know the restored documents.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@SpringBootTest(classes = DocSearchApplication.class, webEnvironment = SpringBootTest.WebEnvironment.NONE)
+class SnapshotRestoreTest {
+
+    static final int DIMENSIONS = 768;
+
+    static final String DOCUMENT_ROWS = "SELECT id, collection, filename, content_type, description, uploaded_at, " +
+            "lo_get(file_data) AS file FROM documents ORDER BY id";
+    static final String TEXT_ROWS = "SELECT * FROM document_texts ORDER BY doc_id";
+    static final String TERM_ROWS = "SELECT doc_id, segment, terms::text AS terms FROM document_text_terms " +
+            "ORDER BY doc_id, segment";
+    static final String CHUNK_ROWS = "SELECT id, collection, content, metadata::text AS metadata, " +
+            "embedding::text AS embedding FROM vector_store ORDER BY id";
+
+    @Container
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>(
+            DockerImageName.parse("pgvector/pgvector:pg16").asCompatibleSubstituteFor("postgres"));
+
+    static final StubOllamaServer OLLAMA;
+
+    static final Path SNAPSHOTS;
+
+    static {
+        try {
+            OLLAMA = new StubOllamaServer(DIMENSIONS);
+            SNAPSHOTS = Files.createTempDirectory("snapshots");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @DynamicPropertySource
+    static void properties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+        registry.add("spring.ai.ollama.base-url", OLLAMA::baseUrl);
+        registry.add("spring.ai.vectorstore.pgvector.dimensions", () -> DIMENSIONS);
+        registry.add("docsearch.ingestion.workers", () -> 0);
+        registry.add("docsearch.snapshot.directory", SNAPSHOTS::toString);
+        registry.add("docsearch.snapshot.block-bytes", () -> 4096);
+    }
+
+    @Autowired
+    private DocumentService documents;
+
+    @Autowired
+    private SnapshotService service;
+
+    @Autowired
+    private SuggestionService suggestions;
+
+    @Autowired
+    private IngestionWorker worker;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @AfterAll
+    static void stopOllama() {
+        OLLAMA.close();
+    }
+
+    @BeforeEach
+    void clearIndex() {
+        jdbc.update("DELETE FROM ingestion_tasks");
+        jdbc.update("DELETE FROM document_texts");
+        jdbc.update("DELETE FROM document_text_terms");
+        jdbc.update("DELETE FROM vector_store");
+        jdbc.update("DELETE FROM documents");
+    }
+
+    /**
+     * Every document, text, file and chunk is restored as exported, the model is not called, and the
+     * restored filenames are suggested.
+     */
+    @Test
+    void export_ThenRestoreIntoEmptyIndex_RestoresEveryRow() throws Exception {
+        upload("alpha", "a.txt", 3000);
+        upload("alpha", "b.txt", 1200);
+        upload("beta", "c.txt", 5000);
+        drain();
+        List<Map<String, Object>> documentRows = jdbc.queryForList(DOCUMENT_ROWS);
+        List<Map<String, Object>> textRows = jdbc.queryForList(TEXT_ROWS);
+        List<Map<String, Object>> termRows = jdbc.queryForList(TERM_ROWS);
+        List<Map<String, Object>> chunkRows = jdbc.queryForList(CHUNK_ROWS);
+
+        SnapshotInfo exported = service.export(true);
+
+        assertThat(exported.getDocuments()).isEqualTo(3);
+        assertThat(exported.getFiles()).isEqualTo(3);
+        assertThat(exported.getChunks()).isEqualTo(chunkRows.size());
+        assertThat(exported.getCollections()).contains("alpha", "beta");
+        assertThat(service.list()).extracting(SnapshotInfo::getName).contains(exported.getName());
+
+        clearIndex();
+        suggestions.rebuild();
+        assertThat(suggestions.suggest("c.t", 5)).extracting(Suggestion::getText).doesNotContain("c.txt");
+        int embeddingCalls = OLLAMA.requestCount();
+
+        SnapshotInfo restored = service.restore(exported.getName());
+
+        assertThat(restored.getChunks()).isEqualTo(chunkRows.size());
+        assertThat(OLLAMA.requestCount()).isEqualTo(embeddingCalls);
+        assertRowsEqual(jdbc.queryForList(DOCUMENT_ROWS), documentRows);
+        assertRowsEqual(jdbc.queryForList(TEXT_ROWS), textRows);
+        assertRowsEqual(jdbc.queryForList(TERM_ROWS), termRows);
+        assertRowsEqual(jdbc.queryForList(CHUNK_ROWS), chunkRows);
+        assertThat(jdbc.queryForObject("SELECT count(*) FROM vector_store_c_beta", Long.class)).isPositive();
+        assertThat(documents.getText((Long) documentRows.get(0).get("id"), 0, 10)).isEqualTo("x".repeat(10));
+        assertThat(suggestions.suggest("c.t", 5)).extracting(Suggestion::getText).contains("c.txt");
+
+        long maxId = (Long) documentRows.get(documentRows.size() - 1).get("id");
+        assertThat(upload("alpha", "d.txt", 100).getId()).isGreaterThan(maxId);
+    }
+
+    /**
+     * Chunks still queued for embedding at export, pending or claimed by a worker, are queued again after
+     * restore, so the document ends up with the same chunks as if it had never been exported.
+     */
+    @Test
+    void export_WithQueuedChunks_RestoresThemAsPending() throws Exception {
+        upload("alpha", "a.txt", 3000);
+        drain();
+        DocumentEntity queued = upload("beta", "b.txt", 5000);
+        long tasks = jdbc.queryForObject("SELECT count(*) FROM ingestion_tasks", Long.class);
+        jdbc.update("UPDATE ingestion_tasks SET status = 'RUNNING', lease_owner = 'gone', " +
+                "lease_until = now() + interval '1 hour' WHERE id = (SELECT min(id) FROM ingestion_tasks)");
+
+        SnapshotInfo exported = service.export(false);
+
+        assertThat(exported.getTasks()).isEqualTo(tasks);
+        clearIndex();
+        service.restore(exported.getName());
+
+        assertThat(jdbc.queryForList("SELECT DISTINCT status FROM ingestion_tasks", String.class))
+                .containsExactly("PENDING");
+        assertThat(jdbc.queryForObject("SELECT count(*) FROM ingestion_tasks WHERE doc_id = ? AND collection = 'beta'",
+                Long.class, queued.getId())).isEqualTo(tasks);
+        drain();
+        assertThat(jdbc.queryForObject("SELECT count(*) FROM ingestion_tasks", Long.class)).isZero();
+        assertThat(jdbc.queryForObject("SELECT count(*) FROM vector_store_c_beta " +
+                "WHERE metadata->>'docId' = ?", Long.class, queued.getId().toString())).isPositive();
+    }
+
+    /**
+     * Restoring over existing documents is refused and leaves them alone.
+     */
+    @Test
+    void restore_IndexNotEmpty_IsRefused() throws Exception {
+        upload("default", "a.txt", 500);
+        SnapshotInfo exported = service.export(false);
+
+        assertThatThrownBy(() -> service.restore(exported.getName()))
+                .isInstanceOf(SnapshotConflictException.class)
+                .hasMessageContaining("empty index");
+        assertThat(jdbc.queryForObject("SELECT count(*) FROM documents", Long.class)).isEqualTo(1);
+    }
+
+    /**
+     * A corrupted snapshot is rolled back as a whole: nothing is left half restored.
+     */
+    @Test
+    void restore_CorruptedSnapshot_RollsBack() throws Exception {
+        upload("default", "a.txt", 20_000);
+        drain();
+        SnapshotInfo exported = service.export(false);
+        clearIndex();
+        Path file = service.path(exported.getName());
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[bytes.length - 100] ^= 0x01;
+        Files.write(file, bytes);
+
+        assertThatThrownBy(() -> service.restore(exported.getName())).isInstanceOf(SnapshotFormatException.class);
+        assertThat(jdbc.queryForObject("SELECT count(*) FROM documents", Long.class)).isZero();
+        assertThat(jdbc.queryForObject("SELECT count(*) FROM vector_store", Long.class)).isZero();
+    }
+
+    /**
+     * Uploads that are not complete snapshots are not stored.
+     */
+    @Test
+    void store_IncompleteUpload_IsRejected() throws Exception {
+        upload("default", "a.txt", 500);
+        SnapshotInfo exported = service.export(false);
+        byte[] bytes = Files.readAllBytes(service.path(exported.getName()));
+
+        assertThatThrownBy(() -> service.store("copy.dsnap",
+                new ByteArrayInputStream(Arrays.copyOf(bytes, bytes.length / 2))))
+                .isInstanceOf(SnapshotFormatException.class);
+        assertThat(service.store("copy.dsnap", new ByteArrayInputStream(bytes)).getDocuments()).isEqualTo(1);
+        assertThatThrownBy(() -> service.path("../copy.dsnap")).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private DocumentEntity upload(String collection, String name, int chars) throws IOException {
+        byte[] bytes = "x".repeat(chars).getBytes(StandardCharsets.UTF_8);
+        return documents.upload(new MockMultipartFile("file", name, "text/plain", bytes), "about " + name, collection);
+    }
+
+    private void drain() {
+        while (worker.pollOnce("test") > 0) {
+            // drain
+        }
+    }
+
+    private static void assertRowsEqual(List<Map<String, Object>> actual, List<Map<String, Object>> expected) {
+        assertThat(actual).hasSameSizeAs(expected);
+        for (int i = 0; i < expected.size(); i++) {
+            for (Map.Entry<String, Object> column : expected.get(i).entrySet()) {
+                Object value = actual.get(i).get(column.getKey());
+                if (column.getValue() instanceof byte[] b) {
+                    assertThat((byte[]) value).as(column.getKey()).isEqualTo(b);
+                } else {
+                    assertThat(value).as(column.getKey()).isEqualTo(column.getValue());
+                }
+            }
+        }
+    }
+}
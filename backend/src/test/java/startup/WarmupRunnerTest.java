@@ -0,0 +1,151 @@
+package startup;
+
+import com.docsearch.config.ReindexProperties;
+import com.docsearch.config.WarmupProperties;
+import com.docsearch.metrics.PipelineMetrics;
+import com.docsearch.service.DocumentService;
+import com.docsearch.startup.StartupMetrics;
+import com.docsearch.startup.WarmupRunner;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for {@link WarmupRunner} and {@link StartupMetrics}.
+ */
+class WarmupRunnerTest {
+
+    private DataSource dataSource;
+    private JdbcTemplate jdbc;
+    private DocumentService documents;
+    private WarmupProperties props;
+    private SimpleMeterRegistry registry;
+    private WarmupRunner runner;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        dataSource = mock(DataSource.class);
+        Connection connection = mock(Connection.class);
+        when(connection.createStatement()).thenReturn(mock(Statement.class));
+        when(dataSource.getConnection()).thenReturn(connection);
+        jdbc = mock(JdbcTemplate.class);
+        documents = mock(DocumentService.class);
+        props = new WarmupProperties();
+        props.setEnabled(true);
+        props.setConnections(4);
+        props.setQueries(List.of("alpha", "beta"));
+        props.setSearches(5);
+        registry = new SimpleMeterRegistry();
+        runner = new WarmupRunner(dataSource, jdbc, documents, props, new ReindexProperties(),
+                new PipelineMetrics(registry));
+    }
+
+    /**
+     * Disabled warm-up touches neither the database nor the search path.
+     */
+    @Test
+    void run_Disabled_DoesNothing() {
+        props.setEnabled(false);
+
+        runner.run(null);
+
+        verifyNoInteractions(dataSource, jdbc, documents);
+    }
+
+    /**
+     * Fills the pool, capped at its maximum size, and cycles through the warm-up queries.
+     */
+    @Test
+    void run_Enabled_FillsPoolAndRunsSearches() throws SQLException {
+        HikariDataSource hikari = mock(HikariDataSource.class);
+        when(hikari.getMaximumPoolSize()).thenReturn(3);
+        when(dataSource.isWrapperFor(HikariDataSource.class)).thenReturn(true);
+        when(dataSource.unwrap(HikariDataSource.class)).thenReturn(hikari);
+        when(jdbc.queryForObject(contains("pg_extension"), eq(Boolean.class))).thenReturn(false);
+
+        runner.run(null);
+
+        verify(dataSource, times(3)).getConnection();
+        verify(documents, times(3)).search("alpha");
+        verify(documents, times(2)).search("beta");
+        assertThat(registry.get(PipelineMetrics.STARTUP_WARMUP).tag("step", "total").timer().count()).isEqualTo(1);
+    }
+
+    /**
+     * With pg_prewarm installed, each partition of the vector table and each of its indexes are prewarmed.
+     */
+    @Test
+    void run_PrewarmInstalled_PrewarmsPartitionsAndIndexes() {
+        when(jdbc.queryForObject(contains("pg_extension"), eq(Boolean.class))).thenReturn(true);
+        when(jdbc.queryForList(contains("pg_partition_tree"), eq(String.class), eq("vector_store")))
+                .thenReturn(List.of("vector_store_c_default"));
+        when(jdbc.queryForList(contains("pg_index"), eq(String.class), eq("vector_store_c_default")))
+                .thenReturn(List.of("vector_store_c_default_pkey", "vector_store_c_default_embedding_idx"));
+
+        runner.run(null);
+
+        verify(jdbc).queryForObject(contains("pg_prewarm("), eq(Long.class), eq("vector_store_c_default"));
+        verify(jdbc).queryForObject(contains("pg_prewarm("), eq(Long.class), eq("vector_store_c_default_pkey"));
+        verify(jdbc).queryForObject(contains("pg_prewarm("), eq(Long.class), eq("vector_store_c_default_embedding_idx"));
+    }
+
+    /**
+     * A failing step is skipped and does not stop the later steps or startup.
+     */
+    @Test
+    void run_StepFails_ContinuesWithNextStep() throws SQLException {
+        when(dataSource.getConnection()).thenThrow(new SQLException("refused"));
+        when(jdbc.queryForObject(contains("pg_extension"), eq(Boolean.class)))
+                .thenThrow(new IllegalStateException("down"));
+
+        assertThatCode(() -> runner.run(null)).doesNotThrowAnyException();
+
+        verify(documents, times(5)).search(anyString());
+    }
+
+    /**
+     * Once the timeout has passed, the remaining steps are skipped.
+     */
+    @Test
+    void run_TimeoutPassed_SkipsRemainingSteps() {
+        props.setTimeout(Duration.ZERO);
+
+        runner.run(null);
+
+        verifyNoInteractions(dataSource, jdbc, documents);
+    }
+
+    /**
+     * Only the first search of each phase is recorded.
+     */
+    @Test
+    void startupMetrics_RecordsFirstSearchPerPhase() {
+        StartupMetrics startup = new StartupMetrics(new PipelineMetrics(registry));
+
+        startup.searchCompleted(5_000_000);
+        startup.searchCompleted(1_000_000);
+        startup.ready();
+        startup.searchCompleted(2_000_000);
+        startup.searchCompleted(1_000_000);
+
+        assertThat(registry.get(PipelineMetrics.FIRST_SEARCH).tag("phase", "warmup").timer().count()).isEqualTo(1);
+        assertThat(registry.get(PipelineMetrics.FIRST_SEARCH).tag("phase", "traffic").timer().count()).isEqualTo(1);
+        assertThat(registry.get(PipelineMetrics.FIRST_SEARCH).tag("phase", "traffic").timer()
+                .totalTime(TimeUnit.MILLISECONDS)).isEqualTo(2.0);
+    }
+}
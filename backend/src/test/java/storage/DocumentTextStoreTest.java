@@ -0,0 +1,33 @@
+package storage;
+
+import com.docsearch.storage.DocumentTextStore;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for the keyword query built by {@link DocumentTextStore#termQuery(String)}.
+ * <p>
+ * Storing and matching the indexed words needs Postgres and is covered by {@code PgCollectionVectorStoreTest}.
+ */
+class DocumentTextStoreTest {
+
+    /**
+     * Tests that every word is required, lowercased, as a prefix.
+     */
+    @Test
+    void termQuery_Words_AreAllRequiredAsPrefixes() {
+        assertThat(DocumentTextStore.termQuery("  Zet \t LOR ")).isEqualTo("'zet':* & 'lor':*");
+    }
+
+    /**
+     * Tests that quotes and backslashes cannot break out of a quoted word, and that words without
+     * letters or digits are left out.
+     */
+    @Test
+    void termQuery_SpecialCharacters_AreQuoted() {
+        assertThat(DocumentTextStore.termQuery("o'neil a\\b -- !")).isEqualTo("'o''neil':* & 'a\\\\b':*");
+        assertThat(DocumentTextStore.termQuery(" -- ")).isEmpty();
+        assertThat(DocumentTextStore.termQuery(null)).isEmpty();
+    }
+}
@@ -0,0 +1,96 @@
+package storage;
+
+import com.docsearch.storage.FrameIndex;
+import com.docsearch.storage.FramedText;
+import com.docsearch.storage.FramedTextCodec;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link FramedTextCodec}.
+ * <p>
+ * Verifies that text survives the round trip, that a character range can be decoded
+ * from its frames alone, and that frame boundaries never split a surrogate pair.
+ */
+class FramedTextCodecTest {
+
+    private final FramedTextCodec codec = new FramedTextCodec(100, false);
+
+    /**
+     * Tests that the whole text decodes to the original and the index survives serialization.
+     */
+    @Test
+    void encode_ThenDecode_ReturnsOriginalText() {
+        String text = "The quick brown fox jumps over the lazy dog. ".repeat(50);
+
+        FramedText framed = codec.encode(text);
+        FrameIndex index = FrameIndex.fromBytes(framed.getIndex().toBytes());
+
+        assertThat(index.frameCount()).isEqualTo(23);
+        assertThat(index.charLength()).isEqualTo(text.length());
+        assertThat(index.compressedLength()).isLessThan(text.length());
+        assertThat(codec.decode(new FramedText(index, framed.getData()))).isEqualTo(text);
+    }
+
+    /**
+     * Tests decoding a range from only the compressed bytes of the frames it spans.
+     */
+    @Test
+    void decodeFrames_RangeAcrossFrames_UsesOnlyThoseFrames() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 1000; i++) sb.append(i).append(' ');
+        String text = sb.toString();
+
+        FramedText framed = codec.encode(text);
+        FrameIndex index = framed.getIndex();
+        int from = 950, to = 1320;
+        int first = index.frameFor(from);
+        int last = index.frameFor(to - 1);
+        byte[] slice = Arrays.copyOfRange(framed.getData(), index.byteOffset(first), index.byteOffset(last + 1));
+
+        String decoded = codec.decodeFrames(index, slice, first, last);
+        int base = index.charStart(first);
+
+        assertThat(first).isEqualTo(9);
+        assertThat(last).isEqualTo(13);
+        assertThat(decoded.substring(from - base, to - base)).isEqualTo(text.substring(from, to));
+    }
+
+    /**
+     * Tests that a surrogate pair straddling a frame boundary is kept in one frame.
+     */
+    @Test
+    void encode_SurrogatePairAtBoundary_KeepsPairTogether() {
+        String text = "a".repeat(99) + "😀" + "b".repeat(150);
+
+        FramedText framed = codec.encode(text);
+
+        assertThat(framed.getIndex().charStart(1)).isEqualTo(99);
+        assertThat(codec.decode(framed)).isEqualTo(text);
+    }
+
+    /**
+     * Tests that the first frame decodes without the index, as used for previews.
+     */
+    @Test
+    void decodeFrame_FirstFrame_ReturnsItsText() {
+        String text = "héllo wörld ".repeat(30);
+
+        FramedText framed = codec.encode(text);
+        byte[] head = Arrays.copyOf(framed.getData(), framed.getIndex().byteOffset(1));
+
+        assertThat(codec.decodeFrame(head, 100)).isEqualTo(text.substring(0, 100));
+    }
+
+    /**
+     * Tests that empty and missing text encode to zero frames.
+     */
+    @Test
+    void encode_EmptyText_HasNoFrames() {
+        assertThat(codec.encode("").getIndex().frameCount()).isZero();
+        assertThat(codec.decode(codec.encode(null))).isEmpty();
+    }
+}
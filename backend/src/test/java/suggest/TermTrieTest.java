@@ -0,0 +1,95 @@
+package suggest;
+
+import com.docsearch.suggest.TermTrie;
+import com.docsearch.suggest.TermTrie.Entry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link TermTrie}.
+ * <p>
+ * Verifies best-first completion, weight updates, pruning on removal and
+ * that the arrays grow past their initial capacity.
+ */
+class TermTrieTest {
+
+    /**
+     * Tests that completions come back highest weight first and respect the limit.
+     */
+    @Test
+    void top_ReturnsHighestWeightFirst() {
+        TermTrie trie = new TermTrie();
+        trie.add("search", 5);
+        trie.add("sea", 2);
+        trie.add("season", 9);
+        trie.add("seal", 1);
+        trie.add("other", 100);
+
+        assertThat(trie.top("sea", 3)).containsExactly(
+                new Entry("season", 9), new Entry("search", 5), new Entry("sea", 2));
+        assertThat(trie.top("x", 3)).isEmpty();
+        assertThat(trie.top("", 1)).containsExactly(new Entry("other", 100));
+    }
+
+    /**
+     * Tests that removing weight lowers the ranking and prunes keys that drop to zero.
+     */
+    @Test
+    void remove_UpdatesRankingAndPrunesNodes() {
+        TermTrie trie = new TermTrie();
+        trie.add("alpha", 3);
+        trie.add("alps", 2);
+        int nodes = trie.liveNodes();
+
+        trie.remove("alpha", 2);
+        assertThat(trie.top("al", 2)).containsExactly(new Entry("alps", 2), new Entry("alpha", 1));
+
+        assertThat(trie.remove("alpha", 1)).isTrue();
+        assertThat(trie.weight("alpha")).isZero();
+        assertThat(trie.size()).isEqualTo(1);
+        assertThat(trie.liveNodes()).isEqualTo(nodes - 2);
+        assertThat(trie.freedNodes()).isEqualTo(2);
+        assertThat(trie.top("alp", 5)).containsExactly(new Entry("alps", 2));
+
+        assertThat(trie.remove("missing", 1)).isFalse();
+    }
+
+    /**
+     * Tests that a key that is a prefix of another survives removal of the longer key.
+     */
+    @Test
+    void remove_KeepsPrefixKey() {
+        TermTrie trie = new TermTrie();
+        trie.add("car", 1);
+        trie.add("cart", 1);
+
+        trie.remove("cart", 1);
+
+        assertThat(trie.weight("car")).isEqualTo(1);
+        assertThat(trie.top("ca", 5)).containsExactly(new Entry("car", 1));
+    }
+
+    /**
+     * Tests growth beyond the initial capacity and iteration in character order.
+     */
+    @Test
+    void add_GrowsAndVisitsInOrder() {
+        TermTrie trie = new TermTrie(16);
+        for (int i = 0; i < 1000; i++) {
+            trie.add("k" + i, 1);
+        }
+        trie.add("\u00e9migr\u00e9", 4);
+
+        assertThat(trie.size()).isEqualTo(1001);
+        assertThat(trie.memoryBytes()).isGreaterThanOrEqualTo(22L * trie.liveNodes());
+        assertThat(trie.top("\u00e9mi", 1)).containsExactly(new Entry("\u00e9migr\u00e9", 4));
+
+        List<String> keys = new ArrayList<>();
+        trie.forEach((key, weight) -> keys.add(key));
+        assertThat(keys).hasSize(1001).isSorted();
+    }
+}
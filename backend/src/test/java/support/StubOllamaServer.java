@@ -0,0 +1,153 @@
+package support;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Minimal local stand-in for the Ollama HTTP API, backed by the JDK's built-in server.
+ * <p>
+ * Embedding endpoints ({@code /api/embeddings} and the batched {@code /api/embed}) return
+ * deterministic bag-of-words vectors of a fixed dimension after an adjustable artificial
+ * latency: every word of the text is hashed onto one dimension, so texts sharing words are
+ * similar and vector search finds them as it would with a real model. {@code /api/chat}
+ * returns a fixed answer, streamed as NDJSON when requested. Used to exercise timeouts and the circuit breaker, and as the
+ * model stand-in for benchmarks, without a real model.
+ */
+public class StubOllamaServer implements AutoCloseable {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    private final HttpServer server;
+    private final int dimensions;
+    private final AtomicInteger requests = new AtomicInteger();
+    private volatile Duration latency = Duration.ZERO;
+
+    public StubOllamaServer(int dimensions) throws IOException {
+        this.dimensions = dimensions;
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        this.server.setExecutor(Executors.newCachedThreadPool());
+        this.server.createContext("/api/embeddings", exchange -> handle(exchange, false));
+        this.server.createContext("/api/embed", exchange -> handle(exchange, true));
+        this.server.createContext("/api/chat", this::chat);
+        this.server.createContext("/", exchange -> respond(exchange, 200, "Ollama is running"));
+        this.server.start();
+    }
+
+    public String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    public void setLatency(Duration latency) {
+        this.latency = latency;
+    }
+
+    public int requestCount() {
+        return requests.get();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+
+    private void handle(HttpExchange exchange, boolean batched) throws IOException {
+        requests.incrementAndGet();
+        JsonNode request = JSON.readTree(exchange.getRequestBody());
+        try {
+            Thread.sleep(latency.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        List<String> texts = texts(request.path(batched ? "input" : "prompt"));
+        StringBuilder json = new StringBuilder(batched ? "{\"embeddings\":[" : "{\"embedding\":");
+        for (int i = 0; i < texts.size(); i++) {
+            if (i > 0) json.append(',');
+            json.append(vector(texts.get(i)));
+        }
+        json.append(batched ? "]}" : "}");
+        respond(exchange, 200, json.toString());
+    }
+
+    private void chat(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+        try {
+            Thread.sleep(latency.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        String done = "\"done\":true,\"prompt_eval_count\":12,\"eval_count\":3";
+        if (body.replace(" ", "").contains("\"stream\":true")) {
+            respond(exchange, 200,
+                    message("Stub ", "\"done\":false") + "\n" + message("answer.", done) + "\n");
+        } else {
+            respond(exchange, 200, message("Stub answer.", done));
+        }
+    }
+
+    private static String message(String content, String tail) {
+        return "{\"model\":\"stub\",\"created_at\":\"2024-01-01T00:00:00Z\"," +
+                "\"message\":{\"role\":\"assistant\",\"content\":\"" + content + "\"}," + tail + "}";
+    }
+
+    private static List<String> texts(JsonNode input) {
+        List<String> texts = new ArrayList<>();
+        if (input.isArray()) {
+            input.forEach(text -> texts.add(text.asText()));
+        } else {
+            texts.add(input.asText());
+        }
+        return texts;
+    }
+
+    /**
+     * Counts the words of the text into hashed dimensions and normalizes the counts to unit length.
+     * A text without words maps onto the first dimension, as a zero vector has no cosine distance.
+     */
+    private String vector(String text) {
+        float[] counts = new float[dimensions];
+        for (String word : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (!word.isEmpty()) {
+                counts[Math.floorMod(word.hashCode(), dimensions)]++;
+            }
+        }
+        double norm = 0;
+        for (float c : counts) {
+            norm += c * c;
+        }
+        if (norm == 0) {
+            counts[0] = 1;
+            norm = 1;
+        }
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < dimensions; i++) {
+            if (i > 0) sb.append(',');
+            sb.append((float) (counts[i] / Math.sqrt(norm)));
+        }
+        return sb.append(']').toString();
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        } catch (IOException ignored) {
+            // client gave up waiting
+        }
+    }
+}
@@ -0,0 +1,298 @@
+package vector;
+
+import com.docsearch.DocSearchApplication;
+import com.docsearch.ingest.IngestionWorker;
+import com.docsearch.metrics.PipelineMetrics;
+import com.docsearch.model.CollectionSummary;
+import com.docsearch.model.DocumentEntity;
+import com.docsearch.service.DocumentService;
+import com.docsearch.vector.InvalidCollectionException;
+import com.docsearch.vector.PgCollectionVectorStore;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.filter.FilterExpressionBuilder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+import support.StubOllamaServer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+/**
+ * Tests {@link PgCollectionVectorStore} and collection routing against a real Postgres with pgvector.
+ * <p>
+ * Documents are uploaded into two collections and embedded by driving {@link IngestionWorker#pollOnce(String)}.
+ * The stub model's vectors only reflect shared words, so the tests check routing, partitioning and the
+ * merge of per-partition results rather than which chunks are nearest.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@SpringBootTest(classes = DocSearchApplication.class, webEnvironment = SpringBootTest.WebEnvironment.NONE)
+class PgCollectionVectorStoreTest {
+
+    static final int DIMENSIONS = 768;
+
+    @Container
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>(
+            DockerImageName.parse("pgvector/pgvector:pg16").asCompatibleSubstituteFor("postgres"));
+
+    static final StubOllamaServer OLLAMA;
+
+    static {
+        try {
+            OLLAMA = new StubOllamaServer(DIMENSIONS);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @DynamicPropertySource
+    static void properties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+        registry.add("spring.ai.ollama.base-url", OLLAMA::baseUrl);
+        registry.add("spring.ai.vectorstore.pgvector.dimensions", () -> DIMENSIONS);
+        registry.add("docsearch.ingestion.workers", () -> 0);
+        registry.add("docsearch.collections.partition-search-timeout", () -> "1s");
+    }
+
+    @Autowired
+    private DocumentService service;
+
+    @Autowired
+    private IngestionWorker worker;
+
+    @Autowired
+    private PgCollectionVectorStore store;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Autowired
+    private TransactionTemplate tx;
+
+    @BeforeAll
+    void uploadIntoTwoCollections() throws IOException {
+        upload("alpha", "a1.txt", "alpha lorem ", 2000);
+        upload("alpha", "a2.txt", "alpha lorem ", 2000);
+        upload("Beta", "b1.txt", "beta lorem ", 2000);
+        while (worker.pollOnce("test") > 0) {
+            // drain
+        }
+    }
+
+    @AfterAll
+    static void stopOllama() {
+        OLLAMA.close();
+    }
+
+    /**
+     * Each collection gets its own partition, holding its chunks, with its own HNSW index.
+     */
+    @Test
+    void chunksAreStoredInTheirCollectionsPartition() {
+        assertThat(count("vector_store_c_alpha")).isEqualTo(6);
+        assertThat(count("vector_store_c_beta")).isEqualTo(3);
+        assertThat(jdbc.queryForObject("SELECT count(*) FROM pg_indexes WHERE tablename = 'vector_store_c_beta' " +
+                "AND indexdef LIKE '%hnsw%'", Long.class)).isEqualTo(1);
+    }
+
+    /**
+     * Every chunk is embedded with a call of its own, each within the embedding guard's deadline.
+     */
+    @Test
+    void add_EmbedsEachChunkSeparately() {
+        assertThat(registry.get(PipelineMetrics.EMBEDDING).tag("operation", "document").timer().count()).isEqualTo(9);
+        assertThat(registry.find(PipelineMetrics.EMBEDDING).tag("operation", "batch").timer()).isNull();
+    }
+
+    /**
+     * A search filtered to one collection only returns that collection's chunks, closest first.
+     */
+    @Test
+    void search_OneCollection_ReturnsOnlyItsChunks() {
+        List<Document> hits = store.similaritySearch(request(5).withFilterExpression(
+                new FilterExpressionBuilder().eq("collection", "beta").build()));
+
+        assertThat(hits).isNotEmpty().allSatisfy(d -> assertThat(d.getMetadata()).containsEntry("collection", "beta"));
+        assertThat(distances(hits)).isSorted();
+    }
+
+    /**
+     * A search over all collections returns the best of the per-collection results.
+     */
+    @Test
+    void search_AllCollections_MergesTopKByDistance() {
+        int k = 4;
+        List<Document> merged = store.similaritySearch(request(k));
+
+        List<Document> separately = new ArrayList<>();
+        separately.addAll(store.similaritySearch(request(k).withFilterExpression(
+                PgCollectionVectorStore.inCollections(List.of("alpha")))));
+        separately.addAll(store.similaritySearch(request(k).withFilterExpression(
+                PgCollectionVectorStore.inCollections(List.of("beta")))));
+        List<String> expected = separately.stream()
+                .sorted(Comparator.comparingDouble(d -> ((Number) d.getMetadata().get("distance")).doubleValue()))
+                .limit(k)
+                .map(Document::getId)
+                .toList();
+
+        assertThat(merged).extracting(Document::getId).containsExactlyElementsOf(expected);
+        assertThat(distances(merged)).isSorted();
+    }
+
+    /**
+     * A partition that does not answer within the timeout is left out instead of holding up the search.
+     */
+    @Test
+    void search_SlowPartition_IsLeftOut() throws Exception {
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Void> blocker = CompletableFuture.runAsync(() -> tx.executeWithoutResult(status -> {
+            jdbc.execute("LOCK TABLE vector_store_c_beta IN ACCESS EXCLUSIVE MODE");
+            locked.countDown();
+            try {
+                release.await(30, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+        try {
+            assertThat(locked.await(30, TimeUnit.SECONDS)).isTrue();
+            double timeouts = registry.counter(PipelineMetrics.VECTOR_PARTITION_TIMEOUTS).count();
+            long started = System.nanoTime();
+
+            List<Document> hits = store.similaritySearch(request(5));
+
+            assertThat(TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - started)).isLessThan(5);
+            assertThat(hits).isNotEmpty()
+                    .allSatisfy(d -> assertThat(d.getMetadata()).containsEntry("collection", "alpha"));
+            assertThat(registry.counter(PipelineMetrics.VECTOR_PARTITION_TIMEOUTS).count()).isEqualTo(timeouts + 1);
+        } finally {
+            release.countDown();
+            blocker.get(30, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Collections without documents yield no results, and other filters are rejected.
+     */
+    @Test
+    void search_UnknownCollectionOrOtherFilter() {
+        assertThat(store.similaritySearch(request(5).withFilterExpression(
+                PgCollectionVectorStore.inCollections(List.of("gamma"))))).isEmpty();
+        assertThatThrownBy(() -> store.similaritySearch(request(5).withFilterExpression(
+                new FilterExpressionBuilder().eq("docId", 1).build())))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    /**
+     * The keyword fallback of {@link DocumentService#search(String, List)} also stays within the collections.
+     * The query is part of a word, so no chunk is similar enough and the keyword search answers.
+     */
+    @Test
+    void documentSearch_KeywordFallback_RespectsCollections() {
+        List<DocumentEntity> beta = service.search("ore", List.of("beta"));
+        List<DocumentEntity> all = service.search("ore");
+
+        assertThat(beta).extracting(DocumentEntity::getFilename).containsExactly("b1.txt");
+        assertThat(all).extracting(DocumentEntity::getFilename).containsExactlyInAnyOrder("a1.txt", "a2.txt", "b1.txt");
+        assertThat(service.getCollections()).extracting(CollectionSummary::getName, CollectionSummary::getDocuments)
+                .containsExactly(tuple("alpha", 2L),
+                        tuple("beta", 1L));
+    }
+
+    /**
+     * The keyword fallback matches the stored text, so it finds documents whose chunks are not embedded yet.
+     */
+    @Test
+    void documentSearch_NotYetEmbedded_IsFoundByText() throws IOException {
+        Long id = upload("beta", "b2.txt", "zeta lorem ", 2000);
+        try {
+            assertThat(count("vector_store_c_beta")).isEqualTo(3);
+            assertThat(service.search("Zet LOR", List.of("beta"))).extracting(DocumentEntity::getFilename)
+                    .containsExactly("b2.txt");
+            assertThat(service.search("zet lor", List.of("alpha"))).isEmpty();
+        } finally {
+            service.deleteDocument(id);
+        }
+    }
+
+    /**
+     * The keyword fallback matches words anywhere in the text, past the first term segment, and a phrase
+     * across a segment boundary.
+     */
+    @Test
+    void documentSearch_WordsPastFirstSegment_AreFoundByText() throws IOException {
+        String text = "lorem ipsum ".repeat(5461) + "kappa sigma " + "lorem ipsum ".repeat(3000) + "omega";
+        assertThat(text.indexOf("sigma")).isGreaterThan(65536);
+        Long id = service.upload(new MockMultipartFile("file", "long.txt", "text/plain",
+                text.getBytes(StandardCharsets.UTF_8)), null, "beta").getId();
+        try {
+            assertThat(service.search("omega", List.of("beta"))).extracting(DocumentEntity::getFilename)
+                    .containsExactly("long.txt");
+            assertThat(service.search("kappa sigma", List.of("beta"))).extracting(DocumentEntity::getFilename)
+                    .containsExactly("long.txt");
+        } finally {
+            service.deleteDocument(id);
+        }
+        assertThat(jdbc.queryForObject("SELECT count(*) FROM document_text_terms WHERE doc_id = ?", Long.class, id))
+                .isZero();
+    }
+
+    /**
+     * Invalid collection names are rejected before anything is stored.
+     */
+    @Test
+    void upload_InvalidCollection_IsRejected() {
+        assertThatThrownBy(() -> upload("no spaces", "x.txt", "x ", 10))
+                .isInstanceOf(InvalidCollectionException.class);
+        assertThat(jdbc.queryForObject("SELECT count(*) FROM documents WHERE filename = 'x.txt'", Long.class)).isZero();
+    }
+
+    private static SearchRequest request(int topK) {
+        return SearchRequest.query("lorem").withTopK(topK).withSimilarityThreshold(0.0);
+    }
+
+    private static List<Double> distances(List<Document> hits) {
+        return hits.stream().map(d -> ((Number) d.getMetadata().get("distance")).doubleValue()).toList();
+    }
+
+    private long count(String table) {
+        return jdbc.queryForObject("SELECT count(*) FROM " + table, Long.class);
+    }
+
+    private Long upload(String collection, String name, String word, int chars) throws IOException {
+        byte[] bytes = word.repeat(chars / word.length() + 1).substring(0, chars).getBytes(StandardCharsets.UTF_8);
+        return service.upload(new MockMultipartFile("file", name, "text/plain", bytes), null, collection).getId();
+    }
+}
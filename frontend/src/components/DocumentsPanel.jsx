@@ -277,9 +277,9 @@ const sorted = [...baseList].sort((a, b) => {
                 <div className="docs-file-title">{d.filename}</div>
                 <div className="docs-meta">
                   <div>📅 {formatDate(d.uploadedAt)}</div>
-                  <div>📄 {approxSize(d.contentText)}</div>
+                  <div>📄 {approxSize(d.textBytes)}</div>
                 </div>
-                <div className="docs-preview">{d.contentText}</div>
+                <div className="docs-preview">{d.preview}</div>
 
                 <div className="docs-actions-row">
                   <button className="docs-btn view" onClick={() => viewPdf(d.id)}>
@@ -308,7 +308,7 @@ const sorted = [...baseList].sort((a, b) => {
                   <div className="docs-list-title">{d.filename}</div>
                   <div className="docs-list-details">
                     <div>📅 {formatDate(d.uploadedAt)}</div>
-                    <div>📄 {approxSize(d.contentText)}</div>
+                    <div>📄 {approxSize(d.textBytes)}</div>
                     <div className="docs-list-preview">{(d.description || "").slice(0, 120)}</div>
                   </div>
                 </div>
@@ -357,9 +357,8 @@ const sorted = [...baseList].sort((a, b) => {
 
 /* --- Helper UI functions below --- */
 
-function approxSize(text) {
-  if (!text) return "0 KB";
-  const bytes = new TextEncoder().encode(text).length;
+function approxSize(bytes) {
+  if (!bytes) return "0 KB";
   if (bytes < 1024) return `${bytes} B`;
   if (bytes < 1024 * 1024) return `${Math.round(bytes / 1024)} KB`;
   return `${(bytes / (1024 * 1024)).toFixed(2)} MB`;
@@ -22,7 +22,7 @@ import InsertDriveFileIcon from "@mui/icons-material/InsertDriveFile";
 import * as pdfjsLib from "pdfjs-dist/legacy/build/pdf";
 import pdfWorker from "pdfjs-dist/legacy/build/pdf.worker.min?url";
 
-import { uploadDocument, fixGrammar } from "../services/api";
+import { uploadDocument, fixGrammar, getDocumentText } from "../services/api";
 
 pdfjsLib.GlobalWorkerOptions.workerSrc = pdfWorker;
 
@@ -34,11 +34,26 @@ export default function HomePanel({ searchResults = [], searchLoading, searchDon
   const [loading, setLoading] = useState(false);
 
 
+  // Listings and search results only carry a preview; load the full text on open
+  const openDocument = async (doc) => {
+    setShowEditor(true);
+    setFileName(doc.filename);
+    setText(doc.contentText || doc.preview || "");
+    if (!doc.contentText && doc.id) {
+      try {
+        setLoading(true);
+        setText(await getDocumentText(doc.id));
+      } catch (err) {
+        console.error("Failed to load document text:", err);
+      } finally {
+        setLoading(false);
+      }
+    }
+  };
+
 useEffect(() => {
   if (openDoc) {
-    setShowEditor(true);
-    setText(openDoc.contentText);
-    setFileName(openDoc.filename);
+    openDocument(openDoc);
   }
 }, [openDoc]);
   const handlePasteClick = () => setShowEditor(true);
@@ -184,11 +199,7 @@ useEffect(() => {
                         boxShadow: 4,
                       },
                     }}
-                    onClick={() => {
-                      setShowEditor(true);
-                      setText(doc.contentText);
-                      setFileName(doc.filename);
-                    }}
+                    onClick={() => openDocument(doc)}
                   >
                     <CardContent
                       sx={{
@@ -215,7 +226,7 @@ useEffect(() => {
                             WebkitBoxOrient: "vertical",
                           }}
                         >
-                          {doc.contentText}
+                          {doc.preview}
                         </Typography>
                       </Box>
                     </CardContent>
@@ -1,5 +1,5 @@
 
-import { useState } from "react";
+import { useEffect, useState } from "react";
 import {
   AppBar,
   Toolbar,
@@ -8,12 +8,16 @@ import {
   Box,
   IconButton,
   Tabs,
-  Tab
+  Tab,
+  Paper,
+  List,
+  ListItemButton,
+  ListItemText
 } from "@mui/material";
 import SearchIcon from "@mui/icons-material/Search";
 import HomeIcon from "@mui/icons-material/Home";
 import DescriptionIcon from "@mui/icons-material/Description";
-import { searchDocuments } from "../services/api";
+import { getSuggestions, searchDocuments } from "../services/api";
 
 export default function Navbar({
   onSearchResults,
@@ -24,25 +28,59 @@ export default function Navbar({
 }) {
   const [query, setQuery] = useState("");
   const [showSearch, setShowSearch] = useState(false);
+  const [suggestions, setSuggestions] = useState([]);
 
-  const handleSearch = async (e) => {
-    if (e.key === "Enter") {
+  // Fetch completions once typing pauses; a newer keystroke discards the pending request
+  useEffect(() => {
+    if (!query.trim()) {
+      setSuggestions([]);
+      return;
+    }
+    let cancelled = false;
+    const timer = setTimeout(async () => {
       try {
-        setLoading(true);
-        setSearchDone(false);
-        if (onSearchResults) onSearchResults([]);
-        const results = await searchDocuments(query);
-        console.log("Search results:", results);
-        if (onSearchResults) onSearchResults(results);
-        setSearchDone(true);
+        const results = await getSuggestions(query);
+        if (!cancelled) setSuggestions(results);
       } catch (err) {
-        console.error("Search failed:", err);
-      } finally {
-        setLoading(false);
+        console.error("Suggestions failed:", err);
       }
+    }, 150);
+    return () => {
+      cancelled = true;
+      clearTimeout(timer);
+    };
+  }, [query]);
+
+  const runSearch = async (q) => {
+    setSuggestions([]);
+    try {
+      setLoading(true);
+      setSearchDone(false);
+      if (onSearchResults) onSearchResults([]);
+      const results = await searchDocuments(q);
+      console.log("Search results:", results);
+      if (onSearchResults) onSearchResults(results);
+      setSearchDone(true);
+    } catch (err) {
+      console.error("Search failed:", err);
+    } finally {
+      setLoading(false);
+    }
+  };
+
+  const handleSearch = (e) => {
+    if (e.key === "Enter") {
+      runSearch(query);
+    } else if (e.key === "Escape") {
+      setSuggestions([]);
     }
   };
 
+  const handleSuggestionClick = (text) => {
+    setQuery(text);
+    runSearch(text);
+  };
+
   return (
     <AppBar
       position="static"
@@ -137,6 +175,7 @@ export default function Navbar({
               sx={{
                 display: "flex",
                 alignItems: "center",
+                position: "relative",
                 backgroundColor: "rgba(255, 255, 255, 0.15)",
                 padding: "4px 12px",
                 borderRadius: 3,
@@ -159,6 +198,38 @@ export default function Navbar({
                 }}
                 autoFocus
               />
+
+              {/* Search-as-you-type suggestions */}
+              {suggestions.length > 0 && (
+                <Paper
+                  elevation={6}
+                  sx={{
+                    position: "absolute",
+                    top: "100%",
+                    left: 0,
+                    right: 0,
+                    mt: 1,
+                    zIndex: 10,
+                    maxHeight: 320,
+                    overflowY: "auto"
+                  }}
+                >
+                  <List dense disablePadding>
+                    {suggestions.map((s) => (
+                      <ListItemButton
+                        key={`${s.kind}-${s.text}`}
+                        onMouseDown={(e) => e.preventDefault()}
+                        onClick={() => handleSuggestionClick(s.text)}
+                      >
+                        <ListItemText
+                          primary={s.text}
+                          secondary={s.kind === "QUERY" ? "Popular search" : s.kind === "FILENAME" ? "File" : null}
+                        />
+                      </ListItemButton>
+                    ))}
+                  </List>
+                </Paper>
+              )}
             </Box>
           )}
         </Box>
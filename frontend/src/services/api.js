@@ -7,11 +7,12 @@ const api = axios.create({
   baseURL: API_BASE_URL,
 });
 
-// Upload a file
-export const uploadDocument = async (file, description) => {
+// Upload a file, into the default collection unless one is given
+export const uploadDocument = async (file, description, collection) => {
   const formData = new FormData();
   formData.append("file", file);
   formData.append("description", description);
+  if (collection) formData.append("collection", collection);
 
   const response = await api.post("/documents", formData, {
     headers: { "Content-Type": "multipart/form-data" },
@@ -19,9 +20,17 @@ export const uploadDocument = async (file, description) => {
   return response.data;
 };
 
-// Search documents
-export const searchDocuments = async (query) => {
-  const response = await api.get(`/search?q=${encodeURIComponent(query)}`);
+// Search documents, in all collections unless some are given
+export const searchDocuments = async (query, collections = []) => {
+  const params = { q: query };
+  if (collections.length > 0) params.collections = collections.join(",");
+  const response = await api.get("/search", { params });
+  return response.data;
+};
+
+// Fetch the collections with their document counts
+export const getCollections = async () => {
+  const response = await api.get("/collections");
   return response.data;
 };
 
@@ -46,3 +55,18 @@ export const deleteDocument = async (id) => {
   const response = await api.delete(`/documents/${id}`);
   return response.data;
 };
+
+// Fetch the extracted text of a document, or the characters [from, to) of it
+export const getDocumentText = async (id, from, to) => {
+  const params = {};
+  if (from !== undefined) params.from = from;
+  if (to !== undefined) params.to = to;
+  const response = await api.get(`/documents/${id}/text`, { params, responseType: "text" });
+  return response.data;
+};
+
+// Fetch search-as-you-type completions for the text typed so far
+export const getSuggestions = async (q, limit = 8) => {
+  const response = await api.get("/suggest", { params: { q, limit } });
+  return response.data;
+};